@@ -13,7 +13,6 @@
 package org.freedesktop.dbus;
 
 import java.lang.reflect.Array;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -101,11 +100,7 @@ public final class ArrayFrob {
         if (!o.getClass().isArray()) {
             throw new IllegalArgumentException("Not an array");
         }
-        List<T> l = new ArrayList<>(Array.getLength(o));
-        for (int i = 0; i < Array.getLength(o); i++) {
-            l.add((T) Array.get(o, i));
-        }
-        return l;
+        return PrimitiveList.of(o);
     }
 
     @SuppressWarnings("unchecked")
@@ -114,6 +109,9 @@ public final class ArrayFrob {
     }
 
     public static <T> Object delistprimitive(List<T> l, Class<T> c) throws IllegalArgumentException {
+        if (l instanceof PrimitiveList && ((PrimitiveList<T>) l).getComponentType().equals(c)) {
+            return ((PrimitiveList<T>) l).getArray();
+        }
         Object o = Array.newInstance(c, l.size());
         for (int i = 0; i < l.size(); i++) {
             Array.set(o, i, l.get(i));
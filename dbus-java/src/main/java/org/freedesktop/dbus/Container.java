@@ -12,57 +12,20 @@
 
 package org.freedesktop.dbus;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.Type;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
-
-import org.freedesktop.dbus.annotations.Position;
 
 /**
  * This class is the super class of both Structs and Tuples
  * and holds common methods.
  */
 public abstract class Container {
-    private static Map<Type, Type[]> typecache = new HashMap<Type, Type[]>();
-
-    static void putTypeCache(Type k, Type[] v) {
-        typecache.put(k, v);
-    }
-
-    static Type[] getTypeCache(Type k) {
-        return typecache.get(k);
-    }
-
     private Object[] parameters = null;
 
     Container() {
     }
 
     private void setup() {
-        Field[] fs = getClass().getDeclaredFields();
-        Object[] args = new Object[fs.length];
-
-        int diff = 0;
-        for (Field f : fs) {
-            Position p = f.getAnnotation(Position.class);
-            if (!f.isAccessible()) {
-                f.setAccessible(true);
-            }
-            
-            if (null == p) {
-                diff++;
-                continue;
-            }
-            try {
-                args[p.value()] = f.get(this);
-            } catch (IllegalAccessException exIa) {
-            }
-        }
-
-        this.parameters = new Object[args.length - diff];
-        System.arraycopy(args, 0, parameters, 0, parameters.length);
+        this.parameters = ContainerCodec.forClass(getClass()).getParameters(this);
     }
 
     /**
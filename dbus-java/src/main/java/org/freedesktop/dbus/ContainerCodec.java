@@ -0,0 +1,151 @@
+package org.freedesktop.dbus;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+
+import org.freedesktop.dbus.annotations.Position;
+
+/**
+ * Accessors for the members of a {@link Container} subclass ({@link Struct} or {@link Tuple}).
+ * <p>
+ * The fields annotated with {@link Position} and the constructors of a class are
+ * looked up only once per class. Field values are read and instances are created using
+ * {@link MethodHandle}s, so no reflection lookup is required when marshalling or demarshalling
+ * a container.
+ * </p>
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+final class ContainerCodec {
+    private static final ClassValue<ContainerCodec> CODECS         = new ClassValue<ContainerCodec>() {
+        @Override
+        protected ContainerCodec computeValue(Class<?> _type) {
+            return new ContainerCodec(_type);
+        }
+    };
+
+    private static final MethodType                 GETTER_TYPE      = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType                 CONSTRUCTOR_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    private final Type[]                            memberTypes;
+    private final MethodHandle[]                    getters;
+    private final Constructor<?>[]                  constructors;
+    private final MethodHandle[]                    constructorHandles;
+
+    /** Constructor which was used successfully the last time. */
+    private volatile MethodHandle                   lastConstructor;
+
+    private ContainerCodec(Class<?> _type) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+        Field[] fs = _type.getDeclaredFields();
+        Type[] types = new Type[fs.length];
+        MethodHandle[] handles = new MethodHandle[fs.length];
+        int count = 0;
+        for (Field f : fs) {
+            Position p = f.getAnnotation(Position.class);
+            if (null == p) {
+                continue;
+            }
+            count++;
+            types[p.value()] = f.getGenericType();
+            try {
+                f.setAccessible(true);
+                handles[p.value()] = lookup.unreflectGetter(f).asType(GETTER_TYPE);
+            } catch (IllegalAccessException _ex) {
+                // value will be null, same as before when field could not be accessed
+            }
+        }
+        memberTypes = new Type[count];
+        getters = new MethodHandle[count];
+        System.arraycopy(types, 0, memberTypes, 0, count);
+        System.arraycopy(handles, 0, getters, 0, count);
+
+        constructors = _type.getDeclaredConstructors();
+        constructorHandles = new MethodHandle[constructors.length];
+        for (int i = 0; i < constructors.length; i++) {
+            Constructor<?> con = constructors[i];
+            try {
+                con.setAccessible(true);
+                constructorHandles[i] = lookup.unreflectConstructor(con)
+                        .asSpreader(Object[].class, con.getParameterCount())
+                        .asType(CONSTRUCTOR_TYPE);
+            } catch (IllegalAccessException | RuntimeException _ex) {
+                // constructor will be used by reflection
+            }
+        }
+    }
+
+    static ContainerCodec forClass(Class<?> _type) {
+        return CODECS.get(_type);
+    }
+
+    /**
+     * Returns the generic types of all members in order of their {@link Position}.
+     *
+     * @return array of types, do not modify
+     */
+    Type[] getMemberTypes() {
+        return memberTypes;
+    }
+
+    /**
+     * Reads the values of all members in order of their {@link Position}.
+     *
+     * @param _container container to read
+     * @return array of values
+     */
+    Object[] getParameters(Container _container) {
+        Object[] values = new Object[getters.length];
+        for (int i = 0; i < getters.length; i++) {
+            if (null != getters[i]) {
+                try {
+                    values[i] = (Object) getters[i].invokeExact((Object) _container);
+                } catch (Throwable _ex) {
+                    throw new IllegalStateException("Unable to read member " + i + " of " + _container.getClass().getName(), _ex);
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Creates a new instance using the first constructor which accepts the given values.
+     *
+     * @param _values constructor arguments
+     * @return new instance or null if no constructor accepts the given values
+     * @throws Exception if constructor fails
+     */
+    Object newInstance(Object[] _values) throws Exception {
+        MethodHandle mh = lastConstructor;
+        if (null != mh) {
+            try {
+                return (Object) mh.invokeExact(_values);
+            } catch (ClassCastException | IllegalArgumentException | NullPointerException | WrongMethodTypeException _ex) {
+                // arguments do not match, search for a different constructor below
+            } catch (Exception | Error _ex) {
+                throw _ex;
+            } catch (Throwable _ex) {
+                throw new IllegalStateException(_ex);
+            }
+        }
+
+        for (int i = 0; i < constructors.length; i++) {
+            try {
+                Object o = constructors[i].newInstance(_values);
+                if (null != constructorHandles[i]) {
+                    lastConstructor = constructorHandles[i];
+                }
+                return o;
+            } catch (IllegalArgumentException _ex) {
+                // try next constructor
+            }
+        }
+        return null;
+    }
+}
@@ -13,8 +13,6 @@
 package org.freedesktop.dbus;
 
 import java.lang.reflect.Array;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
 import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
@@ -26,9 +24,9 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
-import org.freedesktop.dbus.annotations.Position;
 import org.freedesktop.dbus.connections.AbstractConnection;
 import org.freedesktop.dbus.exceptions.DBusException;
 import org.freedesktop.dbus.interfaces.DBusInterface;
@@ -98,6 +96,30 @@ public final class Marshalling {
     private Marshalling() {
     }
 
+    /**
+    * Returns the type of the value returned by the given method.
+    * For methods returning a {@link CompletableFuture} this is the type the future is completed with,
+    * {@link Void#TYPE} if it is completed without a value.
+    * @param _method The method.
+    * @return The type of the returned value.
+    */
+    public static Type getReturnValueType(Method _method) {
+        Type type = _method.getGenericReturnType();
+        if (!CompletableFuture.class.equals(_method.getReturnType())) {
+            return type;
+        }
+        if (type instanceof ParameterizedType) {
+            Type valueType = ((ParameterizedType) type).getActualTypeArguments()[0];
+            if (Void.class.equals(valueType)) {
+                return Void.TYPE;
+            }
+            if (valueType instanceof Class || valueType instanceof ParameterizedType) {
+                return valueType;
+            }
+        }
+        return Object.class;
+    }
+
     /**
     * Will return the DBus type corresponding to the given Java type.
     * Note, container type should have their ParameterizedType not their
@@ -174,19 +196,11 @@ public final class Marshalling {
             _out[_level].append(s[0]);
         } else if ((_dataType instanceof Class<?> && DBusSerializable.class.isAssignableFrom((Class<?>) _dataType)) || (_dataType instanceof ParameterizedType && DBusSerializable.class.isAssignableFrom((Class<?>) ((ParameterizedType) _dataType).getRawType()))) {
             // it's a custom serializable type
-            Type[] newtypes = null;
+            Type[] newtypes;
             if (_dataType instanceof Class) {
-                for (Method m : ((Class<?>) _dataType).getDeclaredMethods()) {
-                    if (m.getName().equals("deserialize")) {
-                        newtypes = m.getGenericParameterTypes();
-                    }
-                }
+                newtypes = SerializableCodec.forClass((Class<?>) _dataType).getGenericParameterTypes();
             } else {
-                for (Method m : ((Class<?>) ((ParameterizedType) _dataType).getRawType()).getDeclaredMethods()) {
-                    if (m.getName().equals("deserialize")) {
-                        newtypes = m.getGenericParameterTypes();
-                    }
-                }
+                newtypes = SerializableCodec.forClass((Class<?>) ((ParameterizedType) _dataType).getRawType()).getGenericParameterTypes();
             }
 
             if (null == newtypes) {
@@ -268,19 +282,7 @@ public final class Marshalling {
                 }
             } else if (Struct.class.isAssignableFrom((Class<?>) _dataType)) {
                 _out[_level].append((char) Message.ArgumentType.STRUCT1);
-                Type[] ts = Container.getTypeCache(_dataType);
-                if (null == ts) {
-                    Field[] fs = ((Class<?>) _dataType).getDeclaredFields();
-                    ts = new Type[fs.length];
-                    for (Field f : fs) {
-                        Position p = f.getAnnotation(Position.class);
-                        if (null == p) {
-                            continue;
-                        }
-                        ts[p.value()] = f.getGenericType();
-                    }
-                    Container.putTypeCache(_dataType, ts);
-                }
+                Type[] ts = ContainerCodec.forClass(dataTypeClazz).getMemberTypes();
 
                 for (Type t : ts) {
                     if (t != null) {
@@ -440,21 +442,19 @@ public final class Marshalling {
             LOGGER.trace("Converting {} from {} to {}", i, _parameters[i], _types[i]);
 
             if (_parameters[i] instanceof DBusSerializable) {
-                for (Method m : _parameters[i].getClass().getDeclaredMethods()) {
-                    if (m.getName().equals("deserialize")) {
-                        Type[] newtypes = m.getParameterTypes();
-                        Type[] expand = new Type[_types.length + newtypes.length - 1];
-                        System.arraycopy(_types, 0, expand, 0, i);
-                        System.arraycopy(newtypes, 0, expand, i, newtypes.length);
-                        System.arraycopy(_types, i + 1, expand, i + newtypes.length, _types.length - i - 1);
-                        _types = expand;
-                        Object[] newparams = ((DBusSerializable) _parameters[i]).serialize();
-                        Object[] exparams = new Object[_parameters.length + newparams.length - 1];
-                        System.arraycopy(_parameters, 0, exparams, 0, i);
-                        System.arraycopy(newparams, 0, exparams, i, newparams.length);
-                        System.arraycopy(_parameters, i + 1, exparams, i + newparams.length, _parameters.length - i - 1);
-                        _parameters = exparams;
-                    }
+                Type[] newtypes = SerializableCodec.forClass(_parameters[i].getClass()).getParameterTypes();
+                if (null != newtypes) {
+                    Type[] expand = new Type[_types.length + newtypes.length - 1];
+                    System.arraycopy(_types, 0, expand, 0, i);
+                    System.arraycopy(newtypes, 0, expand, i, newtypes.length);
+                    System.arraycopy(_types, i + 1, expand, i + newtypes.length, _types.length - i - 1);
+                    _types = expand;
+                    Object[] newparams = ((DBusSerializable) _parameters[i]).serialize();
+                    Object[] exparams = new Object[_parameters.length + newparams.length - 1];
+                    System.arraycopy(_parameters, 0, exparams, 0, i);
+                    System.arraycopy(newparams, 0, exparams, i, newparams.length);
+                    System.arraycopy(_parameters, i + 1, exparams, i + newparams.length, _parameters.length - i - 1);
+                    _parameters = exparams;
                 }
                 i--;
             } else if (_parameters[i] instanceof Tuple) {
@@ -511,28 +511,13 @@ public final class Marshalling {
         // it should be a struct. create it
         if (_parameter instanceof Object[] && _type instanceof Class && Struct.class.isAssignableFrom((Class<?>) _type)) {
             LOGGER.trace("Creating Struct {} from {}", _type, _parameter);
-            Type[] ts = Container.getTypeCache(_type);
-            if (null == ts) {
-                Field[] fs = ((Class<?>) _type).getDeclaredFields();
-                ts = new Type[fs.length];
-                for (Field f : fs) {
-                    Position p = f.getAnnotation(Position.class);
-                    if (null == p) {
-                        continue;
-                    }
-                    ts[p.value()] = f.getGenericType();
-                }
-                Container.putTypeCache(_type, ts);
-            }
+            ContainerCodec codec = ContainerCodec.forClass((Class<?>) _type);
 
             // recurse over struct contents
-            _parameter = deSerializeParameters((Object[]) _parameter, ts, _conn);
-            for (Constructor<?> con : ((Class<?>) _type).getDeclaredConstructors()) {
-                try {
-                    _parameter = con.newInstance((Object[]) _parameter);
-                    break;
-                } catch (IllegalArgumentException exIa) {
-                }
+            _parameter = deSerializeParameters((Object[]) _parameter, codec.getMemberTypes(), _conn);
+            Object struct = codec.newInstance((Object[]) _parameter);
+            if (null != struct) {
+                _parameter = struct;
             }
         }
 
@@ -618,6 +603,15 @@ public final class Marshalling {
         if (null == _parameters) {
             return null;
         }
+        if (_parameters instanceof PrimitiveList) {
+            Class<?> componentType = ((PrimitiveList<?>) _parameters).getComponentType();
+            if (componentType.equals(_type) || ArrayFrob.getPrimitiveToWrapperTypes().get(componentType).equals(_type)) {
+                // values are already of the requested type, no need to box every element
+                return _parameters;
+            }
+            // elements will be replaced by values of a different type
+            _parameters = new ArrayList<>(_parameters);
+        }
         for (int i = 0; i < _parameters.size(); i++) {
             if (null == _parameters.get(i)) {
                 continue;
@@ -662,24 +656,22 @@ public final class Marshalling {
                 } else {
                     dsc = (Class<? extends DBusSerializable>) ((ParameterizedType) _types[i]).getRawType();
                 }
-                for (Method m : dsc.getDeclaredMethods()) {
-                    if (m.getName().equals("deserialize")) {
-                        Type[] newtypes = m.getGenericParameterTypes();
-                        try {
-                            Object[] sub = new Object[newtypes.length];
-                            System.arraycopy(_parameters, i, sub, 0, newtypes.length);
-                            sub = deSerializeParameters(sub, newtypes, _conn);
-                            DBusSerializable sz = dsc.getDeclaredConstructor().newInstance();
-                            m.invoke(sz, sub);
-                            Object[] compress = new Object[_parameters.length - newtypes.length + 1];
-                            System.arraycopy(_parameters, 0, compress, 0, i);
-                            compress[i] = sz;
-                            System.arraycopy(_parameters, i + newtypes.length, compress, i + 1, _parameters.length - i - newtypes.length);
-                            _parameters = compress;
-                        } catch (ArrayIndexOutOfBoundsException _ex) {
-                            LOGGER.debug("", _ex);
-                            throw new DBusException(String.format("Not enough elements to create custom object from serialized data (%s < %s).", _parameters.length - i, newtypes.length));
-                        }
+                SerializableCodec codec = SerializableCodec.forClass(dsc);
+                Type[] newtypes = codec.getGenericParameterTypes();
+                if (null != newtypes) {
+                    try {
+                        Object[] sub = new Object[newtypes.length];
+                        System.arraycopy(_parameters, i, sub, 0, newtypes.length);
+                        sub = deSerializeParameters(sub, newtypes, _conn);
+                        DBusSerializable sz = codec.deserialize(sub);
+                        Object[] compress = new Object[_parameters.length - newtypes.length + 1];
+                        System.arraycopy(_parameters, 0, compress, 0, i);
+                        compress[i] = sz;
+                        System.arraycopy(_parameters, i + newtypes.length, compress, i + 1, _parameters.length - i - newtypes.length);
+                        _parameters = compress;
+                    } catch (ArrayIndexOutOfBoundsException _ex) {
+                        LOGGER.debug("", _ex);
+                        throw new DBusException(String.format("Not enough elements to create custom object from serialized data (%s < %s).", _parameters.length - i, newtypes.length));
                     }
                 }
             } else {
@@ -0,0 +1,308 @@
+package org.freedesktop.dbus;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Fixed size {@link java.util.List} view backed by a primitive array.
+ * <p>
+ * Used for arrays of primitive types which are contained in structs, maps, variants or other arrays.
+ * The values are only boxed when they are accessed by {@link #get(int)}, the backing array can
+ * be retrieved with {@link #getArray()} without copying.
+ * Like {@link java.util.Arrays#asList(Object...)} the list can be modified by {@link #set(int, Object)},
+ * changes are written through to the backing array.
+ * </p>
+ *
+ * @param <T> wrapper type of the array component type
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+public abstract class PrimitiveList<T> extends AbstractList<T> implements RandomAccess {
+
+    private PrimitiveList() {
+    }
+
+    /**
+     * Creates a list view for the given primitive array.
+     *
+     * @param <T> wrapper type of the array component type
+     * @param _array primitive array
+     * @return list backed by the given array
+     * @throws IllegalArgumentException if given object is not an array of primitives
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> PrimitiveList<T> of(Object _array) throws IllegalArgumentException {
+        if (_array instanceof int[]) {
+            return (PrimitiveList<T>) new IntList((int[]) _array);
+        } else if (_array instanceof long[]) {
+            return (PrimitiveList<T>) new LongList((long[]) _array);
+        } else if (_array instanceof double[]) {
+            return (PrimitiveList<T>) new DoubleList((double[]) _array);
+        } else if (_array instanceof byte[]) {
+            return (PrimitiveList<T>) new ByteList((byte[]) _array);
+        } else if (_array instanceof short[]) {
+            return (PrimitiveList<T>) new ShortList((short[]) _array);
+        } else if (_array instanceof boolean[]) {
+            return (PrimitiveList<T>) new BooleanList((boolean[]) _array);
+        } else if (_array instanceof float[]) {
+            return (PrimitiveList<T>) new FloatList((float[]) _array);
+        } else if (_array instanceof char[]) {
+            return (PrimitiveList<T>) new CharList((char[]) _array);
+        }
+        throw new IllegalArgumentException("Not a primitive array: " + (null == _array ? null : _array.getClass()));
+    }
+
+    /**
+     * Returns the backing array.
+     * @return primitive array, changes are visible in this list
+     */
+    public abstract Object getArray();
+
+    /**
+     * Returns the primitive component type of the backing array.
+     * @return primitive class (e.g. {@link Integer#TYPE})
+     */
+    public Class<?> getComponentType() {
+        return getArray().getClass().getComponentType();
+    }
+
+    private static final class IntList extends PrimitiveList<Integer> {
+        private final int[] array;
+
+        IntList(int[] _array) {
+            array = _array;
+        }
+
+        @Override
+        public Integer get(int _index) {
+            return array[_index];
+        }
+
+        @Override
+        public Integer set(int _index, Integer _element) {
+            int old = array[_index];
+            array[_index] = _element;
+            return old;
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+
+        @Override
+        public Object getArray() {
+            return array;
+        }
+    }
+
+    private static final class LongList extends PrimitiveList<Long> {
+        private final long[] array;
+
+        LongList(long[] _array) {
+            array = _array;
+        }
+
+        @Override
+        public Long get(int _index) {
+            return array[_index];
+        }
+
+        @Override
+        public Long set(int _index, Long _element) {
+            long old = array[_index];
+            array[_index] = _element;
+            return old;
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+
+        @Override
+        public Object getArray() {
+            return array;
+        }
+    }
+
+    private static final class DoubleList extends PrimitiveList<Double> {
+        private final double[] array;
+
+        DoubleList(double[] _array) {
+            array = _array;
+        }
+
+        @Override
+        public Double get(int _index) {
+            return array[_index];
+        }
+
+        @Override
+        public Double set(int _index, Double _element) {
+            double old = array[_index];
+            array[_index] = _element;
+            return old;
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+
+        @Override
+        public Object getArray() {
+            return array;
+        }
+    }
+
+    private static final class ByteList extends PrimitiveList<Byte> {
+        private final byte[] array;
+
+        ByteList(byte[] _array) {
+            array = _array;
+        }
+
+        @Override
+        public Byte get(int _index) {
+            return array[_index];
+        }
+
+        @Override
+        public Byte set(int _index, Byte _element) {
+            byte old = array[_index];
+            array[_index] = _element;
+            return old;
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+
+        @Override
+        public Object getArray() {
+            return array;
+        }
+    }
+
+    private static final class ShortList extends PrimitiveList<Short> {
+        private final short[] array;
+
+        ShortList(short[] _array) {
+            array = _array;
+        }
+
+        @Override
+        public Short get(int _index) {
+            return array[_index];
+        }
+
+        @Override
+        public Short set(int _index, Short _element) {
+            short old = array[_index];
+            array[_index] = _element;
+            return old;
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+
+        @Override
+        public Object getArray() {
+            return array;
+        }
+    }
+
+    private static final class BooleanList extends PrimitiveList<Boolean> {
+        private final boolean[] array;
+
+        BooleanList(boolean[] _array) {
+            array = _array;
+        }
+
+        @Override
+        public Boolean get(int _index) {
+            return array[_index];
+        }
+
+        @Override
+        public Boolean set(int _index, Boolean _element) {
+            boolean old = array[_index];
+            array[_index] = _element;
+            return old;
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+
+        @Override
+        public Object getArray() {
+            return array;
+        }
+    }
+
+    private static final class FloatList extends PrimitiveList<Float> {
+        private final float[] array;
+
+        FloatList(float[] _array) {
+            array = _array;
+        }
+
+        @Override
+        public Float get(int _index) {
+            return array[_index];
+        }
+
+        @Override
+        public Float set(int _index, Float _element) {
+            float old = array[_index];
+            array[_index] = _element;
+            return old;
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+
+        @Override
+        public Object getArray() {
+            return array;
+        }
+    }
+
+    private static final class CharList extends PrimitiveList<Character> {
+        private final char[] array;
+
+        CharList(char[] _array) {
+            array = _array;
+        }
+
+        @Override
+        public Character get(int _index) {
+            return array[_index];
+        }
+
+        @Override
+        public Character set(int _index, Character _element) {
+            char old = array[_index];
+            array[_index] = _element;
+            return old;
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+
+        @Override
+        public Object getArray() {
+            return array;
+        }
+    }
+}
@@ -15,12 +15,15 @@ package org.freedesktop.dbus;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
+import java.util.concurrent.CompletableFuture;
 
 import org.freedesktop.dbus.annotations.DBusInterfaceName;
 import org.freedesktop.dbus.annotations.DBusMemberName;
 import org.freedesktop.dbus.annotations.MethodNoReply;
+import org.freedesktop.dbus.annotations.MethodTimeout;
 import org.freedesktop.dbus.connections.AbstractConnection;
 import org.freedesktop.dbus.errors.Error;
 import org.freedesktop.dbus.errors.NoReply;
@@ -39,6 +42,7 @@ public class RemoteInvocationHandler implements InvocationHandler {
     public static final int CALL_TYPE_SYNC     = 0;
     public static final int CALL_TYPE_ASYNC    = 1;
     public static final int CALL_TYPE_CALLBACK = 2;
+    public static final int CALL_TYPE_FUTURE   = 3;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RemoteInvocationHandler.class);
 
@@ -46,6 +50,13 @@ public class RemoteInvocationHandler implements InvocationHandler {
 
     public static Object convertRV(String sig, Object[] rp, Method m, AbstractConnection conn) throws DBusException {
         Class<? extends Object> c = m.getReturnType();
+        Type genericReturnType = m.getGenericReturnType();
+
+        // methods returning a future are converted to the type the future is completed with
+        if (CompletableFuture.class.equals(c)) {
+            genericReturnType = Marshalling.getReturnValueType(m);
+            c = getRawClass(genericReturnType);
+        }
 
         if (null == rp) {
             if (null == c || Void.TYPE.equals(c)) {
@@ -55,9 +66,9 @@ public class RemoteInvocationHandler implements InvocationHandler {
             }
         } else {
             try {
-                LOGGER.trace("Converting return parameters from {} to type {}",LoggingHelper.arraysDeepString(LOGGER.isTraceEnabled(), rp), m.getGenericReturnType());
+                LOGGER.trace("Converting return parameters from {} to type {}",LoggingHelper.arraysDeepString(LOGGER.isTraceEnabled(), rp), genericReturnType);
                 rp = Marshalling.deSerializeParameters(rp, new Type[] {
-                        m.getGenericReturnType()
+                        genericReturnType
                 }, conn);
             } catch (Exception e) {
                 LOGGER.debug("Wrong return type.", e);
@@ -91,7 +102,27 @@ public class RemoteInvocationHandler implements InvocationHandler {
         }
     }
 
-    public static Object executeRemoteMethod(RemoteObject ro, Method m, AbstractConnection conn, int syncmethod, CallbackHandler<?> callback, Object... args) throws DBusException {
+    private static Class<?> getRawClass(Type _type) {
+        if (_type instanceof Class) {
+            return (Class<?>) _type;
+        } else if (_type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) _type).getRawType();
+        }
+        return Object.class;
+    }
+
+    /**
+     * Creates the method call message for a call of the given remote method.
+     *
+     * @param ro remote object
+     * @param m method called on the remote object
+     * @param conn connection
+     * @param syncmethod one of the CALL_TYPE constants
+     * @param args arguments
+     * @return method call, not sent yet
+     * @throws DBusException when the call could not be created
+     */
+    public static MethodCall createMethodCall(RemoteObject ro, Method m, AbstractConnection conn, int syncmethod, Object... args) throws DBusException {
         Type[] ts = m.getGenericParameterTypes();
         String sig = null;
         if (ts.length > 0) {
@@ -133,6 +164,14 @@ public class RemoteInvocationHandler implements InvocationHandler {
             LOGGER.debug("Failed to construct outgoing method call.", dbe);
             throw new DBusExecutionException("Failed to construct outgoing method call: " + dbe.getMessage());
         }
+        if (m.isAnnotationPresent(MethodTimeout.class)) {
+            call.setTimeout(m.getAnnotation(MethodTimeout.class).value());
+        }
+        return call;
+    }
+
+    public static Object executeRemoteMethod(RemoteObject ro, Method m, AbstractConnection conn, int syncmethod, CallbackHandler<?> callback, Object... args) throws DBusException {
+        MethodCall call = createMethodCall(ro, m, conn, syncmethod, args);
         if (!conn.isConnected()) {
             throw new NotConnected("Not Connected");
         }
@@ -145,6 +184,14 @@ public class RemoteInvocationHandler implements InvocationHandler {
                 conn.queueCallback(call, m, callback);
                 conn.sendMessage(call);
                 return null;
+            case CALL_TYPE_FUTURE:
+                if (m.isAnnotationPresent(MethodNoReply.class)) {
+                    conn.sendMessage(call);
+                    return CompletableFuture.completedFuture(null);
+                }
+                CompletableFuture<Object> future = conn.queueFuture(call, m);
+                conn.sendMessage(call);
+                return future;
             case CALL_TYPE_SYNC:
                 conn.sendMessage(call);
                 break;
@@ -155,7 +202,8 @@ public class RemoteInvocationHandler implements InvocationHandler {
             return null;
         }
 
-        Message reply = call.getReply();
+        // the connection completes the call with a NoReply error when the timeout expires, waiting longer is only a safeguard
+        Message reply = call.getReply(conn.getReplyTimeout(call) + 1000);
         if (null == reply) {
             throw new NoReply("No reply within specified time");
         }
@@ -225,6 +273,9 @@ public class RemoteInvocationHandler implements InvocationHandler {
             return remote.toString();
         }
 
+        if (CompletableFuture.class.equals(method.getReturnType())) {
+            return executeRemoteMethod(remote, method, conn, CALL_TYPE_FUTURE, null, args);
+        }
         return executeRemoteMethod(remote, method, conn, CALL_TYPE_SYNC, null, args);
     }
 }
@@ -0,0 +1,121 @@
+package org.freedesktop.dbus;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+
+import org.freedesktop.dbus.interfaces.DBusSerializable;
+
+/**
+ * Accessors for {@link DBusSerializable} implementations.
+ * <p>
+ * The {@code deserialize} method and the default constructor are looked up once per class
+ * and invoked using {@link MethodHandle}s.
+ * If a class declares more than one {@code deserialize} method, the last one returned
+ * by {@link Class#getDeclaredMethods()} is used.
+ * </p>
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+final class SerializableCodec {
+    private static final ClassValue<SerializableCodec> CODECS = new ClassValue<SerializableCodec>() {
+        @Override
+        protected SerializableCodec computeValue(Class<?> _type) {
+            return new SerializableCodec(_type);
+        }
+    };
+
+    private final Class<?>     type;
+    private final Type[]       genericParameterTypes;
+    private final Class<?>[]   parameterTypes;
+    private final MethodHandle deserializer;
+    private final MethodHandle constructor;
+
+    private SerializableCodec(Class<?> _type) {
+        type = _type;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+        Method deserialize = null;
+        for (Method m : _type.getDeclaredMethods()) {
+            if (m.getName().equals("deserialize")) {
+                deserialize = m;
+            }
+        }
+
+        MethodHandle handle = null;
+        if (null != deserialize) {
+            genericParameterTypes = deserialize.getGenericParameterTypes();
+            parameterTypes = deserialize.getParameterTypes();
+            try {
+                deserialize.setAccessible(true);
+                handle = lookup.unreflect(deserialize)
+                        .asSpreader(Object[].class, parameterTypes.length)
+                        .asType(MethodType.methodType(void.class, Object.class, Object[].class));
+            } catch (IllegalAccessException | RuntimeException _ex) {
+                throw new IllegalArgumentException("Unable to access deserialize method of " + _type.getName(), _ex);
+            }
+        } else {
+            genericParameterTypes = null;
+            parameterTypes = null;
+        }
+        deserializer = handle;
+
+        MethodHandle con = null;
+        try {
+            Constructor<?> c = _type.getDeclaredConstructor();
+            c.setAccessible(true);
+            con = lookup.unreflectConstructor(c).asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException | RuntimeException _ex) {
+            // no usable default constructor, reported when trying to create an instance
+        }
+        constructor = con;
+    }
+
+    static SerializableCodec forClass(Class<?> _type) {
+        return CODECS.get(_type);
+    }
+
+    /**
+     * Generic parameter types of the deserialize method.
+     * @return array of types or null if class has no deserialize method, do not modify
+     */
+    Type[] getGenericParameterTypes() {
+        return genericParameterTypes;
+    }
+
+    /**
+     * Parameter types of the deserialize method.
+     * @return array of classes or null if class has no deserialize method, do not modify
+     */
+    Class<?>[] getParameterTypes() {
+        return parameterTypes;
+    }
+
+    /**
+     * Creates a new instance using the default constructor and calls deserialize with the given values.
+     *
+     * @param _values arguments for deserialize
+     * @return new instance
+     * @throws Exception if instance could not be created or deserialize fails
+     */
+    DBusSerializable deserialize(Object[] _values) throws Exception {
+        if (null == constructor) {
+            throw new NoSuchMethodException(type.getName() + ".<init>()");
+        }
+        if (null == deserializer) {
+            throw new NoSuchMethodException(type.getName() + ".deserialize()");
+        }
+        try {
+            Object instance = (Object) constructor.invokeExact();
+            deserializer.invokeExact(instance, _values);
+            return (DBusSerializable) instance;
+        } catch (Exception | Error _ex) {
+            throw _ex;
+        } catch (Throwable _ex) {
+            throw new IllegalStateException(_ex);
+        }
+    }
+}
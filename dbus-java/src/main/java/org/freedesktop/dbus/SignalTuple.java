@@ -28,6 +28,22 @@ public class SignalTuple {
         this.source = _source;
     }
 
+    public String getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getObject() {
+        return object;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (!(o instanceof SignalTuple)) {
@@ -0,0 +1,23 @@
+package org.freedesktop.dbus.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an exported method or a signal handler class as non-blocking.
+ * <p>
+ * Calls to annotated methods and signals for annotated handlers are handled directly on the thread
+ * reading messages, without being queued for a worker thread. The handler must return quickly and
+ * must not wait for replies on the same connection, which can only be read after it returned.
+ * Handlers running longer than the time limit of the connection are reported and handled on worker threads
+ * from then on.
+ * </p>
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface InlineHandler {
+}
@@ -0,0 +1,22 @@
+package org.freedesktop.dbus.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Sets the time to wait for the reply of calls to the annotated remote method,
+ * overriding the reply timeout of the connection.
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MethodTimeout {
+    /**
+     * Timeout in milliseconds.
+     * @return timeout
+     */
+    long value();
+}
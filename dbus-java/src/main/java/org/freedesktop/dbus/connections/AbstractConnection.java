@@ -19,25 +19,26 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 import java.util.regex.Pattern;
 
 import org.freedesktop.dbus.DBusAsyncReply;
@@ -49,6 +50,7 @@ import org.freedesktop.dbus.MethodTuple;
 import org.freedesktop.dbus.RemoteInvocationHandler;
 import org.freedesktop.dbus.RemoteObject;
 import org.freedesktop.dbus.SignalTuple;
+import org.freedesktop.dbus.annotations.InlineHandler;
 import org.freedesktop.dbus.connections.transports.AbstractTransport;
 import org.freedesktop.dbus.connections.transports.TransportFactory;
 import org.freedesktop.dbus.errors.Error;
@@ -61,6 +63,8 @@ import org.freedesktop.dbus.exceptions.NotConnected;
 import org.freedesktop.dbus.interfaces.CallbackHandler;
 import org.freedesktop.dbus.interfaces.DBusInterface;
 import org.freedesktop.dbus.interfaces.DBusSigHandler;
+import org.freedesktop.dbus.interfaces.InlineSigHandler;
+import org.freedesktop.dbus.interfaces.SignalFlow;
 import org.freedesktop.dbus.messages.DBusSignal;
 import org.freedesktop.dbus.messages.ExportedObject;
 import org.freedesktop.dbus.messages.Message;
@@ -71,8 +75,6 @@ import org.freedesktop.dbus.utils.LoggingHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.github.hypfvieh.threads.NameableThreadFactory;
-
 /**
  * Handles a connection to DBus.
  */
@@ -80,13 +82,22 @@ public abstract class AbstractConnection implements Closeable {
 
     private static final Map<Thread, DBusCallInfo> INFOMAP     = new ConcurrentHashMap<>();
     /**
-     * Default thread pool size
+     * Default minimum thread pool size
+     */
+    private static final int         MIN_THREADCOUNT = 1;
+    /**
+     * Default maximum thread pool size
      */
-    private static final int         THREADCOUNT = 4;
+    private static final int         MAX_THREADCOUNT = 16;
     /**
      * Connect timeout, used for TCP only
      */
     public static final int          TCP_CONNECT_TIMEOUT     = 100000;
+    /**
+     * System property to run method call and signal handlers on virtual threads instead of the worker pool.
+     * Ignored if the JVM does not support virtual threads (Java 21 and later).
+     */
+    public static final String       VIRTUAL_THREADS_PROPERTY = "dbus.java.virtualthreads";
 
     /** Lame method to setup endianness used on DBus messages */
     private static byte              endianness       = getSystemEndianness();
@@ -100,6 +111,14 @@ public abstract class AbstractConnection implements Closeable {
     public static final int          MAX_ARRAY_LENGTH = 67108864;
     public static final int          MAX_NAME_LENGTH  = 255;
 
+    /** Accuracy of reply timeouts in milliseconds. */
+    private static final long        REPLY_TIMEOUT_TICK            = 100;
+    private static final int         REPLY_TIMEOUT_TICKS_PER_WHEEL = 512;
+    /** Number of outgoing messages which can be queued before senders are blocked. */
+    private static final int         OUTBOUND_QUEUE_CAPACITY       = 1024;
+    /** Bus name of the message bus, signals sent by it can be handled with priority. */
+    private static final String      BUS_NAME                      = "org.freedesktop.DBus";
+
     private final Logger        logger = LoggerFactory.getLogger(getClass());
 
     private final ObjectTree                                                    objectTree;
@@ -115,24 +134,45 @@ public abstract class AbstractConnection implements Closeable {
 
     private final Map<SignalTuple, Queue<DBusSigHandler<? extends DBusSignal>>> handledSignals;
     private final Map<SignalTuple, Queue<DBusSigHandler<DBusSignal>>>           genericHandledSignals;
-    private final Map<Long, MethodCall>                                         pendingCalls;
+    // snapshots of the handled signals used for routing, replaced when handlers change
+    private final Object                                                        signalIndexLock      = new Object();
+    private volatile SignalRoutingIndex                                         signalIndex          = SignalRoutingIndex.EMPTY;
+    private volatile SignalRoutingIndex                                         genericSignalIndex   = SignalRoutingIndex.EMPTY;
+    private final BiConsumer<DBusSignal, Object[]>                              signalDispatcher     =
+            (s, h) -> dispatchSignal(s, h, true);
+    private final BiConsumer<DBusSignal, Object[]>                              genericSignalDispatcher =
+            (s, h) -> dispatchGenericSignal(s, h, true);
+    private final BiConsumer<DBusSigHandler<DBusSignal>, DBusSignal>           signalHandlerInvoker =
+            this::runSignalHandler;
+    private final BiConsumer<DBusSigHandler<DBusSignal>, DBusSignal>           genericSignalHandlerInvoker =
+            DBusSigHandler::handle;
+    private final InlineHandlerGuard                                            inlineHandlerGuard   = new InlineHandlerGuard(this);
+    // subscriptions of signal publishers, completed on disconnect
+    private final Set<SignalPublisher<?>.SignalSubscription>                    signalSubscriptions  = ConcurrentHashMap.newKeySet();
+    private final PendingCallTable                                              pendingCalls;
+    private final AtomicLong                                                    serialCounter        = new AtomicLong();
+    private final ReplyTimeoutWheel                                             replyTimeoutWheel;
+    private volatile long                                                       replyTimeout;
 
     private final IncomingMessageThread                                         readerThread;
-    // private final SenderThread senderThread;
+    // either the sender thread or the event loop channel is used
+    private SenderThread                                                        senderThread;
+    private EventLoopChannel                                                    eventLoopChannel;
 
     private final BusAddress                                                    busAddress;
 
-    private final ExecutorService                                               senderService;
-
     private volatile boolean                                                    run;
 
     private boolean                                                             weakreferences       = false;
     private boolean                                                             connected            = false;
 
     private AbstractTransport                                                   transport;
-    private volatile ThreadPoolExecutor                                         workerThreadPool;
-    private final ReadWriteLock                                                 workerThreadPoolLock =
-            new ReentrantReadWriteLock();
+    private final DispatchLane                                                  replyLane;
+    private final DispatchLane                                                  methodCallLane;
+    private final DispatchLane                                                  signalLane;
+    private final DispatchLane                                                  busSignalLane;
+    private volatile boolean                                                    busSignalPriority;
+    private volatile DispatchOrdering                                           dispatchOrdering     = DispatchOrdering.NONE;
 
     protected AbstractConnection(String address, int timeout) throws DBusException {
         exportedObjects = new HashMap<>();
@@ -142,15 +182,21 @@ public abstract class AbstractConnection implements Closeable {
 
         handledSignals = new ConcurrentHashMap<>();
         genericHandledSignals = new ConcurrentHashMap<>();
-        pendingCalls = Collections.synchronizedMap(new LinkedHashMap<>());
+        pendingCalls = new PendingCallTable();
         callbackManager = new PendingCallbackManager();
+        replyTimeoutWheel = new ReplyTimeoutWheel("DBus Reply Timeout Thread", REPLY_TIMEOUT_TICK, REPLY_TIMEOUT_TICKS_PER_WHEEL,
+                this::expirePendingCall);
 
         pendingErrorQueue = new ConcurrentLinkedQueue<>();
-        workerThreadPool = (ThreadPoolExecutor) Executors.newFixedThreadPool(THREADCOUNT,
-                        new NameableThreadFactory("DBus Worker Thread-", false));
-
-        senderService =
-                Executors.newFixedThreadPool(1, new NameableThreadFactory("DBus Sender Thread-", false));
+        boolean virtualThreads = Boolean.getBoolean(VIRTUAL_THREADS_PROPERTY);
+        if (virtualThreads && !VirtualThreadSupport.isAvailable()) {
+            logger.info("Virtual threads are not supported by this JVM, using {} - {} worker threads", MIN_THREADCOUNT, MAX_THREADCOUNT);
+            virtualThreads = false;
+        }
+        replyLane = new DispatchLane("Reply callback", "DBus Callback Thread-", MIN_THREADCOUNT, MAX_THREADCOUNT, virtualThreads);
+        methodCallLane = new DispatchLane("Method call", "DBus Worker Thread-", MIN_THREADCOUNT, MAX_THREADCOUNT, virtualThreads);
+        signalLane = new DispatchLane("Signal", "DBus Signal Thread-", MIN_THREADCOUNT, MAX_THREADCOUNT, virtualThreads);
+        busSignalLane = new DispatchLane("Bus signal", "DBus Bus Signal Thread-", 1, 1, false);
 
         objectTree = new ObjectTree();
         fallbackContainer = new FallbackContainer();
@@ -161,6 +207,7 @@ public abstract class AbstractConnection implements Closeable {
             busAddress = new BusAddress(address);
             transport = TransportFactory.createTransport(busAddress, timeout);
             connected = true;
+            startSending();
         } catch (IOException | DBusException _ex) {
             logger.debug("Error creating transport", _ex);
             disconnect();
@@ -216,41 +263,273 @@ public abstract class AbstractConnection implements Closeable {
      */
     protected abstract void addGenericSigHandler(DBusMatchRule _rule, DBusSigHandler<DBusSignal> _handler) throws DBusException;
 
+    Set<SignalPublisher<?>.SignalSubscription> getSignalSubscriptions() {
+        return signalSubscriptions;
+    }
+
+    /**
+     * Creates a publisher of all signals of the given type.
+     *
+     * @param <T> signal type
+     * @param _type signal class
+     * @return publisher
+     * @throws DBusException if the signal class is invalid
+     * @see #signals(Class, DBusMatchRule, int, SignalFlow.Overflow, Executor)
+     */
+    public <T extends DBusSignal> SignalFlow.Publisher<T> signals(Class<T> _type) throws DBusException {
+        return signals(_type, new DBusMatchRule(_type));
+    }
+
+    /**
+     * Creates a publisher of the signals matching the given rule.
+     * Every subscriber buffers up to {@link SignalFlow#DEFAULT_BUFFER_SIZE} signals,
+     * the oldest signals are dropped if the subscriber falls behind.
+     *
+     * @param <T> signal type
+     * @param _type signal class, signals of other types are ignored
+     * @param _rule match rule
+     * @return publisher
+     * @see #signals(Class, DBusMatchRule, int, SignalFlow.Overflow, Executor)
+     */
+    public <T extends DBusSignal> SignalFlow.Publisher<T> signals(Class<T> _type, DBusMatchRule _rule) {
+        return signals(_type, _rule, SignalFlow.DEFAULT_BUFFER_SIZE, SignalFlow.Overflow.LATEST, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a publisher of the signals matching the given rule.
+     * <p>
+     * Every subscription adds a signal handler with the rule, the handler is removed when the subscription
+     * is cancelled. Subscribers receive signals on the given executor and only as many as they requested,
+     * signals received meanwhile are buffered. When the connection is disconnected, subscribers receive
+     * the buffered signals they requested and are completed.
+     * </p>
+     *
+     * @param <T> signal type
+     * @param _type signal class, signals of other types are ignored
+     * @param _rule match rule
+     * @param _bufferSize maximum number of signals buffered per subscriber
+     * @param _overflow strategy used if the buffer of a subscriber is full
+     * @param _executor executor calling the subscribers
+     * @return publisher
+     */
+    public <T extends DBusSignal> SignalFlow.Publisher<T> signals(Class<T> _type, DBusMatchRule _rule, int _bufferSize,
+            SignalFlow.Overflow _overflow, Executor _executor) {
+        return new SignalPublisher<>(this, _type, _rule, _bufferSize, _overflow, _executor);
+    }
+
     /**
      * The generated UUID of this machine.
      * @return String
      */
     public abstract String getMachineId();
 
+    /**
+     * Registers the transport in the default {@link EventLoopGroup} if possible,
+     * otherwise starts a thread for sending messages.
+     */
+    private void startSending() throws IOException {
+        EventLoopGroup group = EventLoopGroup.getDefault();
+        SocketChannel channel = null == group ? null : transport.configureNonBlocking();
+        if (null != channel) {
+            eventLoopChannel = new EventLoopChannel(this, transport, channel, group.next(channel.provider()), OUTBOUND_QUEUE_CAPACITY);
+            eventLoopChannel.register();
+        } else {
+            senderThread = new SenderThread(this, OUTBOUND_QUEUE_CAPACITY);
+            senderThread.start();
+        }
+    }
+
     /**
      * Start reading and sending messages.
      */
     protected void listen() {
-        readerThread.start();
+        if (null != eventLoopChannel) {
+            eventLoopChannel.startReading();
+        } else {
+            readerThread.start();
+        }
     }
 
     /**
-     * Change the number of worker threads to receive method calls and handle signals. Default is 4 threads
+     * Change the number of worker threads to receive method calls and handle signals to a fixed size.
+     * By default the pools grow and shrink automatically, see {@link #setWorkerThreadLimits(int, int)}.
+     * Has no effect if handlers are executed on virtual threads (see {@link #VIRTUAL_THREADS_PROPERTY}).
      *
      * @param _newPoolSize
      *            The new number of worker Threads to use.
      */
     public void changeThreadCount(byte _newPoolSize) {
-        if (workerThreadPool.getMaximumPoolSize() != _newPoolSize) {
-            workerThreadPoolLock.writeLock().lock();
-            try {
-                List<Runnable> remainingTasks = workerThreadPool.shutdownNow(); // kill previous threadpool
-                workerThreadPool = (ThreadPoolExecutor) Executors.newFixedThreadPool(_newPoolSize,
-                    new NameableThreadFactory("DbusWorkerThreads", false));
-                // re-schedule previously waiting tasks
-                for (Runnable runnable : remainingTasks) {
-                    workerThreadPool.execute(runnable);
-                }
-            } finally {
-                workerThreadPoolLock.writeLock().unlock();
-            }
+        setWorkerThreadLimits(_newPoolSize, _newPoolSize);
+    }
 
+    /**
+     * Change the range the worker threads receiving method calls and handling signals are resized in.
+     * Each pool grows if handlers wait too long for a thread and shrinks when it is mostly idle,
+     * see {@link AdaptiveWorkerPool}. Default is 1 to 16 threads for method calls and 1 to 16 threads for signals.
+     * Has no effect if handlers are executed on virtual threads (see {@link #VIRTUAL_THREADS_PROPERTY}).
+     *
+     * @param _minThreads minimum number of threads
+     * @param _maxThreads maximum number of threads
+     */
+    public void setWorkerThreadLimits(int _minThreads, int _maxThreads) {
+        if (methodCallLane.isVirtualThreads()) {
+            logger.debug("Handlers are executed on virtual threads, ignoring thread limits {} - {}", _minThreads, _maxThreads);
+            return;
         }
+        methodCallLane.setThreadLimits(_minThreads, _maxThreads);
+        signalLane.setThreadLimits(_minThreads, _maxThreads);
+    }
+
+    /**
+     * Change the number of threads running callbacks of asynchronous method calls to a fixed size.
+     * By default 1 to 16 threads are used depending on the load.
+     * Has no effect if handlers are executed on virtual threads (see {@link #VIRTUAL_THREADS_PROPERTY}).
+     *
+     * @param _newPoolSize new number of threads
+     */
+    public void changeReplyThreadCount(int _newPoolSize) {
+        replyLane.setThreadLimits(_newPoolSize, _newPoolSize);
+    }
+
+    /**
+     * Returns the worker threads receiving method calls, e.g. to read their queue delay and utilisation.
+     *
+     * @return pool, null if handlers are executed on virtual threads
+     */
+    public AdaptiveWorkerPool getMethodCallWorkers() {
+        return methodCallLane.getWorkers();
+    }
+
+    /**
+     * Returns the worker threads handling signals, e.g. to read their queue delay and utilisation.
+     *
+     * @return pool, null if handlers are executed on virtual threads
+     */
+    public AdaptiveWorkerPool getSignalWorkers() {
+        return signalLane.getWorkers();
+    }
+
+    /**
+     * Returns the threads running callbacks of asynchronous method calls.
+     *
+     * @return pool, null if handlers are executed on virtual threads
+     */
+    public AdaptiveWorkerPool getReplyCallbackWorkers() {
+        return replyLane.getWorkers();
+    }
+
+    /**
+     * Set which incoming method calls and signals are handled in the order they were received.
+     * Messages with different keys are still handled in parallel by the worker threads,
+     * unlike {@link #changeThreadCount(byte)} with a single thread which serializes method calls
+     * and signals.
+     * Default is {@link DispatchOrdering#NONE}.
+     *
+     * @param _ordering ordering to use
+     */
+    public void setDispatchOrdering(DispatchOrdering _ordering) {
+        dispatchOrdering = Objects.requireNonNull(_ordering, "Ordering required");
+        methodCallLane.setOrdering(_ordering);
+        signalLane.setOrdering(_ordering);
+    }
+
+    public DispatchOrdering getDispatchOrdering() {
+        return dispatchOrdering;
+    }
+
+    /**
+     * Returns the queue of incoming method calls waiting for a worker thread.
+     * The queue is unbounded by default, use {@link InboundQueue#setLimit(int, OverloadPolicy)} to limit it.
+     * Rejected or dropped calls are answered with an org.freedesktop.DBus.Error.LimitsExceeded error.
+     * Prefer {@link OverloadPolicy#REJECT} or {@link OverloadPolicy#DROP_OLDEST} if exported methods make synchronous
+     * calls on this connection, with {@link OverloadPolicy#BLOCK} they can wait for replies which are not read
+     * until the queue drains.
+     *
+     * @return queue
+     */
+    public InboundQueue getMethodCallQueue() {
+        return methodCallLane.getQueue();
+    }
+
+    /**
+     * Returns the queue of signal handlers waiting for a worker thread.
+     * Every handler of a received signal takes one place in the queue.
+     * The queue is unbounded by default, use {@link InboundQueue#setLimit(int, OverloadPolicy)} to limit it.
+     * As for {@link #getMethodCallQueue()}, avoid {@link OverloadPolicy#BLOCK} if handlers make synchronous calls
+     * on this connection.
+     *
+     * @return queue
+     */
+    public InboundQueue getSignalQueue() {
+        return signalLane.getQueue();
+    }
+
+    /**
+     * Returns the queue of callbacks of asynchronous method calls waiting for a thread.
+     * Replies are handled by their own threads, so slow method call or signal handlers do not delay them.
+     * The queue is unbounded by default, use {@link InboundQueue#setLimit(int, OverloadPolicy)} to limit it.
+     *
+     * @return queue
+     */
+    public InboundQueue getReplyCallbackQueue() {
+        return replyLane.getQueue();
+    }
+
+    /**
+     * Set whether signals sent by the message bus itself (e.g. NameOwnerChanged) are handled on a dedicated thread,
+     * in the order they were received and without waiting behind other signals. Default is false.
+     *
+     * @param _priority true to handle bus signals with priority
+     */
+    public void setBusSignalPriority(boolean _priority) {
+        busSignalPriority = _priority;
+    }
+
+    public boolean isBusSignalPriority() {
+        return busSignalPriority;
+    }
+
+    /**
+     * Set the time a handler marked with {@link InlineHandler} may run on the thread reading messages.
+     * Handlers exceeding it are reported and run on worker threads from then on.
+     * Default is 100 ms.
+     *
+     * @param _millis time limit in ms
+     */
+    public void setInlineHandlerTimeLimit(long _millis) {
+        inlineHandlerGuard.setTimeLimit(_millis);
+    }
+
+    public long getInlineHandlerTimeLimit() {
+        return inlineHandlerGuard.getTimeLimit();
+    }
+
+    /**
+     * Set the default time to wait for the reply of method calls sent on this connection.
+     * Calls which have no reply within this time are completed with a {@link org.freedesktop.dbus.errors.NoReply} error.
+     *
+     * @param _timeout timeout in ms, 0 to use {@link MethodCall#getDefaultTimeout()}
+     */
+    public void setReplyTimeout(long _timeout) {
+        replyTimeout = _timeout;
+    }
+
+    public long getReplyTimeout() {
+        return replyTimeout;
+    }
+
+    /**
+     * Returns the time to wait for the reply of the given call.
+     *
+     * @param _call call
+     * @return timeout in ms
+     */
+    public long getReplyTimeout(MethodCall _call) {
+        if (_call.getTimeout() > 0) {
+            return _call.getTimeout();
+        }
+        long timeout = replyTimeout;
+        return timeout > 0 ? timeout : MethodCall.getDefaultTimeout();
     }
 
     public String getExportedObject(DBusInterface _interface) throws DBusException {
@@ -369,14 +648,36 @@ public abstract class AbstractConnection implements Closeable {
      * @param _message message to send
      */
     public void sendMessage(Message _message) {
-    	Runnable runnable = new Runnable() {
-			@Override
-			public void run() {
-				sendMessageInternally(_message);
-			}
-    	};
+        _message.updateSerial(Message.nextSerial(serialCounter));
+        if (!offerOutbound(_message)) {
+            sendMessageInternally(_message);
+        }
+    }
+
+    /**
+     * Send several messages to the DBus daemon.
+     * The messages are written back-to-back in the given order and flushed once.
+     * @param _messages messages to send
+     */
+    public void sendMessages(List<? extends Message> _messages) {
+        for (Message message : _messages) {
+            message.updateSerial(Message.nextSerial(serialCounter));
+            if (!offerOutbound(message)) {
+                sendMessageInternally(message);
+            }
+        }
+    }
 
-    	senderService.execute(runnable);
+    /**
+     * Queues a message for the sender thread or event loop.
+     * @param _message message
+     * @return false if the message has to be sent by the calling thread
+     */
+    private boolean offerOutbound(Message _message) {
+        if (null != eventLoopChannel) {
+            return eventLoopChannel.offer(_message);
+        }
+        return null != senderThread && senderThread.offer(_message);
     }
 
     /**
@@ -498,6 +799,7 @@ public abstract class AbstractConnection implements Closeable {
                 v.add(handler);
             }
         }
+        signalHandlersChanged();
     }
 
     /**
@@ -538,27 +840,53 @@ public abstract class AbstractConnection implements Closeable {
 
         logger.debug("Disconnecting Abstract Connection");
 
-        workerThreadPoolLock.writeLock().lock();
+        // also releases a reader waiting for space in a full queue
+        DispatchLane[] lanes = new DispatchLane[] {replyLane, methodCallLane, signalLane, busSignalLane};
+        for (DispatchLane lane : lanes) {
+            lane.shutdown();
+        }
         try {
-            // try to wait for all pending tasks.
-            workerThreadPool.shutdown();
-            workerThreadPool.awaitTermination(10, TimeUnit.SECONDS); // 10 seconds should be enough, otherwise fail
-
+            // try to wait for all pending tasks, 10 seconds should be enough, otherwise fail
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+            for (DispatchLane lane : lanes) {
+                lane.awaitTermination(Math.max(0, deadline - System.currentTimeMillis()));
+            }
         } catch (InterruptedException _ex) {
             logger.error("Interrupted while waiting for worker threads to be terminated.", _ex);
-        } finally {
-            workerThreadPoolLock.writeLock().unlock();
         }
 
-        // shutdown sender executor service, send all remaining messages in main thread
-        for (Runnable runnable : senderService.shutdownNow()) {
-            runnable.run();
+        // stop the sender thread, send all remaining messages in main thread
+        List<Message> remaining = new ArrayList<>();
+        if (null != eventLoopChannel) {
+            eventLoopChannel.close();
+            remaining = eventLoopChannel.drainRemaining();
+        } else if (null != senderThread) {
+            senderThread.terminate();
+            if (Thread.currentThread() != senderThread) {
+                try {
+                    senderThread.join(TimeUnit.SECONDS.toMillis(10));
+                } catch (InterruptedException _ex) {
+                    logger.debug("Interrupted while waiting for sender thread to be terminated.", _ex);
+                    Thread.currentThread().interrupt();
+                }
+            }
+            remaining = senderThread.drainRemaining();
+        }
+        if (!remaining.isEmpty()) {
+            sendMessagesInternally(remaining);
         }
 
         // stop the main thread
         run = false;
         connected = false;
 
+        replyTimeoutWheel.close();
+        inlineHandlerGuard.close();
+
+        for (SignalPublisher<?>.SignalSubscription subscription : signalSubscriptions) {
+            subscription.complete();
+        }
+
         readerThread.setTerminate(true);
 
         // disconnect from the transport layer
@@ -572,13 +900,8 @@ public abstract class AbstractConnection implements Closeable {
         }
 
         // stop all the workers
-        workerThreadPoolLock.writeLock().lock();
-        try {
-            if (!workerThreadPool.isTerminated()) { // try forceful shutdown
-                workerThreadPool.shutdownNow();
-            }
-        } finally {
-            workerThreadPoolLock.writeLock().unlock();
+        for (DispatchLane lane : lanes) {
+            lane.shutdownNow();
         }
     }
 
@@ -614,16 +937,10 @@ public abstract class AbstractConnection implements Closeable {
     public <A> void callWithCallback(DBusInterface object, String m, CallbackHandler<A> callback,
             Object... parameters) {
         logger.trace("callWithCallback({}, {}, {})", object, m, callback);
-        Class<?>[] types = createTypesArray( parameters );
         RemoteObject ro = getImportedObjects().get(object);
 
         try {
-            Method me;
-            if (null == ro.getInterface()) {
-                me = object.getClass().getMethod(m, types);
-            } else {
-                me = ro.getInterface().getMethod(m, types);
-            }
+            Method me = findRemoteMethod(object, ro, m, parameters);
             RemoteInvocationHandler.executeRemoteMethod(ro, me, this, RemoteInvocationHandler.CALL_TYPE_CALLBACK,
                     callback, parameters);
         } catch (DBusExecutionException exEe) {
@@ -647,16 +964,10 @@ public abstract class AbstractConnection implements Closeable {
      * @return A handle to the call.
      */
     public DBusAsyncReply<?> callMethodAsync(DBusInterface object, String m, Object... parameters) {
-        Class<?>[] types = createTypesArray( parameters );
         RemoteObject ro = getImportedObjects().get(object);
 
         try {
-            Method me;
-            if (null == ro.getInterface()) {
-                me = object.getClass().getMethod(m, types);
-            } else {
-                me = ro.getInterface().getMethod(m, types);
-            }
+            Method me = findRemoteMethod(object, ro, m, parameters);
             return (DBusAsyncReply<?>) RemoteInvocationHandler.executeRemoteMethod(ro, me, this,
                     RemoteInvocationHandler.CALL_TYPE_ASYNC, null, parameters);
         } catch (DBusExecutionException exDee) {
@@ -668,6 +979,62 @@ public abstract class AbstractConnection implements Closeable {
         }
     }
 
+    /**
+     * Call a method asynchronously and get a future which is completed with the reply.
+     * <p>
+     * The future is completed by the thread reading the reply from the bus, so no thread is
+     * blocked while the call is pending. Dependent stages which take a long time should therefore
+     * use one of the *Async methods of {@link CompletableFuture}.
+     * Cancelling the future removes the call from the pending calls, a reply received later is discarded.
+     * </p>
+     *
+     * @param <A>
+     *            type of the reply
+     * @param object
+     *            The remote object on which to call the method.
+     * @param m
+     *            The name of the method on the interface to call.
+     * @param parameters
+     *            The parameters to call the method with.
+     * @return future completed with the reply or exceptionally with a {@link DBusExecutionException}
+     */
+    @SuppressWarnings("unchecked")
+    public <A> CompletableFuture<A> callMethodFuture(DBusInterface object, String m, Object... parameters) {
+        RemoteObject ro = getImportedObjects().get(object);
+
+        try {
+            Method me = findRemoteMethod(object, ro, m, parameters);
+            return (CompletableFuture<A>) RemoteInvocationHandler.executeRemoteMethod(ro, me, this,
+                    RemoteInvocationHandler.CALL_TYPE_FUTURE, null, parameters);
+        } catch (DBusExecutionException exDee) {
+            logger.debug("", exDee);
+            throw exDee;
+        } catch (Exception e) {
+            logger.debug("", e);
+            throw new DBusExecutionException(e.getMessage());
+        }
+    }
+
+    /**
+     * Creates a batch of method calls which are sent together.
+     *
+     * @return new batch
+     */
+    public CallBatch createCallBatch() {
+        return new CallBatch(this);
+    }
+
+    /**
+     * Finds the method of the interface of the given remote object matching the given name and parameters.
+     */
+    Method findRemoteMethod(DBusInterface object, RemoteObject ro, String m, Object... parameters) throws NoSuchMethodException {
+        Class<?>[] types = createTypesArray( parameters );
+        if (null == ro.getInterface()) {
+            return object.getClass().getMethod(m, types);
+        }
+        return ro.getInterface().getMethod(m, types);
+    }
+
     private Class<?>[] createTypesArray(Object... parameters) {
         if (parameters == null) {
             return null;
@@ -813,24 +1180,11 @@ public abstract class AbstractConnection implements Closeable {
                         throw ite.getCause();
                     }
                     INFOMAP.remove(Thread.currentThread());
-                    if (!noreply) {
-                        MethodReturn reply;
-                        if (Void.TYPE.equals(me.getReturnType())) {
-                            reply = new MethodReturn(m, null);
-                        } else {
-                            StringBuffer sb = new StringBuffer();
-                            for (String s : Marshalling.getDBusType(me.getGenericReturnType())) {
-                                sb.append(s);
-                            }
-                            Object[] nr = Marshalling.convertParameters(new Object[] {
-                                    result
-                            }, new Type[] {
-                                    me.getGenericReturnType()
-                            }, conn);
-
-                            reply = new MethodReturn(m, sb.toString(), nr);
-                        }
-                        conn.sendMessage(reply);
+                    if (result instanceof CompletableFuture && CompletableFuture.class.equals(me.getReturnType())) {
+                        // reply when the implementation completes the future, without blocking this thread
+                        ((CompletableFuture<?>) result).whenComplete((value, ex) -> completeMethodCall(m, me, noreply, value, ex));
+                    } else if (!noreply) {
+                        sendMethodReturn(m, me, result);
                     }
                 } catch (DBusExecutionException exDee) {
                     logger.debug("", exDee);
@@ -843,7 +1197,87 @@ public abstract class AbstractConnection implements Closeable {
                 }
             }
         };
-        executeInWorkerThreadPool(r);
+        if (!me.isAnnotationPresent(InlineHandler.class) || !inlineHandlerGuard.execute(me, r, (h, t) -> t.run())) {
+            methodCallLane.dispatch(m, r, () -> rejectMethodCall(m, noreply));
+        }
+    }
+
+    /**
+     * Sends the reply of an exported method which returned a {@link CompletableFuture} once it is completed.
+     *
+     * @param _call call
+     * @param _method exported method
+     * @param _noreply true if the caller does not expect a reply
+     * @param _value value the future was completed with
+     * @param _ex exception the future was completed with, null if completed normally
+     */
+    private void completeMethodCall(MethodCall _call, Method _method, boolean _noreply, Object _value, Throwable _ex) {
+        Throwable cause = _ex instanceof CompletionException && null != _ex.getCause() ? _ex.getCause() : _ex;
+        if (null == cause) {
+            if (_noreply) {
+                return;
+            }
+            try {
+                sendMethodReturn(_call, _method, _value);
+                return;
+            } catch (DBusException | RuntimeException _exSend) {
+                cause = _exSend;
+            }
+        }
+        logger.debug("", cause);
+        if (cause instanceof DBusExecutionException) {
+            handleException(this, _call, (DBusExecutionException) cause);
+        } else {
+            handleException(this, _call, new DBusExecutionException(String.format("Error Executing Method %s.%s: %s",
+                    _call.getInterface(), _call.getName(), cause.getMessage())));
+        }
+    }
+
+    /**
+     * Sends the value returned by an exported method to the caller.
+     *
+     * @param _call call
+     * @param _method exported method
+     * @param _result returned value
+     * @throws DBusException if the value could not be converted
+     */
+    private void sendMethodReturn(MethodCall _call, Method _method, Object _result) throws DBusException {
+        Type returnType = Marshalling.getReturnValueType(_method);
+        MethodReturn reply;
+        if (Void.TYPE.equals(returnType)) {
+            reply = new MethodReturn(_call, null);
+        } else {
+            StringBuilder sb = new StringBuilder();
+            for (String s : Marshalling.getDBusType(returnType)) {
+                sb.append(s);
+            }
+            Object[] nr = Marshalling.convertParameters(new Object[] {
+                    _result
+            }, new Type[] {
+                    returnType
+            }, this);
+
+            reply = new MethodReturn(_call, sb.toString(), nr);
+        }
+        sendMessage(reply);
+    }
+
+    /**
+     * Answers a method call which could not be queued because too many calls are waiting.
+     *
+     * @param _call call
+     * @param _noreply true if the caller does not expect a reply
+     */
+    private void rejectMethodCall(MethodCall _call, boolean _noreply) {
+        if (_noreply) {
+            return;
+        }
+        try {
+            sendMessage(new Error(_call.getSource(), "org.freedesktop.DBus.Error.LimitsExceeded", _call.getSerial(), "s",
+                    "Too many method calls waiting to be handled"));
+        } catch (DBusException _ex) {
+            logger.debug("Failed to create LimitsExceeded error", _ex);
+        }
     }
 
     /**
@@ -852,177 +1286,178 @@ public abstract class AbstractConnection implements Closeable {
      * @param _signal signal to handle
      * @param _useThreadPool whether to handle this signal in another thread or handle it byself
      */
-    @SuppressWarnings({
-            "unchecked"
-    })
     private void handleMessage(final DBusSignal _signal, boolean _useThreadPool) {
         logger.debug("Handling incoming signal: {}", _signal);
 
-        List<DBusSigHandler<? extends DBusSignal>> handlers = new ArrayList<>();
-        List<DBusSigHandler<DBusSignal>> genericHandlers = new ArrayList<>();
-
-        Queue<DBusSigHandler<? extends DBusSignal>> t;
-        t = getHandledSignals().get(new SignalTuple(_signal.getInterface(), _signal.getName(), null, null));
-        if (null != t) {
-            handlers.addAll(t);
-        }
-        t = getHandledSignals().get(new SignalTuple(_signal.getInterface(), _signal.getName(), _signal.getPath(), null));
-        if (null != t) {
-            handlers.addAll(t);
-        }
-        t = getHandledSignals().get(new SignalTuple(_signal.getInterface(), _signal.getName(), null, _signal.getSource()));
-        if (null != t) {
-            handlers.addAll(t);
+        String iface = _signal.getInterface();
+        String member = _signal.getName();
+        String path = _signal.getPath();
+        String source = _signal.getSource();
+        if (_useThreadPool) {
+            signalIndex.forEachMatch(iface, member, path, source, _signal, signalDispatcher);
+            genericSignalIndex.forEachMatch(iface, member, path, source, _signal, genericSignalDispatcher);
+        } else {
+            signalIndex.forEachMatch(iface, member, path, source, _signal, (s, h) -> dispatchSignal(s, h, false));
+            genericSignalIndex.forEachMatch(iface, member, path, source, _signal, (s, h) -> dispatchGenericSignal(s, h, false));
         }
-        t = getHandledSignals().get(new SignalTuple(_signal.getInterface(), _signal.getName(), _signal.getPath(), _signal.getSource()));
-        if (null != t) {
-            handlers.addAll(t);
-            }
+    }
 
-        Queue<DBusSigHandler<DBusSignal>> gt;
-        Set<SignalTuple> allTuples = SignalTuple.getAllPossibleTuples(_signal.getInterface(), _signal.getName(), _signal.getPath(), _signal.getSource());
-        for( SignalTuple tuple : allTuples ){
-           gt = getGenericHandledSignals().get(tuple);
-            if (null != gt) {
-                genericHandlers.addAll(gt);
+    @SuppressWarnings("unchecked")
+    private void dispatchSignal(final DBusSignal _signal, Object[] _handlers, boolean _useThreadPool) {
+        for (Object handler : _handlers) {
+            final DBusSigHandler<DBusSignal> h = (DBusSigHandler<DBusSignal>) handler;
+            if (!_useThreadPool) {
+                runSignalHandler(h, _signal);
+            } else if (!isInlineHandler(h) || !inlineHandlerGuard.execute(h, _signal, signalHandlerInvoker)) {
+                logger.trace("Adding Runnable for signal {} with handler {}",  _signal, h);
+                signalLane(_signal).dispatch(_signal, () -> runSignalHandler(h, _signal), null);
             }
         }
+    }
 
-        if (handlers.isEmpty() && genericHandlers.isEmpty()) {
-            return;
-        }
-
-        final AbstractConnection conn = this;
-        for (final DBusSigHandler<? extends DBusSignal> h : handlers) {
-            logger.trace("Adding Runnable for signal {} with handler {}",  _signal, h);
-            Runnable command = new Runnable() {
-
-                @Override
-                public void run() {
-                    try {
-                        DBusSignal rs;
-                        if (_signal instanceof InternalSignal || _signal.getClass().equals(DBusSignal.class)) {
-                            rs = _signal.createReal(conn);
-                        } else {
-                            rs = _signal;
-                        }
-                        if (rs == null) {
-                            return;
-                        }
-                        ((DBusSigHandler<DBusSignal>) h).handle(rs);
-                    } catch (DBusException _ex) {
-                        logger.warn("Exception while running signal handler '{}' for signal '{}':", h, _signal, _ex);
-                        handleException(conn, _signal, new DBusExecutionException("Error handling signal " + _signal.getInterface()
-                                + "." + _signal.getName() + ": " + _ex.getMessage()));
-                    }
-                }
-            };
-            if (_useThreadPool) {
-                executeInWorkerThreadPool(command);
+    private void runSignalHandler(DBusSigHandler<DBusSignal> _handler, DBusSignal _signal) {
+        try {
+            DBusSignal rs;
+            if (_signal instanceof InternalSignal || _signal.getClass().equals(DBusSignal.class)) {
+                rs = _signal.createReal(this);
             } else {
-                command.run();
+                rs = _signal;
+            }
+            if (rs == null) {
+                return;
             }
+            _handler.handle(rs);
+        } catch (DBusException _ex) {
+            logger.warn("Exception while running signal handler '{}' for signal '{}':", _handler, _signal, _ex);
+            handleException(this, _signal, new DBusExecutionException("Error handling signal " + _signal.getInterface()
+                    + "." + _signal.getName() + ": " + _ex.getMessage()));
         }
+    }
 
-        for (final DBusSigHandler<DBusSignal> h : genericHandlers) {
-            logger.trace("Adding Runnable for signal {} with handler {}",  _signal, h);
-            Runnable command = new Runnable() {
-
-                @Override
-                public void run() {
-                    h.handle(_signal);
-                }
-            };
-            if (_useThreadPool) {
-                executeInWorkerThreadPool(command);
-            } else {
-                command.run();
+    @SuppressWarnings("unchecked")
+    private void dispatchGenericSignal(final DBusSignal _signal, Object[] _handlers, boolean _useThreadPool) {
+        for (Object handler : _handlers) {
+            final DBusSigHandler<DBusSignal> h = (DBusSigHandler<DBusSignal>) handler;
+            if (!_useThreadPool) {
+                h.handle(_signal);
+            } else if (!isInlineHandler(h) || !inlineHandlerGuard.execute(h, _signal, genericSignalHandlerInvoker)) {
+                logger.trace("Adding Runnable for signal {} with handler {}",  _signal, h);
+                signalLane(_signal).dispatch(_signal, () -> h.handle(_signal), null);
             }
         }
     }
 
-    private void executeInWorkerThreadPool(Runnable task) {
-        workerThreadPoolLock.readLock().lock();
-        try {
-            workerThreadPool.execute(task);
-        } finally {
-            workerThreadPoolLock.readLock().unlock();
+    /**
+     * Checks if the given signal handler is marked to run on the thread reading messages.
+     * @param _handler handler
+     * @return true if inline
+     */
+    private static boolean isInlineHandler(DBusSigHandler<?> _handler) {
+        return _handler instanceof InlineSigHandler || _handler.getClass().isAnnotationPresent(InlineHandler.class);
+    }
+
+    /**
+     * Returns the lane handling the given signal.
+     * @param _signal signal
+     * @return lane
+     */
+    private DispatchLane signalLane(DBusSignal _signal) {
+        if (busSignalPriority && BUS_NAME.equals(_signal.getSource())) {
+            return busSignalLane;
         }
+        return signalLane;
     }
 
     private void handleMessage(final Error err) {
         logger.debug("Handling incoming error: {}", err);
-        MethodCall m = null;
         if (getPendingCalls() == null) {
             return;
         }
-        synchronized (getPendingCalls()) {
-            if (getPendingCalls().containsKey(err.getReplySerial())) {
-                m = getPendingCalls().remove(err.getReplySerial());
-            }
-        }
+        MethodCall m = getPendingCalls().remove(err.getReplySerial());
         if (m != null) {
-            m.setReply(err);
-            CallbackHandler<?> cbh = null;
-            cbh = callbackManager.removeCallback(m);
-            logger.trace("{} = pendingCallbacks.remove({})", cbh, m);
+            cancelReplyTimeout(m);
+            handleErrorReply(m, err);
+        } else {
+            getPendingErrorQueue().add(err);
+        }
+    }
 
-            // queue callback for execution
-            if (null != cbh) {
-                final CallbackHandler<?> fcbh = cbh;
-                logger.trace("Adding Error Runnable with callback handler {}", fcbh);
-                Runnable command = new Runnable() {
+    /**
+     * Called by the reply timeout wheel when no reply to the given call was received in time.
+     *
+     * @param _call call
+     */
+    private void expirePendingCall(MethodCall _call) {
+        PendingCallTable pending = getPendingCalls();
+        if (null == pending || pending.remove(_call.getSerial()) != _call) {
+            return; // reply has been received concurrently
+        }
+        logger.debug("No reply to {} within {} ms", _call, getReplyTimeout(_call));
+        try {
+            handleErrorReply(_call, new Error("org.freedesktop.DBus.Local", "org.freedesktop.DBus.Error.NoReply",
+                    _call.getSerial(), "s", "No reply within specified time"));
+        } catch (DBusException exDe) {
+            logger.debug("Failed to create NoReply error", exDe);
+        }
+    }
 
-                    @Override
-                    public synchronized void run() {
-                        try {
-                            logger.trace("Running Error Callback for {}", err);
-                            DBusCallInfo info = new DBusCallInfo(err);
-                            INFOMAP.put(Thread.currentThread(), info);
+    private void cancelReplyTimeout(MethodCall _call) {
+        ReplyTimeoutWheel.Timeout timeout = _call.getTimeoutHandle();
+        if (null != timeout) {
+            timeout.cancel();
+        }
+    }
 
-                            fcbh.handleError(err.getException());
-                            INFOMAP.remove(Thread.currentThread());
+    private void handleErrorReply(MethodCall m, final Error err) {
+        m.setReply(err);
+        CallbackHandler<?> cbh = null;
+        cbh = callbackManager.removeCallback(m);
+        logger.trace("{} = pendingCallbacks.remove({})", cbh, m);
 
-                        } catch (Exception e) {
-                            logger.debug("Exception while running error callback.", e);
-                        }
-                    }
-                };
-                executeInWorkerThreadPool(command);
-            }
+        // queue callback for execution
+        if (null != cbh) {
+            final CallbackHandler<?> fcbh = cbh;
+            logger.trace("Adding Error Runnable with callback handler {}", fcbh);
+            Runnable command = new Runnable() {
 
-        } else {
-            getPendingErrorQueue().add(err);
+                @Override
+                public synchronized void run() {
+                    try {
+                        logger.trace("Running Error Callback for {}", err);
+                        DBusCallInfo info = new DBusCallInfo(err);
+                        INFOMAP.put(Thread.currentThread(), info);
+
+                        fcbh.handleError(err.getException());
+                        INFOMAP.remove(Thread.currentThread());
+
+                    } catch (Exception e) {
+                        logger.debug("Exception while running error callback.", e);
+                    }
+                }
+            };
+            replyLane.dispatch(null, command, null);
         }
     }
 
     @SuppressWarnings("unchecked")
     private void handleMessage(final MethodReturn mr) {
         logger.debug("Handling incoming method return: {}", mr);
-        MethodCall m = null;
-
         if (null == getPendingCalls()) {
             return;
         }
 
-        synchronized (getPendingCalls()) {
-            if (getPendingCalls().containsKey(mr.getReplySerial())) {
-                m = getPendingCalls().remove(mr.getReplySerial());
-            }
-        }
+        MethodCall m = getPendingCalls().remove(mr.getReplySerial());
 
         if (null != m) {
+            cancelReplyTimeout(m);
             m.setReply(mr);
             mr.setCall(m);
-            @SuppressWarnings("rawtypes")
-            CallbackHandler cbh = callbackManager.getCallback(m);
-            DBusAsyncReply<?> asr = callbackManager.getCallbackReply(m);
-            callbackManager.removeCallback(m);
+            PendingCallbackManager.PendingCallback pending = callbackManager.remove(m);
 
             // queue callback for execution
-            if (null != cbh) {
-                final CallbackHandler<Object> fcbh = cbh;
-                final DBusAsyncReply<?> fasr = asr;
+            if (null != pending && null != pending.getHandler()) {
+                final CallbackHandler<Object> fcbh = (CallbackHandler<Object>) pending.getHandler();
+                final DBusAsyncReply<?> fasr = pending.getReply();
                 if (fasr == null) {
                 	logger.debug("Cannot add runnable for method, given method callback was null");
                 	return;
@@ -1047,7 +1482,7 @@ public abstract class AbstractConnection implements Closeable {
                         }
                     }
                 };
-                executeInWorkerThreadPool(r);
+                replyLane.dispatch(null, r, null);
             }
 
         } else {
@@ -1063,66 +1498,180 @@ public abstract class AbstractConnection implements Closeable {
         callbackManager.queueCallback(_call, _method, _callback, this);
     }
 
+    /**
+     * Creates a future which is completed with the converted reply of the given call.
+     * Must be called before the call is sent.
+     *
+     * @param <A> type of the reply
+     * @param _call call
+     * @param _method remote method, used to convert the reply
+     * @return future
+     */
+    public <A> CompletableFuture<A> queueFuture(MethodCall _call, Method _method) {
+        CompletableFuture<Message> replyFuture = _call.getReplyFuture();
+        CompletableFuture<A> future = new CompletableFuture<A>() {
+            @Override
+            public boolean cancel(boolean _mayInterruptIfRunning) {
+                boolean cancelled = super.cancel(_mayInterruptIfRunning);
+                if (cancelled) {
+                    replyFuture.cancel(_mayInterruptIfRunning);
+                    cancelReplyTimeout(_call);
+                    PendingCallTable pending = getPendingCalls();
+                    if (null != pending && 0 != _call.getSerial()) {
+                        pending.remove(_call.getSerial());
+                    }
+                }
+                return cancelled;
+            }
+        };
+
+        replyFuture.thenAccept(reply -> completeFuture(future, reply, _method));
+        return future;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <A> void completeFuture(CompletableFuture<A> _future, Message _reply, Method _method) {
+        if (_reply instanceof Error) {
+            _future.completeExceptionally(((Error) _reply).getException());
+            return;
+        }
+        try {
+            _future.complete((A) RemoteInvocationHandler.convertRV(_reply.getSig(), _reply.getParameters(), _method, this));
+        } catch (DBusException exDe) {
+            logger.debug("Failed to convert reply {}", _reply, exDe);
+            _future.completeExceptionally(new DBusExecutionException(exDe.getMessage()));
+        } catch (RuntimeException exRe) {
+            _future.completeExceptionally(exRe);
+        }
+    }
+
     /**
      * Send a message to DBus.
      * @param m
      */
     private void sendMessageInternally(Message m) {
         try {
-            if (!connected) {
-                throw new NotConnected("Disconnected");
+            if (prepareForSending(m)) {
+                transport.writeMessage(m);
             }
-            if (m instanceof DBusSignal) {
-                ((DBusSignal) m).appendbody(this);
+        } catch (Exception e) {
+            handleSendFailure(m, e);
+            if (e instanceof IOException) {
+                disconnectAfterFailure(e);
             }
+        }
+    }
 
-            if (m instanceof MethodCall) {
-                if (0 == (m.getFlags() & Message.Flags.NO_REPLY_EXPECTED)) {
-                    if (null == getPendingCalls()) {
-                        ((MethodCall) m).setReply(new Error("org.freedesktop.DBus.Local",
-                                "org.freedesktop.DBus.Local.Disconnected", 0, "s", "Disconnected"));
-                    } else {
-                        synchronized (getPendingCalls()) {
-                            getPendingCalls().put(m.getSerial(), (MethodCall) m);
-                        }
-                    }
+    /**
+     * Send several messages to DBus, they are written back-to-back with a single flush.
+     * @param _messages messages
+     */
+    void sendMessagesInternally(List<? extends Message> _messages) {
+        List<Message> toSend = new ArrayList<>(_messages.size());
+        for (Message m : _messages) {
+            try {
+                if (prepareForSending(m)) {
+                    toSend.add(m);
                 }
+            } catch (Exception e) {
+                handleSendFailure(m, e);
+            }
+        }
+        if (toSend.isEmpty()) {
+            return;
+        }
+        try {
+            if (1 == toSend.size()) {
+                transport.writeMessage(toSend.get(0));
+            } else {
+                transport.writeMessages(toSend);
+            }
+        } catch (Exception e) {
+            for (Message m : toSend) {
+                handleSendFailure(m, e);
+            }
+            if (e instanceof IOException) {
+                disconnectAfterFailure(e);
             }
+        }
+    }
 
-            transport.writeMessage(m);
+    private void disconnectAfterFailure(Exception _ex) {
+        if (null != eventLoopChannel && eventLoopChannel.inEventLoop()) {
+            // never block the event loop serving other connections
+            eventLoopChannel.failed(_ex);
+        } else {
+            disconnect();
+        }
+    }
 
-        } catch (Exception e) {
-            logger.debug("Exception while sending message.", e);
-            if (m instanceof MethodCall && e instanceof NotConnected) {
-                try {
+    /**
+     * Prepares a message which is about to be written. Method calls expecting a reply are added to the pending calls.
+     * @param m message
+     * @return false if the message must not be sent
+     * @throws DBusException when message could not be prepared
+     */
+    private boolean prepareForSending(Message m) throws DBusException {
+        if (!connected) {
+            throw new NotConnected("Disconnected");
+        }
+        if (m instanceof DBusSignal) {
+            ((DBusSignal) m).appendbody(this);
+        }
+
+        if (m instanceof MethodCall) {
+            if (((MethodCall) m).isCancelled()) {
+                logger.debug("Not sending cancelled call {}", m);
+                return false;
+            }
+            if (0 == (m.getFlags() & Message.Flags.NO_REPLY_EXPECTED)) {
+                if (null == getPendingCalls()) {
                     ((MethodCall) m).setReply(new Error("org.freedesktop.DBus.Local",
                             "org.freedesktop.DBus.Local.Disconnected", 0, "s", "Disconnected"));
-                } catch (DBusException exDe) {
+                } else {
+                    MethodCall call = (MethodCall) m;
+                    // attach the timeout before the call becomes visible, so a fast reply always finds it to cancel
+                    ReplyTimeoutWheel.Timeout timeout = replyTimeoutWheel.schedule(call, getReplyTimeout(call));
+                    call.setTimeoutHandle(timeout);
+                    getPendingCalls().put(call.getSerial(), call);
+                    if (timeout.isExpired()) {
+                        // expired before it was registered, the wheel did not find the call
+                        expirePendingCall(call);
+                    }
                 }
             }
-            if (m instanceof MethodCall && e instanceof DBusExecutionException) {
-                try {
-                    ((MethodCall) m).setReply(new Error(m, e));
-                } catch (DBusException exDe) {
-                }
-            } else if (m instanceof MethodCall) {
-                try {
-                    logger.info("Setting reply to {} as an error", m);
-                    ((MethodCall) m).setReply(
-                            new Error(m, new DBusExecutionException("Message Failed to Send: " + e.getMessage())));
-                } catch (DBusException exDe) {
-                }
-            } else if (m instanceof MethodReturn) {
-                try {
-                    transport.writeMessage(new Error(m, e));
-                } catch (IOException exIo) {
-                    logger.debug("", exIo);
-                } catch (DBusException exDe) {
-                    logger.debug("", exDe);
-                }
+        }
+        return true;
+    }
+
+    private void handleSendFailure(Message m, Exception e) {
+        logger.debug("Exception while sending message.", e);
+        if (m instanceof MethodCall && e instanceof NotConnected) {
+            try {
+                ((MethodCall) m).setReply(new Error("org.freedesktop.DBus.Local",
+                        "org.freedesktop.DBus.Local.Disconnected", 0, "s", "Disconnected"));
+            } catch (DBusException exDe) {
             }
-            if (e instanceof IOException) {
-                disconnect();
+        }
+        if (m instanceof MethodCall && e instanceof DBusExecutionException) {
+            try {
+                ((MethodCall) m).setReply(new Error(m, e));
+            } catch (DBusException exDe) {
+            }
+        } else if (m instanceof MethodCall) {
+            try {
+                logger.info("Setting reply to {} as an error", m);
+                ((MethodCall) m).setReply(
+                        new Error(m, new DBusExecutionException("Message Failed to Send: " + e.getMessage())));
+            } catch (DBusException exDe) {
+            }
+        } else if (m instanceof MethodReturn) {
+            try {
+                transport.writeMessage(new Error(m, e));
+            } catch (IOException exIo) {
+                logger.debug("", exIo);
+            } catch (DBusException exDe) {
+                logger.debug("", exDe);
             }
         }
     }
@@ -1156,6 +1705,8 @@ public abstract class AbstractConnection implements Closeable {
 
     /**
      * Returns a structure with information on the current method call.
+     * Methods returning a {@link CompletableFuture} have to retrieve it before returning the future,
+     * it is not available on the thread completing the future.
      *
      * @return the DBusCallInfo for this method call, or null if we are not in a method call.
      */
@@ -1193,15 +1744,35 @@ public abstract class AbstractConnection implements Closeable {
         return pendingErrorQueue;
     }
 
+    /**
+     * Rebuilds the index used to route incoming signals to their handlers.
+     * Must be called after the maps returned by {@link #getHandledSignals()} or {@link #getGenericHandledSignals()}
+     * have been changed.
+     */
+    protected void signalHandlersChanged() {
+        synchronized (signalIndexLock) {
+            signalIndex = new SignalRoutingIndex(handledSignals, false);
+            genericSignalIndex = new SignalRoutingIndex(genericHandledSignals, true);
+        }
+    }
+
+    /**
+     * Signal handlers by signal tuple. Call {@link #signalHandlersChanged()} after changing the map or its queues.
+     * @return map
+     */
     protected Map<SignalTuple, Queue<DBusSigHandler<? extends DBusSignal>>> getHandledSignals() {
         return handledSignals;
     }
 
+    /**
+     * Generic signal handlers by signal tuple. Call {@link #signalHandlersChanged()} after changing the map or its queues.
+     * @return map
+     */
     protected Map<SignalTuple, Queue<DBusSigHandler<DBusSignal>>> getGenericHandledSignals() {
         return genericHandledSignals;
     }
 
-    protected Map<Long, MethodCall> getPendingCalls() {
+    protected PendingCallTable getPendingCalls() {
         return pendingCalls;
     }
 
@@ -0,0 +1,242 @@
+package org.freedesktop.dbus.connections;
+
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.hypfvieh.threads.NameableThreadFactory;
+
+/**
+ * Thread pool growing and shrinking between a minimum and a maximum number of threads.
+ * <p>
+ * The pool measures how long tasks wait in the queue and how many threads are busy.
+ * It grows as soon as the oldest waiting task exceeds the target queue delay and shrinks by one thread
+ * at a time after it was mostly idle for a while. Tasks are kept in a single FIFO queue which is
+ * not touched when resizing, so no task is dropped or reordered.
+ * </p>
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+public final class AdaptiveWorkerPool extends ThreadPoolExecutor {
+    /** Default time a task may wait for a thread before the pool grows. */
+    public static final long                         DEFAULT_TARGET_QUEUE_DELAY  = 20;
+
+    private static final long                        SAMPLE_INTERVAL             = 50;
+    /** Number of idle samples before the pool shrinks by one thread. */
+    private static final int                         SHRINK_SAMPLES              = 20;
+    private static final double                      IDLE_UTILISATION            = 0.5;
+    /** Weight of the newest sample in the moving averages. */
+    private static final double                      SMOOTHING                   = 0.3;
+
+    private static final Logger                      LOGGER                      = LoggerFactory.getLogger(AdaptiveWorkerPool.class);
+
+    private static final ScheduledThreadPoolExecutor SCALER                      =
+            new ScheduledThreadPoolExecutor(1, new NameableThreadFactory("DBus Worker Pool Scaler-", true));
+
+    static {
+        SCALER.setRemoveOnCancelPolicy(true);
+    }
+
+    private final String                             name;
+    private final ScheduledFuture<?>                 sampler;
+
+    // queue delays of the tasks started since the last sample
+    private final AtomicLong                         delaySum                    = new AtomicLong();
+    private final AtomicLong                         delayCount                  = new AtomicLong();
+
+    private volatile int                             minThreads;
+    private volatile int                             maxThreads;
+    private volatile long                            targetQueueDelayNanos       = TimeUnit.MILLISECONDS.toNanos(DEFAULT_TARGET_QUEUE_DELAY);
+
+    private volatile double                          queueDelayNanos;
+    private volatile double                          utilisation;
+    // only accessed by the scaler thread
+    private int                                      idleSamples;
+
+    /**
+     * Creates a new pool starting with the minimum number of threads.
+     *
+     * @param _threadPrefix prefix of the thread names
+     * @param _minThreads minimum number of threads, at least 1
+     * @param _maxThreads maximum number of threads
+     */
+    public AdaptiveWorkerPool(String _threadPrefix, int _minThreads, int _maxThreads) {
+        super(checkLimits(_minThreads, _maxThreads), _maxThreads, SAMPLE_INTERVAL * SHRINK_SAMPLES, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), new NameableThreadFactory(_threadPrefix, false));
+        name = _threadPrefix;
+        minThreads = _minThreads;
+        maxThreads = _maxThreads;
+        sampler = SCALER.scheduleWithFixedDelay(this::sample, SAMPLE_INTERVAL, SAMPLE_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    private static int checkLimits(int _minThreads, int _maxThreads) {
+        if (_minThreads < 1 || _maxThreads < _minThreads) {
+            throw new IllegalArgumentException("Invalid thread limits: " + _minThreads + " - " + _maxThreads);
+        }
+        return _minThreads;
+    }
+
+    /**
+     * Changes the range the pool is resized in. The current size is adjusted to the new range immediately,
+     * surplus threads finish their current task and are stopped once they are idle.
+     *
+     * @param _minThreads minimum number of threads, at least 1
+     * @param _maxThreads maximum number of threads
+     */
+    public synchronized void setThreadLimits(int _minThreads, int _maxThreads) {
+        checkLimits(_minThreads, _maxThreads);
+        int size = Math.max(_minThreads, Math.min(_maxThreads, getCorePoolSize()));
+        minThreads = _minThreads;
+        maxThreads = _maxThreads;
+        // the core size must never exceed the maximum size
+        if (size > getMaximumPoolSize()) {
+            setMaximumPoolSize(_maxThreads);
+            setCorePoolSize(size);
+        } else {
+            setCorePoolSize(size);
+            setMaximumPoolSize(_maxThreads);
+        }
+    }
+
+    public int getMinThreads() {
+        return minThreads;
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    /**
+     * Set the time a task may wait for a thread before the pool grows.
+     * @param _millis delay in ms
+     */
+    public void setTargetQueueDelay(long _millis) {
+        targetQueueDelayNanos = TimeUnit.MILLISECONDS.toNanos(_millis);
+    }
+
+    public long getTargetQueueDelay() {
+        return TimeUnit.NANOSECONDS.toMillis(targetQueueDelayNanos);
+    }
+
+    /**
+     * Moving average of the time tasks waited for a thread.
+     * @return delay in ms
+     */
+    public double getQueueDelay() {
+        return queueDelayNanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Moving average of the share of threads running a task.
+     * @return value between 0 and 1
+     */
+    public double getUtilisation() {
+        return utilisation;
+    }
+
+    @Override
+    public void execute(Runnable _task) {
+        super.execute(new TimedTask(_task));
+        if (getCorePoolSize() < maxThreads && oldestQueueDelay() > targetQueueDelayNanos) {
+            grow();
+        }
+    }
+
+    @Override
+    protected void beforeExecute(Thread _thread, Runnable _task) {
+        if (_task instanceof TimedTask) {
+            delaySum.addAndGet(System.nanoTime() - ((TimedTask) _task).queued);
+            delayCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    protected void terminated() {
+        sampler.cancel(false);
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> remaining = super.shutdownNow();
+        remaining.replaceAll(r -> r instanceof TimedTask ? ((TimedTask) r).task : r);
+        return remaining;
+    }
+
+    private long oldestQueueDelay() {
+        Runnable head = getQueue().peek();
+        return head instanceof TimedTask ? System.nanoTime() - ((TimedTask) head).queued : 0;
+    }
+
+    private void sample() {
+        try {
+            long count = delayCount.getAndSet(0);
+            long sum = delaySum.getAndSet(0);
+            long oldest = oldestQueueDelay();
+            double delay = Math.max(0 == count ? 0 : (double) sum / count, oldest);
+            queueDelayNanos = SMOOTHING * delay + (1 - SMOOTHING) * queueDelayNanos;
+            int size = Math.max(1, getPoolSize());
+            utilisation = SMOOTHING * Math.min(1.0, (double) getActiveCount() / size) + (1 - SMOOTHING) * utilisation;
+
+            if (isShutdown()) {
+                return;
+            }
+            if (delay > targetQueueDelayNanos) {
+                idleSamples = 0;
+                grow();
+            } else if (getQueue().isEmpty() && utilisation < IDLE_UTILISATION && getCorePoolSize() > minThreads) {
+                if (++idleSamples >= SHRINK_SAMPLES) {
+                    idleSamples = 0;
+                    shrink();
+                }
+            } else {
+                idleSamples = 0;
+            }
+        } catch (RuntimeException _ex) {
+            LOGGER.warn("Failed to resize worker pool {}", name, _ex);
+        }
+    }
+
+    private synchronized void grow() {
+        int size = getCorePoolSize();
+        if (size >= maxThreads || isShutdown()) {
+            return;
+        }
+        int newSize = Math.min(maxThreads, size + Math.max(1, size / 2));
+        setCorePoolSize(newSize);
+        LOGGER.debug("Growing worker pool {} from {} to {} threads, queue delay {} ms", name, size, newSize,
+                TimeUnit.NANOSECONDS.toMillis(oldestQueueDelay()));
+    }
+
+    private synchronized void shrink() {
+        int size = getCorePoolSize();
+        if (size <= minThreads || isShutdown()) {
+            return;
+        }
+        setCorePoolSize(size - 1);
+        LOGGER.debug("Shrinking worker pool {} to {} threads, utilisation {}", name, size - 1, utilisation);
+    }
+
+    /**
+     * Task remembering when it was queued.
+     */
+    private static final class TimedTask implements Runnable {
+        private final Runnable task;
+        private final long     queued = System.nanoTime();
+
+        TimedTask(Runnable _task) {
+            task = _task;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+}
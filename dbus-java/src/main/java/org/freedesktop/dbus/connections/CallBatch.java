@@ -0,0 +1,139 @@
+package org.freedesktop.dbus.connections;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.freedesktop.dbus.RemoteInvocationHandler;
+import org.freedesktop.dbus.RemoteObject;
+import org.freedesktop.dbus.annotations.MethodNoReply;
+import org.freedesktop.dbus.exceptions.DBusExecutionException;
+import org.freedesktop.dbus.exceptions.NotConnected;
+import org.freedesktop.dbus.interfaces.DBusInterface;
+import org.freedesktop.dbus.messages.MethodCall;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Batch of method calls which are written back-to-back and flushed once.
+ * <p>
+ * Sending N calls one by one and waiting for each reply costs N round-trips,
+ * a batch only costs about one round-trip as all calls are in flight at the same time.
+ * </p>
+ * <pre>
+ * CallBatch batch = connection.createCallBatch();
+ * for (Properties props : devices) {
+ *     batch.call(props, "GetAll", "org.example.Device");
+ * }
+ * List&lt;Object&gt; results = batch.execute();
+ * </pre>
+ * Instances are not thread-safe and can only be sent once.
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+public final class CallBatch {
+    private final Logger                        logger  = LoggerFactory.getLogger(getClass());
+
+    private final AbstractConnection            connection;
+    private final List<MethodCall>              calls   = new ArrayList<>();
+    private final List<CompletableFuture<?>>    results = new ArrayList<>();
+    private boolean                             sent;
+
+    CallBatch(AbstractConnection _connection) {
+        connection = _connection;
+    }
+
+    /**
+     * Adds a call to this batch. The call is not sent before {@link #send()} or {@link #execute()} is called.
+     *
+     * @param <A> type of the reply
+     * @param _object The remote object on which to call the method.
+     * @param _method The name of the method on the interface to call.
+     * @param _parameters The parameters to call the method with.
+     * @return future completed with the reply of this call
+     */
+    public <A> CompletableFuture<A> call(DBusInterface _object, String _method, Object... _parameters) {
+        if (sent) {
+            throw new IllegalStateException("Batch has already been sent");
+        }
+        RemoteObject ro = connection.getImportedObjects().get(_object);
+
+        try {
+            Method me = connection.findRemoteMethod(_object, ro, _method, _parameters);
+            MethodCall call = RemoteInvocationHandler.createMethodCall(ro, me, connection,
+                    RemoteInvocationHandler.CALL_TYPE_FUTURE, _parameters);
+            CompletableFuture<A> result;
+            if (me.isAnnotationPresent(MethodNoReply.class)) {
+                result = CompletableFuture.completedFuture(null);
+            } else {
+                result = connection.queueFuture(call, me);
+            }
+            calls.add(call);
+            results.add(result);
+            return result;
+        } catch (DBusExecutionException exDee) {
+            logger.debug("", exDee);
+            throw exDee;
+        } catch (Exception e) {
+            logger.debug("", e);
+            throw new DBusExecutionException(e.getMessage());
+        }
+    }
+
+    /**
+     * Number of calls in this batch.
+     *
+     * @return int
+     */
+    public int size() {
+        return calls.size();
+    }
+
+    /**
+     * Sends all calls of this batch.
+     *
+     * @return future completed with the replies in the order the calls were added,
+     *      or exceptionally if any of the calls failed
+     */
+    public CompletableFuture<List<Object>> send() {
+        if (sent) {
+            throw new IllegalStateException("Batch has already been sent");
+        }
+        sent = true;
+        if (!connection.isConnected()) {
+            for (CompletableFuture<?> result : results) {
+                result.cancel(false);
+            }
+            throw new NotConnected("Not Connected");
+        }
+        connection.sendMessages(calls);
+
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[results.size()])).thenApply(v -> {
+            List<Object> replies = new ArrayList<>(results.size());
+            for (CompletableFuture<?> result : results) {
+                replies.add(result.join());
+            }
+            return replies;
+        });
+    }
+
+    /**
+     * Sends all calls of this batch and waits until all replies have been received.
+     * Calls which have no reply in time fail with a {@link org.freedesktop.dbus.errors.NoReply}.
+     *
+     * @return replies in the order the calls were added
+     * @throws DBusExecutionException if any of the calls failed
+     */
+    public List<Object> execute() throws DBusExecutionException {
+        try {
+            return send().join();
+        } catch (CompletionException exCe) {
+            if (exCe.getCause() instanceof DBusExecutionException) {
+                throw (DBusExecutionException) exCe.getCause();
+            }
+            throw new DBusExecutionException(String.valueOf(exCe.getCause()));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.freedesktop.dbus.connections;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import org.freedesktop.dbus.messages.Message;
+
+/**
+ * Worker threads and queue handling one kind of incoming messages.
+ * <p>
+ * Each lane has its own {@link AdaptiveWorkerPool} and {@link InboundQueue}, so a backlog in one lane
+ * does not delay the messages of the others.
+ * </p>
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+final class DispatchLane {
+    /** Number of stripes used for ordered dispatching, keys of the same stripe are handled in order. */
+    private static final int                    ORDERED_DISPATCH_STRIPES = 64;
+
+    private final InboundQueue                  queue;
+    private final ExecutorService               pool;
+    // null if handlers run on virtual threads
+    private final AdaptiveWorkerPool            workers;
+    private final StripedSerialExecutor         orderedExecutor          =
+            new StripedSerialExecutor(this::execute, ORDERED_DISPATCH_STRIPES);
+    private final BiConsumer<Message, Runnable> dispatcher               = this::dispatchNow;
+
+    private volatile DispatchOrdering           ordering                 = DispatchOrdering.NONE;
+
+    /**
+     * Creates a new lane.
+     *
+     * @param _name name of the lane used in log messages
+     * @param _threadPrefix prefix of the worker thread names
+     * @param _minThreads minimum number of worker threads
+     * @param _maxThreads maximum number of worker threads
+     * @param _virtualThreads true to run every handler on a new virtual thread instead
+     */
+    DispatchLane(String _name, String _threadPrefix, int _minThreads, int _maxThreads, boolean _virtualThreads) {
+        queue = new InboundQueue(_name);
+        ExecutorService virtualExecutor = _virtualThreads ? VirtualThreadSupport.newExecutor(_threadPrefix) : null;
+        workers = null == virtualExecutor ? new AdaptiveWorkerPool(_threadPrefix, _minThreads, _maxThreads) : null;
+        pool = null == virtualExecutor ? workers : virtualExecutor;
+    }
+
+    InboundQueue getQueue() {
+        return queue;
+    }
+
+    boolean isVirtualThreads() {
+        return null == workers;
+    }
+
+    /**
+     * Returns the worker threads of this lane.
+     * @return pool, null if handlers are executed on virtual threads
+     */
+    AdaptiveWorkerPool getWorkers() {
+        return workers;
+    }
+
+    void setOrdering(DispatchOrdering _ordering) {
+        ordering = _ordering;
+    }
+
+    /**
+     * Changes the range the worker threads are resized in. Queued handlers are kept in order.
+     * Has no effect if handlers are executed on virtual threads.
+     *
+     * @param _minThreads minimum number of threads
+     * @param _maxThreads maximum number of threads
+     */
+    void setThreadLimits(int _minThreads, int _maxThreads) {
+        if (null != workers) {
+            workers.setThreadLimits(_minThreads, _maxThreads);
+        }
+    }
+
+    /**
+     * Queues the handler of the given message, respecting the {@link DispatchOrdering} of this lane.
+     *
+     * @param _message message to handle
+     * @param _task handler
+     * @param _onReject run if the queue rejects or drops the handler, may be null
+     */
+    void dispatch(Message _message, Runnable _task, Runnable _onReject) {
+        queue.execute(dispatcher, _message, _task, _onReject);
+    }
+
+    private void dispatchNow(Message _message, Runnable _task) {
+        DispatchOrdering o = ordering;
+        if (null == _message || DispatchOrdering.NONE == o) {
+            execute(_task);
+        } else {
+            orderedExecutor.execute(o.getKey(_message), _task);
+        }
+    }
+
+    private void execute(Runnable _task) {
+        pool.execute(_task);
+    }
+
+    /**
+     * Stops accepting handlers, already queued handlers are still executed.
+     * Releases readers waiting for space in the queue.
+     */
+    void shutdown() {
+        queue.close();
+        pool.shutdown();
+    }
+
+    /**
+     * Waits until all handlers have finished.
+     *
+     * @param _timeout maximum time to wait in ms
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void awaitTermination(long _timeout) throws InterruptedException {
+        pool.awaitTermination(_timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Interrupts all running handlers if the lane has not terminated yet.
+     */
+    void shutdownNow() {
+        if (!pool.isTerminated()) {
+            pool.shutdownNow();
+        }
+    }
+}
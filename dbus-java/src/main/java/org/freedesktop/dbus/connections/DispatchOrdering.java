@@ -0,0 +1,41 @@
+package org.freedesktop.dbus.connections;
+
+import java.util.function.Function;
+
+import org.freedesktop.dbus.messages.Message;
+
+/**
+ * Defines which incoming method calls and signals are handled in the order they were received.
+ * <p>
+ * Messages with the same key are handled one after another, messages with different keys
+ * are handled in parallel by the worker threads.
+ * </p>
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+public enum DispatchOrdering {
+    /** No ordering, all messages are handled in parallel. */
+    NONE(null),
+    /** Messages of the same sender (unique bus name) are handled in order. */
+    SENDER(Message::getSource),
+    /** Messages for or from the same object path are handled in order. */
+    OBJECT_PATH(Message::getPath),
+    /** Messages of the same interface are handled in order. */
+    INTERFACE(Message::getInterface);
+
+    private final Function<Message, Object> keyFunction;
+
+    DispatchOrdering(Function<Message, Object> _keyFunction) {
+        keyFunction = _keyFunction;
+    }
+
+    /**
+     * Returns the key of the given message.
+     *
+     * @param _message message
+     * @return key, may be null
+     */
+    Object getKey(Message _message) {
+        return null == keyFunction ? null : keyFunction.apply(_message);
+    }
+}
@@ -0,0 +1,145 @@
+package org.freedesktop.dbus.connections;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Thread of an {@link EventLoopGroup} selecting on the channels of several connections.
+ * <p>
+ * All registrations and interest changes are done on this thread, other threads submit tasks with {@link #execute(Runnable)}.
+ * </p>
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+final class EventLoop extends Thread {
+    private final Logger                logger        = LoggerFactory.getLogger(getClass());
+
+    private final Selector              selector;
+    private final Executor              dispatcher;
+    private final Queue<Runnable>       tasks         = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean         wakeupPending = new AtomicBoolean();
+    private final AtomicInteger         channels      = new AtomicInteger();
+
+    private volatile boolean            terminate;
+
+    EventLoop(String _name, Selector _selector, Executor _dispatcher) {
+        selector = _selector;
+        dispatcher = _dispatcher;
+        setName(_name);
+        setDaemon(true);
+    }
+
+    Selector getSelector() {
+        return selector;
+    }
+
+    /**
+     * Executor handling the messages received by the channels of this loop.
+     * @return executor shared by all loops of the group
+     */
+    Executor getDispatcher() {
+        return dispatcher;
+    }
+
+    boolean inEventLoop() {
+        return Thread.currentThread() == this;
+    }
+
+    /**
+     * Runs the given task on this thread.
+     *
+     * @param _task task
+     */
+    void execute(Runnable _task) {
+        tasks.add(_task);
+        if (!inEventLoop() && wakeupPending.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    int getChannelCount() {
+        return channels.get();
+    }
+
+    void channelAdded() {
+        channels.incrementAndGet();
+    }
+
+    void channelRemoved() {
+        channels.decrementAndGet();
+    }
+
+    void shutdown() {
+        terminate = true;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        logger.debug("Event loop started");
+        while (!terminate) {
+            try {
+                if (tasks.isEmpty()) {
+                    selector.select();
+                } else {
+                    selector.selectNow();
+                }
+                wakeupPending.set(false);
+            } catch (IOException _ex) {
+                logger.error("Failed to select ready channels", _ex);
+                continue;
+            }
+
+            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+            while (it.hasNext()) {
+                SelectionKey key = it.next();
+                it.remove();
+                EventLoopChannel channel = (EventLoopChannel) key.attachment();
+                try {
+                    if (key.isValid()) {
+                        channel.handleReady(key);
+                    }
+                } catch (CancelledKeyException _ex) {
+                    logger.trace("Key of {} was cancelled", channel, _ex);
+                } catch (RuntimeException _ex) {
+                    logger.error("Exception in event loop.", _ex);
+                }
+            }
+
+            runTasks();
+        }
+
+        try {
+            selector.close();
+        } catch (IOException _ex) {
+            logger.debug("Failed to close selector", _ex);
+        }
+        logger.debug("Event loop stopped");
+    }
+
+    private void runTasks() {
+        // tasks added while running are handled after the next select
+        for (int i = tasks.size(); i > 0; i--) {
+            Runnable task = tasks.poll();
+            if (null == task) {
+                break;
+            }
+            try {
+                task.run();
+            } catch (RuntimeException _ex) {
+                logger.error("Exception in event loop task.", _ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package org.freedesktop.dbus.connections;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import org.freedesktop.dbus.connections.transports.AbstractTransport;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.FatalException;
+import org.freedesktop.dbus.messages.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registration of a connection in an {@link EventLoop}.
+ * <p>
+ * Replaces the {@link IncomingMessageThread} and {@link SenderThread} of the connection:
+ * incoming messages are read when the channel is readable, outgoing messages are queued in an
+ * {@link OutboundMessageRing} which is drained by the event loop.
+ * </p>
+ * <p>
+ * The event loop only reads and frames messages. They are handled on a dispatcher thread of the
+ * {@link EventLoopGroup}, because handling may block (full inbound queues, inline handlers, decoding signals)
+ * and would stall all other connections of the loop. The channel is not read while a batch of messages is handled, so a blocked connection
+ * applies backpressure to its peer and messages are handled in the order they were received.
+ * </p>
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+final class EventLoopChannel {
+    /** Maximum number of messages written with one flush. */
+    private static final int         MAX_BATCH     = 256;
+    /** Maximum number of messages read before other channels of the loop are served. */
+    private static final int         MAX_READS     = 64;
+    private static final long        FULL_WAIT_NS  = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final Logger             logger         = LoggerFactory.getLogger(getClass());
+
+    private final AbstractConnection connection;
+    private final AbstractTransport  transport;
+    private final SocketChannel      channel;
+    private final EventLoop          loop;
+    private final OutboundMessageRing ring;
+    private final AtomicBoolean      flushScheduled = new AtomicBoolean();
+    private final List<Message>      batch          = new ArrayList<>(MAX_BATCH);
+
+    // only accessed by the event loop
+    private SelectionKey             key;
+    private boolean                  reading;
+    private boolean                  writePending;
+    // true while received messages are handled by the dispatcher
+    private boolean                  dispatching;
+
+    private volatile boolean         closed;
+
+    EventLoopChannel(AbstractConnection _connection, AbstractTransport _transport, SocketChannel _channel, EventLoop _loop, int _capacity) {
+        connection = _connection;
+        transport = _transport;
+        channel = _channel;
+        loop = _loop;
+        ring = new OutboundMessageRing(_capacity);
+    }
+
+    /**
+     * Registers the channel in the event loop. Messages are only read after {@link #startReading()} has been called.
+     */
+    void register() {
+        loop.execute(() -> {
+            try {
+                key = channel.register(loop.getSelector(), 0, this);
+                updateInterest();
+            } catch (ClosedChannelException _ex) {
+                logger.debug("Channel closed before it was registered", _ex);
+            }
+        });
+    }
+
+    void startReading() {
+        loop.execute(() -> {
+            reading = true;
+            updateInterest();
+        });
+    }
+
+    boolean inEventLoop() {
+        return loop.inEventLoop();
+    }
+
+    /**
+     * Queues a message for sending. Blocks while the queue is full.
+     * Messages sent from the event loop itself are not queued, all queued messages are written
+     * and false is returned so the caller writes the message directly.
+     *
+     * @param _message message
+     * @return false if the message was not queued
+     */
+    boolean offer(Message _message) {
+        if (closed) {
+            return false;
+        } else if (loop.inEventLoop()) {
+            flushOutbound();
+            return false;
+        }
+        while (!ring.offer(_message)) {
+            if (closed || ring.isClosed()) {
+                return false;
+            }
+            LockSupport.parkNanos(FULL_WAIT_NS);
+        }
+        // queued messages are written by the event loop or returned by drainRemaining()
+        if (!closed && flushScheduled.compareAndSet(false, true)) {
+            loop.execute(this::flushOutbound);
+        }
+        return true;
+    }
+
+    private void flushOutbound() {
+        flushScheduled.set(false);
+        if (closed) {
+            // remaining messages are returned by drainRemaining()
+            return;
+        }
+        while (0 != ring.drainTo(batch, MAX_BATCH)) {
+            connection.sendMessagesInternally(batch);
+            batch.clear();
+        }
+        try {
+            writePending = !transport.flushPendingWrites();
+            updateInterest();
+        } catch (IOException _ex) {
+            failed(_ex);
+        }
+    }
+
+    /**
+     * Called by the event loop when the channel is ready.
+     *
+     * @param _key selection key
+     */
+    void handleReady(SelectionKey _key) {
+        if (_key.isWritable()) {
+            try {
+                writePending = !transport.flushPendingWrites();
+                updateInterest();
+            } catch (IOException _ex) {
+                failed(_ex);
+                return;
+            }
+        }
+        if (_key.isValid() && _key.isReadable()) {
+            readMessages();
+        }
+    }
+
+    private void readMessages() {
+        if (closed || dispatching) {
+            return;
+        }
+        List<Message> received = new ArrayList<>();
+        for (int i = 0; i < MAX_READS; i++) {
+            try {
+                Message msg = connection.readIncoming();
+                if (null == msg) {
+                    break;
+                }
+                logger.trace("Got Incoming Message: {}", msg);
+                received.add(msg);
+            } catch (DBusException _ex) {
+                if (_ex instanceof FatalException) {
+                    failed(_ex);
+                    return;
+                }
+                logger.error("Exception in event loop.", _ex);
+            }
+        }
+        if (received.isEmpty()) {
+            return;
+        }
+        // stop reading until the messages have been handled
+        dispatching = true;
+        updateInterest();
+        try {
+            loop.getDispatcher().execute(() -> dispatch(received));
+        } catch (RejectedExecutionException _ex) {
+            failed(_ex);
+        }
+    }
+
+    /**
+     * Handles received messages on a dispatcher thread, reading continues on the event loop afterwards.
+     *
+     * @param _messages messages in the order they were received
+     */
+    private void dispatch(List<Message> _messages) {
+        try {
+            for (Message msg : _messages) {
+                if (closed) {
+                    return;
+                }
+                try {
+                    connection.handleMessage(msg);
+                } catch (DBusException _ex) {
+                    if (_ex instanceof FatalException) {
+                        loop.execute(() -> failed(_ex));
+                        return;
+                    }
+                    logger.error("Exception while handling message.", _ex);
+                } catch (RuntimeException _ex) {
+                    logger.error("Exception while handling message.", _ex);
+                }
+            }
+        } finally {
+            loop.execute(() -> {
+                dispatching = false;
+                updateInterest();
+                // messages may already be buffered by the reader
+                readMessages();
+            });
+        }
+    }
+
+    private void updateInterest() {
+        if (null == key || !key.isValid()) {
+            return;
+        }
+        int ops = 0;
+        if (reading && !dispatching) {
+            ops |= SelectionKey.OP_READ;
+        }
+        if (writePending) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+        if (key.interestOps() != ops) {
+            key.interestOps(ops);
+        }
+    }
+
+    /**
+     * Removes the channel from the event loop and disconnects the connection on a separate thread.
+     *
+     * @param _ex cause
+     */
+    void failed(Exception _ex) {
+        if (closed) {
+            return;
+        }
+        logger.error("FatalException in event loop.", _ex);
+        cancel();
+        // disconnecting waits for the worker threads, which must not block the event loop
+        Thread t = new Thread(connection::disconnect, "DBus Disconnect Thread");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void cancel() {
+        if (!closed) {
+            closed = true;
+            if (null != key) {
+                key.cancel();
+            }
+            loop.channelRemoved();
+        }
+    }
+
+    /**
+     * Writes all queued messages and removes the channel from the event loop.
+     * Waits up to 10 seconds if not called on the event loop.
+     */
+    void close() {
+        if (loop.inEventLoop()) {
+            flushAndCancel();
+            return;
+        }
+        CountDownLatch done = new CountDownLatch(1);
+        loop.execute(() -> {
+            try {
+                flushAndCancel();
+            } finally {
+                done.countDown();
+            }
+        });
+        try {
+            if (!done.await(10, TimeUnit.SECONDS)) {
+                logger.warn("Event loop did not remove channel in time");
+            }
+        } catch (InterruptedException _ex) {
+            logger.debug("Interrupted while waiting for event loop.", _ex);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Removes all messages which have not been written yet, messages offered afterwards are refused.
+     * Must only be called after {@link #close()}.
+     *
+     * @return messages in the order they were queued
+     */
+    List<Message> drainRemaining() {
+        ring.close();
+        List<Message> remaining = new ArrayList<>();
+        ring.drainTo(remaining, Integer.MAX_VALUE);
+        return remaining;
+    }
+
+    private void flushAndCancel() {
+        if (!closed) {
+            flushOutbound();
+        }
+        cancel();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + loop.getName() + "]";
+    }
+}
@@ -0,0 +1,184 @@
+package org.freedesktop.dbus.connections;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.spi.SelectorProvider;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.hypfvieh.threads.NameableThreadFactory;
+
+/**
+ * Group of selector threads serving the reads and writes of many connections.
+ * <p>
+ * Without a group, every connection uses its own reader and sender thread.
+ * Connections created while a default group is set are registered to one of its threads instead,
+ * so the number of I/O threads depends on the size of the group and not on the number of connections.
+ * </p>
+ * The default group is created on first use if the system property {@value #THREADS_PROPERTY}
+ * is set to a positive number, or it can be set with {@link #setDefault(EventLoopGroup)}.
+ * Only connections using unix sockets without an {@link org.freedesktop.dbus.spi.ISocketProvider}
+ * can be served by a group, all other connections keep using their own threads.
+ * <p>
+ * Received messages are handled by a bounded pool of dispatcher threads shared by all loops of the group,
+ * each connection uses at most one of them at a time. By default the pool has as many threads as
+ * there are processors, at least as many as event loop threads. If all dispatcher threads are blocked,
+ * e.g. by full inbound queues with {@link OverloadPolicy#BLOCK}, messages of other connections wait until
+ * a dispatcher thread is free. The size of the default group's pool can be set with the system property
+ * {@value #DISPATCHER_THREADS_PROPERTY}.
+ * </p>
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+public final class EventLoopGroup implements Closeable {
+    /** System property to enable the default group, value is the number of threads. */
+    public static final String                          THREADS_PROPERTY = "dbus.java.eventloop.threads";
+    /** System property to set the number of dispatcher threads of the default group. */
+    public static final String                          DISPATCHER_THREADS_PROPERTY = "dbus.java.eventloop.dispatchers";
+
+    private static final Logger                         LOGGER           = LoggerFactory.getLogger(EventLoopGroup.class);
+
+    private static EventLoopGroup                       defaultGroup;
+    private static boolean                              defaultInitialized;
+
+    private final String                                name;
+    private final int                                   threads;
+    private final ThreadPoolExecutor                    dispatcher;
+    // each thread can only select on channels of a single provider
+    private final Map<SelectorProvider, List<EventLoop>> loops           = new HashMap<>();
+    private boolean                                     closed;
+
+    /**
+     * Creates a new group. Threads are started when the first connection is registered.
+     *
+     * @param _threads number of threads for each kind of channel
+     */
+    public EventLoopGroup(int _threads) {
+        this("DBus Event Loop", _threads);
+    }
+
+    /**
+     * Creates a new group. Threads are started when the first connection is registered.
+     *
+     * @param _name prefix of the thread names
+     * @param _threads number of threads for each kind of channel
+     */
+    public EventLoopGroup(String _name, int _threads) {
+        this(_name, _threads, Math.max(_threads, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Creates a new group. Threads are started when the first connection is registered.
+     *
+     * @param _name prefix of the thread names
+     * @param _threads number of threads for each kind of channel
+     * @param _dispatcherThreads maximum number of threads handling received messages
+     */
+    public EventLoopGroup(String _name, int _threads, int _dispatcherThreads) {
+        if (_threads <= 0) {
+            throw new IllegalArgumentException("Number of threads must be greater than 0");
+        }
+        if (_dispatcherThreads <= 0) {
+            throw new IllegalArgumentException("Number of dispatcher threads must be greater than 0");
+        }
+        name = _name;
+        threads = _threads;
+        dispatcher = new ThreadPoolExecutor(_dispatcherThreads, _dispatcherThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new NameableThreadFactory(_name + " Dispatcher-", true));
+        dispatcher.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the group used for new connections.
+     *
+     * @return group or null if connections use their own threads
+     */
+    public static synchronized EventLoopGroup getDefault() {
+        if (!defaultInitialized) {
+            defaultInitialized = true;
+            Integer threads = Integer.getInteger(THREADS_PROPERTY);
+            if (null != threads && threads > 0) {
+                Integer dispatchers = Integer.getInteger(DISPATCHER_THREADS_PROPERTY);
+                defaultGroup = null != dispatchers && dispatchers > 0
+                        ? new EventLoopGroup("DBus Event Loop", threads, dispatchers)
+                        : new EventLoopGroup(threads);
+            }
+        }
+        return defaultGroup;
+    }
+
+    /**
+     * Sets the group used for new connections.
+     * Connections which already exist are not affected.
+     *
+     * @param _group group, null to use a reader and sender thread for each connection
+     */
+    public static synchronized void setDefault(EventLoopGroup _group) {
+        defaultInitialized = true;
+        defaultGroup = _group;
+    }
+
+    public int getThreadCount() {
+        return threads;
+    }
+
+    public int getDispatcherThreadCount() {
+        return dispatcher.getMaximumPoolSize();
+    }
+
+    /**
+     * Selects the thread serving a new channel, the thread with the fewest channels is used.
+     * The channel has to be released with {@link EventLoop#channelRemoved()} when it is closed.
+     *
+     * @param _provider provider of the channel
+     * @return loop
+     * @throws IOException if a selector could not be opened
+     */
+    synchronized EventLoop next(SelectorProvider _provider) throws IOException {
+        if (closed) {
+            throw new IOException("Event loop group has been closed");
+        }
+        List<EventLoop> list = loops.get(_provider);
+        if (null == list) {
+            list = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                EventLoop loop = new EventLoop(name + "-" + (loops.size() * threads + i + 1), _provider.openSelector(), dispatcher);
+                loop.start();
+                list.add(loop);
+            }
+            loops.put(_provider, list);
+        }
+        EventLoop selected = list.get(0);
+        for (EventLoop loop : list) {
+            if (loop.getChannelCount() < selected.getChannelCount()) {
+                selected = loop;
+            }
+        }
+        selected.channelAdded();
+        return selected;
+    }
+
+    /**
+     * Stops all threads of this group. Connections served by this group have to be disconnected before.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (List<EventLoop> list : loops.values()) {
+            for (EventLoop loop : list) {
+                loop.shutdown();
+            }
+        }
+        loops.clear();
+        dispatcher.shutdown();
+        LOGGER.debug("Event loop group {} closed", name);
+    }
+}
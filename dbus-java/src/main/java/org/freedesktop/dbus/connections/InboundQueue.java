@@ -0,0 +1,262 @@
+package org.freedesktop.dbus.connections;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Limits the number of incoming message handlers waiting for a worker thread.
+ * <p>
+ * A handler occupies a place in the queue from the moment it is submitted until it starts running.
+ * If all places are taken, the {@link OverloadPolicy} decides whether the reader waits, the oldest
+ * handler is dropped or the new one is rejected. Dropped and rejected handlers are counted and
+ * their reject action (e.g. sending an error reply) is run instead.
+ * </p>
+ * <p>
+ * Dropped handlers are only skipped when they reach a worker thread. If as many dropped handlers
+ * are still waiting as the queue has places, new handlers are rejected instead of dropping old ones,
+ * so memory stays bounded even under sustained overload.
+ * </p>
+ * <p>
+ * With {@link OverloadPolicy#BLOCK} a full queue also stops replies from being read, see there before
+ * using it for handlers which make synchronous calls on the same connection.
+ * </p>
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+public final class InboundQueue {
+    /** Capacity of queues without limit. */
+    public static final int      UNBOUNDED         = Integer.MAX_VALUE;
+
+    /** Interval in which a blocked reader checks if the queue has been closed. */
+    private static final long    BLOCK_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private static final Logger  LOGGER            = LoggerFactory.getLogger(InboundQueue.class);
+
+    private final String         name;
+    private final ReentrantLock  lock              = new ReentrantLock();
+    private final Condition      notFull           = lock.newCondition();
+    // waiting handlers, oldest first
+    private final Set<Slot>      waiting           = new LinkedHashSet<>();
+    private final AtomicLong     dropped           = new AtomicLong();
+    private final AtomicLong     rejected          = new AtomicLong();
+
+    private volatile int         capacity          = UNBOUNDED;
+    private volatile OverloadPolicy policy         = OverloadPolicy.BLOCK;
+    private int                  staleSlots;
+    private boolean              closed;
+
+    /**
+     * Creates an unbounded queue.
+     *
+     * @param _name name used in log messages
+     */
+    public InboundQueue(String _name) {
+        name = _name;
+    }
+
+    /**
+     * Changes the limit of this queue. Handlers already queued are not affected.
+     *
+     * @param _capacity maximum number of waiting handlers, {@link #UNBOUNDED} for no limit
+     * @param _policy policy applied if the queue is full
+     */
+    public void setLimit(int _capacity, OverloadPolicy _policy) {
+        if (_capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than 0");
+        }
+        lock.lock();
+        try {
+            capacity = _capacity;
+            policy = Objects.requireNonNull(_policy, "Policy required");
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public OverloadPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Returns the number of handlers waiting for a worker thread.
+     * @return number of handlers
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return waiting.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of handlers dropped to make room for newer ones.
+     * @return number of dropped handlers
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Returns the number of handlers rejected because the queue was full.
+     * @return number of rejected handlers
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Queues the given handler on the executor if there is space left.
+     *
+     * @param <K> type of the key
+     * @param _executor executor running the handler, called with the key and the queued handler
+     * @param _key key passed to the executor
+     * @param _task handler
+     * @param _onReject run on the calling thread if the handler is rejected or dropped, may be null
+     * @return true if the handler was queued
+     * @throws RejectedExecutionException if the executor does not accept handlers anymore
+     */
+    public <K> boolean execute(BiConsumer<K, Runnable> _executor, K _key, Runnable _task, Runnable _onReject) {
+        if (UNBOUNDED == capacity) {
+            _executor.accept(_key, _task);
+            return true;
+        }
+
+        Slot slot = new Slot(_task, _onReject);
+        Slot evicted = null;
+        lock.lock();
+        try {
+            while (waiting.size() >= capacity && !closed) {
+                OverloadPolicy p = policy;
+                if (OverloadPolicy.BLOCK == p) {
+                    try {
+                        notFull.awaitNanos(BLOCK_CHECK_NANOS);
+                    } catch (InterruptedException _ex) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                } else if (OverloadPolicy.DROP_OLDEST == p && staleSlots < capacity) {
+                    Iterator<Slot> it = waiting.iterator();
+                    evicted = it.next();
+                    it.remove();
+                    evicted.task = null;
+                    staleSlots++;
+                    break;
+                } else {
+                    break;
+                }
+            }
+            if (waiting.size() >= capacity) {
+                slot = null;
+            } else {
+                waiting.add(slot);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (null != evicted) {
+            dropped.incrementAndGet();
+            LOGGER.debug("{} queue is full, dropped oldest handler", name);
+            runRejectAction(evicted.onReject);
+        }
+        if (null == slot) {
+            rejected.incrementAndGet();
+            LOGGER.debug("{} queue is full, rejected handler", name);
+            runRejectAction(_onReject);
+            return false;
+        }
+
+        try {
+            _executor.accept(_key, slot);
+        } catch (RejectedExecutionException _ex) {
+            lock.lock();
+            try {
+                waiting.remove(slot);
+                notFull.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw _ex;
+        }
+        return true;
+    }
+
+    /**
+     * Wakes up readers waiting for space, all further handlers are accepted without limit.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            capacity = UNBOUNDED;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runRejectAction(Runnable _onReject) {
+        if (null == _onReject) {
+            return;
+        }
+        try {
+            _onReject.run();
+        } catch (RuntimeException _ex) {
+            LOGGER.warn("Exception while rejecting handler in {} queue", name, _ex);
+        }
+    }
+
+    /**
+     * Place of a handler in the queue, released when the handler starts.
+     */
+    private final class Slot implements Runnable {
+        private final Runnable onReject;
+        // null if dropped, guarded by lock
+        private Runnable       task;
+
+        Slot(Runnable _task, Runnable _onReject) {
+            task = _task;
+            onReject = _onReject;
+        }
+
+        @Override
+        public void run() {
+            Runnable t;
+            lock.lock();
+            try {
+                t = task;
+                if (null == t) {
+                    staleSlots--;
+                } else {
+                    task = null;
+                    waiting.remove(this);
+                }
+                notFull.signal();
+            } finally {
+                lock.unlock();
+            }
+            if (null != t) {
+                t.run();
+            }
+        }
+    }
+}
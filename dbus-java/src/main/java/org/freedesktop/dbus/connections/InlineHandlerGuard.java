@@ -0,0 +1,144 @@
+package org.freedesktop.dbus.connections;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs handlers directly on the thread reading messages of a connection.
+ * <p>
+ * A watchdog thread shared by all connections checks the running handler periodically.
+ * A handler exceeding the time limit is reported once with the stack of the blocked thread
+ * and is not run inline anymore.
+ * </p>
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+final class InlineHandlerGuard {
+    /** Default time an inline handler may run. */
+    static final long                             DEFAULT_TIME_LIMIT = 100;
+
+    private static final long                     CHECK_INTERVAL     = 20;
+
+    private static final Logger                   LOGGER             = LoggerFactory.getLogger(InlineHandlerGuard.class);
+
+    private static final Set<InlineHandlerGuard>  GUARDS             = ConcurrentHashMap.newKeySet();
+    private static Thread                         watchdog;
+
+    private final Object                          owner;
+    // handlers which exceeded the time limit
+    private final Set<Object>                     demoted            = ConcurrentHashMap.newKeySet();
+    private volatile long                         timeLimitNanos     = TimeUnit.MILLISECONDS.toNanos(DEFAULT_TIME_LIMIT);
+    private volatile boolean                      registered;
+
+    // handler currently running, start time and thread are written before the handler
+    private volatile Object                       current;
+    private volatile long                         startNanos;
+    private volatile Thread                       thread;
+
+    /**
+     * Creates a new guard.
+     * @param _owner connection the handlers belong to, used in log messages
+     */
+    InlineHandlerGuard(Object _owner) {
+        owner = _owner;
+    }
+
+    void setTimeLimit(long _millis) {
+        timeLimitNanos = TimeUnit.MILLISECONDS.toNanos(_millis);
+    }
+
+    long getTimeLimit() {
+        return TimeUnit.NANOSECONDS.toMillis(timeLimitNanos);
+    }
+
+    /**
+     * Runs the given action on the calling thread unless the handler exceeded the time limit before.
+     *
+     * @param <H> type of the handler
+     * @param <A> type of the argument
+     * @param _handler handler, identifies the handler for the watchdog
+     * @param _arg argument passed to the action
+     * @param _action action calling the handler
+     * @return false if the action was not run and has to be handled on a worker thread
+     */
+    <H, A> boolean execute(H _handler, A _arg, BiConsumer<H, A> _action) {
+        if (demoted.contains(_handler)) {
+            return false;
+        }
+        if (!registered) {
+            registered = true;
+            register(this);
+        }
+        thread = Thread.currentThread();
+        startNanos = System.nanoTime();
+        current = _handler;
+        try {
+            _action.accept(_handler, _arg);
+        } catch (RuntimeException _ex) {
+            LOGGER.error("Exception in inline handler {}", _handler, _ex);
+        } finally {
+            current = null;
+        }
+        return true;
+    }
+
+    /**
+     * Stops watching this guard.
+     */
+    void close() {
+        if (registered) {
+            GUARDS.remove(this);
+        }
+    }
+
+    private void check() {
+        Object handler = current;
+        if (null == handler) {
+            return;
+        }
+        long elapsed = System.nanoTime() - startNanos;
+        if (elapsed > timeLimitNanos && current == handler && demoted.add(handler)) {
+            Thread t = thread;
+            Exception stack = new Exception("Stack of " + t.getName());
+            stack.setStackTrace(t.getStackTrace());
+            LOGGER.warn("Inline handler {} of {} is running for {} ms, it will be run on worker threads from now on",
+                    handler, owner, TimeUnit.NANOSECONDS.toMillis(elapsed), stack);
+        }
+    }
+
+    private static synchronized void register(InlineHandlerGuard _guard) {
+        GUARDS.add(_guard);
+        if (null == watchdog) {
+            watchdog = new Thread(InlineHandlerGuard::watch, "DBus Inline Handler Watchdog");
+            watchdog.setDaemon(true);
+            watchdog.start();
+        }
+    }
+
+    private static void watch() {
+        while (true) {
+            synchronized (InlineHandlerGuard.class) {
+                if (GUARDS.isEmpty()) {
+                    watchdog = null;
+                    return;
+                }
+            }
+            for (InlineHandlerGuard guard : GUARDS) {
+                guard.check();
+            }
+            try {
+                Thread.sleep(CHECK_INTERVAL);
+            } catch (InterruptedException _ex) {
+                synchronized (InlineHandlerGuard.class) {
+                    watchdog = null;
+                }
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.freedesktop.dbus.connections;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.freedesktop.dbus.messages.Message;
+
+/**
+ * Bounded ring buffer for outgoing messages with many producers and a single consumer.
+ * <p>
+ * Producers claim a slot by advancing the tail with a CAS and publish the message by updating
+ * the sequence of the slot, so adding a message does neither lock nor allocate.
+ * Only the consumer thread may call {@link #poll()} and {@link #drainTo(List, int)}.
+ * </p>
+ * <p>
+ * After {@link #close()} no message is accepted anymore, so every message is either consumed from the ring
+ * or refused to its producer, never both.
+ * </p>
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+public final class OutboundMessageRing {
+    private final Message[]       buffer;
+    private final AtomicLongArray sequences;
+    private final int             mask;
+
+    private final AtomicLong      tail      = new AtomicLong();
+    // only modified by the consumer, read by producers in size()
+    private volatile long         head;
+
+    // number of producers currently in offer(), close() waits until they have finished
+    private final AtomicInteger   producers = new AtomicInteger();
+    private volatile boolean      closed;
+
+    /**
+     * Creates a new ring.
+     *
+     * @param _capacity maximum number of messages, rounded up to a power of 2
+     */
+    public OutboundMessageRing(int _capacity) {
+        if (_capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than 0");
+        }
+        int size = Integer.highestOneBit(_capacity);
+        if (size < _capacity) {
+            size <<= 1;
+        }
+        buffer = new Message[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Adds a message.
+     *
+     * @param _message message
+     * @return false if the ring is full or closed
+     */
+    public boolean offer(Message _message) {
+        producers.incrementAndGet();
+        try {
+            // checked after announcing the producer, close() either sees this producer or this producer sees closed
+            if (closed) {
+                return false;
+            }
+            return publish(_message);
+        } finally {
+            producers.decrementAndGet();
+        }
+    }
+
+    private boolean publish(Message _message) {
+        while (true) {
+            long t = tail.get();
+            int idx = (int) t & mask;
+            long diff = sequences.get(idx) - t;
+            if (0 == diff) {
+                if (tail.compareAndSet(t, t + 1)) {
+                    buffer[idx] = _message;
+                    sequences.set(idx, t + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false; // slot still holds a message which was not consumed
+            }
+            // else another producer claimed the slot, retry with the new tail
+        }
+    }
+
+    /**
+     * Removes the oldest message.
+     *
+     * @return message or null if no message has been published yet
+     */
+    public Message poll() {
+        long h = head;
+        int idx = (int) h & mask;
+        if (sequences.get(idx) != h + 1) {
+            return null;
+        }
+        Message m = buffer[idx];
+        buffer[idx] = null;
+        sequences.lazySet(idx, h + buffer.length);
+        head = h + 1;
+        return m;
+    }
+
+    /**
+     * Moves all published messages to the given list.
+     *
+     * @param _target list to add to
+     * @param _max maximum number of messages to move
+     * @return number of moved messages
+     */
+    public int drainTo(List<Message> _target, int _max) {
+        int count = 0;
+        Message m;
+        while (count < _max && null != (m = poll())) {
+            _target.add(m);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Stops accepting messages. Returns after all concurrent calls of {@link #offer(Message)} have finished,
+     * so every message accepted by this ring can be drained afterwards.
+     */
+    public void close() {
+        closed = true;
+        while (0 != producers.get()) {
+            Thread.yield();
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public boolean isEmpty() {
+        long h = head;
+        return sequences.get((int) h & mask) != h + 1;
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Number of claimed slots, may include messages which are currently being published.
+     *
+     * @return int
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+}
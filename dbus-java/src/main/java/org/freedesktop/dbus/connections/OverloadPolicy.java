@@ -0,0 +1,26 @@
+package org.freedesktop.dbus.connections;
+
+/**
+ * Defines what happens to an incoming message if its {@link InboundQueue} is full.
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+public enum OverloadPolicy {
+    /**
+     * The thread reading messages waits until the queue has space again.
+     * No further messages are read meanwhile, so the transport applies backpressure to the peer.
+     * <p>
+     * Replies are read by the same thread, so they are held back as well. A handler which makes a
+     * synchronous call on its own connection while its queue is full waits for a reply that cannot be
+     * read until the queue drains, which it never does if all workers are such handlers; the call then
+     * fails with a NoReply error after the reply timeout. Use {@link #DROP_OLDEST} or {@link #REJECT}
+     * for queues whose handlers call back into the same connection.
+     * </p>
+     * Connections served by an {@link EventLoopGroup} block their dispatcher thread, not the shared event loop.
+     */
+    BLOCK,
+    /** The oldest queued message is dropped to make room for the new one. The reader never waits. */
+    DROP_OLDEST,
+    /** The new message is rejected, method calls are answered with a LimitsExceeded error. The reader never waits. */
+    REJECT
+}
@@ -0,0 +1,207 @@
+package org.freedesktop.dbus.connections;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.freedesktop.dbus.messages.MethodCall;
+
+/**
+ * Table of method calls waiting for a reply, keyed by their serial.
+ * <p>
+ * The table is split into stripes which are selected by the lowest bits of the serial.
+ * As serials are allocated sequentially, concurrent callers and the thread correlating replies
+ * usually work on different stripes and do not block each other.
+ * Each stripe is an open addressing hash table with linear probing storing the serials in a
+ * {@code long[]}, so no {@link Long} objects are created.
+ * </p>
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+public final class PendingCallTable {
+    private static final int STRIPE_BITS      = 4;
+    private static final int STRIPES          = 1 << STRIPE_BITS;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Stripe[]   stripes          = new Stripe[STRIPES];
+
+    public PendingCallTable() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    private Stripe stripeFor(long _serial) {
+        return stripes[(int) _serial & (STRIPES - 1)];
+    }
+
+    /**
+     * Adds a call waiting for a reply. An existing call with the same serial is replaced.
+     *
+     * @param _serial serial of the call, must not be 0
+     * @param _call call
+     */
+    public void put(long _serial, MethodCall _call) {
+        if (0 == _serial) {
+            throw new IllegalArgumentException("Serial must not be 0");
+        }
+        stripeFor(_serial).put(_serial, _call);
+    }
+
+    /**
+     * Returns the call with the given serial.
+     *
+     * @param _serial serial
+     * @return call or null
+     */
+    public MethodCall get(long _serial) {
+        return stripeFor(_serial).get(_serial);
+    }
+
+    /**
+     * Removes the call with the given serial.
+     *
+     * @param _serial serial
+     * @return removed call or null if there was no call with the given serial
+     */
+    public MethodCall remove(long _serial) {
+        return stripeFor(_serial).remove(_serial);
+    }
+
+    /**
+     * Removes all calls.
+     *
+     * @return list of removed calls
+     */
+    public List<MethodCall> removeAll() {
+        List<MethodCall> removed = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.removeAll(removed);
+        }
+        return removed;
+    }
+
+    /**
+     * Number of calls in this table.
+     *
+     * @return int
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return 0 == size();
+    }
+
+    /**
+     * Open addressing hash table, a key of 0 marks an empty slot.
+     */
+    private static final class Stripe {
+        private long[]       keys   = new long[INITIAL_CAPACITY];
+        private MethodCall[] values = new MethodCall[INITIAL_CAPACITY];
+        private int          size;
+
+        private static int index(long _key, int _mask) {
+            // serials in one stripe only differ in the upper bits
+            return (int) (_key >>> STRIPE_BITS) & _mask;
+        }
+
+        synchronized void put(long _key, MethodCall _value) {
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int i = index(_key, mask);
+            while (0 != keys[i]) {
+                if (keys[i] == _key) {
+                    values[i] = _value;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = _key;
+            values[i] = _value;
+            size++;
+        }
+
+        synchronized MethodCall get(long _key) {
+            int i = find(_key);
+            return -1 == i ? null : values[i];
+        }
+
+        synchronized MethodCall remove(long _key) {
+            int i = find(_key);
+            if (-1 == i) {
+                return null;
+            }
+            MethodCall old = values[i];
+
+            // shift following entries of the same probe sequence back, so no tombstones are needed
+            int mask = keys.length - 1;
+            int hole = i;
+            int j = (i + 1) & mask;
+            while (0 != keys[j]) {
+                int ideal = index(keys[j], mask);
+                if (((j - ideal) & mask) >= ((j - hole) & mask)) {
+                    keys[hole] = keys[j];
+                    values[hole] = values[j];
+                    hole = j;
+                }
+                j = (j + 1) & mask;
+            }
+            keys[hole] = 0;
+            values[hole] = null;
+            size--;
+            return old;
+        }
+
+        synchronized void removeAll(List<MethodCall> _removed) {
+            for (int i = 0; i < keys.length; i++) {
+                if (0 != keys[i]) {
+                    _removed.add(values[i]);
+                    keys[i] = 0;
+                    values[i] = null;
+                }
+            }
+            size = 0;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private int find(long _key) {
+            int mask = keys.length - 1;
+            int i = index(_key, mask);
+            while (0 != keys[i]) {
+                if (keys[i] == _key) {
+                    return i;
+                }
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            MethodCall[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new MethodCall[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int k = 0; k < oldKeys.length; k++) {
+                if (0 != oldKeys[k]) {
+                    int i = index(oldKeys[k], mask);
+                    while (0 != keys[i]) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[k];
+                    values[i] = oldValues[k];
+                }
+            }
+        }
+    }
+}
@@ -9,31 +9,56 @@ import org.freedesktop.dbus.interfaces.CallbackHandler;
 import org.freedesktop.dbus.messages.MethodCall;
 
 public class PendingCallbackManager {
-    private Map<MethodCall, CallbackHandler<? extends Object>>             pendingCallbacks;
-    private Map<MethodCall, DBusAsyncReply<?>>                             pendingCallbackReplys;
+    private final Map<MethodCall, PendingCallback> pendingCallbacks;
 
     PendingCallbackManager() {
         pendingCallbacks = new ConcurrentHashMap<>();
-        pendingCallbackReplys = new ConcurrentHashMap<>();
     }
-    
-    public synchronized void queueCallback(MethodCall _call, Method _method, CallbackHandler<?> _callback, AbstractConnection _connection) {
-        pendingCallbacks.put(_call, _callback);
-        pendingCallbackReplys.put(_call, new DBusAsyncReply<>(_call, _method, _connection));
 
+    public void queueCallback(MethodCall _call, Method _method, CallbackHandler<?> _callback, AbstractConnection _connection) {
+        pendingCallbacks.put(_call, new PendingCallback(_callback, new DBusAsyncReply<>(_call, _method, _connection)));
     }
-    
-    public synchronized CallbackHandler<? extends Object> removeCallback(MethodCall _methodCall) {
-        pendingCallbackReplys.remove(_methodCall);
-        return pendingCallbacks.remove(_methodCall);
+
+    public CallbackHandler<? extends Object> removeCallback(MethodCall _methodCall) {
+        PendingCallback pending = pendingCallbacks.remove(_methodCall);
+        return null == pending ? null : pending.handler;
     }
 
-    public synchronized CallbackHandler<? extends Object> getCallback(MethodCall _methodCall) {
-        return pendingCallbacks.get(_methodCall);
+    public CallbackHandler<? extends Object> getCallback(MethodCall _methodCall) {
+        PendingCallback pending = pendingCallbacks.get(_methodCall);
+        return null == pending ? null : pending.handler;
     }
-    
-    public synchronized DBusAsyncReply<?> getCallbackReply(MethodCall _methodCall) {
-        return pendingCallbackReplys.get(_methodCall);
+
+    public DBusAsyncReply<?> getCallbackReply(MethodCall _methodCall) {
+        PendingCallback pending = pendingCallbacks.get(_methodCall);
+        return null == pending ? null : pending.reply;
+    }
+
+    /**
+     * Removes the callback handler and the reply of the given call in one step.
+     *
+     * @param _methodCall call
+     * @return removed callback or null
+     */
+    PendingCallback remove(MethodCall _methodCall) {
+        return pendingCallbacks.remove(_methodCall);
     }
 
+    static final class PendingCallback {
+        private final CallbackHandler<? extends Object> handler;
+        private final DBusAsyncReply<?>                 reply;
+
+        PendingCallback(CallbackHandler<? extends Object> _handler, DBusAsyncReply<?> _reply) {
+            handler = _handler;
+            reply = _reply;
+        }
+
+        CallbackHandler<? extends Object> getHandler() {
+            return handler;
+        }
+
+        DBusAsyncReply<?> getReply() {
+            return reply;
+        }
+    }
 }
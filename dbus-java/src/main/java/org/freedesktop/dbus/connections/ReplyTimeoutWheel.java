@@ -0,0 +1,274 @@
+package org.freedesktop.dbus.connections;
+
+import java.io.Closeable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Consumer;
+
+import org.freedesktop.dbus.messages.MethodCall;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hashed timing wheel tracking the reply timeouts of pending method calls.
+ * <p>
+ * Scheduling and cancelling a timeout only appends to a queue, the buckets are exclusively
+ * modified by the thread advancing the wheel. Each tick only visits the timeouts of a single bucket,
+ * so expiring a call does not depend on the number of pending calls.
+ * The thread is started when the first timeout is scheduled.
+ * </p>
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+public final class ReplyTimeoutWheel implements Closeable {
+    private static final Logger         LOGGER        = LoggerFactory.getLogger(ReplyTimeoutWheel.class);
+
+    private final String                name;
+    private final long                  tickNanos;
+    private final Bucket[]              buckets;
+    private final int                   mask;
+    private final Consumer<MethodCall>  expiryHandler;
+
+    private final Queue<Timeout>        newTimeouts   = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout>        cancelled     = new ConcurrentLinkedQueue<>();
+
+    private final Object                lifecycleLock = new Object();
+    private volatile Thread             worker;
+    private volatile boolean            closed;
+
+    private long                        startTime;
+    private long                        tick;
+
+    /**
+     * Creates a new wheel.
+     *
+     * @param _name name used for the thread advancing the wheel
+     * @param _tickDuration duration of one tick in milliseconds, the accuracy of the timeouts
+     * @param _ticksPerWheel number of buckets, rounded up to a power of 2
+     * @param _expiryHandler called on the wheel thread with each call whose timeout expired
+     */
+    public ReplyTimeoutWheel(String _name, long _tickDuration, int _ticksPerWheel, Consumer<MethodCall> _expiryHandler) {
+        if (_tickDuration <= 0 || _ticksPerWheel <= 0) {
+            throw new IllegalArgumentException("Tick duration and ticks per wheel must be greater than 0");
+        }
+        int size = Integer.highestOneBit(_ticksPerWheel);
+        if (size < _ticksPerWheel) {
+            size <<= 1;
+        }
+        name = _name;
+        tickNanos = TimeUnit.MILLISECONDS.toNanos(_tickDuration);
+        buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new Bucket();
+        }
+        mask = size - 1;
+        expiryHandler = _expiryHandler;
+    }
+
+    /**
+     * Schedules the reply timeout of the given call.
+     *
+     * @param _call call waiting for a reply
+     * @param _timeout timeout in milliseconds
+     * @return timeout which has to be cancelled when the reply is received
+     */
+    public Timeout schedule(MethodCall _call, long _timeout) {
+        start();
+        Timeout timeout = new Timeout(this, _call, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(_timeout));
+        newTimeouts.add(timeout);
+        return timeout;
+    }
+
+    private void start() {
+        if (null != worker) {
+            return;
+        }
+        synchronized (lifecycleLock) {
+            if (null == worker && !closed) {
+                startTime = System.nanoTime();
+                Thread t = new Thread(this::run, name);
+                t.setDaemon(true);
+                t.start();
+                worker = t;
+            }
+        }
+    }
+
+    /**
+     * Stops the thread advancing the wheel. Timeouts which did not expire yet are dropped.
+     */
+    @Override
+    public void close() {
+        synchronized (lifecycleLock) {
+            closed = true;
+            if (null != worker) {
+                worker.interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        while (!closed) {
+            long deadline = startTime + (tick + 1) * tickNanos;
+            long sleepNanos = deadline - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException _ex) {
+                    if (closed) {
+                        break;
+                    }
+                }
+            }
+            removeCancelled();
+            transferNewTimeouts();
+            expire(buckets[(int) (tick & mask)]);
+            tick++;
+        }
+        newTimeouts.clear();
+        cancelled.clear();
+    }
+
+    private void transferNewTimeouts() {
+        // limit the work per tick, timeouts added concurrently are handled in the next tick
+        for (int i = 0; i < 100000; i++) {
+            Timeout timeout = newTimeouts.poll();
+            if (null == timeout) {
+                break;
+            }
+            if (timeout.state != Timeout.STATE_INIT) {
+                continue;
+            }
+            // the last tick which is processed at or after the deadline
+            long expiryTick = Math.max((timeout.deadline - startTime + tickNanos - 1) / tickNanos - 1, tick);
+            timeout.remainingRounds = (expiryTick - tick) / buckets.length;
+            buckets[(int) (expiryTick & mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while (null != (timeout = cancelled.poll())) {
+            if (null != timeout.bucket) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void expire(Bucket _bucket) {
+        Timeout timeout = _bucket.head;
+        while (null != timeout) {
+            Timeout next = timeout.next;
+            if (timeout.remainingRounds <= 0) {
+                _bucket.remove(timeout);
+                if (timeout.expire()) {
+                    try {
+                        expiryHandler.accept(timeout.call);
+                    } catch (RuntimeException _ex) {
+                        LOGGER.warn("Error while expiring reply timeout of {}", timeout.call, _ex);
+                    }
+                }
+            } else if (timeout.state == Timeout.STATE_CANCELLED) {
+                _bucket.remove(timeout);
+            } else {
+                timeout.remainingRounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * Reply timeout of a single call.
+     */
+    public static final class Timeout {
+        private static final int                                        STATE_INIT      = 0;
+        private static final int                                        STATE_CANCELLED = 1;
+        private static final int                                        STATE_EXPIRED   = 2;
+
+        private static final AtomicIntegerFieldUpdater<Timeout>         STATE           =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final ReplyTimeoutWheel                                 wheel;
+        private final MethodCall                                        call;
+        private final long                                              deadline;
+        private volatile int                                            state;
+
+        // only accessed by the wheel thread
+        private long                                                    remainingRounds;
+        private Bucket                                                  bucket;
+        private Timeout                                                 prev;
+        private Timeout                                                 next;
+
+        Timeout(ReplyTimeoutWheel _wheel, MethodCall _call, long _deadline) {
+            wheel = _wheel;
+            call = _call;
+            deadline = _deadline;
+        }
+
+        /**
+         * Cancels this timeout, the call will not be expired anymore.
+         *
+         * @return false if the timeout already expired or was cancelled before
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, STATE_INIT, STATE_CANCELLED)) {
+                return false;
+            }
+            wheel.cancelled.add(this);
+            return true;
+        }
+
+        boolean expire() {
+            return STATE.compareAndSet(this, STATE_INIT, STATE_EXPIRED);
+        }
+
+        public boolean isExpired() {
+            return state == STATE_EXPIRED;
+        }
+
+        public MethodCall getCall() {
+            return call;
+        }
+    }
+
+    /**
+     * Doubly linked list of timeouts, only accessed by the wheel thread.
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout _timeout) {
+            _timeout.bucket = this;
+            if (null == head) {
+                head = _timeout;
+                tail = _timeout;
+            } else {
+                tail.next = _timeout;
+                _timeout.prev = tail;
+                tail = _timeout;
+            }
+        }
+
+        void remove(Timeout _timeout) {
+            if (this != _timeout.bucket) {
+                return;
+            }
+            if (null == _timeout.prev) {
+                head = _timeout.next;
+            } else {
+                _timeout.prev.next = _timeout.next;
+            }
+            if (null == _timeout.next) {
+                tail = _timeout.prev;
+            } else {
+                _timeout.next.prev = _timeout.prev;
+            }
+            _timeout.prev = null;
+            _timeout.next = null;
+            _timeout.bucket = null;
+        }
+    }
+}
@@ -1,64 +1,99 @@
 package org.freedesktop.dbus.connections;
 
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import org.freedesktop.dbus.messages.Message;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Thread writing all outgoing messages of a connection.
+ * <p>
+ * Messages are queued in an {@link OutboundMessageRing}. The thread drains all messages available
+ * and writes them with a single flush, so a burst of messages only costs a few writes.
+ * </p>
+ */
 public class SenderThread extends Thread {
-    private final Logger logger = LoggerFactory.getLogger(getClass());
+    /** Maximum number of messages written with one flush. */
+    private static final int         MAX_BATCH     = 256;
+    private static final long        FULL_WAIT_NS  = TimeUnit.MICROSECONDS.toNanos(50);
 
-    private boolean      terminate;
-
-    private final LinkedBlockingQueue<Message> outgoingQueue = new LinkedBlockingQueue<>();
+    private final Logger             logger        = LoggerFactory.getLogger(getClass());
 
+    private final OutboundMessageRing ring;
     private final AbstractConnection abstractConnection;
 
+    private volatile boolean         terminate;
+    private volatile boolean         waiting;
 
-    SenderThread(AbstractConnection _abstractConnection) {
+    SenderThread(AbstractConnection _abstractConnection, int _capacity) {
         abstractConnection = _abstractConnection;
-        setName("DBUS Sender Thread");
+        ring = new OutboundMessageRing(_capacity);
+        setName("DBus Sender Thread");
+    }
+
+    /**
+     * Queues a message for sending. Blocks while the queue is full.
+     *
+     * @param _message message
+     * @return false if this thread has been terminated and the message was not queued
+     */
+    boolean offer(Message _message) {
+        while (!ring.offer(_message)) {
+            if (terminate || ring.isClosed()) {
+                return false;
+            }
+            LockSupport.parkNanos(FULL_WAIT_NS);
+        }
+        // queued messages are written by this thread or returned by drainRemaining()
+        if (waiting) {
+            LockSupport.unpark(this);
+        }
+        return true;
     }
 
+    /**
+     * Stops this thread after the current write.
+     */
     public void terminate() {
         terminate = true;
-        interrupt();
+        LockSupport.unpark(this);
     }
 
-    public LinkedBlockingQueue<Message> getOutgoingQueue() {
-        return outgoingQueue;
+    /**
+     * Removes all messages which have not been written yet, messages offered afterwards are refused.
+     * Must only be called after this thread has stopped.
+     *
+     * @return messages in the order they were queued
+     */
+    List<Message> drainRemaining() {
+        ring.close();
+        List<Message> remaining = new ArrayList<>();
+        ring.drainTo(remaining, Integer.MAX_VALUE);
+        return remaining;
     }
 
     @Override
     public void run() {
-        Message m = null;
+        List<Message> batch = new ArrayList<>(MAX_BATCH);
 
         logger.trace("Monitoring outbound queue");
-        // block on the outbound queue and send from it
         while (!terminate) {
-            try {
-                m = outgoingQueue.take();
-                if (m != null) {
-                    abstractConnection.sendMessage(m);
-                    m = null;
-                }
-            } catch (InterruptedException _ex) {
-                if (!terminate) { // if terminate is true, shutdown was requested, do not log that
-                    logger.warn("Interrupted while waiting for a message to send", _ex);
+            if (0 == ring.drainTo(batch, MAX_BATCH)) {
+                waiting = true;
+                // check again, a producer may have published before it saw the waiting flag
+                if (ring.isEmpty() && !terminate) {
+                    LockSupport.park(this);
                 }
+                waiting = false;
+                continue;
             }
+            abstractConnection.sendMessagesInternally(batch);
+            batch.clear();
         }
-
-        logger.debug("Flushing outbound queue and quitting");
-        // flush the outbound queue before disconnect.
-        while (!outgoingQueue.isEmpty()) {
-            Message poll = outgoingQueue.poll();
-            if (poll != null) {
-                abstractConnection.sendMessage(outgoingQueue.poll());
-            } else {
-                break;
-            }
-        }
+        logger.debug("Sender thread stopped");
     }
 }
@@ -0,0 +1,238 @@
+package org.freedesktop.dbus.connections;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.freedesktop.dbus.DBusMatchRule;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.DBusSigHandler;
+import org.freedesktop.dbus.interfaces.SignalFlow;
+import org.freedesktop.dbus.messages.DBusSignal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes the signals matching a rule to subscribers.
+ * <p>
+ * Each subscription registers its own signal handler, which only adds the received signal to a bounded buffer.
+ * Signals are passed to the subscriber on the executor of the publisher as long as there is demand,
+ * so a slow subscriber does not occupy the threads handling signals.
+ * The handler is removed when the subscription is cancelled or failed.
+ * Subscriptions still active when the connection is disconnected are completed.
+ * </p>
+ *
+ * @param <T> type of the signals
+ * @since v3.2.4 - 2020-09-01
+ */
+final class SignalPublisher<T extends DBusSignal> implements SignalFlow.Publisher<T> {
+    private static final Logger      LOGGER = LoggerFactory.getLogger(SignalPublisher.class);
+
+    private final AbstractConnection connection;
+    private final Class<T>           type;
+    private final DBusMatchRule      rule;
+    private final int                bufferSize;
+    private final SignalFlow.Overflow overflow;
+    private final Executor           executor;
+
+    SignalPublisher(AbstractConnection _connection, Class<T> _type, DBusMatchRule _rule, int _bufferSize,
+            SignalFlow.Overflow _overflow, Executor _executor) {
+        if (_bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be greater than 0");
+        }
+        connection = _connection;
+        type = Objects.requireNonNull(_type, "Signal type required");
+        rule = Objects.requireNonNull(_rule, "Match rule required");
+        bufferSize = _bufferSize;
+        overflow = Objects.requireNonNull(_overflow, "Overflow strategy required");
+        executor = Objects.requireNonNull(_executor, "Executor required");
+    }
+
+    @Override
+    public void subscribe(SignalFlow.Subscriber<? super T> _subscriber) {
+        Objects.requireNonNull(_subscriber, "Subscriber required");
+        SignalSubscription subscription = new SignalSubscription(_subscriber);
+        _subscriber.onSubscribe(subscription);
+        if (subscription.cancelled) {
+            return;
+        }
+        connection.getSignalSubscriptions().add(subscription);
+        try {
+            connection.addSigHandler(rule, subscription);
+        } catch (DBusException | RuntimeException _ex) {
+            subscription.fail(_ex);
+            return;
+        }
+        if (!connection.isConnected()) {
+            // disconnected meanwhile, the connection may not have seen this subscription
+            subscription.complete();
+        }
+    }
+
+    /**
+     * Subscription of a single subscriber, also the signal handler feeding it.
+     */
+    final class SignalSubscription implements SignalFlow.Subscription, DBusSigHandler<T>, Runnable {
+        private final SignalFlow.Subscriber<? super T> subscriber;
+        // guarded by itself
+        private final Queue<T>                         buffer = new ArrayDeque<>();
+        private final AtomicLong                       demand = new AtomicLong();
+        // number of pending drain requests, the drain task runs while greater than 0
+        private final AtomicInteger                    wip    = new AtomicInteger();
+        private volatile boolean                       cancelled;
+        private volatile boolean                       completed;
+        private volatile Throwable                     error;
+
+        SignalSubscription(SignalFlow.Subscriber<? super T> _subscriber) {
+            subscriber = _subscriber;
+        }
+
+        @Override
+        public void handle(T _signal) {
+            if (cancelled || !type.isInstance(_signal)) {
+                return;
+            }
+            boolean overflowed = false;
+            synchronized (buffer) {
+                if (buffer.size() < bufferSize) {
+                    buffer.add(_signal);
+                } else if (SignalFlow.Overflow.LATEST == overflow) {
+                    buffer.poll();
+                    buffer.add(_signal);
+                } else {
+                    overflowed = true;
+                }
+            }
+            if (overflowed) {
+                if (SignalFlow.Overflow.ERROR == overflow) {
+                    fail(new IllegalStateException("Subscriber cannot keep up, " + bufferSize + " signals buffered"));
+                    return;
+                }
+                LOGGER.trace("Buffer of subscriber {} is full, dropped signal {}", subscriber, _signal);
+            }
+            drain();
+        }
+
+        @Override
+        public void request(long _n) {
+            if (_n <= 0) {
+                fail(new IllegalArgumentException("Number of requested signals must be greater than 0"));
+                return;
+            }
+            long current;
+            long next;
+            do {
+                current = demand.get();
+                next = current + _n;
+                if (next < 0) { // overflow, unbounded demand
+                    next = Long.MAX_VALUE;
+                }
+            } while (!demand.compareAndSet(current, next));
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            connection.getSignalSubscriptions().remove(this);
+            synchronized (buffer) {
+                buffer.clear();
+            }
+            if (completed) {
+                // connection is gone, nothing to remove
+                return;
+            }
+            try {
+                connection.removeSigHandler(rule, this);
+            } catch (DBusException | RuntimeException _ex) {
+                LOGGER.debug("Failed to remove signal handler of cancelled subscription", _ex);
+            }
+        }
+
+        /**
+         * Completes the subscription because the connection was disconnected.
+         * Buffered signals are delivered as far as the subscriber requested them.
+         */
+        void complete() {
+            if (!completed && !cancelled) {
+                completed = true;
+                drain();
+            }
+        }
+
+        /**
+         * Terminates the subscription with the given error.
+         */
+        void fail(Throwable _error) {
+            if (null == error && !cancelled) {
+                error = _error;
+                drain();
+            }
+        }
+
+        private void drain() {
+            if (0 == wip.getAndIncrement()) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException _ex) {
+                    // wip stays above 0, so no other drain can call the subscriber concurrently
+                    LOGGER.warn("Executor rejected signal delivery, cancelling subscription", _ex);
+                    if (!cancelled) {
+                        cancel();
+                        subscriber.onError(_ex);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                Throwable ex = error;
+                if (null != ex && !cancelled) {
+                    cancel();
+                    subscriber.onError(ex);
+                    return;
+                }
+                // read before draining, signals received later are not delivered anymore
+                boolean done = completed;
+                long requested = demand.get();
+                long emitted = 0;
+                while (emitted != requested && !cancelled) {
+                    T signal;
+                    synchronized (buffer) {
+                        signal = buffer.poll();
+                    }
+                    if (null == signal) {
+                        break;
+                    }
+                    try {
+                        subscriber.onNext(signal);
+                    } catch (RuntimeException _ex) {
+                        LOGGER.warn("Subscriber {} failed, cancelling subscription", subscriber, _ex);
+                        cancel();
+                        return;
+                    }
+                    emitted++;
+                }
+                if (0 != emitted && Long.MAX_VALUE != requested) {
+                    demand.addAndGet(-emitted);
+                }
+                if (done && !cancelled) {
+                    cancel();
+                    subscriber.onComplete();
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+            } while (0 != missed);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.freedesktop.dbus.connections;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.BiConsumer;
+
+import org.freedesktop.dbus.SignalTuple;
+
+/**
+ * Immutable index of signal handlers keyed by interface, member, object path and sender.
+ * <p>
+ * A null key is a wildcard matching every value on its level. Matching a signal probes the exact key
+ * and the wildcard of each level, it does not allocate. The index is rebuilt whenever handlers are added
+ * or removed, so readers never have to copy or lock the handler collections.
+ * </p>
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+public final class SignalRoutingIndex {
+    public static final SignalRoutingIndex                                              EMPTY =
+            new SignalRoutingIndex(Collections.<SignalTuple, Collection<?>>emptyMap(), false);
+
+    // interface -> member -> object path -> sender -> handlers
+    private final Map<String, Map<String, Map<String, Map<String, Object[]>>>>          tree  = new HashMap<>();
+    private final boolean                                                               wildcardMember;
+
+    /**
+     * Creates an index containing a snapshot of the given handlers.
+     *
+     * @param _handlers handlers by signal tuple
+     * @param _wildcardMember true if null interfaces and members match every signal,
+     *      otherwise interface and member have to be equal
+     */
+    public SignalRoutingIndex(Map<SignalTuple, ? extends Collection<?>> _handlers, boolean _wildcardMember) {
+        wildcardMember = _wildcardMember;
+        for (Entry<SignalTuple, ? extends Collection<?>> e : _handlers.entrySet()) {
+            Object[] handlers = e.getValue().toArray();
+            if (0 == handlers.length) {
+                continue;
+            }
+            SignalTuple key = e.getKey();
+            tree.computeIfAbsent(key.getType(), k -> new HashMap<>())
+                .computeIfAbsent(key.getName(), k -> new HashMap<>())
+                .computeIfAbsent(key.getObject(), k -> new HashMap<>())
+                .put(key.getSource(), handlers);
+        }
+    }
+
+    public boolean isEmpty() {
+        return tree.isEmpty();
+    }
+
+    /**
+     * Calls the given action with the handlers of each tuple matching the signal.
+     *
+     * @param <A> type of the argument
+     * @param _interface interface of the signal
+     * @param _member member of the signal
+     * @param _path object path of the signal
+     * @param _source sender of the signal
+     * @param _arg argument passed to the action
+     * @param _action action, never called with an empty array
+     */
+    public <A> void forEachMatch(String _interface, String _member, String _path, String _source,
+            A _arg, BiConsumer<A, Object[]> _action) {
+        if (tree.isEmpty()) {
+            return;
+        }
+        if (wildcardMember && null != _interface) {
+            matchMember(tree.get(null), _member, _path, _source, _arg, _action);
+        }
+        matchMember(tree.get(_interface), _member, _path, _source, _arg, _action);
+    }
+
+    private <A> void matchMember(Map<String, Map<String, Map<String, Object[]>>> _members, String _member,
+            String _path, String _source, A _arg, BiConsumer<A, Object[]> _action) {
+        if (null == _members) {
+            return;
+        }
+        if (wildcardMember && null != _member) {
+            matchPath(_members.get(null), _path, _source, _arg, _action);
+        }
+        matchPath(_members.get(_member), _path, _source, _arg, _action);
+    }
+
+    private static <A> void matchPath(Map<String, Map<String, Object[]>> _paths, String _path, String _source,
+            A _arg, BiConsumer<A, Object[]> _action) {
+        if (null == _paths) {
+            return;
+        }
+        if (null != _path) {
+            matchSource(_paths.get(null), _source, _arg, _action);
+        }
+        matchSource(_paths.get(_path), _source, _arg, _action);
+    }
+
+    private static <A> void matchSource(Map<String, Object[]> _sources, String _source, A _arg, BiConsumer<A, Object[]> _action) {
+        if (null == _sources) {
+            return;
+        }
+        Object[] handlers;
+        if (null != _source && null != (handlers = _sources.get(null))) {
+            _action.accept(_arg, handlers);
+        }
+        if (null != (handlers = _sources.get(_source))) {
+            _action.accept(_arg, handlers);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.freedesktop.dbus.connections;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executor running tasks with the same key in the order they were submitted.
+ * <p>
+ * Keys are hashed to a fixed number of stripes. Each stripe runs its tasks one after another on
+ * the delegate executor, while different stripes run in parallel. Keys sharing a stripe are therefore
+ * also ordered relative to each other.
+ * A task must not wait for a task submitted later with a key of the same stripe.
+ * </p>
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+public final class StripedSerialExecutor {
+    /** Maximum number of tasks run before the stripe gives other stripes a chance to use the thread. */
+    private static final int    MAX_BATCH = 32;
+
+    private static final Logger LOGGER    = LoggerFactory.getLogger(StripedSerialExecutor.class);
+
+    private final Executor      delegate;
+    private final Stripe[]      stripes;
+    private final int           mask;
+
+    /**
+     * Creates a new executor.
+     *
+     * @param _delegate executor running the tasks
+     * @param _stripes number of stripes, rounded up to a power of 2
+     */
+    public StripedSerialExecutor(Executor _delegate, int _stripes) {
+        if (_stripes <= 0) {
+            throw new IllegalArgumentException("Number of stripes must be greater than 0");
+        }
+        int size = Integer.highestOneBit(_stripes);
+        if (size < _stripes) {
+            size <<= 1;
+        }
+        delegate = _delegate;
+        stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Runs the given task after all tasks previously submitted with a key of the same stripe.
+     *
+     * @param _key key, null is a valid key
+     * @param _task task
+     * @throws RejectedExecutionException if the delegate executor does not accept tasks anymore
+     */
+    public void execute(Object _key, Runnable _task) {
+        int h = null == _key ? 0 : _key.hashCode();
+        h ^= h >>> 16;
+        stripes[h & mask].execute(_task);
+    }
+
+    /**
+     * Tasks of one stripe, at most one thread runs them at a time.
+     */
+    private final class Stripe implements Runnable {
+        private final Queue<Runnable> tasks     = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean   scheduled = new AtomicBoolean();
+
+        void execute(Runnable _task) {
+            tasks.add(_task);
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    delegate.execute(this);
+                } catch (RejectedExecutionException _ex) {
+                    scheduled.set(false);
+                    throw _ex;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (int i = 0; i < MAX_BATCH; i++) {
+                    Runnable task = tasks.poll();
+                    if (null == task) {
+                        break;
+                    }
+                    try {
+                        task.run();
+                    } catch (RuntimeException _ex) {
+                        LOGGER.error("Exception in ordered task.", _ex);
+                    }
+                }
+            } finally {
+                scheduled.set(false);
+                // tasks added while this stripe was still scheduled have not been submitted
+                if (!tasks.isEmpty()) {
+                    try {
+                        schedule();
+                    } catch (RejectedExecutionException _ex) {
+                        LOGGER.debug("Executor rejected remaining ordered tasks", _ex);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.freedesktop.dbus.connections;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates executors using virtual threads if the running JVM supports them (Java 21 and later).
+ * <p>
+ * The API is looked up by reflection, so this library can still be compiled for and used with older Java versions.
+ * </p>
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+final class VirtualThreadSupport {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadSupport.class);
+
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method FACTORY;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        Method newExecutor = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            name = builder.getMethod("name", String.class, long.class);
+            factory = builder.getMethod("factory");
+            newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        } catch (ReflectiveOperationException | RuntimeException _ex) {
+            LOGGER.trace("Virtual threads are not supported", _ex);
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newExecutor;
+    }
+
+    private VirtualThreadSupport() {
+    }
+
+    static boolean isAvailable() {
+        return null != OF_VIRTUAL;
+    }
+
+    /**
+     * Creates an executor starting a new virtual thread for each task.
+     *
+     * @param _namePrefix prefix of the thread names, followed by a counter
+     * @return executor or null if virtual threads are not supported
+     */
+    static ExecutorService newExecutor(String _namePrefix) {
+        if (!isAvailable()) {
+            return null;
+        }
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), _namePrefix, 1L);
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, FACTORY.invoke(builder));
+        } catch (ReflectiveOperationException | RuntimeException _ex) {
+            LOGGER.warn("Failed to create virtual thread executor", _ex);
+            return null;
+        }
+    }
+}
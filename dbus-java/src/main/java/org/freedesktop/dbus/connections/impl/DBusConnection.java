@@ -17,10 +17,8 @@ import java.io.IOException;
 import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.Queue;
@@ -812,6 +810,7 @@ public final class DBusConnection extends AbstractConnection {
         
         if (null != dbusSignalList) {
             dbusSignalList.remove(_handler);
+            signalHandlersChanged();
             if (dbusSignalList.isEmpty()) {
                 getHandledSignals().remove(key);
                 try {
@@ -921,6 +920,7 @@ public final class DBusConnection extends AbstractConnection {
 
         // add handler to signal list
         dbusSignalList.add(_handler);
+        signalHandlersChanged();
 
         // add match rule if this rule is new
         if (addMatch.get()) {
@@ -958,7 +958,7 @@ public final class DBusConnection extends AbstractConnection {
 	                                0, "s", new Object[] {
 	                                        "Disconnected"
 	                                });
-	                        cleanupPendingCalls(err, true);
+	                        cleanupPendingCalls(err);
 
 	                        synchronized (getPendingErrorQueue()) {
 	                            getPendingErrorQueue().add(err);
@@ -1023,25 +1023,9 @@ public final class DBusConnection extends AbstractConnection {
 		disconnect();
 	}
 
-	private void cleanupPendingCalls(Error _err, boolean _clearPendingCalls) throws DBusException {
-
-        synchronized (getPendingCalls()) {
-            Iterator<Entry<Long, MethodCall>> iter = getPendingCalls().entrySet().iterator();
-            while (iter.hasNext()) {
-                Entry<Long, MethodCall> entry = iter.next();
-                if (entry.getKey() != -1) {
-                    MethodCall m = entry.getValue();
-
-                    iter.remove();
-
-                    if (m != null) {
-                        m.setReply(_err);
-                    }
-                }
-            }
-            if (_clearPendingCalls) {
-                getPendingCalls().clear();
-            }
+	private void cleanupPendingCalls(Error _err) throws DBusException {
+        for (MethodCall m : getPendingCalls().removeAll()) {
+            m.setReply(_err);
         }
     }
 
@@ -1054,6 +1038,7 @@ public final class DBusConnection extends AbstractConnection {
         Queue<DBusSigHandler<DBusSignal>> genericSignalsList = getGenericHandledSignals().get(key);
         if (null != genericSignalsList) {
             genericSignalsList.remove(_handler);
+            signalHandlersChanged();
             if (genericSignalsList.isEmpty()) {
                 getGenericHandledSignals().remove(key);
                 try {
@@ -1086,6 +1071,7 @@ public final class DBusConnection extends AbstractConnection {
                 });
 
         genericSignalsList.add(_handler);
+        signalHandlersChanged();
 
         if (addMatch.get()) {
             try {
@@ -1107,7 +1093,7 @@ public final class DBusConnection extends AbstractConnection {
                             "s", new Object[] {
                                     "Disconnected"
                             });
-                    cleanupPendingCalls(err, false);
+                    cleanupPendingCalls(err);
 
                     synchronized (getPendingErrorQueue()) {
                         getPendingErrorQueue().add(err);
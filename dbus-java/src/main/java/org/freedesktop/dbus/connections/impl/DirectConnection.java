@@ -292,6 +292,7 @@ public class DirectConnection extends AbstractConnection {
             if (0 == v.size()) {
                 getHandledSignals().remove(key);
             }
+            signalHandlersChanged();
         }
     }
 
@@ -306,6 +307,7 @@ public class DirectConnection extends AbstractConnection {
                 });
     
         v.add(handler);
+        signalHandlersChanged();
     }
 
     @Override
@@ -317,6 +319,7 @@ public class DirectConnection extends AbstractConnection {
             if (0 == v.size()) {
                 getGenericHandledSignals().remove(key);
             }
+            signalHandlersChanged();
         }
     }
 
@@ -330,6 +333,7 @@ public class DirectConnection extends AbstractConnection {
                 });
 
         v.add(handler);
+        signalHandlersChanged();
     }
 
     @Override
@@ -5,6 +5,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.util.List;
 import java.util.ServiceConfigurationError;
 import java.util.ServiceLoader;
 
@@ -12,6 +14,8 @@ import org.freedesktop.dbus.connections.BusAddress;
 import org.freedesktop.dbus.connections.SASL;
 import org.freedesktop.dbus.exceptions.DBusException;
 import org.freedesktop.dbus.messages.Message;
+import org.freedesktop.dbus.spi.ChannelMessageReader;
+import org.freedesktop.dbus.spi.ChannelMessageWriter;
 import org.freedesktop.dbus.spi.IMessageReader;
 import org.freedesktop.dbus.spi.IMessageWriter;
 import org.freedesktop.dbus.spi.ISocketProvider;
@@ -38,6 +42,7 @@ public abstract class AbstractTransport implements Closeable {
     private int              saslAuthMode;
     private IMessageReader    inputReader;
     private IMessageWriter    outputWriter;
+    private Socket            socket;
     
     private boolean fileDescriptorSupported;
 
@@ -71,6 +76,27 @@ public abstract class AbstractTransport implements Closeable {
         }
     }
     
+    /**
+     * Write several messages to the underlying socket with a single flush.
+     *
+     * @param _msgs messages to write
+     * @throws IOException on write error or if output was already closed or null
+     */
+    public void writeMessages(List<? extends Message> _msgs) throws IOException {
+        if (!fileDescriptorSupported) {
+            for (Message msg : _msgs) {
+                if (null != msg.getFiledescriptors() && !msg.getFiledescriptors().isEmpty()) {
+                    throw new IllegalArgumentException("File descriptors are not supported!");
+                }
+            }
+        }
+        if (outputWriter != null && !outputWriter.isClosed()) {
+            outputWriter.writeMessages(_msgs);
+        } else {
+            throw new IOException("OutputWriter already closed or null");
+        }
+    }
+
     /**
      * Read a message from the underlying socket.
      * 
@@ -85,6 +111,40 @@ public abstract class AbstractTransport implements Closeable {
         throw new IOException("InputReader already closed or null");
     }
     
+    /**
+     * Switches this transport to non-blocking reads and writes on the channel of its socket,
+     * used when the connection is served by an {@link org.freedesktop.dbus.connections.EventLoopGroup}.
+     * This is only possible for sockets backed by a channel using the built-in reader and writer.
+     *
+     * @return the channel or null if this transport cannot be used non-blocking
+     * @throws IOException if the channel could not be configured
+     */
+    public SocketChannel configureNonBlocking() throws IOException {
+        if (null == socket || null == socket.getChannel()
+                || !(inputReader instanceof ChannelMessageReader)
+                || !(outputWriter instanceof OutputStreamMessageWriter)) {
+            return null;
+        }
+        SocketChannel channel = socket.getChannel();
+        channel.configureBlocking(false);
+        // the stream of a non-blocking channel can no longer be used
+        outputWriter = new ChannelMessageWriter(channel);
+        return channel;
+    }
+
+    /**
+     * Writes data which could not be written by a previous non-blocking write.
+     *
+     * @return true if all data has been written
+     * @throws IOException on write error
+     */
+    public boolean flushPendingWrites() throws IOException {
+        if (outputWriter instanceof ChannelMessageWriter) {
+            return ((ChannelMessageWriter) outputWriter).flush();
+        }
+        return true;
+    }
+
     /**
      * Abstract method implemented by concrete sub classes to establish a connection 
      * using whatever transport type (e.g. TCP/Unix socket).
@@ -119,11 +179,13 @@ public abstract class AbstractTransport implements Closeable {
     /**
      * Setup message reader/writer.
      * Will look for SPI provider first, if none is found default implementation is used.
+     * The default implementation uses a {@link ChannelMessageReader} if the socket is backed by a channel.
      * The default implementation does not support file descriptor passing!
      * 
      * @param _socket socket to use
      */
     protected void setInputOutput(Socket _socket) {
+        socket = _socket;
         try {
             for( ISocketProvider provider : spiLoader ){
                 logger.debug( "Found ISocketProvider {}", provider );
@@ -148,7 +210,11 @@ public abstract class AbstractTransport implements Closeable {
                         + "inputReader = {}, outputWriter = {}",
                         inputReader,
                         outputWriter );
-                inputReader = new InputStreamMessageReader(_socket.getInputStream());
+                if (null != _socket.getChannel()) {
+                    inputReader = new ChannelMessageReader(_socket.getChannel());
+                } else {
+                    inputReader = new InputStreamMessageReader(_socket.getInputStream());
+                }
                 outputWriter = new OutputStreamMessageWriter(_socket.getOutputStream());
             }
         } catch (IOException _ex) {
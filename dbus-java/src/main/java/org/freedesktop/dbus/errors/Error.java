@@ -13,8 +13,6 @@
 package org.freedesktop.dbus.errors;
 
 import java.lang.reflect.Constructor;
-import java.util.ArrayList;
-import java.util.List;
 
 import org.freedesktop.dbus.connections.AbstractConnection;
 import org.freedesktop.dbus.connections.impl.DBusConnection;
@@ -46,59 +44,33 @@ public class Error extends Message {
         if (null == errorName) {
             throw new MessageFormatException("Must specify error name to Errors.");
         }
-        getHeaders().put(Message.HeaderField.REPLY_SERIAL, replyserial);
-        getHeaders().put(Message.HeaderField.ERROR_NAME, errorName);
-
-        List<Object> hargs = new ArrayList<>();
-        hargs.add(new Object[] {
-                Message.HeaderField.ERROR_NAME, new Object[] {
-                        ArgumentType.STRING_STRING, errorName
-                }
-        });
-        hargs.add(new Object[] {
-                Message.HeaderField.REPLY_SERIAL, new Object[] {
-                        ArgumentType.UINT32_STRING, replyserial
-                }
-        });
+        setHeader(Message.HeaderField.REPLY_SERIAL, replyserial);
+        setHeader(Message.HeaderField.ERROR_NAME, errorName);
 
         if (null != source) {
-            getHeaders().put(Message.HeaderField.SENDER, source);
-            hargs.add(new Object[] {
-                    Message.HeaderField.SENDER, new Object[] {
-                            ArgumentType.STRING_STRING, source
-                    }
-            });
+            setHeader(Message.HeaderField.SENDER, source);
         }
 
         if (null != dest) {
-            getHeaders().put(Message.HeaderField.DESTINATION, dest);
-            hargs.add(new Object[] {
-                    Message.HeaderField.DESTINATION, new Object[] {
-                            ArgumentType.STRING_STRING, dest
-                    }
-            });
+            setHeader(Message.HeaderField.DESTINATION, dest);
         }
 
         if (null != sig) {
-            hargs.add(new Object[] {
-                    Message.HeaderField.SIGNATURE, new Object[] {
-                            ArgumentType.SIGNATURE_STRING, sig
-                    }
-            });
-            getHeaders().put(Message.HeaderField.SIGNATURE, sig);
+            setHeader(Message.HeaderField.SIGNATURE, sig);
             setArgs(args);
         }
 
-        byte[] blen = new byte[4];
-        appendBytes(blen);
-        append("ua(yv)", getSerial(), hargs.toArray());
+        int blen = (int) getByteCounter();
+        appendint(0, 4);
+        appendint(getSerial(), 4);
+        appendHeaders();
         pad((byte) 8);
 
         long c = getByteCounter();
         if (null != sig) {
             append(sig, args);
         }
-        marshallint(getByteCounter() - c, blen, 0, 4);
+        marshallintAt(getByteCounter() - c, blen, 4);
     }
 
     public Error(String source, Message m, Throwable e) throws DBusException {
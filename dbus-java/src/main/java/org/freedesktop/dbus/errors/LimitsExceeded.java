@@ -0,0 +1,13 @@
+package org.freedesktop.dbus.errors;
+
+import org.freedesktop.dbus.exceptions.DBusExecutionException;
+
+/**
+ * Thrown if a message was rejected because a resource limit of the receiver was exceeded
+ */
+@SuppressWarnings("serial")
+public class LimitsExceeded extends DBusExecutionException {
+    public LimitsExceeded(String message) {
+        super(message);
+    }
+}
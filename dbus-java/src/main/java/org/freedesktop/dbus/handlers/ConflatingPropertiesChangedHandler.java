@@ -0,0 +1,261 @@
+package org.freedesktop.dbus.handlers;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.DBusSigHandler;
+import org.freedesktop.dbus.interfaces.Properties.PropertiesChanged;
+import org.freedesktop.dbus.types.Variant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.hypfvieh.threads.NameableThreadFactory;
+
+/**
+ * Handler conflating property changes before passing them to another handler.
+ * <p>
+ * Only the newest value of each property of an object path and interface is kept.
+ * The changes received meanwhile are passed to the delegate as one {@link PropertiesChanged} signal
+ * per object path and interface, at most once per interval and never while the delegate is still
+ * handling the previous changes. The work of the delegate is therefore bounded by the number of
+ * properties, no matter how often they change.
+ * </p>
+ * <p>
+ * Register it like any other properties changed handler:
+ * </p>
+ * <pre>
+ * connection.addSigHandler(PropertiesChanged.class, new ConflatingPropertiesChangedHandler(myHandler, 100));
+ * </pre>
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+public class ConflatingPropertiesChangedHandler extends AbstractPropertiesChangedHandler implements Closeable {
+    private static final Logger                     LOGGER    = LoggerFactory.getLogger(ConflatingPropertiesChangedHandler.class);
+
+    private final DBusSigHandler<PropertiesChanged> delegate;
+    private final long                              minInterval;
+    private final ScheduledExecutorService          scheduler;
+    private final boolean                           ownScheduler;
+    private final Runnable                          deliverTask = this::deliver;
+
+    private final AtomicLong                        received  = new AtomicLong();
+    private final AtomicLong                        delivered = new AtomicLong();
+
+    private final Object                            lock      = new Object();
+    // guarded by lock
+    private Map<ChangeKey, PendingChanges>          pending   = new LinkedHashMap<>();
+    // true while a delivery is scheduled or running
+    private boolean                                 scheduled;
+    private long                                    lastDelivery;
+
+    /**
+     * Creates a handler delivering changes on its own thread.
+     *
+     * @param _delegate handler receiving the conflated changes
+     * @param _minIntervalMillis minimum time between two deliveries in ms,
+     *      0 to deliver as soon as the delegate is idle
+     */
+    public ConflatingPropertiesChangedHandler(DBusSigHandler<PropertiesChanged> _delegate, long _minIntervalMillis) {
+        this(_delegate, _minIntervalMillis, Executors.newSingleThreadScheduledExecutor(
+                new NameableThreadFactory("DBus PropertiesChanged Conflation-", true)), true);
+    }
+
+    /**
+     * Creates a handler delivering changes on the given scheduler.
+     * The scheduler is not shut down by {@link #close()}.
+     *
+     * @param _delegate handler receiving the conflated changes
+     * @param _minIntervalMillis minimum time between two deliveries in ms,
+     *      0 to deliver as soon as the delegate is idle
+     * @param _scheduler scheduler calling the delegate
+     */
+    public ConflatingPropertiesChangedHandler(DBusSigHandler<PropertiesChanged> _delegate, long _minIntervalMillis,
+            ScheduledExecutorService _scheduler) {
+        this(_delegate, _minIntervalMillis, _scheduler, false);
+    }
+
+    private ConflatingPropertiesChangedHandler(DBusSigHandler<PropertiesChanged> _delegate, long _minIntervalMillis,
+            ScheduledExecutorService _scheduler, boolean _ownScheduler) {
+        if (_minIntervalMillis < 0) {
+            throw new IllegalArgumentException("Interval must not be negative");
+        }
+        delegate = Objects.requireNonNull(_delegate, "Delegate required");
+        scheduler = Objects.requireNonNull(_scheduler, "Scheduler required");
+        ownScheduler = _ownScheduler;
+        minInterval = TimeUnit.MILLISECONDS.toNanos(_minIntervalMillis);
+        lastDelivery = System.nanoTime() - minInterval;
+    }
+
+    @Override
+    public void handle(PropertiesChanged _signal) {
+        received.incrementAndGet();
+        ChangeKey key = new ChangeKey(_signal.getPath(), _signal.getInterfaceName());
+        synchronized (lock) {
+            pending.computeIfAbsent(key, k -> new PendingChanges()).merge(_signal);
+            if (!scheduled) {
+                scheduled = true;
+                scheduleDelivery();
+            }
+        }
+    }
+
+    /**
+     * Number of signals received.
+     * @return count
+     */
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    /**
+     * Number of conflated signals passed to the delegate.
+     * @return count
+     */
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    /**
+     * Discards pending changes and stops the thread of this handler if it has its own.
+     * Remove the handler from the connection before.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            pending.clear();
+        }
+        if (ownScheduler) {
+            scheduler.shutdown();
+        }
+    }
+
+    // called while holding lock
+    private void scheduleDelivery() {
+        long delay = Math.max(0, lastDelivery + minInterval - System.nanoTime());
+        try {
+            scheduler.schedule(deliverTask, delay, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException _ex) {
+            LOGGER.debug("Scheduler rejected delivery of property changes, handler closed?", _ex);
+            scheduled = false;
+        }
+    }
+
+    private void deliver() {
+        Map<ChangeKey, PendingChanges> batch;
+        synchronized (lock) {
+            batch = pending;
+            pending = new LinkedHashMap<>();
+        }
+        try {
+            List<PropertiesChanged> signals = new ArrayList<>(batch.size());
+            for (Entry<ChangeKey, PendingChanges> e : batch.entrySet()) {
+                PropertiesChanged signal = e.getValue().toSignal(e.getKey());
+                if (null != signal) {
+                    signals.add(signal);
+                }
+            }
+            // the interval starts when the delegate is called, creating the signals does not count
+            synchronized (lock) {
+                lastDelivery = System.nanoTime();
+            }
+            for (PropertiesChanged signal : signals) {
+                try {
+                    delegate.handle(signal);
+                } catch (RuntimeException _ex) {
+                    LOGGER.warn("Exception in properties changed handler {}", delegate, _ex);
+                }
+                delivered.incrementAndGet();
+            }
+        } finally {
+            synchronized (lock) {
+                // changes received while the delegate was busy are delivered as soon as the interval allows
+                if (pending.isEmpty()) {
+                    scheduled = false;
+                } else {
+                    scheduleDelivery();
+                }
+            }
+        }
+    }
+
+    /**
+     * Object path and interface of changed properties.
+     */
+    private static final class ChangeKey {
+        private final String path;
+        private final String interfaceName;
+
+        ChangeKey(String _path, String _interfaceName) {
+            path = _path;
+            interfaceName = _interfaceName;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, interfaceName);
+        }
+
+        @Override
+        public boolean equals(Object _obj) {
+            if (this == _obj) {
+                return true;
+            }
+            if (!(_obj instanceof ChangeKey)) {
+                return false;
+            }
+            ChangeKey other = (ChangeKey) _obj;
+            return Objects.equals(path, other.path) && Objects.equals(interfaceName, other.interfaceName);
+        }
+    }
+
+    /**
+     * Newest values and invalidated names of the properties of one object path and interface.
+     */
+    private static final class PendingChanges {
+        private final Map<String, Variant<?>> changed = new LinkedHashMap<>();
+        private final Set<String>             removed = new LinkedHashSet<>();
+        private String                        source;
+
+        void merge(PropertiesChanged _signal) {
+            if (null != _signal.getPropertiesChanged()) {
+                for (Entry<String, Variant<?>> e : _signal.getPropertiesChanged().entrySet()) {
+                    removed.remove(e.getKey());
+                    changed.put(e.getKey(), e.getValue());
+                }
+            }
+            if (null != _signal.getPropertiesRemoved()) {
+                for (String name : _signal.getPropertiesRemoved()) {
+                    changed.remove(name);
+                    removed.add(name);
+                }
+            }
+            source = _signal.getSource();
+        }
+
+        PropertiesChanged toSignal(ChangeKey _key) {
+            try {
+                PropertiesChanged signal = new PropertiesChanged(_key.path, _key.interfaceName, changed, new ArrayList<>(removed));
+                if (null != source) {
+                    signal.setSource(source);
+                }
+                return signal;
+            } catch (DBusException _ex) {
+                LOGGER.warn("Could not create conflated properties changed signal for {}", _key.path, _ex);
+                return null;
+            }
+        }
+    }
+}
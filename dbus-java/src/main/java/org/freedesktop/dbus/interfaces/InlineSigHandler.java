@@ -0,0 +1,14 @@
+package org.freedesktop.dbus.interfaces;
+
+import org.freedesktop.dbus.messages.DBusSignal;
+
+/**
+ * Signal handler which is run directly on the thread reading messages, see
+ * {@link org.freedesktop.dbus.annotations.InlineHandler}. Allows marking lambdas as non-blocking.
+ *
+ * @param <T> type of the signal
+ * @since v3.2.4 - 2020-09-01
+ */
+@FunctionalInterface
+public interface InlineSigHandler<T extends DBusSignal> extends DBusSigHandler<T> {
+}
@@ -0,0 +1,80 @@
+package org.freedesktop.dbus.interfaces;
+
+/**
+ * Interfaces for consuming signals as a stream with backpressure.
+ * <p>
+ * They have the same contract as the interfaces of {@code java.util.concurrent.Flow} and the
+ * Reactive Streams specification, which are not available on all supported Java versions.
+ * A subscriber receives at most as many signals as it requested, signals received meanwhile
+ * are buffered up to a limit. The {@link Overflow} strategy decides what happens if the buffer is full.
+ * </p>
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+public final class SignalFlow {
+    /** Number of signals buffered per subscriber by default. */
+    public static final int DEFAULT_BUFFER_SIZE = 256;
+
+    private SignalFlow() {
+    }
+
+    /**
+     * Strategy applied if a signal is received while the buffer of a subscriber is full.
+     */
+    public enum Overflow {
+        /** The new signal is dropped. */
+        DROP,
+        /** The oldest buffered signal is dropped, so the subscriber receives the latest signals. */
+        LATEST,
+        /** The subscription is cancelled and the subscriber receives an error. */
+        ERROR
+    }
+
+    /**
+     * Source of signals, every subscriber gets its own subscription.
+     *
+     * @param <T> type of the signals
+     */
+    @FunctionalInterface
+    public interface Publisher<T> {
+        /**
+         * Adds the given subscriber. {@link Subscriber#onSubscribe(Subscription)} is called first,
+         * {@link Subscriber#onError(Throwable)} if the subscription could not be created.
+         *
+         * @param _subscriber subscriber
+         */
+        void subscribe(Subscriber<? super T> _subscriber);
+    }
+
+    /**
+     * Receiver of signals. Methods are never called concurrently for the same subscription.
+     *
+     * @param <T> type of the signals
+     */
+    public interface Subscriber<T> {
+        void onSubscribe(Subscription _subscription);
+
+        void onNext(T _item);
+
+        void onError(Throwable _throwable);
+
+        void onComplete();
+    }
+
+    /**
+     * Link between a publisher and a subscriber.
+     */
+    public interface Subscription {
+        /**
+         * Adds the given number of signals to the demand of the subscriber.
+         *
+         * @param _n number of signals, has to be greater than 0
+         */
+        void request(long _n);
+
+        /**
+         * Stops receiving signals, buffered signals are discarded.
+         */
+        void cancel();
+    }
+}
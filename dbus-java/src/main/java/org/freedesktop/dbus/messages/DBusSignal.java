@@ -12,6 +12,8 @@
 
 package org.freedesktop.dbus.messages;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.GenericDeclaration;
@@ -52,15 +54,19 @@ public class DBusSignal extends Message {
     private static final Map<String, String>                                                 INT_NAMES           =
             new ConcurrentHashMap<>();
 
-    private static final Map<Class<? extends DBusSignal>, List<CachedConstructor>>           CACHED_CONSTRUCTORS =
+    private static final Map<Class<? extends DBusSignal>, SignalConstructors>                CACHED_CONSTRUCTORS =
             new ConcurrentHashMap<>();
 
     private final Logger                                                                     logger              =
             LoggerFactory.getLogger(getClass());
 
     private Class<? extends DBusSignal>                                                      clazz;
+    private final Object                                                                     realLock            = new Object();
+    private DBusSignal                                                                       real;
+    private DBusException                                                                    realFailure;
+    private boolean                                                                          realCreated;
     private boolean                                                                          bodydone            = false;
-    private byte[]                                                                           blen;
+    private int                                                                              blen;
 
     DBusSignal() {
     }
@@ -72,58 +78,32 @@ public class DBusSignal extends Message {
         if (null == path || null == member || null == iface) {
             throw new MessageFormatException("Must specify object path, interface and signal name to Signals.");
         }
-        getHeaders().put(Message.HeaderField.PATH, path);
-        getHeaders().put(Message.HeaderField.MEMBER, member);
-        getHeaders().put(Message.HeaderField.INTERFACE, iface);
-
-        List<Object> hargs = new ArrayList<>();
-        hargs.add(new Object[] {
-                Message.HeaderField.PATH, new Object[] {
-                        ArgumentType.OBJECT_PATH_STRING, path
-                }
-        });
-        hargs.add(new Object[] {
-                Message.HeaderField.INTERFACE, new Object[] {
-                        ArgumentType.STRING_STRING, iface
-                }
-        });
-        hargs.add(new Object[] {
-                Message.HeaderField.MEMBER, new Object[] {
-                        ArgumentType.STRING_STRING, member
-                }
-        });
+        setHeader(Message.HeaderField.PATH, path);
+        setHeader(Message.HeaderField.MEMBER, member);
+        setHeader(Message.HeaderField.INTERFACE, iface);
 
         if (null != source) {
-            getHeaders().put(Message.HeaderField.SENDER, source);
-            hargs.add(new Object[] {
-                    Message.HeaderField.SENDER, new Object[] {
-                            ArgumentType.STRING_STRING, source
-                    }
-            });
+            setHeader(Message.HeaderField.SENDER, source);
         }
 
         if (null != sig) {
-            hargs.add(new Object[] {
-                    Message.HeaderField.SIGNATURE, new Object[] {
-                            ArgumentType.SIGNATURE_STRING, sig
-                    }
-            });
-            getHeaders().put(Message.HeaderField.SIGNATURE, sig);
+            setHeader(Message.HeaderField.SIGNATURE, sig);
             setArgs(args);
         }
 
-        blen = new byte[4];
-        appendBytes(blen);
+        blen = (int) getByteCounter();
+        appendint(0, 4);
         long newSerial = getSerial() + 1;
         setSerial(newSerial);
-        append("ua(yv)", newSerial, hargs.toArray());
+        appendint(newSerial, 4);
+        appendHeaders();
         pad((byte) 8);
 
         long counter = getByteCounter();
         if (null != sig) {
             append(sig, args);
         }
-        marshallint(getByteCounter() - counter, blen, 0, 4);
+        marshallintAt(getByteCounter() - counter, blen, 4);
         bodydone = true;
     }
 
@@ -178,7 +158,37 @@ public class DBusSignal extends Message {
         return c;
     }
 
+    /**
+     * Converts this signal to an instance of the signal class matching its interface and member.
+     * <p>
+     * The signal is decoded only once, the result (or failure) is remembered and returned
+     * to all further callers, so handlers registered for the same signal share one instance.
+     * </p>
+     *
+     * @param conn connection the signal was received on
+     * @return signal instance or null if no suitable constructor was found
+     * @throws DBusException if the signal could not be decoded
+     */
     public DBusSignal createReal(AbstractConnection conn) throws DBusException {
+        synchronized (realLock) {
+            if (!realCreated) {
+                try {
+                    real = decodeReal(conn);
+                } catch (DBusException _ex) {
+                    realFailure = _ex;
+                } catch (RuntimeException _ex) {
+                    realFailure = new DBusException(_ex);
+                }
+                realCreated = true;
+            }
+            if (null != realFailure) {
+                throw realFailure;
+            }
+            return real;
+        }
+    }
+
+    private DBusSignal decodeReal(AbstractConnection conn) throws DBusException {
         String intname = INT_NAMES.get(getInterface());
         String signame = SIGNAL_NAMES.get(getName());
         if (null == intname) {
@@ -193,68 +203,39 @@ public class DBusSignal extends Message {
 
         logger.debug("Converting signal to type: {}", clazz);
 
-        if (!CACHED_CONSTRUCTORS.containsKey(clazz)) {
-            cacheConstructors(clazz);
-        }
-
-        List<CachedConstructor> list = CACHED_CONSTRUCTORS.get(clazz);
+        SignalConstructors constructors = CACHED_CONSTRUCTORS.computeIfAbsent(clazz, SignalConstructors::new);
 
-        Constructor<? extends DBusSignal> con = null;
-        Type[] types = null;
-
-        Object[] parameters = getParameters();
-
-        // Get all classes required in constructor in order
         // Primitives will always be wrapped in their wrapper classes
         // because the parameters are received on the bus and will be converted
-        // in 'Message.extractOne' method which will always return Object and not primitives 
-        List<Class<?>> wantedArgs = Arrays.stream(parameters)
-                .map(p -> p.getClass())
-                .collect(Collectors.toList());
-
-        // find suitable constructor (by checking if parameter types are equal)
-        for (CachedConstructor type : list) {
-            if (type.matchesParameters(wantedArgs)) {
-                con = type.constructor;
-                types = type.types;
-                break;
-            }
-        }
+        // by the message type codecs (see 'TypeCodec') which will always return Object and not primitives
+        Object[] parameters = getParameters();
+        CachedConstructor con = constructors.find(getSig(), parameters);
         if (con == null) {
             logger.warn("Could not find suitable constructor for class {} with argument-types: {}", clazz.getName(),
-                    wantedArgs);
+                    Arrays.stream(parameters).map(p -> p.getClass()).collect(Collectors.toList()));
             return null;
         }
 
+        Object[] args;
         try {
-            DBusSignal s;
-            Object[] args = Marshalling.deSerializeParameters(parameters, types, conn);
-            if (null == args) {
-                s = con.newInstance(getPath());
-            } else {
-                Object[] params = new Object[args.length + 1];
-                params[0] = getPath();
-                System.arraycopy(args, 0, params, 1, args.length);
-                s = con.newInstance(params);
-            }
-            s.getHeaders().putAll(getHeaders());
-            s.setWiredata(getWireData());
-            s.setByteCounter(getWireData().length);
-            return s;
+            args = Marshalling.deSerializeParameters(parameters, con.types, conn);
+        } catch (DBusException _ex) {
+            throw _ex;
         } catch (Exception _ex) {
             throw new DBusException(_ex);
         }
-    }
-
-    @SuppressWarnings("unchecked")
-    private void cacheConstructors(Class<? extends DBusSignal> _clazz) {
-        List<CachedConstructor> list = new ArrayList<>();
-        for (Constructor<?> constructor : _clazz.getDeclaredConstructors()) {
-            Constructor<? extends DBusSignal> x = (Constructor<? extends DBusSignal>) constructor;
-            list.add(new CachedConstructor(x));
+        Object[] params;
+        if (null == args) {
+            params = new Object[] {getPath()};
+        } else {
+            params = new Object[args.length + 1];
+            params[0] = getPath();
+            System.arraycopy(args, 0, params, 1, args.length);
         }
-
-        CACHED_CONSTRUCTORS.put(_clazz, list);
+        DBusSignal s = con.newInstance(params);
+        s.copyHeaders(this);
+        s.setWiredata(getWireData());
+        return s;
     }
 
     /**
@@ -290,26 +271,9 @@ public class DBusSignal extends Message {
             iface = AbstractConnection.DOLLAR_PATTERN.matcher(enc.getName()).replaceAll(".");
         }
 
-        getHeaders().put(Message.HeaderField.PATH, objectpath);
-        getHeaders().put(Message.HeaderField.MEMBER, member);
-        getHeaders().put(Message.HeaderField.INTERFACE, iface);
-
-        List<Object> hargs = new ArrayList<>();
-        hargs.add(new Object[] {
-                Message.HeaderField.PATH, new Object[] {
-                        ArgumentType.OBJECT_PATH_STRING, objectpath
-                }
-        });
-        hargs.add(new Object[] {
-                Message.HeaderField.INTERFACE, new Object[] {
-                        ArgumentType.STRING_STRING, iface
-                }
-        });
-        hargs.add(new Object[] {
-                Message.HeaderField.MEMBER, new Object[] {
-                        ArgumentType.STRING_STRING, member
-                }
-        });
+        setHeader(Message.HeaderField.PATH, objectpath);
+        setHeader(Message.HeaderField.MEMBER, member);
+        setHeader(Message.HeaderField.INTERFACE, iface);
 
         String sig = null;
         if (0 < args.length) {
@@ -331,12 +295,7 @@ public class DBusSignal extends Message {
                     TYPE_CACHE.put(tc, types);
                 }
                 sig = Marshalling.getDBusType(types);
-                hargs.add(new Object[] {
-                        Message.HeaderField.SIGNATURE, new Object[] {
-                                ArgumentType.SIGNATURE_STRING, sig
-                        }
-                });
-                getHeaders().put(Message.HeaderField.SIGNATURE, sig);
+                setHeader(Message.HeaderField.SIGNATURE, sig);
                 setArgs(args);
             } catch (Exception e) {
                 logger.debug("", e);
@@ -344,11 +303,12 @@ public class DBusSignal extends Message {
             }
         }
 
-        blen = new byte[4];
-        appendBytes(blen);
+        blen = (int) getByteCounter();
+        appendint(0, 4);
         long newSerial = getSerial() + 1;
         setSerial(newSerial);
-        append("ua(yv)", newSerial, hargs.toArray());
+        appendint(newSerial, 4);
+        appendHeaders();
         pad((byte) 8);
     }
 
@@ -366,7 +326,7 @@ public class DBusSignal extends Message {
         if (null != args && 0 < args.length) {
             append(sig, args);
         }
-        marshallint(getByteCounter() - counter, blen, 0, 4);
+        marshallintAt(getByteCounter() - counter, blen, 4);
         bodydone = true;
     }
 
@@ -375,37 +335,68 @@ public class DBusSignal extends Message {
         return "DBusSignal [clazz=" + clazz + "]";
     }
 
+    /**
+     * Constructors of one signal class, the constructor selected for a signature is remembered.
+     */
+    private static class SignalConstructors {
+        private final List<CachedConstructor>        constructors = new ArrayList<>();
+        private final Map<String, CachedConstructor> bySignature  = new ConcurrentHashMap<>();
+
+        @SuppressWarnings("unchecked")
+        SignalConstructors(Class<? extends DBusSignal> _clazz) {
+            for (Constructor<?> constructor : _clazz.getDeclaredConstructors()) {
+                constructors.add(new CachedConstructor((Constructor<? extends DBusSignal>) constructor));
+            }
+        }
+
+        CachedConstructor find(String _sig, Object[] _parameters) {
+            String key = null == _sig ? "" : _sig;
+            CachedConstructor con = bySignature.get(key);
+            // the signature usually determines the parameter classes, verify it anyway
+            if (null != con && con.matchesParameters(_parameters)) {
+                return con;
+            }
+            for (CachedConstructor c : constructors) {
+                if (c.matchesParameters(_parameters)) {
+                    bySignature.put(key, c);
+                    return c;
+                }
+            }
+            return null;
+        }
+    }
+
     private static class CachedConstructor {
-        private Constructor<? extends DBusSignal> constructor;
-        private List<Class<?>>                    parameterTypes;
-        private Type[]                            types;
+        private static final MethodType            SPREAD_TYPE = MethodType.methodType(DBusSignal.class, Object[].class);
+
+        private final Constructor<? extends DBusSignal> constructor;
+        private final Class<?>[]                   parameterTypes;
+        private final Type[]                       types;
+        private final MethodHandle                 handle;
 
         CachedConstructor(Constructor<? extends DBusSignal> _constructor) {
             constructor = _constructor;
             parameterTypes = Arrays.stream(constructor.getParameterTypes())
                     .skip(1)
-                    .map(c -> { 
+                    .map(c -> {
                         // convert primitives to wrapper classes so we can compare it to parameter classes later
-                        if (c.isPrimitive()) { 
+                        if (c.isPrimitive()) {
                             return wrap(c);
                         }
                         return c;
                     })
-                    .collect(Collectors.toList());
+                    .toArray(Class<?>[]::new);
             types = createTypes(constructor);
+            handle = createHandle(constructor);
         }
 
-        public boolean matchesParameters(List<Class<?>> _wantedArgs) {
-            if (parameterTypes != null && _wantedArgs == null) {
-                return false;
-            }
-            if (parameterTypes.size() != _wantedArgs.size()) {
+        boolean matchesParameters(Object[] _parameters) {
+            if (_parameters == null || parameterTypes.length != _parameters.length) {
                 return false;
             }
-            
-            for (int i = 0; i < parameterTypes.size(); i++) {
-                Class<?> class1 = parameterTypes.get(i);
-                if (!class1.isAssignableFrom(_wantedArgs.get(i))) {
+
+            for (int i = 0; i < parameterTypes.length; i++) {
+                if (!parameterTypes[i].isInstance(_parameters[i])) {
                     return false;
                 }
             }
@@ -413,6 +404,33 @@ public class DBusSignal extends Message {
             return true;
         }
 
+        DBusSignal newInstance(Object[] _params) throws DBusException {
+            try {
+                if (null != handle) {
+                    return (DBusSignal) handle.invokeExact(_params);
+                }
+                return constructor.newInstance(_params);
+            } catch (Error _ex) {
+                throw _ex;
+            } catch (Throwable _ex) {
+                throw new DBusException(_ex);
+            }
+        }
+
+        /**
+         * Creates a method handle taking all constructor arguments as one array.
+         * Returns null if the constructor is not accessible, reflection is used then.
+         */
+        private static MethodHandle createHandle(Constructor<? extends DBusSignal> _constructor) {
+            try {
+                return MethodHandles.lookup().unreflectConstructor(_constructor)
+                        .asSpreader(Object[].class, _constructor.getParameterCount())
+                        .asType(SPREAD_TYPE);
+            } catch (IllegalAccessException _ex) {
+                return null;
+            }
+        }
+
         @SuppressWarnings("unchecked")
         private static Type[] createTypes(Constructor<? extends DBusSignal> constructor) {
             Type[] ts = constructor.getGenericParameterTypes();
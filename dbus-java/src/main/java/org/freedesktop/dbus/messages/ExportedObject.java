@@ -141,9 +141,12 @@ public class ExportedObject {
                                 ms += s;
                             }
                         }
-                        if (!Void.TYPE.equals(meth.getGenericReturnType())) {
-                            if (Tuple.class.isAssignableFrom(meth.getReturnType())) {
-                                ParameterizedType tc = (ParameterizedType) meth.getGenericReturnType();
+                        // methods returning a future reply with the value it is completed with
+                        Type returnType = Marshalling.getReturnValueType(meth);
+                        if (!Void.TYPE.equals(returnType)) {
+                            if (returnType instanceof ParameterizedType
+                                    && Tuple.class.isAssignableFrom((Class<?>) ((ParameterizedType) returnType).getRawType())) {
+                                ParameterizedType tc = (ParameterizedType) returnType;
                                 Type[] ts = tc.getActualTypeArguments();
 
                                 for (Type t : ts) {
@@ -153,10 +156,10 @@ public class ExportedObject {
                                         }
                                     }
                                 }
-                            } else if (Object[].class.equals(meth.getGenericReturnType())) {
+                            } else if (Object[].class.equals(returnType)) {
                                 throw new DBusException("Return type of Object[] cannot be introspected properly");
                             } else {
-                                for (String s : Marshalling.getDBusType(meth.getGenericReturnType())) {
+                                for (String s : Marshalling.getDBusType(returnType)) {
                                     introspectiondata += "   <arg type=\"" + s + "\" direction=\"out\"/>\n";
                                 }
                             }
@@ -12,31 +12,16 @@
 
 package org.freedesktop.dbus.messages;
 
-import java.io.UnsupportedEncodingException;
-import java.lang.reflect.Array;
-import java.lang.reflect.Type;
-import java.text.MessageFormat;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.freedesktop.Hexdump;
-import org.freedesktop.dbus.ArrayFrob;
-import org.freedesktop.dbus.Container;
-import org.freedesktop.dbus.DBusMap;
 import org.freedesktop.dbus.FileDescriptor;
-import org.freedesktop.dbus.Marshalling;
 import org.freedesktop.dbus.ObjectPath;
-import org.freedesktop.dbus.connections.AbstractConnection;
 import org.freedesktop.dbus.exceptions.DBusException;
-import org.freedesktop.dbus.exceptions.MarshallingException;
-import org.freedesktop.dbus.exceptions.UnknownTypeCodeException;
-import org.freedesktop.dbus.types.UInt16;
-import org.freedesktop.dbus.types.UInt32;
-import org.freedesktop.dbus.types.UInt64;
-import org.freedesktop.dbus.types.Variant;
 import org.freedesktop.dbus.utils.LoggingHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,24 +42,20 @@ public class Message {
     private static final int OFFSET_DATA = 1;
     /** Position of signature offset in int array. */
     private static final int OFFSET_SIG  = 0;
-
-    /** Keep a static reference to each size of padding array to prevent allocation. */
-    private static byte[][]  padding;
-    static {
-        padding = new byte[][] {
-                null, new byte[1], new byte[2], new byte[3], new byte[4], new byte[5], new byte[6], new byte[7]
-        };
-    }
-    /** Steps to increment the buffer array. */
-    private static final int  BUFFERINCREMENT = 20;
+    /** Number of header field slots, D-Bus defines the fields 1 to 9. */
+    private static final int HEADER_SLOTS = HeaderField.UNIX_FDS + 1;
 
     private final Logger      logger          = LoggerFactory.getLogger(getClass());
 
-    protected static long     globalserial    = 0;
+    /** Serials of messages which are not (yet) sent by a connection. */
+    private static final AtomicLong GLOBAL_SERIAL = new AtomicLong();
 
+    /** Wire data of received messages (fixed header, header fields and body). */
     private byte[][]          wiredata;
-    private long              bytecounter;
-    private Map<Byte, Object> headers;
+    /** Buffer holding the wire data of messages created locally. */
+    private MessageBuffer     wirebuffer;
+    /** Header field values indexed by their {@link HeaderField} code, index 0 is unused. */
+    private final Object[]    headers         = new Object[HEADER_SLOTS];
     private List<FileDescriptor> filedescriptors;
 
     private long              serial;
@@ -86,10 +67,6 @@ public class Message {
     private Object[]          args;
     private byte[]            body;
     private long              bodylen         = 0;
-    private int               preallocated    = 0;
-    private int               paofs           = 0;
-    private byte[]            pabuf;
-    private int               bufferuse       = 0;
 
     /**
      * Returns the name of the given header field.
@@ -122,6 +99,26 @@ public class Message {
         }
     }
 
+    /**
+     * Returns the D-Bus type of the value of the given header field.
+     *
+     * @param _field field
+     * @return type code, see {@link ArgumentType}
+     */
+    static byte getHeaderFieldType(byte _field) {
+        switch (_field) {
+        case HeaderField.PATH:
+            return ArgumentType.OBJECT_PATH;
+        case HeaderField.REPLY_SERIAL:
+        case HeaderField.UNIX_FDS:
+            return ArgumentType.UINT32;
+        case HeaderField.SIGNATURE:
+            return ArgumentType.SIGNATURE;
+        default:
+            return ArgumentType.STRING;
+        }
+    }
+
     /**
      * Create a message; only to be called by sub-classes.
      *
@@ -131,20 +128,15 @@ public class Message {
      * @throws DBusException on error
      */
     protected Message(byte endian, byte _type, byte _flags) throws DBusException {
-        wiredata = new byte[BUFFERINCREMENT][];
-        headers = new HashMap<>();
+        wirebuffer = new MessageBuffer(endian);
         filedescriptors = new ArrayList<>();
         big = (Endian.BIG == endian);
-        bytecounter = 0;
-        synchronized (Message.class) {
-            serial = ++globalserial;
-        }
+        serial = nextSerial(GLOBAL_SERIAL);
 
         logger.debug("Creating message with serial {}", serial);
 
         this.type = _type;
         this.flags = _flags;
-        preallocate(4);
         append("yyyy", endian, _type, _flags, Message.PROTOCOL);
     }
 
@@ -152,10 +144,7 @@ public class Message {
      * Create a blank message. Only to be used when calling populate.
      */
     protected Message() {
-        wiredata = new byte[BUFFERINCREMENT][];
-        headers = new HashMap<>();
         filedescriptors = new ArrayList<>();
-        bytecounter = 0;
     }
 
     /**
@@ -165,89 +154,180 @@ public class Message {
      * @param _headers D-Bus serialized data of type a(yv)
      * @param _body D-Bus serialized data of the signature defined in headers.
      */
-    @SuppressWarnings("unchecked")
     void populate(byte[] _msg, byte[] _headers, byte[] _body, List<FileDescriptor> descriptors) throws DBusException {
         big = (_msg[0] == Endian.BIG);
         type = _msg[1];
         flags = _msg[2];
         protover = _msg[3];
-        wiredata[0] = _msg;
-        wiredata[1] = _headers;
-        wiredata[2] = _body;
+        wiredata = new byte[][] {
+                _msg, _headers, _body
+        };
         this.body = _body;
-        bufferuse = 3;
         bodylen = ((Number) extract(Message.ArgumentType.UINT32_STRING, _msg, 4)[0]).longValue();
         serial = ((Number) extract(Message.ArgumentType.UINT32_STRING, _msg, 8)[0]).longValue();
-        bytecounter = _msg.length + _headers.length + _body.length;
         filedescriptors = descriptors;
 
-        logger.trace("Message header: {}", Hexdump.toAscii(_headers));
-        Object[] hs = extract("a(yv)", _headers, 0);
-        
-        LoggingHelper.arraysDeepString(logger.isTraceEnabled(), hs);
-        
-        for (Object o : (List<Object>) hs[0]) {
-            this.headers.put((Byte) ((Object[]) o)[0], ((Variant<Object>) ((Object[]) o)[1]).getValue());
+        if (logger.isTraceEnabled()) {
+            logger.trace("Message header: {}", Hexdump.toAscii(_headers));
         }
+        readHeaderFields(_headers);
     }
 
-    protected Map<Byte, Object> getHeaders() {
-        return headers;
+    /**
+     * Reads the header fields (signature a(yv)).
+     * String values are decoded using the {@link Utf8Codec} cache, because the same names
+     * are received over and over again.
+     *
+     * @param _headers header data, the array length is followed by padding and the first field starts at offset 8
+     * @throws DBusException on error
+     */
+    private void readHeaderFields(byte[] _headers) throws DBusException {
+        int end = 8 + (int) demarshallint(_headers, 0, 4);
+        int pos = 8;
+        while (pos < end) {
+            pos = TypeCodec.align(pos, 8);
+            byte field = _headers[pos];
+            int siglen = _headers[pos + 1] & 0xFF;
+            byte valueType = 1 == siglen ? _headers[pos + 2] : 0;
+            String sig = Utf8Codec.decodeCached(_headers, pos + 2, siglen);
+            pos += 2 + siglen + 1;
+
+            Object value;
+            if (ArgumentType.STRING == valueType || ArgumentType.OBJECT_PATH == valueType) {
+                pos = TypeCodec.align(pos, 4);
+                int len = (int) demarshallint(_headers, pos, 4);
+                String str = Utf8Codec.decodeCached(_headers, pos + 4, len);
+                pos += 4 + len + 1;
+                value = ArgumentType.STRING == valueType ? str : new ObjectPath(getSource(), str);
+            } else if (ArgumentType.SIGNATURE == valueType) {
+                int len = _headers[pos] & 0xFF;
+                value = Utf8Codec.decodeCached(_headers, pos + 1, len);
+                pos += 1 + len + 1;
+            } else {
+                int[] offsets = new int[] {0, pos};
+                value = extract(sig, _headers, offsets)[0];
+                pos = offsets[OFFSET_DATA];
+            }
+            if (field > 0 && field < HEADER_SLOTS) {
+                headers[field] = value;
+            } else {
+                // unknown header fields must be ignored
+                logger.debug("Ignoring unknown header field {}", field);
+            }
+        }
     }
 
-    protected long getByteCounter() {
-        return bytecounter;
+    /**
+     * Appends the header fields (signature a(yv)) in the order of their codes.
+     * The type of each value is defined by its field.
+     */
+    protected void appendHeaders() {
+        MessageBuffer buf = wirebuffer;
+        int lenPos = buf.position();
+        buf.putInt(0, 4);
+        buf.align(8);
+        int start = buf.position();
+        for (byte field = 1; field < HEADER_SLOTS; field++) {
+            Object value = headers[field];
+            if (null == value) {
+                continue;
+            }
+            byte valueType = getHeaderFieldType(field);
+            buf.align(8);
+            buf.ensureCapacity(8);
+            buf.put(field);
+            buf.put((byte) 1);
+            buf.put(valueType);
+            buf.put((byte) 0);
+            if (ArgumentType.SIGNATURE == valueType) {
+                TypeCodec.writeSignature(buf, value.toString());
+            } else if (ArgumentType.UINT32 == valueType) {
+                buf.putInt(((Number) value).longValue(), 4);
+            } else {
+                TypeCodec.writeString(buf, value.toString());
+            }
+        }
+        buf.putInt(lenPos, buf.position() - start, 4);
     }
 
-    protected void setByteCounter(long _bytecounter) {
-        bytecounter = _bytecounter;
+    /**
+     * Sets the value of a header field.
+     * The value is only marshalled when {@link #appendHeaders()} is called.
+     *
+     * @param _field field code, see {@link HeaderField}
+     * @param _value value, null to remove the field
+     */
+    protected void setHeader(byte _field, Object _value) {
+        headers[_field] = _value;
     }
 
-    protected void setSerial(long _serial) {
-        serial = _serial;
+    /**
+     * Copies all header fields which are set in the given message to this message.
+     *
+     * @param _source message to copy from
+     */
+    protected void copyHeaders(Message _source) {
+        for (int i = 1; i < HEADER_SLOTS; i++) {
+            if (null != _source.headers[i]) {
+                headers[i] = _source.headers[i];
+            }
+        }
     }
 
-    protected byte[][] getWiredata() {
-        return wiredata;
+    protected long getByteCounter() {
+        return wirebuffer.position();
     }
 
-    protected void setWiredata(byte[][] _wiredata) {
-        wiredata = _wiredata;
+    protected void setSerial(long _serial) {
+        serial = _serial;
     }
 
     /**
-     * Create a buffer of num bytes. Data is copied to this rather than added to the buffer list.
+     * Replaces the serial of a message created locally, including the already marshalled value.
+     * Messages which were received keep their serial.
+     *
+     * @param _serial new serial
      */
-    private void preallocate(int num) {
-        preallocated = 0;
-        pabuf = new byte[num];
-        appendBytes(pabuf);
-        preallocated = num;
-        paofs = 0;
+    public void updateSerial(long _serial) {
+        if (null != body || null == wirebuffer) {
+            return;
+        }
+        serial = _serial;
+        // the serial is part of the fixed header: yyyyuu
+        wirebuffer.putInt(8, _serial, 4);
     }
 
     /**
-     * Ensures there are enough free buffers.
+     * Allocates the next serial from the given counter.
+     * Serials are 32 bit unsigned integers and must not be 0.
      *
-     * @param num number of free buffers to create.
+     * @param _counter counter
+     * @return serial
      */
-    private void ensureBuffers(int num) {
-        int increase = num - wiredata.length + bufferuse;
-        if (increase > 0) {
-            if (increase < BUFFERINCREMENT) {
-                increase = BUFFERINCREMENT;
-            }
+    public static long nextSerial(AtomicLong _counter) {
+        long next;
+        do {
+            next = _counter.incrementAndGet() & 0xFFFFFFFFL;
+        } while (0 == next);
+        return next;
+    }
 
-            logger.trace("Resizing {}", bufferuse);
+    protected byte[][] getWiredata() {
+        return wiredata;
+    }
 
-            byte[][] temp = new byte[wiredata.length + increase][];
-            System.arraycopy(wiredata, 0, temp, 0, wiredata.length);
-            wiredata = temp;
-        }
+    /**
+     * Replaces the wire data of this message by the given (already marshalled) data.
+     *
+     * @param _wiredata wire data
+     */
+    protected void setWiredata(byte[][] _wiredata) {
+        wiredata = _wiredata;
+        wirebuffer = null;
     }
 
     /**
-     * Appends a buffer to the buffer list.
+     * Appends a buffer to the message.
      *
      * @param buf buffer byte array
      */
@@ -255,49 +335,16 @@ public class Message {
         if (null == buf) {
             return;
         }
-        if (preallocated > 0) {
-            if (paofs + buf.length > pabuf.length) {
-                throw new ArrayIndexOutOfBoundsException(
-                        MessageFormat.format("Array index out of bounds, paofs={0}, pabuf.length={1}, buf.length={2}.",
-                                paofs, pabuf.length, buf.length));
-            }
-            System.arraycopy(buf, 0, pabuf, paofs, buf.length);
-            paofs += buf.length;
-            preallocated -= buf.length;
-        } else {
-            if (bufferuse == wiredata.length) {
-                logger.trace("Resizing {}", bufferuse);
-                byte[][] temp = new byte[wiredata.length + BUFFERINCREMENT][];
-                System.arraycopy(wiredata, 0, temp, 0, wiredata.length);
-                wiredata = temp;
-            }
-            wiredata[bufferuse++] = buf;
-            bytecounter += buf.length;
-        }
+        wirebuffer.put(buf);
     }
 
     /**
-     * Appends a byte to the buffer list.
+     * Appends a byte to the message.
      *
      * @param b byte
      */
     protected void appendByte(byte b) {
-        if (preallocated > 0) {
-            pabuf[paofs++] = b;
-            preallocated--;
-        } else {
-            if (bufferuse == wiredata.length) {
-
-                logger.trace("Resizing {}", bufferuse);
-                byte[][] temp = new byte[wiredata.length + BUFFERINCREMENT][];
-                System.arraycopy(wiredata, 0, temp, 0, wiredata.length);
-                wiredata = temp;
-            }
-            wiredata[bufferuse++] = new byte[] {
-                    b
-            };
-            bytecounter++;
-        }
+        wirebuffer.put(b);
     }
 
     /**
@@ -369,9 +416,19 @@ public class Message {
      * @param width The byte-width of the int.
      */
     public void appendint(long l, int width) {
-        byte[] buf = new byte[width];
-        marshallint(l, buf, 0, width);
-        appendBytes(buf);
+        wirebuffer.putInt(l, width);
+    }
+
+    /**
+     * Marshalls an integer of a given width into the already written wire data of this message. Used to fill in
+     * length fields after the data they describe has been appended.
+     *
+     * @param l The integer to marshall.
+     * @param pos The position in the wire data (see {@link #getByteCounter()}).
+     * @param width The byte-width of the int.
+     */
+    protected void marshallintAt(long l, int pos, int width) {
+        wirebuffer.putInt(pos, l, width);
     }
 
     /**
@@ -389,7 +446,9 @@ public class Message {
             marshallintLittle(l, buf, ofs, width);
         }
 
-        logger.trace("Marshalled int {} to {}", l, Hexdump.toHex(buf, ofs, width));
+        if (logger.isTraceEnabled()) {
+            logger.trace("Marshalled int {} to {}", l, Hexdump.toHex(buf, ofs, width));
+        }
     }
 
     /**
@@ -422,10 +481,49 @@ public class Message {
         }
     }
 
+    /**
+     * Returns the wire data of this message.
+     * For locally created messages this is a copy of the encoded message as the only element,
+     * use {@link #getWireBuffer()} to access the data without copying.
+     *
+     * @return array of byte arrays
+     */
     public byte[][] getWireData() {
-        return wiredata;
+        if (null != wiredata || null == wirebuffer) {
+            return wiredata;
+        }
+        return new byte[][] {
+                wirebuffer.toByteArray()
+        };
     }
-    
+
+    /**
+     * Returns the complete wire data of this message as one contiguous {@link ByteBuffer}.
+     * The returned buffer is backed by the internal buffer of this message and must not be modified.
+     *
+     * @return ByteBuffer positioned at the start of the message, null if there is no wire data
+     */
+    public ByteBuffer getWireBuffer() {
+        if (null == wirebuffer && null == wiredata) {
+            return null;
+        } else if (null == wirebuffer) {
+            int len = 0;
+            for (byte[] buf : wiredata) {
+                if (null != buf) {
+                    len += buf.length;
+                }
+            }
+            MessageBuffer mb = new MessageBuffer(getEndianess(), len);
+            for (byte[] buf : wiredata) {
+                if (null != buf) {
+                    mb.put(buf);
+                }
+            }
+            wirebuffer = mb;
+        }
+        return wirebuffer.toByteBuffer();
+    }
+
     public List<FileDescriptor> getFiledescriptors(){
         return filedescriptors;
     }
@@ -445,19 +543,23 @@ public class Message {
         sb.append(' ');
         sb.append('{');
         sb.append(' ');
-        if (headers.size() == 0) {
-            sb.append('}');
-        } else {
-            for (Byte field : headers.keySet()) {
+        boolean hasHeaders = false;
+        for (byte field = 1; field < HEADER_SLOTS; field++) {
+            if (null != headers[field]) {
                 sb.append(getHeaderFieldName(field));
                 sb.append('=');
                 sb.append('>');
-                sb.append(headers.get(field).toString());
+                sb.append(headers[field].toString());
                 sb.append(',');
                 sb.append(' ');
+                hasHeaders = true;
             }
+        }
+        if (hasHeaders) {
             sb.setCharAt(sb.length() - 2, ' ');
             sb.setCharAt(sb.length() - 1, '}');
+        } else {
+            sb.append('}');
         }
         sb.append(' ');
         sb.append('{');
@@ -509,265 +611,7 @@ public class Message {
      * @return The value of the field or null if unset.
      */
     public Object getHeader(byte _type) {
-        return headers.get(_type);
-    }
-
-    /**
-     * Appends a value to the message. The type of the value is read from a D-Bus signature and used to marshall the
-     * value.
-     *
-     * @param sigb A buffer of the D-Bus signature.
-     * @param sigofs The offset into the signature corresponding to this value.
-     * @param data The value to marshall.
-     * @return The offset into the signature of the end of this value's type.
-     */
-    @SuppressWarnings("unchecked")
-    private int appendone(byte[] sigb, int sigofs, Object data) throws DBusException {
-        try {
-            int i = sigofs;
-            logger.trace("{}", bytecounter);
-            logger.trace("Appending type: {} value: {}", ((char) sigb[i]), data);
-
-            // pad to the alignment of this type.
-            pad(sigb[i]);
-            switch (sigb[i]) {
-            case ArgumentType.BYTE:
-                appendByte(((Number) data).byteValue());
-                break;
-            case ArgumentType.BOOLEAN:
-                appendint(((Boolean) data).booleanValue() ? 1 : 0, 4);
-                break;
-            case ArgumentType.DOUBLE:
-                long l = Double.doubleToLongBits(((Number) data).doubleValue());
-                appendint(l, 8);
-                break;
-            case ArgumentType.FLOAT:
-                int rf = Float.floatToIntBits(((Number) data).floatValue());
-                appendint(rf, 4);
-                break;
-            case ArgumentType.UINT32:
-                appendint(((Number) data).longValue(), 4);
-                break;
-            case ArgumentType.INT64:
-                appendint(((Number) data).longValue(), 8);
-                break;
-            case ArgumentType.UINT64:
-                if (big) {
-                    appendint(((UInt64) data).top(), 4);
-                    appendint(((UInt64) data).bottom(), 4);
-                } else {
-                    appendint(((UInt64) data).bottom(), 4);
-                    appendint(((UInt64) data).top(), 4);
-                }
-                break;
-            case ArgumentType.INT32:
-                appendint(((Number) data).intValue(), 4);
-                break;
-            case ArgumentType.UINT16:
-                appendint(((Number) data).intValue(), 2);
-                break;
-            case ArgumentType.INT16:
-                appendint(((Number) data).shortValue(), 2);
-                break;
-            case ArgumentType.FILEDESCRIPTOR:
-                filedescriptors.add((FileDescriptor)data);
-                appendint(filedescriptors.size() - 1, 4);
-                logger.debug( "Just inserted {} as filedescriptor", filedescriptors.size() - 1 );
-                break;
-            case ArgumentType.STRING:
-            case ArgumentType.OBJECT_PATH:
-                // Strings are marshalled as a UInt32 with the length,
-                // followed by the String, followed by a null byte.
-                String payload = data.toString();
-                byte[] payloadbytes = null;
-                try {
-                    payloadbytes = payload.getBytes("UTF-8");
-                } catch (UnsupportedEncodingException uee) {
-                    logger.debug("System does not support UTF-8 encoding", uee);
-                    throw new DBusException("System does not support UTF-8 encoding");
-                }
-                logger.trace("Appending String of length {}", payloadbytes.length);
-                appendint(payloadbytes.length, 4);
-                appendBytes(payloadbytes);
-                appendBytes(padding[1]);
-                // pad(ArgumentType.STRING);? do we need this?
-                break;
-            case ArgumentType.SIGNATURE:
-                // Signatures are marshalled as a byte with the length,
-                // followed by the String, followed by a null byte.
-                // Signatures are generally short, so preallocate the array
-                // for the string, length and null byte.
-                if (data instanceof Type[]) {
-                    payload = Marshalling.getDBusType((Type[]) data);
-                } else {
-                    payload = (String) data;
-                }
-                byte[] pbytes = payload.getBytes();
-                preallocate(2 + pbytes.length);
-                appendByte((byte) pbytes.length);
-                appendBytes(pbytes);
-                appendByte((byte) 0);
-                break;
-            case ArgumentType.ARRAY:
-                // Arrays are given as a UInt32 for the length in bytes,
-                // padding to the element alignment, then elements in
-                // order. The length is the length from the end of the
-                // initial padding to the end of the last element.                
-                if (logger.isTraceEnabled()) {
-                    if (data instanceof Object[]) {
-                        logger.trace("Appending array: {}", Arrays.deepToString((Object[]) data));
-                    }
-                }
-
-                byte[] alen = new byte[4];
-                appendBytes(alen);
-                pad(sigb[++i]);
-                long c = bytecounter;
-
-                // optimise primitives
-                if (data.getClass().isArray() && data.getClass().getComponentType().isPrimitive()) {
-                    byte[] primbuf;
-                    int algn = getAlignment(sigb[i]);
-                    int len = Array.getLength(data);
-                    switch (sigb[i]) {
-                    case ArgumentType.BYTE:
-                        primbuf = (byte[]) data;
-                        break;
-                    case ArgumentType.INT16:
-                    case ArgumentType.INT32:
-                    case ArgumentType.INT64:
-                        primbuf = new byte[len * algn];
-                        for (int j = 0, k = 0; j < len; j++, k += algn) {
-                            marshallint(Array.getLong(data, j), primbuf, k, algn);
-                        }
-                        break;
-                    case ArgumentType.BOOLEAN:
-                        primbuf = new byte[len * algn];
-                        for (int j = 0, k = 0; j < len; j++, k += algn) {
-                            marshallint(Array.getBoolean(data, j) ? 1 : 0, primbuf, k, algn);
-                        }
-                        break;
-                    case ArgumentType.DOUBLE:
-                        primbuf = new byte[len * algn];
-                        if (data instanceof float[]) {
-                            for (int j = 0, k = 0; j < len; j++, k += algn) {
-                                marshallint(Double.doubleToRawLongBits(((float[]) data)[j]), primbuf, k, algn);
-                            }
-                        } else {
-                            for (int j = 0, k = 0; j < len; j++, k += algn) {
-                                marshallint(Double.doubleToRawLongBits(((double[]) data)[j]), primbuf, k, algn);
-                            }
-                        }
-                        break;
-                    case ArgumentType.FLOAT:
-                        primbuf = new byte[len * algn];
-                        for (int j = 0, k = 0; j < len; j++, k += algn) {
-                            marshallint(Float.floatToRawIntBits(((float[]) data)[j]), primbuf, k, algn);
-                        }
-                        break;
-                    default:
-                        throw new MarshallingException("Primitive array being sent as non-primitive array.");
-                    }
-                    appendBytes(primbuf);
-                } else if (data instanceof List) {
-                    Object[] contents = ((List<?>) data).toArray();
-                    int diff = i;
-                    ensureBuffers(contents.length * 4);
-                    for (Object o : contents) {
-                        diff = appendone(sigb, i, o);
-                    }
-                    if (contents.length == 0) {
-                        diff = EmptyCollectionHelper.determineSignatureOffsetArray(sigb, diff);
-                    }
-                    i = diff;
-                } else if (data instanceof Map) {
-                    int diff = i;
-                    Map<Object, Object> map = (Map<Object, Object>) data;
-                    ensureBuffers(map.size() * 6);
-                    for (Map.Entry<Object, Object> o : map.entrySet()) {
-                        diff = appendone(sigb, i, o);
-                    }
-                    if (map.size() == 0) {
-                        diff = EmptyCollectionHelper.determineSignatureOffsetDict(sigb, diff);
-                    }
-                    i = diff;
-                } else {
-                    Object[] contents = (Object[]) data;
-                    ensureBuffers(contents.length * 4);
-                    int diff = i;
-                    for (Object o : contents) {
-                        diff = appendone(sigb, i, o);
-                    }
-                    if (contents.length == 0) {
-                        diff = EmptyCollectionHelper.determineSignatureOffsetArray(sigb, diff);
-                    }
-                    i = diff;
-                }
-                logger.trace("start: {} end: {} length: {}", c, bytecounter, (bytecounter - c));
-                marshallint(bytecounter - c, alen, 0, 4);
-                break;
-            case ArgumentType.STRUCT1:
-                // Structs are aligned to 8 bytes
-                // and simply contain each element marshalled in order
-                Object[] contents;
-                if (data instanceof Container) {
-                    contents = ((Container) data).getParameters();
-                } else {
-                    contents = (Object[]) data;
-                }
-                ensureBuffers(contents.length * 4);
-                int j = 0;
-                for (i++; sigb[i] != ArgumentType.STRUCT2; i++) {
-                    i = appendone(sigb, i, contents[j++]);
-                }
-                break;
-            case ArgumentType.DICT_ENTRY1:
-                // Dict entries are the same as structs.
-                if (data instanceof Map.Entry) {
-                    i++;
-                    i = appendone(sigb, i, ((Map.Entry<?, ?>) data).getKey());
-                    i++;
-                    i = appendone(sigb, i, ((Map.Entry<?, ?>) data).getValue());
-                    i++;
-                } else {
-                    contents = (Object[]) data;
-                    j = 0;
-                    for (i++; sigb[i] != ArgumentType.DICT_ENTRY2; i++) {
-                        i = appendone(sigb, i, contents[j++]);
-                    }
-                }
-                break;
-            case ArgumentType.VARIANT:
-                // Variants are marshalled as a signature
-                // followed by the value.
-                if (data instanceof Variant) {
-                    Variant<?> var = (Variant<?>) data;
-                    appendone(new byte[] {
-                            ArgumentType.SIGNATURE
-                    }, 0, var.getSig());
-                    appendone((var.getSig()).getBytes(), 0, var.getValue());
-                } else if (data instanceof Object[]) {
-                    contents = (Object[]) data;
-                    appendone(new byte[] {
-                            ArgumentType.SIGNATURE
-                    }, 0, contents[0]);
-                    appendone(((String) contents[0]).getBytes(), 0, contents[1]);
-                } else {
-                    String sig = Marshalling.getDBusType(data.getClass())[0];
-                    appendone(new byte[] {
-                            ArgumentType.SIGNATURE
-                    }, 0, sig);
-                    appendone((sig).getBytes(), 0, data);
-                }
-                break;
-            }
-            return i;
-        } catch (ClassCastException cce) {
-            logger.debug("Trying to marshall to unconvertible type.", cce);
-            throw new MarshallingException(
-                    MessageFormat.format("Trying to marshall to unconvertible type (from {0} to {1}).",
-                            data.getClass().getName(), (char) sigb[sigofs]));
-        }
+        return _type > 0 && _type < HEADER_SLOTS ? headers[_type] : null;
     }
 
     /**
@@ -777,21 +621,7 @@ public class Message {
      */
     public void pad(byte _type) {
         logger.trace("padding for {}", (char) _type);
-        int a = getAlignment(_type);
-        logger.trace("{} {} {} {}", preallocated, paofs, bytecounter, a);
-        int b = (int) ((bytecounter - preallocated) % a);
-        if (0 == b) {
-            return;
-        }
-        a = (a - b);
-        if (preallocated > 0) {
-            paofs += a;
-            preallocated -= a;
-        } else {
-            appendBytes(padding[a]);
-        }
-        logger.trace("{} {} {} {}", preallocated, paofs, bytecounter, a);
-
+        wirebuffer.align(getAlignment(_type));
     }
 
     /**
@@ -846,11 +676,9 @@ public class Message {
      */
     public void append(String sig, Object... data) throws DBusException {
         logger.debug("Appending sig: {} data: {}", sig, LoggingHelper.arraysDeepString(logger.isDebugEnabled(),data));
-        byte[] sigb = sig.getBytes();
-        int j = 0;
-        for (int i = 0; i < sigb.length; i++) {
-            logger.trace("Appending item: {} {} {}", i, ((char) sigb[i]), j);
-            i = appendone(sigb, i, data[j++]);
+        TypeCodec[] codecs = TypeCodec.forSignature(sig);
+        for (int i = 0; i < codecs.length; i++) {
+            codecs[i].encode(this, wirebuffer, data[i]);
         }
     }
 
@@ -870,256 +698,6 @@ public class Message {
         return _current + (a - (_current % a));
     }
 
-    /**
-     * Demarshall one value from a buffer.
-     *
-     * @param _signatureBuf A buffer of the D-Bus signature.
-     * @param _dataBuf The buffer to demarshall from.
-     * @param _offsets An array of two ints, which holds the position of the current signature offset and the current
-     *            offset of the data buffer.
-     * @param _contained converts nested arrays to Lists
-     * @return The demarshalled value.
-     */
-    private Object extractOne(byte[] _signatureBuf, byte[] _dataBuf, int[] _offsets, boolean _contained)
-            throws DBusException {
-
-        logger.trace("Extracting type: {} from offset {}", ((char) _signatureBuf[_offsets[OFFSET_SIG]]),
-                _offsets[OFFSET_DATA]);
-
-        Object rv = null;
-        _offsets[OFFSET_DATA] = align(_offsets[OFFSET_DATA], _signatureBuf[_offsets[OFFSET_SIG]]);
-        switch (_signatureBuf[_offsets[OFFSET_SIG]]) {
-        case ArgumentType.BYTE:
-            rv = _dataBuf[_offsets[OFFSET_DATA]++];
-            break;
-        case ArgumentType.UINT32:
-            rv = new UInt32(demarshallint(_dataBuf, _offsets[OFFSET_DATA], 4));
-            _offsets[OFFSET_DATA] += 4;
-            break;
-        case ArgumentType.INT32:
-            rv = (int) demarshallint(_dataBuf, _offsets[OFFSET_DATA], 4);
-            _offsets[OFFSET_DATA] += 4;
-            break;
-        case ArgumentType.INT16:
-            rv = (short) demarshallint(_dataBuf, _offsets[OFFSET_DATA], 2);
-            _offsets[OFFSET_DATA] += 2;
-            break;
-        case ArgumentType.UINT16:
-            rv = new UInt16((int) demarshallint(_dataBuf, _offsets[OFFSET_DATA], 2));
-            _offsets[OFFSET_DATA] += 2;
-            break;
-        case ArgumentType.INT64:
-            rv = demarshallint(_dataBuf, _offsets[OFFSET_DATA], 8);
-            _offsets[OFFSET_DATA] += 8;
-            break;
-        case ArgumentType.UINT64:
-            long top;
-            long bottom;
-            if (big) {
-                top = demarshallint(_dataBuf, _offsets[OFFSET_DATA], 4);
-                _offsets[OFFSET_DATA] += 4;
-                bottom = demarshallint(_dataBuf, _offsets[OFFSET_DATA], 4);
-            } else {
-                bottom = demarshallint(_dataBuf, _offsets[OFFSET_DATA], 4);
-                _offsets[OFFSET_DATA] += 4;
-                top = demarshallint(_dataBuf, _offsets[OFFSET_DATA], 4);
-            }
-            rv = new UInt64(top, bottom);
-            _offsets[OFFSET_DATA] += 4;
-            break;
-        case ArgumentType.DOUBLE:
-            long l = demarshallint(_dataBuf, _offsets[OFFSET_DATA], 8);
-            _offsets[OFFSET_DATA] += 8;
-            rv = Double.longBitsToDouble(l);
-            break;
-        case ArgumentType.FLOAT:
-            int rf = (int) demarshallint(_dataBuf, _offsets[OFFSET_DATA], 4);
-            _offsets[OFFSET_DATA] += 4;
-            rv = Float.intBitsToFloat(rf);
-            break;
-        case ArgumentType.BOOLEAN:
-            rf = (int) demarshallint(_dataBuf, _offsets[OFFSET_DATA], 4);
-            _offsets[OFFSET_DATA] += 4;
-            rv = (1 == rf) ? Boolean.TRUE : Boolean.FALSE;
-            break;
-        case ArgumentType.ARRAY:
-            long size = demarshallint(_dataBuf, _offsets[OFFSET_DATA], 4);
-
-            logger.trace("Reading array of size: {}", size);
-            _offsets[OFFSET_DATA] += 4;
-            byte algn = (byte) getAlignment(_signatureBuf[++_offsets[OFFSET_SIG]]);
-            _offsets[OFFSET_DATA] = align(_offsets[OFFSET_DATA], _signatureBuf[_offsets[OFFSET_SIG]]);
-            int length = (int) (size / algn);
-            if (length > AbstractConnection.MAX_ARRAY_LENGTH) {
-                throw new MarshallingException("Arrays must not exceed " + AbstractConnection.MAX_ARRAY_LENGTH);
-            }
-
-            rv = optimizePrimitives(_signatureBuf, _dataBuf, _offsets, size, algn, length);
-
-            if (_contained && !(rv instanceof List) && !(rv instanceof Map)) {
-                rv = ArrayFrob.listify(rv);
-            }
-            break;
-        case ArgumentType.STRUCT1:
-            List<Object> contents = new ArrayList<>();
-            while (_signatureBuf[++_offsets[OFFSET_SIG]] != ArgumentType.STRUCT2) {
-                contents.add(extractOne(_signatureBuf, _dataBuf, _offsets, true));
-            }
-            rv = contents.toArray();
-            break;
-        case ArgumentType.DICT_ENTRY1:
-            Object[] decontents = new Object[2];
-            if(logger.isTraceEnabled()) { // avoid allocating these large heapdumps when trace logging is disabled
-                logger.trace("Extracting Dict Entry ({}) from: {}",
-                        Hexdump.toAscii(_signatureBuf, _offsets[OFFSET_SIG], _signatureBuf.length - _offsets[OFFSET_SIG]),
-                        Hexdump.toHex(_dataBuf, _offsets[OFFSET_DATA], _dataBuf.length - _offsets[OFFSET_DATA]));
-            }
-            _offsets[OFFSET_SIG]++;
-            decontents[0] = extractOne(_signatureBuf, _dataBuf, _offsets, true);
-            _offsets[OFFSET_SIG]++;
-            decontents[1] = extractOne(_signatureBuf, _dataBuf, _offsets, true);
-            _offsets[OFFSET_SIG]++;
-            rv = decontents;
-            break;
-        case ArgumentType.VARIANT:
-            int[] newofs = new int[] {
-                    0, _offsets[OFFSET_DATA]
-            };
-            String sig = (String) extract(ArgumentType.SIGNATURE_STRING, _dataBuf, newofs)[0];
-            newofs[OFFSET_SIG] = 0;
-            rv = new Variant<>(extract(sig, _dataBuf, newofs)[0], sig);
-            _offsets[OFFSET_DATA] = newofs[OFFSET_DATA];
-            break;
-        case ArgumentType.FILEDESCRIPTOR:
-            rv = filedescriptors.get((int)demarshallint(_dataBuf, _offsets[OFFSET_DATA], 4));
-            _offsets[OFFSET_DATA] += 4;
-            break;
-        case ArgumentType.STRING:
-            length = (int) demarshallint(_dataBuf, _offsets[OFFSET_DATA], 4);
-            _offsets[OFFSET_DATA] += 4;
-            try {
-                rv = new String(_dataBuf, _offsets[OFFSET_DATA], length, "UTF-8");
-            } catch (UnsupportedEncodingException uee) {
-                logger.debug("System does not support UTF-8 encoding", uee);
-                throw new DBusException("System does not support UTF-8 encoding");
-            }
-            _offsets[OFFSET_DATA] += length + 1;
-            break;
-        case ArgumentType.OBJECT_PATH:
-            length = (int) demarshallint(_dataBuf, _offsets[OFFSET_DATA], 4);
-            _offsets[OFFSET_DATA] += 4;
-            rv = new ObjectPath(getSource(), new String(_dataBuf, _offsets[OFFSET_DATA], length));
-            _offsets[OFFSET_DATA] += length + 1;
-            break;
-        case ArgumentType.SIGNATURE:
-            length = (_dataBuf[_offsets[OFFSET_DATA]++] & 0xFF);
-            rv = new String(_dataBuf, _offsets[OFFSET_DATA], length);
-            _offsets[OFFSET_DATA] += length + 1;
-            break;
-        default:
-            throw new UnknownTypeCodeException(_signatureBuf[_offsets[OFFSET_SIG]]);
-        }
-        if (logger.isTraceEnabled()) {
-            if (rv instanceof Object[]) {
-                logger.trace("Extracted: {} (now at {})", Arrays.deepToString((Object[]) rv), _offsets[OFFSET_DATA]);
-            } else {
-                logger.trace("Extracted: {} (now at {})", rv, _offsets[OFFSET_DATA]);
-            }
-        }
-        return rv;
-    }
-
-    private Object optimizePrimitives(byte[] _signatureBuf, byte[] _dataBuf, int[] _offsets, long size, byte algn,
-            int length)
-            throws DBusException {
-        Object rv;
-        switch (_signatureBuf[_offsets[OFFSET_SIG]]) {
-        case ArgumentType.BYTE:
-            rv = new byte[length];
-            System.arraycopy(_dataBuf, _offsets[OFFSET_DATA], rv, 0, length);
-            _offsets[OFFSET_DATA] += size;
-            break;
-        case ArgumentType.INT16:
-            rv = new short[length];
-            for (int j = 0; j < length; j++, _offsets[OFFSET_DATA] += algn) {
-                ((short[]) rv)[j] = (short) demarshallint(_dataBuf, _offsets[OFFSET_DATA], algn);
-            }
-            break;
-        case ArgumentType.INT32:
-            rv = new int[length];
-            for (int j = 0; j < length; j++, _offsets[OFFSET_DATA] += algn) {
-                ((int[]) rv)[j] = (int) demarshallint(_dataBuf, _offsets[OFFSET_DATA], algn);
-            }
-            break;
-        case ArgumentType.INT64:
-            rv = new long[length];
-            for (int j = 0; j < length; j++, _offsets[OFFSET_DATA] += algn) {
-                ((long[]) rv)[j] = demarshallint(_dataBuf, _offsets[OFFSET_DATA], algn);
-            }
-            break;
-        case ArgumentType.BOOLEAN:
-            rv = new boolean[length];
-            for (int j = 0; j < length; j++, _offsets[OFFSET_DATA] += algn) {
-                ((boolean[]) rv)[j] = (1 == demarshallint(_dataBuf, _offsets[OFFSET_DATA], algn));
-            }
-            break;
-        case ArgumentType.FLOAT:
-            rv = new float[length];
-            for (int j = 0; j < length; j++, _offsets[OFFSET_DATA] += algn) {
-                ((float[]) rv)[j] = Float.intBitsToFloat((int) demarshallint(_dataBuf, _offsets[OFFSET_DATA], algn));
-            }
-            break;
-        case ArgumentType.DOUBLE:
-            rv = new double[length];
-            for (int j = 0; j < length; j++, _offsets[OFFSET_DATA] += algn) {
-                ((double[]) rv)[j] = Double.longBitsToDouble(demarshallint(_dataBuf, _offsets[OFFSET_DATA], algn));
-            }
-            break;
-        case ArgumentType.DICT_ENTRY1:
-            if (0 == size) {
-                // advance the type parser even on 0-size arrays.
-                List<Type> temp = new ArrayList<>();
-                byte[] temp2 = new byte[_signatureBuf.length - _offsets[OFFSET_SIG]];
-                System.arraycopy(_signatureBuf, _offsets[OFFSET_SIG], temp2, 0, temp2.length);
-                String temp3 = new String(temp2);
-                // ofs[OFFSET_SIG] gets incremented anyway. Leave one character on the stack
-                int temp4 = Marshalling.getJavaType(temp3, temp, 1) - 1;
-                _offsets[OFFSET_SIG] += temp4;
-                logger.trace("Aligned type: {} {} {}", temp3, temp4, _offsets[OFFSET_SIG]);
-            }
-            int ofssave = _offsets[OFFSET_SIG];
-            long end = _offsets[OFFSET_DATA] + size;
-            List<Object[]> entries = new ArrayList<>();
-            while (_offsets[OFFSET_DATA] < end) {
-                _offsets[OFFSET_SIG] = ofssave;
-                entries.add((Object[]) extractOne(_signatureBuf, _dataBuf, _offsets, true));
-            }
-            rv = new DBusMap<>(entries.toArray(new Object[0][]));
-            break;
-        default:
-            if (0 == size) {
-                // advance the type parser even on 0-size arrays.
-                List<Type> temp = new ArrayList<>();
-                byte[] temp2 = new byte[_signatureBuf.length - _offsets[OFFSET_SIG]];
-                System.arraycopy(_signatureBuf, _offsets[OFFSET_SIG], temp2, 0, temp2.length);
-                String temp3 = new String(temp2);
-                // ofs[OFFSET_SIG] gets incremented anyway. Leave one character on the stack
-                int temp4 = Marshalling.getJavaType(temp3, temp, 1) - 1;
-                _offsets[OFFSET_SIG] += temp4;
-                logger.trace("Aligned type: {} {} {}", temp3, temp4, _offsets[OFFSET_SIG]);
-            }
-            ofssave = _offsets[OFFSET_SIG];
-            end = _offsets[OFFSET_DATA] + size;
-            List<Object> contents = new ArrayList<>();
-            while (_offsets[OFFSET_DATA] < end) {
-                _offsets[OFFSET_SIG] = ofssave;
-                contents.add(extractOne(_signatureBuf, _dataBuf, _offsets, true));
-            }
-            rv = contents;
-        }
-        return rv;
-    }
-
     /**
      * Demarshall values from a buffer.
      *
@@ -1151,12 +729,17 @@ public class Message {
     public Object[] extract(String _signature, byte[] _dataBuf, int[] _offsets) throws DBusException {
         logger.trace("extract({},#{}, {{},{}}", _signature, _dataBuf.length, _offsets[OFFSET_SIG],
                 _offsets[OFFSET_DATA]);
-        List<Object> rv = new ArrayList<>();
-        byte[] sigb = _signature.getBytes();
-        for (int[] i = _offsets; i[0] < sigb.length; i[0]++) {
-            rv.add(extractOne(sigb, _dataBuf, i, false));
+        TypeCodec[] codecs = TypeCodec.forSignature(0 == _offsets[OFFSET_SIG] ? _signature : _signature.substring(_offsets[OFFSET_SIG]));
+        Object[] rv = new Object[codecs.length];
+        int[] pos = new int[] {
+                _offsets[OFFSET_DATA]
+        };
+        for (int i = 0; i < codecs.length; i++) {
+            rv[i] = codecs[i].decode(this, _dataBuf, pos, false);
         }
-        return rv.toArray();
+        _offsets[OFFSET_SIG] = _signature.length();
+        _offsets[OFFSET_DATA] = pos[0];
+        return rv;
     }
 
     /**
@@ -1165,7 +748,7 @@ public class Message {
      * @return string
      */
     public String getSource() {
-        return (String) headers.get(HeaderField.SENDER);
+        return (String) headers[HeaderField.SENDER];
     }
 
     /**
@@ -1174,7 +757,7 @@ public class Message {
      * @return string
      */
     public String getDestination() {
-        return (String) headers.get(HeaderField.DESTINATION);
+        return (String) headers[HeaderField.DESTINATION];
     }
 
     /**
@@ -1183,7 +766,7 @@ public class Message {
      * @return string
      */
     public String getInterface() {
-        return (String) headers.get(HeaderField.INTERFACE);
+        return (String) headers[HeaderField.INTERFACE];
     }
 
     /**
@@ -1192,7 +775,7 @@ public class Message {
      * @return string
      */
     public String getPath() {
-        Object o = headers.get(HeaderField.PATH);
+        Object o = headers[HeaderField.PATH];
         if (null == o) {
             return null;
         }
@@ -1206,9 +789,9 @@ public class Message {
      */
     public String getName() {
         if (this instanceof org.freedesktop.dbus.errors.Error) {
-            return (String) headers.get(HeaderField.ERROR_NAME);
+            return (String) headers[HeaderField.ERROR_NAME];
         } else {
-            return (String) headers.get(HeaderField.MEMBER);
+            return (String) headers[HeaderField.MEMBER];
         }
     }
 
@@ -1218,7 +801,7 @@ public class Message {
      * @return string
      */
     public String getSig() {
-        return (String) headers.get(HeaderField.SIGNATURE);
+        return (String) headers[HeaderField.SIGNATURE];
     }
 
     /**
@@ -1245,7 +828,7 @@ public class Message {
      * @return The reply serial, or 0 if it is not a reply.
      */
     public long getReplySerial() {
-        Number l = (Number) headers.get(HeaderField.REPLY_SERIAL);
+        Number l = (Number) headers[HeaderField.REPLY_SERIAL];
         if (null == l) {
             return 0;
         }
@@ -1260,7 +843,7 @@ public class Message {
      */
     public Object[] getParameters() throws DBusException {
         if (null == args && null != body) {
-            String sig = (String) headers.get(HeaderField.SIGNATURE);
+            String sig = (String) headers[HeaderField.SIGNATURE];
             if (null != sig && 0 != body.length) {
                 args = extract(sig, body, 0);
             } else {
@@ -1270,6 +853,20 @@ public class Message {
         return args;
     }
 
+    /**
+     * Creates a {@link MessageBodyReader} to read the parameters of this message without
+     * demarshalling all of them (see {@link #getParameters()}).
+     * Only available for messages which were received.
+     *
+     * @return reader or null if this message was not received
+     */
+    public MessageBodyReader getBodyReader() {
+        if (null == body) {
+            return null;
+        }
+        return new MessageBodyReader(body, getSig(), getEndianess());
+    }
+
     public void setArgs(Object[] _args) {
         this.args = _args;
     }
@@ -1281,22 +878,13 @@ public class Message {
      * @throws DBusException on error
      */
     public void setSource(String source) throws DBusException {
+        // messages without body are marshalled later, the header is picked up then
+        headers[HeaderField.SENDER] = source;
         if (null != body) {
-            wiredata = new byte[BUFFERINCREMENT][];
-            bufferuse = 0;
-            bytecounter = 0;
-            preallocate(12);
+            wiredata = null;
+            wirebuffer = new MessageBuffer(getEndianess(), body.length + MessageBuffer.DEFAULT_CAPACITY);
             append("yyyyuu", big ? Endian.BIG : Endian.LITTLE, type, flags, protover, bodylen, serial);
-            headers.put(HeaderField.SENDER, source);
-            Object[][] newhead = new Object[headers.size()][];
-            int i = 0;
-            for (Byte b : headers.keySet()) {
-                newhead[i] = new Object[2];
-                newhead[i][0] = b;
-                newhead[i][1] = headers.get(b);
-                i++;
-            }
-            append("a(yv)", (Object) newhead);
+            appendHeaders();
             pad((byte) 8);
             appendBytes(body);
         }
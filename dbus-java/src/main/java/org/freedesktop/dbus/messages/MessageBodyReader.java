@@ -0,0 +1,403 @@
+package org.freedesktop.dbus.messages;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.freedesktop.dbus.exceptions.MarshallingException;
+import org.freedesktop.dbus.messages.Message.ArgumentType;
+
+/**
+ * Read-only cursor on the body of a received message.
+ * <p>
+ * In contrast to {@link Message#getParameters()}, the reader does not create any objects
+ * for values which are not requested. Values are decoded directly from the wire data
+ * when one of the next* methods is called, values not of interest can be skipped using {@link #skip()}.
+ * </p><p>
+ * Containers (arrays, structs, dict entries and variants) are entered using the enter* methods
+ * and left using {@link #exit()}. Inside of a container, {@link #hasNext()} tells if there are more values
+ * in that container.
+ * </p><p>
+ * Instances are not thread safe.
+ * </p>
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+public final class MessageBodyReader {
+    private static final byte KIND_ARRAY   = 1;
+    private static final byte KIND_STRUCT  = 2;
+    private static final byte KIND_VARIANT = 3;
+
+    private final byte[]      data;
+    private final boolean     big;
+    private final Deque<Container> containers = new ArrayDeque<>();
+
+    private byte[]            sig;
+    private int               sigPos;
+    private int               sigEnd;
+    private int               pos;
+
+    /**
+     * Creates a new reader.
+     *
+     * @param _data marshalled body
+     * @param _signature signature of the body
+     * @param _endian endianess of the data (see {@link Message.Endian})
+     */
+    public MessageBodyReader(byte[] _data, String _signature, byte _endian) {
+        data = _data;
+        big = Message.Endian.BIG == _endian;
+        sig = null == _signature ? new byte[0] : _signature.getBytes(StandardCharsets.US_ASCII);
+        sigEnd = sig.length;
+    }
+
+    /**
+     * Returns true if there are more values to read in the current container (or the body if no container was entered).
+     *
+     * @return boolean
+     */
+    public boolean hasNext() {
+        Container c = containers.peek();
+        if (null != c && c.kind == KIND_ARRAY) {
+            return pos < c.dataEnd;
+        }
+        return sigPos < sigEnd;
+    }
+
+    /**
+     * Returns the type code of the next value (see {@link ArgumentType}) without consuming it.
+     *
+     * @return type code
+     * @throws MarshallingException if there are no more values
+     */
+    public byte peekType() throws MarshallingException {
+        return current();
+    }
+
+    /**
+     * Returns the signature of the next value without consuming it.
+     *
+     * @return signature string
+     * @throws MarshallingException if there are no more values
+     */
+    public String peekSignature() throws MarshallingException {
+        current();
+        return new String(sig, sigPos, endOfType(sig, sigPos) - sigPos, StandardCharsets.US_ASCII);
+    }
+
+    public byte nextByte() throws MarshallingException {
+        expect(ArgumentType.BYTE);
+        return data[pos++];
+    }
+
+    public boolean nextBoolean() throws MarshallingException {
+        return 1 == readFixed(ArgumentType.BOOLEAN, 4);
+    }
+
+    public short nextInt16() throws MarshallingException {
+        return (short) readFixed(ArgumentType.INT16, 2);
+    }
+
+    public int nextUInt16() throws MarshallingException {
+        return (int) readFixed(ArgumentType.UINT16, 2);
+    }
+
+    public int nextInt32() throws MarshallingException {
+        return (int) readFixed(ArgumentType.INT32, 4);
+    }
+
+    public long nextUInt32() throws MarshallingException {
+        return readFixed(ArgumentType.UINT32, 4);
+    }
+
+    public long nextInt64() throws MarshallingException {
+        return readFixed(ArgumentType.INT64, 8);
+    }
+
+    /**
+     * Reads an unsigned 64-bit value. The returned long contains the raw bits of the value,
+     * use {@link Long#toUnsignedString(long)} or {@link org.freedesktop.dbus.types.UInt64} to interpret it.
+     *
+     * @return raw value
+     * @throws MarshallingException if next value is not of type UINT64
+     */
+    public long nextUInt64() throws MarshallingException {
+        return readFixed(ArgumentType.UINT64, 8);
+    }
+
+    public double nextDouble() throws MarshallingException {
+        return Double.longBitsToDouble(readFixed(ArgumentType.DOUBLE, 8));
+    }
+
+    public float nextFloat() throws MarshallingException {
+        return Float.intBitsToFloat((int) readFixed(ArgumentType.FLOAT, 4));
+    }
+
+    /**
+     * Reads the index of an unix file descriptor.
+     * The index refers to the list returned by {@link Message#getFiledescriptors()}.
+     *
+     * @return index
+     * @throws MarshallingException if next value is not of type UNIX_FD
+     */
+    public int nextUnixFdIndex() throws MarshallingException {
+        return (int) readFixed(ArgumentType.FILEDESCRIPTOR, 4);
+    }
+
+    public String nextString() throws MarshallingException {
+        expect(ArgumentType.STRING);
+        return readString();
+    }
+
+    public String nextObjectPath() throws MarshallingException {
+        expect(ArgumentType.OBJECT_PATH);
+        return readString();
+    }
+
+    public String nextSignature() throws MarshallingException {
+        expect(ArgumentType.SIGNATURE);
+        return readSignature();
+    }
+
+    /**
+     * Enters the array at the current position.
+     * Elements are read until {@link #hasNext()} returns false, afterwards {@link #exit()} has to be called.
+     *
+     * @return length of the array content in bytes
+     * @throws MarshallingException if next value is not an array
+     */
+    public int enterArray() throws MarshallingException {
+        expect(ArgumentType.ARRAY);
+        int len = (int) demarshall(4);
+        if (len < 0 || len > Message.MAXIMUM_ARRAY_LENGTH) {
+            throw new MarshallingException("Arrays must not exceed " + Message.MAXIMUM_ARRAY_LENGTH + " bytes");
+        }
+        pos += 4;
+        int elemStart = sigPos;
+        int elemEnd = endOfType(sig, elemStart);
+        pos = align(pos, sig[elemStart]);
+        containers.push(new Container(KIND_ARRAY, sig, elemEnd, sigEnd, elemStart, pos + len));
+        sigPos = elemStart;
+        sigEnd = elemEnd;
+        return len;
+    }
+
+    /**
+     * Enters the struct or dict entry at the current position.
+     * Use {@link #exit()} to leave it again.
+     *
+     * @throws MarshallingException if next value is neither a struct nor a dict entry
+     */
+    public void enterStruct() throws MarshallingException {
+        byte t = current();
+        if (t != ArgumentType.STRUCT1 && t != ArgumentType.DICT_ENTRY1) {
+            throw new MarshallingException("Expected struct or dict entry but found '" + (char) t + "'");
+        }
+        pos = align(pos, t);
+        int end = endOfType(sig, sigPos);
+        containers.push(new Container(KIND_STRUCT, sig, end, sigEnd, 0, 0));
+        sigPos++;
+        sigEnd = end - 1;
+    }
+
+    /**
+     * Enters the variant at the current position.
+     * The variant contains exactly one value of the returned signature. Use {@link #exit()} to leave it again.
+     *
+     * @return signature of the variant content
+     * @throws MarshallingException if next value is not a variant
+     */
+    public String enterVariant() throws MarshallingException {
+        expect(ArgumentType.VARIANT);
+        String variantSig = readSignature();
+        containers.push(new Container(KIND_VARIANT, sig, sigPos, sigEnd, 0, 0));
+        sig = variantSig.getBytes(StandardCharsets.US_ASCII);
+        sigPos = 0;
+        sigEnd = sig.length;
+        return variantSig;
+    }
+
+    /**
+     * Leaves the current container. All values of the container which have not been read are skipped.
+     *
+     * @throws MarshallingException if no container was entered
+     */
+    public void exit() throws MarshallingException {
+        Container c = containers.peek();
+        if (null == c) {
+            throw new MarshallingException("No container to exit");
+        }
+        if (c.kind == KIND_ARRAY) {
+            pos = c.dataEnd;
+        } else {
+            while (sigPos < sigEnd) {
+                skip();
+            }
+        }
+        containers.pop();
+        sig = c.parentSig;
+        sigPos = c.resumeSigPos;
+        sigEnd = c.parentSigEnd;
+    }
+
+    /**
+     * Skips the next value without decoding it.
+     *
+     * @throws MarshallingException if there are no more values
+     */
+    public void skip() throws MarshallingException {
+        byte t = current();
+        switch (t) {
+        case ArgumentType.BYTE:
+            pos++;
+            sigPos++;
+            break;
+        case ArgumentType.INT16:
+        case ArgumentType.UINT16:
+        case ArgumentType.INT32:
+        case ArgumentType.UINT32:
+        case ArgumentType.BOOLEAN:
+        case ArgumentType.FLOAT:
+        case ArgumentType.FILEDESCRIPTOR:
+        case ArgumentType.INT64:
+        case ArgumentType.UINT64:
+        case ArgumentType.DOUBLE:
+            int algn = Message.getAlignment(t);
+            pos = align(pos, t) + algn;
+            sigPos++;
+            break;
+        case ArgumentType.STRING:
+        case ArgumentType.OBJECT_PATH:
+            pos = align(pos, t);
+            pos += 4 + (int) demarshall(4) + 1;
+            sigPos++;
+            break;
+        case ArgumentType.SIGNATURE:
+            pos += 1 + (data[pos] & 0xFF) + 1;
+            sigPos++;
+            break;
+        case ArgumentType.ARRAY:
+            pos = align(pos, t);
+            int len = (int) demarshall(4);
+            pos += 4;
+            pos = align(pos, sig[sigPos + 1]) + len;
+            sigPos = endOfType(sig, sigPos);
+            break;
+        case ArgumentType.STRUCT1:
+        case ArgumentType.DICT_ENTRY1:
+            enterStruct();
+            exit();
+            break;
+        case ArgumentType.VARIANT:
+            enterVariant();
+            exit();
+            break;
+        default:
+            throw new MarshallingException("Unknown type '" + (char) t + "'");
+        }
+    }
+
+    /**
+     * Returns the type code at the current position of the signature,
+     * restarting the element signature if the current container is an array.
+     */
+    private byte current() throws MarshallingException {
+        if (sigPos >= sigEnd) {
+            Container c = containers.peek();
+            if (null != c && c.kind == KIND_ARRAY && pos < c.dataEnd) {
+                sigPos = c.elemSigStart;
+            } else {
+                throw new MarshallingException("No more values to read");
+            }
+        }
+        return sig[sigPos];
+    }
+
+    private void expect(byte _type) throws MarshallingException {
+        byte t = current();
+        if (t != _type) {
+            throw new MarshallingException("Expected type '" + (char) _type + "' but found '" + (char) t + "'");
+        }
+        pos = align(pos, t);
+        sigPos++;
+    }
+
+    private long readFixed(byte _type, int _width) throws MarshallingException {
+        expect(_type);
+        long l = demarshall(_width);
+        pos += _width;
+        return l;
+    }
+
+    private String readString() {
+        int len = (int) demarshall(4);
+        String s = Utf8Codec.decode(data, pos + 4, len);
+        pos += 4 + len + 1;
+        return s;
+    }
+
+    private String readSignature() {
+        int len = data[pos] & 0xFF;
+        String s = Utf8Codec.decodeCached(data, pos + 1, len);
+        pos += 1 + len + 1;
+        return s;
+    }
+
+    private long demarshall(int _width) {
+        return big ? Message.demarshallintBig(data, pos, _width) : Message.demarshallintLittle(data, pos, _width);
+    }
+
+    private static int align(int _pos, byte _type) {
+        int a = Message.getAlignment(_type);
+        if (0 == (_pos % a)) {
+            return _pos;
+        }
+        return _pos + a - (_pos % a);
+    }
+
+    /**
+     * Returns the index behind the complete type starting at the given signature position.
+     */
+    static int endOfType(byte[] _sig, int _sigPos) {
+        int i = _sigPos;
+        while (_sig[i] == ArgumentType.ARRAY) {
+            i++;
+        }
+        byte t = _sig[i];
+        if (t != ArgumentType.STRUCT1 && t != ArgumentType.DICT_ENTRY1) {
+            return i + 1;
+        }
+        int depth = 0;
+        for (; i < _sig.length; i++) {
+            byte b = _sig[i];
+            if (b == ArgumentType.STRUCT1 || b == ArgumentType.DICT_ENTRY1) {
+                depth++;
+            } else if (b == ArgumentType.STRUCT2 || b == ArgumentType.DICT_ENTRY2) {
+                depth--;
+                if (0 == depth) {
+                    return i + 1;
+                }
+            }
+        }
+        return _sig.length;
+    }
+
+    /** State of an entered container and where to continue in the parent signature afterwards. */
+    private static final class Container {
+        private final byte   kind;
+        private final byte[] parentSig;
+        private final int    resumeSigPos;
+        private final int    parentSigEnd;
+        private final int    elemSigStart;
+        private final int    dataEnd;
+
+        Container(byte _kind, byte[] _parentSig, int _resumeSigPos, int _parentSigEnd, int _elemSigStart, int _dataEnd) {
+            kind = _kind;
+            parentSig = _parentSig;
+            resumeSigPos = _resumeSigPos;
+            parentSigEnd = _parentSigEnd;
+            elemSigStart = _elemSigStart;
+            dataEnd = _dataEnd;
+        }
+    }
+}
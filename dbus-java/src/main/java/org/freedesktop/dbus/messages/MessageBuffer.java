@@ -0,0 +1,180 @@
+package org.freedesktop.dbus.messages;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Growable, contiguous buffer used to encode a {@link Message} into its wire format.
+ * <p>
+ * All data of a message (fixed header, header fields and body) is written into one
+ * backing array which grows geometrically, so encoding a message only needs a few allocations
+ * and the result can be written to the transport with one write call.
+ * </p>
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+public final class MessageBuffer {
+    /** Default initial capacity, large enough for header and body of most messages. */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final boolean big;
+
+    private byte[]        buf;
+    private int           position;
+
+    public MessageBuffer(byte _endian) {
+        this(_endian, DEFAULT_CAPACITY);
+    }
+
+    public MessageBuffer(byte _endian, int _initialCapacity) {
+        big = Message.Endian.BIG == _endian;
+        buf = new byte[Math.max(_initialCapacity, 16)];
+    }
+
+    /**
+     * Ensures that at least the given amount of bytes can be written without resizing the buffer.
+     *
+     * @param _additional number of bytes which will be written
+     */
+    public void ensureCapacity(int _additional) {
+        int required = position + _additional;
+        if (required > buf.length) {
+            int newSize = Math.max(buf.length << 1, required);
+            buf = Arrays.copyOf(buf, newSize);
+        }
+    }
+
+    /**
+     * Appends a single byte.
+     *
+     * @param _b byte
+     */
+    public void put(byte _b) {
+        ensureCapacity(1);
+        buf[position++] = _b;
+    }
+
+    /**
+     * Appends the given array.
+     *
+     * @param _bytes bytes to append
+     */
+    public void put(byte[] _bytes) {
+        put(_bytes, 0, _bytes.length);
+    }
+
+    /**
+     * Appends a part of the given array.
+     *
+     * @param _bytes source array
+     * @param _ofs offset in source array
+     * @param _len number of bytes to copy
+     */
+    public void put(byte[] _bytes, int _ofs, int _len) {
+        ensureCapacity(_len);
+        System.arraycopy(_bytes, _ofs, buf, position, _len);
+        position += _len;
+    }
+
+    /**
+     * Appends the UTF-8 encoding of the given string (without length or terminating null byte).
+     *
+     * @param _str string
+     * @return number of bytes written
+     */
+    public int putUtf8(String _str) {
+        // short strings: reserve room for the worst case instead of scanning the string twice
+        ensureCapacity(_str.length() <= 256 ? _str.length() * 3 : Utf8Codec.encodedLength(_str));
+        int start = position;
+        position = Utf8Codec.encode(_str, buf, position);
+        return position - start;
+    }
+
+    /**
+     * Appends an integer of the given byte-width using the endianness of this buffer.
+     *
+     * @param _l value
+     * @param _width byte-width of the integer (1, 2, 4 or 8)
+     */
+    public void putInt(long _l, int _width) {
+        ensureCapacity(_width);
+        putInt(position, _l, _width);
+        position += _width;
+    }
+
+    /**
+     * Writes an integer of the given byte-width at the given position, overwriting data
+     * which has been appended before (e.g. a length placeholder).
+     *
+     * @param _pos absolute position in this buffer
+     * @param _l value
+     * @param _width byte-width of the integer (1, 2, 4 or 8)
+     */
+    public void putInt(int _pos, long _l, int _width) {
+        if (big) {
+            Message.marshallintBig(_l, buf, _pos, _width);
+        } else {
+            Message.marshallintLittle(_l, buf, _pos, _width);
+        }
+    }
+
+    /**
+     * Appends the given amount of zero bytes.
+     *
+     * @param _count number of bytes
+     */
+    public void putZeros(int _count) {
+        ensureCapacity(_count);
+        // the buffer is never shrunk or reused, so unwritten space is always zero
+        position += _count;
+    }
+
+    /**
+     * Pads the buffer with zero bytes until the position is a multiple of the given alignment.
+     *
+     * @param _alignment alignment in bytes
+     */
+    public void align(int _alignment) {
+        int rest = position % _alignment;
+        if (rest != 0) {
+            putZeros(_alignment - rest);
+        }
+    }
+
+    /**
+     * Current write position which is also the number of bytes written so far.
+     *
+     * @return int
+     */
+    public int position() {
+        return position;
+    }
+
+    /**
+     * Backing array of this buffer. Only the bytes up to {@link #position()} are valid.
+     *
+     * @return byte array
+     */
+    public byte[] array() {
+        return buf;
+    }
+
+    /**
+     * Returns a {@link ByteBuffer} view on the written bytes. No data is copied.
+     *
+     * @return ByteBuffer with position 0 and limit set to the written length
+     */
+    public ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(buf, 0, position).order(big ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Returns a copy of the written bytes.
+     *
+     * @return byte array
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, position);
+    }
+}
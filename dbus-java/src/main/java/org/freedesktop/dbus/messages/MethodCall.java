@@ -12,15 +12,17 @@
 
 package org.freedesktop.dbus.messages;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
-import org.freedesktop.Hexdump;
 import org.freedesktop.dbus.FileDescriptor;
+import org.freedesktop.dbus.connections.ReplyTimeoutWheel;
 import org.freedesktop.dbus.connections.impl.DBusConnection;
 import org.freedesktop.dbus.exceptions.DBusException;
 import org.freedesktop.dbus.exceptions.MessageFormatException;
-import org.freedesktop.dbus.types.UInt32;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,58 +43,24 @@ public class MethodCall extends Message {
         if (null == member || null == path) {
             throw new MessageFormatException("Must specify destination, path and function name to MethodCalls.");
         }
-        getHeaders().put(Message.HeaderField.PATH, path);
-        getHeaders().put(Message.HeaderField.MEMBER, member);
-
-        List<Object> hargs = new ArrayList<>();
-
-        hargs.add(new Object[] {
-                Message.HeaderField.PATH, new Object[] {
-                        ArgumentType.OBJECT_PATH_STRING, path
-                }
-        });
+        setHeader(Message.HeaderField.PATH, path);
+        setHeader(Message.HeaderField.MEMBER, member);
 
         if (null != source) {
-            getHeaders().put(Message.HeaderField.SENDER, source);
-            hargs.add(new Object[] {
-                    Message.HeaderField.SENDER, new Object[] {
-                            ArgumentType.STRING_STRING, source
-                    }
-            });
+            setHeader(Message.HeaderField.SENDER, source);
         }
 
         if (null != dest) {
-            getHeaders().put(Message.HeaderField.DESTINATION, dest);
-            hargs.add(new Object[] {
-                    Message.HeaderField.DESTINATION, new Object[] {
-                            ArgumentType.STRING_STRING, dest
-                    }
-            });
+            setHeader(Message.HeaderField.DESTINATION, dest);
         }
 
         if (null != iface) {
-            hargs.add(new Object[] {
-                    Message.HeaderField.INTERFACE, new Object[] {
-                            ArgumentType.STRING_STRING, iface
-                    }
-            });
-            getHeaders().put(Message.HeaderField.INTERFACE, iface);
+            setHeader(Message.HeaderField.INTERFACE, iface);
         }
 
-        hargs.add(new Object[] {
-                Message.HeaderField.MEMBER, new Object[] {
-                        ArgumentType.STRING_STRING, member
-                }
-        });
-
         if (null != sig) {
             logger.debug("Appending arguments with signature: {}", sig);
-            hargs.add(new Object[] {
-                    Message.HeaderField.SIGNATURE, new Object[] {
-                            ArgumentType.SIGNATURE_STRING, sig
-                    }
-            });
-            getHeaders().put(Message.HeaderField.SIGNATURE, sig);
+            setHeader(Message.HeaderField.SIGNATURE, sig);
             setArgs(args);
         }
 
@@ -106,17 +74,13 @@ public class MethodCall extends Message {
         }
 
         if( totalFileDes > 0 ){
-            getHeaders().put(Message.HeaderField.UNIX_FDS, totalFileDes);
-            hargs.add(new Object[]{
-                    Message.HeaderField.UNIX_FDS, new Object[]{
-                    ArgumentType.UINT32_STRING, new UInt32( totalFileDes )
-                }
-            });
+            setHeader(Message.HeaderField.UNIX_FDS, totalFileDes);
         }
 
-        byte[] blen = new byte[4];
-        appendBytes(blen);
-        append("ua(yv)", getSerial(), hargs.toArray());
+        int blen = (int) getByteCounter();
+        appendint(0, 4);
+        appendint(getSerial(), 4);
+        appendHeaders();
         pad((byte) 8);
 
         long c = getByteCounter();
@@ -124,8 +88,8 @@ public class MethodCall extends Message {
             append(sig, args);
         }
         logger.debug("Appended body, type: {} start: {} end: {} size: {}",sig, c, getByteCounter(), (getByteCounter() - c));
-        marshallint(getByteCounter() - c, blen, 0, 4);
-        logger.debug("marshalled size ({}): {}",blen, Hexdump.format(blen));
+        marshallintAt(getByteCounter() - c, blen, 4);
+        logger.debug("marshalled size: {}", getByteCounter() - c);
     }
 
     private static long REPLY_WAIT_TIMEOUT = 200000;
@@ -139,12 +103,60 @@ public class MethodCall extends Message {
         REPLY_WAIT_TIMEOUT = timeout;
     }
 
+    /**
+    * Get the default timeout for method calls.
+    * @return timeout in ms
+    */
+    public static long getDefaultTimeout() {
+        return REPLY_WAIT_TIMEOUT;
+    }
+
     // CHECKSTYLE:OFF
     Message reply = null;
     // CHECKSTYLE:ON
 
-    public synchronized boolean hasReply() {
-        return null != reply;
+    private final Lock                 lock    = new ReentrantLock();
+    private final Condition            replied = lock.newCondition();
+    private CompletableFuture<Message> replyFuture;
+
+    private long                       timeout;
+    private volatile ReplyTimeoutWheel.Timeout timeoutHandle;
+
+    /**
+    * Get the reply timeout of this call.
+    * @return timeout in ms, 0 if the default timeout of the connection is used
+    */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+    * Set the reply timeout of this call, must be called before the call is sent.
+    * @param _timeout timeout in ms, 0 to use the default timeout of the connection
+    */
+    public void setTimeout(long _timeout) {
+        timeout = _timeout;
+    }
+
+    /**
+    * Get the handle of the reply timeout scheduled by the connection sending this call.
+    * @return handle or null
+    */
+    public ReplyTimeoutWheel.Timeout getTimeoutHandle() {
+        return timeoutHandle;
+    }
+
+    public void setTimeoutHandle(ReplyTimeoutWheel.Timeout _timeoutHandle) {
+        timeoutHandle = _timeoutHandle;
+    }
+
+    public boolean hasReply() {
+        lock.lock();
+        try {
+            return null != reply;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -152,16 +164,20 @@ public class MethodCall extends Message {
     * @return The reply to this MethodCall, or null if a timeout happens.
     * @param timeout The length of time to block before timing out (ms).
     */
-    public synchronized Message getReply(long timeout) {
+    public Message getReply(long timeout) {
         logger.trace("Blocking on {}", this);
-        if (null != reply) {
-            return reply;
-        }
+        // a lock instead of a monitor, so waiting does not pin the carrier of a virtual thread
+        lock.lock();
         try {
-            wait(timeout);
+            long remaining = TimeUnit.MILLISECONDS.toNanos(timeout);
+            while (null == reply && remaining > 0) {
+                remaining = replied.awaitNanos(remaining);
+            }
             return reply;
         } catch (InterruptedException exI) {
             return reply;
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -170,24 +186,59 @@ public class MethodCall extends Message {
     * Default timeout is 20s, or can be configured with setDefaultTimeout()
     * @return The reply to this MethodCall, or null if a timeout happens.
     */
-    public synchronized Message getReply() {
-        logger.trace("Blocking on {}", this);
+    public Message getReply() {
+        return getReply(REPLY_WAIT_TIMEOUT);
+    }
 
-        if (null != reply) {
-            return reply;
+    /**
+    * Returns a future which is completed with the reply to this MethodCall.
+    * The future is completed by the thread setting the reply, which is usually the thread
+    * reading from the transport, so no thread has to block while waiting for the reply.
+    * @return future, already completed if the reply has been received
+    */
+    public CompletableFuture<Message> getReplyFuture() {
+        lock.lock();
+        try {
+            if (null == replyFuture) {
+                replyFuture = new CompletableFuture<>();
+                if (null != reply) {
+                    replyFuture.complete(reply);
+                }
+            }
+            return replyFuture;
+        } finally {
+            lock.unlock();
         }
+    }
+
+    /**
+    * Checks if the future returned by {@link #getReplyFuture()} has been cancelled.
+    * @return true if cancelled
+    */
+    public boolean isCancelled() {
+        lock.lock();
         try {
-            wait(REPLY_WAIT_TIMEOUT);
-            return reply;
-        } catch (InterruptedException exI) {
-            return reply;
+            return null != replyFuture && replyFuture.isCancelled();
+        } finally {
+            lock.unlock();
         }
     }
 
-    public synchronized void setReply(Message _reply) {
+    public void setReply(Message _reply) {
         logger.trace("Setting reply to {} to {}", this, _reply);
-        this.reply = _reply;
-        notifyAll();
+        CompletableFuture<Message> future;
+        lock.lock();
+        try {
+            this.reply = _reply;
+            replied.signalAll();
+            future = replyFuture;
+        } finally {
+            lock.unlock();
+        }
+        // complete outside of the lock, dependent stages are executed by the completing thread
+        if (null != future) {
+            future.complete(_reply);
+        }
     }
 
 }
@@ -12,13 +12,9 @@
 
 package org.freedesktop.dbus.messages;
 
-import java.util.ArrayList;
-import java.util.List;
 import org.freedesktop.dbus.FileDescriptor;
-
 import org.freedesktop.dbus.connections.impl.DBusConnection;
 import org.freedesktop.dbus.exceptions.DBusException;
-import org.freedesktop.dbus.types.UInt32;
 
 public class MethodReturn extends Message {
     
@@ -34,40 +30,18 @@ public class MethodReturn extends Message {
     public MethodReturn(String source, String dest, long replyserial, String sig, Object... args) throws DBusException {
         super(DBusConnection.getEndianness(), Message.MessageType.METHOD_RETURN, (byte) 0);
 
-        getHeaders().put(Message.HeaderField.REPLY_SERIAL, replyserial);
-
-        List<Object> hargs = new ArrayList<>();
-        hargs.add(new Object[] {
-                Message.HeaderField.REPLY_SERIAL, new Object[] {
-                        ArgumentType.UINT32_STRING, replyserial
-                }
-        });
+        setHeader(Message.HeaderField.REPLY_SERIAL, replyserial);
 
         if (null != source) {
-            getHeaders().put(Message.HeaderField.SENDER, source);
-            hargs.add(new Object[] {
-                    Message.HeaderField.SENDER, new Object[] {
-                            ArgumentType.STRING_STRING, source
-                    }
-            });
+            setHeader(Message.HeaderField.SENDER, source);
         }
 
         if (null != dest) {
-            getHeaders().put(Message.HeaderField.DESTINATION, dest);
-            hargs.add(new Object[] {
-                    Message.HeaderField.DESTINATION, new Object[] {
-                            ArgumentType.STRING_STRING, dest
-                    }
-            });
+            setHeader(Message.HeaderField.DESTINATION, dest);
         }
 
         if (null != sig) {
-            hargs.add(new Object[] {
-                    Message.HeaderField.SIGNATURE, new Object[] {
-                            ArgumentType.SIGNATURE_STRING, sig
-                    }
-            });
-            getHeaders().put(Message.HeaderField.SIGNATURE, sig);
+            setHeader(Message.HeaderField.SIGNATURE, sig);
             setArgs(args);
         }
 
@@ -79,24 +53,20 @@ public class MethodReturn extends Message {
         }
 
         if( totalFileDes > 0 ){
-            getHeaders().put(Message.HeaderField.UNIX_FDS, totalFileDes);
-            hargs.add(new Object[]{
-                    Message.HeaderField.UNIX_FDS, new Object[]{
-                    ArgumentType.UINT32_STRING, new UInt32( totalFileDes )
-                }
-            });
+            setHeader(Message.HeaderField.UNIX_FDS, totalFileDes);
         }
 
-        byte[] blen = new byte[4];
-        appendBytes(blen);
-        append("ua(yv)", getSerial(), hargs.toArray());
+        int blen = (int) getByteCounter();
+        appendint(0, 4);
+        appendint(getSerial(), 4);
+        appendHeaders();
         pad((byte) 8);
 
         long c = getByteCounter();
         if (null != sig) {
             append(sig, args);
         }
-        marshallint(getByteCounter() - c, blen, 0, 4);
+        marshallintAt(getByteCounter() - c, blen, 4);
     }
 
     public MethodReturn(MethodCall mc, String sig, Object... args) throws DBusException {
@@ -0,0 +1,804 @@
+package org.freedesktop.dbus.messages;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.freedesktop.dbus.Container;
+import org.freedesktop.dbus.DBusMap;
+import org.freedesktop.dbus.FileDescriptor;
+import org.freedesktop.dbus.Marshalling;
+import org.freedesktop.dbus.ObjectPath;
+import org.freedesktop.dbus.PrimitiveList;
+import org.freedesktop.dbus.connections.AbstractConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.exceptions.MarshallingException;
+import org.freedesktop.dbus.exceptions.UnknownTypeCodeException;
+import org.freedesktop.dbus.messages.Message.ArgumentType;
+import org.freedesktop.dbus.messages.Message.Endian;
+import org.freedesktop.dbus.types.UInt16;
+import org.freedesktop.dbus.types.UInt32;
+import org.freedesktop.dbus.types.UInt64;
+import org.freedesktop.dbus.types.Variant;
+
+/**
+ * Encoder/decoder for one complete D-Bus type.
+ * <p>
+ * Signatures are compiled once into a tree of codecs (e.g. {@code a{sv}} becomes an array codec
+ * containing a dict entry codec of a string and a variant codec). Compiled signatures are cached
+ * and shared by all messages, so marshalling a value does not require parsing the signature again.
+ * </p>
+ * Codecs are immutable and thread safe.
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+abstract class TypeCodec {
+    /** Upper limit of cached signatures, signatures are still compiled but not cached when exceeded. */
+    private static final int                           MAX_CACHED_SIGNATURES = 1024;
+
+    private static final ConcurrentMap<String, TypeCodec[]> CACHE = new ConcurrentHashMap<>();
+
+    private final byte                                 type;
+    private final int                                  alignment;
+    /** Signature of this type, set once by the compiler. */
+    private String                                     signature;
+    /** Java type of this D-Bus type, created on first use. */
+    private volatile Type                              javaType;
+
+    TypeCodec(byte _type) {
+        type = _type;
+        alignment = Message.getAlignment(_type);
+    }
+
+    /**
+     * Returns the codecs for all complete types of the given signature.
+     *
+     * @param _signature signature
+     * @return array of codecs, one for each complete type
+     * @throws DBusException if signature is invalid
+     */
+    static TypeCodec[] forSignature(String _signature) throws DBusException {
+        TypeCodec[] codecs = CACHE.get(_signature);
+        if (null == codecs) {
+            codecs = compile(_signature);
+            if (CACHE.size() < MAX_CACHED_SIGNATURES) {
+                CACHE.putIfAbsent(_signature, codecs);
+            }
+        }
+        return codecs;
+    }
+
+    /**
+     * Compiles the given signature without using the cache.
+     *
+     * @param _signature signature
+     * @return array of codecs, one for each complete type
+     * @throws DBusException if signature is invalid
+     */
+    static TypeCodec[] compile(String _signature) throws DBusException {
+        byte[] sigb = _signature.getBytes(StandardCharsets.US_ASCII);
+        List<TypeCodec> codecs = new ArrayList<>();
+        int[] idx = new int[] {0};
+        while (idx[0] < sigb.length) {
+            codecs.add(compileOne(sigb, idx));
+        }
+        return codecs.toArray(new TypeCodec[0]);
+    }
+
+    private static TypeCodec compileOne(byte[] _sigb, int[] _idx) throws DBusException {
+        if (_idx[0] >= _sigb.length) {
+            throw new MarshallingException("Incomplete signature: " + new String(_sigb, StandardCharsets.US_ASCII));
+        }
+        int start = _idx[0];
+        TypeCodec codec = compileType(_sigb, _idx);
+        codec.signature = new String(_sigb, start, _idx[0] - start, StandardCharsets.US_ASCII);
+        return codec;
+    }
+
+    private static TypeCodec compileType(byte[] _sigb, int[] _idx) throws DBusException {
+        byte t = _sigb[_idx[0]++];
+        switch (t) {
+        case ArgumentType.BYTE:
+            return new ByteCodec();
+        case ArgumentType.BOOLEAN:
+            return new BooleanCodec();
+        case ArgumentType.INT16:
+            return new Int16Codec();
+        case ArgumentType.UINT16:
+            return new UInt16Codec();
+        case ArgumentType.INT32:
+            return new Int32Codec();
+        case ArgumentType.UINT32:
+            return new UInt32Codec();
+        case ArgumentType.INT64:
+            return new Int64Codec();
+        case ArgumentType.UINT64:
+            return new UInt64Codec();
+        case ArgumentType.DOUBLE:
+            return new DoubleCodec();
+        case ArgumentType.FLOAT:
+            return new FloatCodec();
+        case ArgumentType.FILEDESCRIPTOR:
+            return new FileDescriptorCodec();
+        case ArgumentType.STRING:
+            return new StringCodec();
+        case ArgumentType.OBJECT_PATH:
+            return new ObjectPathCodec();
+        case ArgumentType.SIGNATURE:
+            return new SignatureCodec();
+        case ArgumentType.VARIANT:
+            return new VariantCodec();
+        case ArgumentType.ARRAY:
+            return new ArrayCodec(compileOne(_sigb, _idx));
+        case ArgumentType.STRUCT1:
+            List<TypeCodec> members = new ArrayList<>();
+            while (_idx[0] < _sigb.length && _sigb[_idx[0]] != ArgumentType.STRUCT2) {
+                members.add(compileOne(_sigb, _idx));
+            }
+            if (_idx[0]++ >= _sigb.length || members.isEmpty()) {
+                throw new MarshallingException("Invalid struct in signature: " + new String(_sigb, StandardCharsets.US_ASCII));
+            }
+            return new StructCodec(members.toArray(new TypeCodec[0]));
+        case ArgumentType.DICT_ENTRY1:
+            TypeCodec key = compileOne(_sigb, _idx);
+            TypeCodec value = compileOne(_sigb, _idx);
+            if (_idx[0] >= _sigb.length || _sigb[_idx[0]++] != ArgumentType.DICT_ENTRY2) {
+                throw new MarshallingException("Invalid dict entry in signature: " + new String(_sigb, StandardCharsets.US_ASCII));
+            }
+            return new DictEntryCodec(key, value);
+        default:
+            throw new UnknownTypeCodeException(t);
+        }
+    }
+
+    byte getType() {
+        return type;
+    }
+
+    String getSignature() {
+        return signature;
+    }
+
+    /**
+     * Returns the java type used to represent values of this type (e.g. in a {@link Variant}).
+     *
+     * @return java type
+     * @throws DBusException if signature cannot be converted
+     */
+    Type getJavaType() throws DBusException {
+        Type t = javaType;
+        if (null == t) {
+            List<Type> types = new ArrayList<>();
+            Marshalling.getJavaType(signature, types, 1);
+            t = types.get(0);
+            javaType = t;
+        }
+        return t;
+    }
+
+    /**
+     * Appends the given value to the buffer, including the padding required in front of the value.
+     *
+     * @param _msg message the value belongs to
+     * @param _buf buffer to write to
+     * @param _data value
+     * @throws DBusException if value cannot be marshalled
+     */
+    final void encode(Message _msg, MessageBuffer _buf, Object _data) throws DBusException {
+        _buf.align(alignment);
+        try {
+            write(_msg, _buf, _data);
+        } catch (ClassCastException _ex) {
+            throw new MarshallingException(
+                    MessageFormat.format("Trying to marshall to unconvertible type (from {0} to {1}).",
+                            _data.getClass().getName(), (char) type), _ex);
+        }
+    }
+
+    /**
+     * Reads a value from the given data, starting at _pos[0] (unaligned).
+     * After reading _pos[0] points behind the value.
+     *
+     * @param _msg message the value belongs to
+     * @param _data data to read
+     * @param _pos current position in _data
+     * @param _contained true if value is contained in another value (arrays will be converted to lists)
+     * @return value
+     * @throws DBusException if data is invalid
+     */
+    final Object decode(Message _msg, byte[] _data, int[] _pos, boolean _contained) throws DBusException {
+        _pos[0] = align(_pos[0], alignment);
+        return read(_msg, _data, _pos, _contained);
+    }
+
+    abstract void write(Message _msg, MessageBuffer _buf, Object _data) throws DBusException;
+
+    abstract Object read(Message _msg, byte[] _data, int[] _pos, boolean _contained) throws DBusException;
+
+    static int align(int _pos, int _alignment) {
+        int rest = _pos % _alignment;
+        return 0 == rest ? _pos : _pos + _alignment - rest;
+    }
+
+    static void writeString(MessageBuffer _buf, String _str) {
+        int lenPos = _buf.position();
+        _buf.putInt(0, 4);
+        int len = _buf.putUtf8(_str);
+        _buf.putInt(lenPos, len, 4);
+        _buf.put((byte) 0);
+    }
+
+    static String readString(Message _msg, byte[] _data, int[] _pos) {
+        int len = (int) _msg.demarshallint(_data, _pos[0], 4);
+        String s = Utf8Codec.decode(_data, _pos[0] + 4, len);
+        _pos[0] += 4 + len + 1;
+        return s;
+    }
+
+    static void writeSignature(MessageBuffer _buf, String _sig) {
+        int lenPos = _buf.position();
+        _buf.put((byte) 0);
+        int len = _buf.putUtf8(_sig);
+        _buf.putInt(lenPos, len, 1);
+        _buf.put((byte) 0);
+    }
+
+    static String readSignature(byte[] _data, int[] _pos) {
+        int len = _data[_pos[0]] & 0xFF;
+        // signatures are short and often repeated
+        String s = Utf8Codec.decodeCached(_data, _pos[0] + 1, len);
+        _pos[0] += len + 2;
+        return s;
+    }
+
+    static final class ByteCodec extends TypeCodec {
+        ByteCodec() {
+            super(ArgumentType.BYTE);
+        }
+
+        @Override
+        void write(Message _msg, MessageBuffer _buf, Object _data) {
+            _buf.put(((Number) _data).byteValue());
+        }
+
+        @Override
+        Object read(Message _msg, byte[] _data, int[] _pos, boolean _contained) {
+            return _data[_pos[0]++];
+        }
+    }
+
+    static final class BooleanCodec extends TypeCodec {
+        BooleanCodec() {
+            super(ArgumentType.BOOLEAN);
+        }
+
+        @Override
+        void write(Message _msg, MessageBuffer _buf, Object _data) {
+            _buf.putInt(((Boolean) _data).booleanValue() ? 1 : 0, 4);
+        }
+
+        @Override
+        Object read(Message _msg, byte[] _data, int[] _pos, boolean _contained) {
+            long l = _msg.demarshallint(_data, _pos[0], 4);
+            _pos[0] += 4;
+            return 1 == l ? Boolean.TRUE : Boolean.FALSE;
+        }
+    }
+
+    static final class Int16Codec extends TypeCodec {
+        Int16Codec() {
+            super(ArgumentType.INT16);
+        }
+
+        @Override
+        void write(Message _msg, MessageBuffer _buf, Object _data) {
+            _buf.putInt(((Number) _data).shortValue(), 2);
+        }
+
+        @Override
+        Object read(Message _msg, byte[] _data, int[] _pos, boolean _contained) {
+            short s = (short) _msg.demarshallint(_data, _pos[0], 2);
+            _pos[0] += 2;
+            return s;
+        }
+    }
+
+    static final class UInt16Codec extends TypeCodec {
+        UInt16Codec() {
+            super(ArgumentType.UINT16);
+        }
+
+        @Override
+        void write(Message _msg, MessageBuffer _buf, Object _data) {
+            _buf.putInt(((Number) _data).intValue(), 2);
+        }
+
+        @Override
+        Object read(Message _msg, byte[] _data, int[] _pos, boolean _contained) {
+            int i = (int) _msg.demarshallint(_data, _pos[0], 2);
+            _pos[0] += 2;
+            return new UInt16(i);
+        }
+    }
+
+    static final class Int32Codec extends TypeCodec {
+        Int32Codec() {
+            super(ArgumentType.INT32);
+        }
+
+        @Override
+        void write(Message _msg, MessageBuffer _buf, Object _data) {
+            _buf.putInt(((Number) _data).intValue(), 4);
+        }
+
+        @Override
+        Object read(Message _msg, byte[] _data, int[] _pos, boolean _contained) {
+            int i = (int) _msg.demarshallint(_data, _pos[0], 4);
+            _pos[0] += 4;
+            return i;
+        }
+    }
+
+    static final class UInt32Codec extends TypeCodec {
+        UInt32Codec() {
+            super(ArgumentType.UINT32);
+        }
+
+        @Override
+        void write(Message _msg, MessageBuffer _buf, Object _data) {
+            _buf.putInt(((Number) _data).longValue(), 4);
+        }
+
+        @Override
+        Object read(Message _msg, byte[] _data, int[] _pos, boolean _contained) {
+            long l = _msg.demarshallint(_data, _pos[0], 4);
+            _pos[0] += 4;
+            return new UInt32(l);
+        }
+    }
+
+    static final class Int64Codec extends TypeCodec {
+        Int64Codec() {
+            super(ArgumentType.INT64);
+        }
+
+        @Override
+        void write(Message _msg, MessageBuffer _buf, Object _data) {
+            _buf.putInt(((Number) _data).longValue(), 8);
+        }
+
+        @Override
+        Object read(Message _msg, byte[] _data, int[] _pos, boolean _contained) {
+            long l = _msg.demarshallint(_data, _pos[0], 8);
+            _pos[0] += 8;
+            return l;
+        }
+    }
+
+    static final class UInt64Codec extends TypeCodec {
+        UInt64Codec() {
+            super(ArgumentType.UINT64);
+        }
+
+        @Override
+        void write(Message _msg, MessageBuffer _buf, Object _data) {
+            UInt64 u = (UInt64) _data;
+            // writing top and bottom as one 64-bit integer results in the required word order for both endianesses
+            _buf.putInt(u.top() << 32 | u.bottom(), 8);
+        }
+
+        @Override
+        Object read(Message _msg, byte[] _data, int[] _pos, boolean _contained) {
+            long l = _msg.demarshallint(_data, _pos[0], 8);
+            _pos[0] += 8;
+            return new UInt64(l >>> 32, l & 0xFFFFFFFFL);
+        }
+    }
+
+    static final class DoubleCodec extends TypeCodec {
+        DoubleCodec() {
+            super(ArgumentType.DOUBLE);
+        }
+
+        @Override
+        void write(Message _msg, MessageBuffer _buf, Object _data) {
+            _buf.putInt(Double.doubleToLongBits(((Number) _data).doubleValue()), 8);
+        }
+
+        @Override
+        Object read(Message _msg, byte[] _data, int[] _pos, boolean _contained) {
+            long l = _msg.demarshallint(_data, _pos[0], 8);
+            _pos[0] += 8;
+            return Double.longBitsToDouble(l);
+        }
+    }
+
+    static final class FloatCodec extends TypeCodec {
+        FloatCodec() {
+            super(ArgumentType.FLOAT);
+        }
+
+        @Override
+        void write(Message _msg, MessageBuffer _buf, Object _data) {
+            _buf.putInt(Float.floatToIntBits(((Number) _data).floatValue()), 4);
+        }
+
+        @Override
+        Object read(Message _msg, byte[] _data, int[] _pos, boolean _contained) {
+            int i = (int) _msg.demarshallint(_data, _pos[0], 4);
+            _pos[0] += 4;
+            return Float.intBitsToFloat(i);
+        }
+    }
+
+    static final class FileDescriptorCodec extends TypeCodec {
+        FileDescriptorCodec() {
+            super(ArgumentType.FILEDESCRIPTOR);
+        }
+
+        @Override
+        void write(Message _msg, MessageBuffer _buf, Object _data) {
+            List<FileDescriptor> fds = _msg.getFiledescriptors();
+            fds.add((FileDescriptor) _data);
+            _buf.putInt(fds.size() - 1, 4);
+        }
+
+        @Override
+        Object read(Message _msg, byte[] _data, int[] _pos, boolean _contained) {
+            int idx = (int) _msg.demarshallint(_data, _pos[0], 4);
+            _pos[0] += 4;
+            return _msg.getFiledescriptors().get(idx);
+        }
+    }
+
+    static final class StringCodec extends TypeCodec {
+        StringCodec() {
+            super(ArgumentType.STRING);
+        }
+
+        @Override
+        void write(Message _msg, MessageBuffer _buf, Object _data) {
+            writeString(_buf, _data.toString());
+        }
+
+        @Override
+        Object read(Message _msg, byte[] _data, int[] _pos, boolean _contained) {
+            return readString(_msg, _data, _pos);
+        }
+    }
+
+    static final class ObjectPathCodec extends TypeCodec {
+        ObjectPathCodec() {
+            super(ArgumentType.OBJECT_PATH);
+        }
+
+        @Override
+        void write(Message _msg, MessageBuffer _buf, Object _data) {
+            writeString(_buf, _data.toString());
+        }
+
+        @Override
+        Object read(Message _msg, byte[] _data, int[] _pos, boolean _contained) {
+            return new ObjectPath(_msg.getSource(), readString(_msg, _data, _pos));
+        }
+    }
+
+    static final class SignatureCodec extends TypeCodec {
+        SignatureCodec() {
+            super(ArgumentType.SIGNATURE);
+        }
+
+        @Override
+        void write(Message _msg, MessageBuffer _buf, Object _data) throws DBusException {
+            if (_data instanceof Type[]) {
+                writeSignature(_buf, Marshalling.getDBusType((Type[]) _data));
+            } else {
+                writeSignature(_buf, (String) _data);
+            }
+        }
+
+        @Override
+        Object read(Message _msg, byte[] _data, int[] _pos, boolean _contained) {
+            return readSignature(_data, _pos);
+        }
+    }
+
+    static final class VariantCodec extends TypeCodec {
+        VariantCodec() {
+            super(ArgumentType.VARIANT);
+        }
+
+        @Override
+        void write(Message _msg, MessageBuffer _buf, Object _data) throws DBusException {
+            String sig;
+            Object value;
+            if (_data instanceof Variant) {
+                sig = ((Variant<?>) _data).getSig();
+                value = ((Variant<?>) _data).getValue();
+            } else if (_data instanceof Object[]) {
+                sig = (String) ((Object[]) _data)[0];
+                value = ((Object[]) _data)[1];
+            } else {
+                sig = Marshalling.getDBusType(_data.getClass())[0];
+                value = _data;
+            }
+            writeSignature(_buf, sig);
+            forSignature(sig)[0].encode(_msg, _buf, value);
+        }
+
+        @Override
+        Object read(Message _msg, byte[] _data, int[] _pos, boolean _contained) throws DBusException {
+            TypeCodec[] codecs = forSignature(readSignature(_data, _pos));
+            if (codecs.length != 1) {
+                throw new MarshallingException("Variant must contain exactly one complete type");
+            }
+            TypeCodec content = codecs[0];
+            return new Variant<>(content.decode(_msg, _data, _pos, false), content.getJavaType(), content.getSignature());
+        }
+    }
+
+    static final class StructCodec extends TypeCodec {
+        private final TypeCodec[] members;
+
+        StructCodec(TypeCodec[] _members) {
+            super(ArgumentType.STRUCT1);
+            members = _members;
+        }
+
+        @Override
+        void write(Message _msg, MessageBuffer _buf, Object _data) throws DBusException {
+            Object[] contents;
+            if (_data instanceof Container) {
+                contents = ((Container) _data).getParameters();
+            } else {
+                contents = (Object[]) _data;
+            }
+            for (int i = 0; i < members.length; i++) {
+                members[i].encode(_msg, _buf, contents[i]);
+            }
+        }
+
+        @Override
+        Object read(Message _msg, byte[] _data, int[] _pos, boolean _contained) throws DBusException {
+            Object[] contents = new Object[members.length];
+            for (int i = 0; i < members.length; i++) {
+                contents[i] = members[i].decode(_msg, _data, _pos, true);
+            }
+            return contents;
+        }
+    }
+
+    static final class DictEntryCodec extends TypeCodec {
+        private final TypeCodec key;
+        private final TypeCodec value;
+
+        DictEntryCodec(TypeCodec _key, TypeCodec _value) {
+            super(ArgumentType.DICT_ENTRY1);
+            key = _key;
+            value = _value;
+        }
+
+        @Override
+        void write(Message _msg, MessageBuffer _buf, Object _data) throws DBusException {
+            if (_data instanceof Map.Entry) {
+                key.encode(_msg, _buf, ((Map.Entry<?, ?>) _data).getKey());
+                value.encode(_msg, _buf, ((Map.Entry<?, ?>) _data).getValue());
+            } else {
+                Object[] contents = (Object[]) _data;
+                key.encode(_msg, _buf, contents[0]);
+                value.encode(_msg, _buf, contents[1]);
+            }
+        }
+
+        @Override
+        Object read(Message _msg, byte[] _data, int[] _pos, boolean _contained) throws DBusException {
+            return new Object[] {
+                    key.decode(_msg, _data, _pos, true), value.decode(_msg, _data, _pos, true)
+            };
+        }
+    }
+
+    static final class ArrayCodec extends TypeCodec {
+        private final TypeCodec element;
+        private final byte      elementType;
+        private final int       elementAlignment;
+
+        ArrayCodec(TypeCodec _element) {
+            super(ArgumentType.ARRAY);
+            element = _element;
+            elementType = _element.getType();
+            elementAlignment = Message.getAlignment(elementType);
+        }
+
+        @Override
+        void write(Message _msg, MessageBuffer _buf, Object _data) throws DBusException {
+            // Arrays are given as a UInt32 for the length in bytes,
+            // padding to the element alignment, then elements in
+            // order. The length is the length from the end of the
+            // initial padding to the end of the last element.
+            int lenPos = _buf.position();
+            _buf.putInt(0, 4);
+            _buf.align(elementAlignment);
+            int start = _buf.position();
+
+            if (_data instanceof PrimitiveList) {
+                writePrimitives(_buf, ((PrimitiveList<?>) _data).getArray());
+            } else if (_data.getClass().isArray() && _data.getClass().getComponentType().isPrimitive()) {
+                writePrimitives(_buf, _data);
+            } else if (_data instanceof List) {
+                for (Object o : (List<?>) _data) {
+                    element.encode(_msg, _buf, o);
+                }
+            } else if (_data instanceof Map) {
+                for (Map.Entry<?, ?> e : ((Map<?, ?>) _data).entrySet()) {
+                    element.encode(_msg, _buf, e);
+                }
+            } else {
+                for (Object o : (Object[]) _data) {
+                    element.encode(_msg, _buf, o);
+                }
+            }
+            _buf.putInt(lenPos, _buf.position() - start, 4);
+        }
+
+        private void writePrimitives(MessageBuffer _buf, Object _data) throws MarshallingException {
+            int len = Array.getLength(_data);
+            _buf.ensureCapacity(len * elementAlignment);
+            switch (elementType) {
+            case ArgumentType.BYTE:
+                _buf.put((byte[]) _data);
+                break;
+            case ArgumentType.INT32:
+                if (_data instanceof int[]) {
+                    int[] ints = (int[]) _data;
+                    for (int i = 0; i < len; i++) {
+                        _buf.putInt(ints[i], 4);
+                    }
+                } else {
+                    writeIntegers(_buf, _data, len);
+                }
+                break;
+            case ArgumentType.INT16:
+            case ArgumentType.INT64:
+                writeIntegers(_buf, _data, len);
+                break;
+            case ArgumentType.BOOLEAN:
+                boolean[] bools = (boolean[]) _data;
+                for (int i = 0; i < len; i++) {
+                    _buf.putInt(bools[i] ? 1 : 0, 4);
+                }
+                break;
+            case ArgumentType.DOUBLE:
+                if (_data instanceof float[]) {
+                    float[] floats = (float[]) _data;
+                    for (int i = 0; i < len; i++) {
+                        _buf.putInt(Double.doubleToRawLongBits(floats[i]), 8);
+                    }
+                } else {
+                    double[] doubles = (double[]) _data;
+                    for (int i = 0; i < len; i++) {
+                        _buf.putInt(Double.doubleToRawLongBits(doubles[i]), 8);
+                    }
+                }
+                break;
+            case ArgumentType.FLOAT:
+                float[] floats = (float[]) _data;
+                for (int i = 0; i < len; i++) {
+                    _buf.putInt(Float.floatToRawIntBits(floats[i]), 4);
+                }
+                break;
+            default:
+                throw new MarshallingException("Primitive array being sent as non-primitive array.");
+            }
+        }
+
+        private void writeIntegers(MessageBuffer _buf, Object _data, int _len) {
+            for (int i = 0; i < _len; i++) {
+                _buf.putInt(Array.getLong(_data, i), elementAlignment);
+            }
+        }
+
+        @Override
+        Object read(Message _msg, byte[] _data, int[] _pos, boolean _contained) throws DBusException {
+            // array length is an uint32, validate before narrowing to int
+            long lsize = _msg.demarshallint(_data, _pos[0], 4);
+            _pos[0] = align(_pos[0] + 4, elementAlignment);
+            if (lsize < 0 || lsize > AbstractConnection.MAX_ARRAY_LENGTH) {
+                throw new MarshallingException("Arrays must not exceed " + AbstractConnection.MAX_ARRAY_LENGTH);
+            }
+            if (lsize > 0 && lsize > _data.length - _pos[0]) {
+                throw new MarshallingException("Array length " + lsize + " exceeds remaining message data");
+            }
+            int size = (int) lsize;
+            int length = size / elementAlignment;
+
+            Object rv = readPrimitives(_msg, _data, _pos, size, length);
+            if (null == rv) {
+                int end = _pos[0] + size;
+                if (elementType == ArgumentType.DICT_ENTRY1) {
+                    List<Object[]> entries = new ArrayList<>();
+                    while (_pos[0] < end) {
+                        entries.add((Object[]) element.decode(_msg, _data, _pos, true));
+                    }
+                    return new DBusMap<>(entries.toArray(new Object[0][]));
+                }
+                List<Object> contents = new ArrayList<>();
+                while (_pos[0] < end) {
+                    contents.add(element.decode(_msg, _data, _pos, true));
+                }
+                return contents;
+            }
+            // contained arrays are expected as lists, use a view instead of boxing all elements
+            return _contained ? PrimitiveList.of(rv) : rv;
+        }
+
+        /**
+         * Reads arrays of primitive types into primitive java arrays.
+         * @return array or null if elements are not primitives
+         */
+        private Object readPrimitives(Message _msg, byte[] _data, int[] _pos, int _size, int _length) {
+            Object rv;
+            int ofs = _pos[0];
+            switch (elementType) {
+            case ArgumentType.BYTE:
+                byte[] bytes = new byte[_length];
+                System.arraycopy(_data, ofs, bytes, 0, _length);
+                rv = bytes;
+                break;
+            case ArgumentType.INT16:
+                short[] shorts = new short[_length];
+                wrap(_msg, _data, ofs, _size).asShortBuffer().get(shorts);
+                rv = shorts;
+                break;
+            case ArgumentType.INT32:
+                int[] ints = new int[_length];
+                wrap(_msg, _data, ofs, _size).asIntBuffer().get(ints);
+                rv = ints;
+                break;
+            case ArgumentType.INT64:
+                long[] longs = new long[_length];
+                wrap(_msg, _data, ofs, _size).asLongBuffer().get(longs);
+                rv = longs;
+                break;
+            case ArgumentType.BOOLEAN:
+                boolean[] bools = new boolean[_length];
+                for (int j = 0; j < _length; j++, ofs += 4) {
+                    bools[j] = 1 == _msg.demarshallint(_data, ofs, 4);
+                }
+                rv = bools;
+                break;
+            case ArgumentType.FLOAT:
+                float[] floats = new float[_length];
+                wrap(_msg, _data, ofs, _size).asFloatBuffer().get(floats);
+                rv = floats;
+                break;
+            case ArgumentType.DOUBLE:
+                double[] doubles = new double[_length];
+                wrap(_msg, _data, ofs, _size).asDoubleBuffer().get(doubles);
+                rv = doubles;
+                break;
+            default:
+                return null;
+            }
+            _pos[0] += _size;
+            return rv;
+        }
+
+        /**
+         * Wraps the array content in a {@link ByteBuffer} using the byte order of the message,
+         * so the elements can be copied in bulk using one of the typed buffer views.
+         */
+        private static ByteBuffer wrap(Message _msg, byte[] _data, int _ofs, int _size) {
+            return ByteBuffer.wrap(_data, _ofs, _size)
+                    .order(_msg.getEndianess() == Endian.BIG ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+}
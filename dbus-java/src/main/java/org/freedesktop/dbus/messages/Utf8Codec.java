@@ -0,0 +1,146 @@
+package org.freedesktop.dbus.messages;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Encodes and decodes the UTF-8 payload of D-Bus strings, object paths and signatures.
+ * <p>
+ * ASCII strings (nearly all bus names, interfaces, members and object paths) are encoded directly
+ * into the target array without creating an intermediate byte array.
+ * </p>
+ * <p>
+ * Additionally a small cache can be used for values which are received again and again
+ * (e.g. interface and member names in message headers). The cache is a fixed size table indexed by
+ * a hash of the received bytes, a lookup never allocates and an entry is simply replaced on collision.
+ * It can be disabled by setting the system property {@value #CACHE_PROPERTY} to {@code false}.
+ * </p>
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+public final class Utf8Codec {
+    /** System property to disable the string cache. */
+    public static final String        CACHE_PROPERTY   = "dbus.java.stringcache";
+
+    private static final boolean      CACHE_ENABLED    = Boolean.parseBoolean(System.getProperty(CACHE_PROPERTY, "true"));
+    /** Number of cache entries, must be a power of two. */
+    private static final int          CACHE_SIZE       = 512;
+    /** Longer strings are not cached. */
+    private static final int          CACHE_MAX_LENGTH = 64;
+
+    /**
+     * Cached strings. Data races are harmless here: entries are immutable and safely published,
+     * the worst case is a cache miss.
+     */
+    private static final CacheEntry[] CACHE            = new CacheEntry[CACHE_SIZE];
+
+    private Utf8Codec() {
+    }
+
+    /**
+     * Returns the number of bytes required to encode the given string in UTF-8.
+     *
+     * @param _str string
+     * @return length in bytes
+     */
+    public static int encodedLength(String _str) {
+        int len = _str.length();
+        for (int i = 0; i < len; i++) {
+            if (_str.charAt(i) >= 0x80) {
+                return _str.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        return len;
+    }
+
+    /**
+     * Encodes the given string in UTF-8.
+     * ASCII strings are copied directly into the target array, other strings are encoded by the JDK.
+     *
+     * @param _str string to encode
+     * @param _dest target array, must have room for at least {@link #encodedLength(String)} bytes
+     * @param _ofs position to start writing
+     * @return position after the last written byte
+     */
+    public static int encode(String _str, byte[] _dest, int _ofs) {
+        int len = _str.length();
+        for (int i = 0; i < len; i++) {
+            char c = _str.charAt(i);
+            if (c >= 0x80) {
+                byte[] bytes = _str.getBytes(StandardCharsets.UTF_8);
+                System.arraycopy(bytes, 0, _dest, _ofs, bytes.length);
+                return _ofs + bytes.length;
+            }
+            _dest[_ofs + i] = (byte) c;
+        }
+        return _ofs + len;
+    }
+
+    /**
+     * Decodes UTF-8 data.
+     *
+     * @param _data source array
+     * @param _ofs offset of the first byte
+     * @param _len number of bytes
+     * @return String
+     */
+    public static String decode(byte[] _data, int _ofs, int _len) {
+        // the JDK decoder already has a fast path for ASCII input
+        return new String(_data, _ofs, _len, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes UTF-8 data using the string cache.
+     * Should be used for short values which are likely to be received repeatedly.
+     *
+     * @param _data source array
+     * @param _ofs offset of the first byte
+     * @param _len number of bytes
+     * @return String, may be the same instance as returned by a previous call
+     */
+    public static String decodeCached(byte[] _data, int _ofs, int _len) {
+        if (!CACHE_ENABLED || _len > CACHE_MAX_LENGTH || 0 == _len) {
+            return decode(_data, _ofs, _len);
+        }
+        // names usually share a prefix, so the hash is built from the length and the last bytes
+        int last = _ofs + _len - 1;
+        int hash = _len;
+        hash = 31 * hash + _data[last];
+        hash = 31 * hash + _data[_ofs + (_len >> 1)];
+        if (_len > 2) {
+            hash = 31 * hash + _data[last - 1];
+            hash = 31 * hash + _data[last - 2];
+        }
+        int idx = (hash ^ (hash >>> 7)) & (CACHE_SIZE - 1);
+
+        CacheEntry entry = CACHE[idx];
+        if (null != entry && entry.matches(_data, _ofs, _len)) {
+            return entry.value;
+        }
+        String s = decode(_data, _ofs, _len);
+        CACHE[idx] = new CacheEntry(Arrays.copyOfRange(_data, _ofs, _ofs + _len), s);
+        return s;
+    }
+
+    /** Cached string and its UTF-8 encoding. */
+    private static final class CacheEntry {
+        private final byte[] bytes;
+        private final String value;
+
+        CacheEntry(byte[] _bytes, String _value) {
+            bytes = _bytes;
+            value = _value;
+        }
+
+        boolean matches(byte[] _data, int _ofs, int _len) {
+            if (bytes.length != _len) {
+                return false;
+            }
+            int diff = 0;
+            for (int i = 0; i < _len; i++) {
+                diff |= bytes[i] ^ _data[_ofs + i];
+            }
+            return 0 == diff;
+        }
+    }
+}
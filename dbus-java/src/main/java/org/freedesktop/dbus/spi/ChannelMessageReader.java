@@ -0,0 +1,236 @@
+package org.freedesktop.dbus.spi;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.exceptions.MessageProtocolVersionException;
+import org.freedesktop.dbus.messages.Message;
+import org.freedesktop.dbus.messages.MessageFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Message reader using a {@link ReadableByteChannel}.
+ * <p>
+ * All data is read into one receive buffer. After each read, every complete message in the buffer
+ * is framed and copied out once, so a single read usually yields several messages when many small
+ * messages (e.g. signals) are received.
+ * Bodies of messages which do not fit into the receive buffer are read directly into the body array.
+ * </p>
+ * This reader does not support file descriptor passing.
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+public class ChannelMessageReader implements IMessageReader {
+    public static final int     DEFAULT_BUFFER_SIZE = 64 * 1024;
+    /** Maximum message size allowed by the specification. */
+    private static final long   MAX_MESSAGE_LENGTH  = 134217728;
+    /** Fixed header plus the length of the header field array. */
+    private static final int    FIXED_HEADER_LENGTH = 16;
+
+    private final Logger        logger              = LoggerFactory.getLogger(getClass());
+
+    private ReadableByteChannel channel;
+
+    private byte[]              data;
+    private ByteBuffer          readBuffer;
+    private int                 start;
+    private int                 end;
+
+    private final Deque<Message> framed             = new ArrayDeque<>();
+    private LargeMessage        large;
+
+    public ChannelMessageReader(ReadableByteChannel _channel) {
+        this(_channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    public ChannelMessageReader(ReadableByteChannel _channel, int _bufferSize) {
+        channel = _channel;
+        data = new byte[Math.max(_bufferSize, 1024)];
+        readBuffer = ByteBuffer.wrap(data);
+    }
+
+    /**
+     * Returns the next message. Blocks if the channel is in blocking mode and no message has been received yet.
+     *
+     * @return message or null if the channel is non-blocking and no complete message is available
+     */
+    @Override
+    public Message readMessage() throws IOException, DBusException {
+        while (true) {
+            Message m = framed.poll();
+            if (null != m) {
+                return m;
+            }
+
+            if (null != large) {
+                if (!readLargeBody()) {
+                    return null;
+                }
+                m = large.toMessage();
+                large = null;
+                logger.debug("=> {}", m);
+                return m;
+            }
+
+            // messages left in the buffer, e.g. when framing stopped at a message which could not be parsed
+            frameMessages();
+            if (!framed.isEmpty() || null != large) {
+                continue;
+            }
+
+            if (0 == fill()) {
+                return null;
+            }
+            frameMessages();
+        }
+    }
+
+    /**
+     * Reads from the channel into the free space of the receive buffer.
+     *
+     * @return number of bytes read
+     * @throws IOException if the channel is closed or returned EOF
+     */
+    private int fill() throws IOException {
+        if (null == channel) {
+            throw new IOException("Reader already closed");
+        }
+        if (start == end) {
+            start = 0;
+            end = 0;
+        } else if (start > 0) {
+            System.arraycopy(data, start, data, 0, end - start);
+            end -= start;
+            start = 0;
+        }
+        readBuffer.limit(data.length).position(end);
+        int read = channel.read(readBuffer);
+        if (-1 == read) {
+            throw new EOFException("Underlying transport returned EOF");
+        }
+        end += read;
+        return read;
+    }
+
+    /**
+     * Frames all complete messages which are available in the receive buffer.
+     */
+    private void frameMessages() throws IOException, DBusException {
+        while (end - start >= FIXED_HEADER_LENGTH) {
+            byte endian = data[start];
+            byte type = data[start + 1];
+            byte protover = data[start + 3];
+            if (protover > Message.PROTOCOL) {
+                throw new MessageProtocolVersionException(String.format("Protocol version %s is unsupported", protover));
+            }
+
+            long bodylen = Message.demarshallint(data, start + 4, endian, 4);
+            long fieldlen = Message.demarshallint(data, start + 12, endian, 4);
+            long total = FIXED_HEADER_LENGTH + ((fieldlen + 7) & ~7L) + bodylen;
+            if (total > MAX_MESSAGE_LENGTH) {
+                throw new IOException("Message length " + total + " exceeds the maximum message length");
+            }
+            int headerlen = (int) ((fieldlen + 7) & ~7L);
+
+            int available = end - start;
+            if (available >= total) {
+                int msgStart = start;
+                start += (int) total; // skip the message even if it cannot be parsed
+                framed.add(createMessage(msgStart, type, headerlen, (int) bodylen));
+            } else if (total > data.length) {
+                if (FIXED_HEADER_LENGTH + headerlen > data.length) {
+                    grow(FIXED_HEADER_LENGTH + headerlen);
+                } else if (available >= FIXED_HEADER_LENGTH + headerlen) {
+                    // body will not fit into the receive buffer, read it directly into its own array
+                    large = new LargeMessage(type, headerlen, (int) bodylen);
+                    large.filled = available - FIXED_HEADER_LENGTH - headerlen;
+                    System.arraycopy(data, start + FIXED_HEADER_LENGTH + headerlen, large.body, 0, large.filled);
+                    start = end;
+                }
+                return;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private Message createMessage(int _start, byte _type, int _headerlen, int _bodylen) throws IOException, DBusException {
+        byte[] buf = Arrays.copyOfRange(data, _start, _start + 12);
+        byte[] header = new byte[_headerlen + 8];
+        System.arraycopy(data, _start + 12, header, 0, 4);
+        System.arraycopy(data, _start + FIXED_HEADER_LENGTH, header, 8, _headerlen);
+        int bodyStart = _start + FIXED_HEADER_LENGTH + _headerlen;
+        byte[] body = Arrays.copyOfRange(data, bodyStart, bodyStart + _bodylen);
+
+        Message m = MessageFactory.createMessage(_type, buf, header, body, null);
+        logger.debug("=> {}", m);
+        return m;
+    }
+
+    private boolean readLargeBody() throws IOException {
+        while (large.filled < large.body.length) {
+            int read = channel.read(ByteBuffer.wrap(large.body, large.filled, large.body.length - large.filled));
+            if (-1 == read) {
+                throw new EOFException("Underlying transport returned EOF");
+            } else if (0 == read) {
+                return false;
+            }
+            large.filled += read;
+        }
+        return true;
+    }
+
+    private void grow(int _minSize) {
+        int size = data.length;
+        while (size < _minSize) {
+            size <<= 1;
+        }
+        data = Arrays.copyOf(data, size);
+        readBuffer = ByteBuffer.wrap(data);
+    }
+
+    @Override
+    public void close() throws IOException {
+        logger.trace("Closing Message Reader");
+        if (channel != null) {
+            channel.close();
+        }
+        channel = null;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return channel == null;
+    }
+
+    /**
+     * Message whose body is read directly from the channel.
+     */
+    private final class LargeMessage {
+        private final byte   type;
+        private final byte[] buf;
+        private final byte[] header;
+        private final byte[] body;
+        private int          filled;
+
+        LargeMessage(byte _type, int _headerlen, int _bodylen) {
+            type = _type;
+            buf = Arrays.copyOfRange(data, start, start + 12);
+            header = new byte[_headerlen + 8];
+            System.arraycopy(data, start + 12, header, 0, 4);
+            System.arraycopy(data, start + FIXED_HEADER_LENGTH, header, 8, _headerlen);
+            body = new byte[_bodylen];
+        }
+
+        Message toMessage() throws IOException, DBusException {
+            return MessageFactory.createMessage(type, buf, header, body, null);
+        }
+    }
+}
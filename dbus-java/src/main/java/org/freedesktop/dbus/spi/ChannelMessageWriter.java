@@ -0,0 +1,121 @@
+package org.freedesktop.dbus.spi;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+import org.freedesktop.Hexdump;
+import org.freedesktop.dbus.messages.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Message writer using a {@link GatheringByteChannel}.
+ * <p>
+ * The wire buffers of all messages are written with gathering writes.
+ * If the channel is non-blocking, data which could not be written is kept
+ * until {@link #flush()} is called again, so writing never blocks the calling thread.
+ * </p>
+ * This writer does not support file descriptor passing.
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+public class ChannelMessageWriter implements IMessageWriter {
+    /** Maximum number of buffers passed to one gathering write. */
+    private static final int         MAX_GATHER = 64;
+
+    private final Logger             logger     = LoggerFactory.getLogger(getClass());
+
+    private GatheringByteChannel     channel;
+    private final Deque<ByteBuffer>  pending    = new ArrayDeque<>();
+    private final ByteBuffer[]       gather     = new ByteBuffer[MAX_GATHER];
+
+    public ChannelMessageWriter(GatheringByteChannel _channel) {
+        channel = _channel;
+    }
+
+    @Override
+    public void writeMessage(Message _message) throws IOException {
+        writeMessages(Collections.singletonList(_message));
+    }
+
+    @Override
+    public void writeMessages(List<? extends Message> _messages) throws IOException {
+        if (null == channel) {
+            throw new IOException("Writer already closed");
+        }
+        for (Message m : _messages) {
+            logger.debug("<= {}", m);
+            ByteBuffer wire = null == m ? null : m.getWireBuffer();
+            if (null == wire) {
+                continue;
+            }
+            if (logger.isTraceEnabled()) {
+                logger.trace("{}", Hexdump.toHex(wire.array(), wire.arrayOffset() + wire.position(), wire.remaining()));
+            }
+            // the wire buffer is cached by the message, never modify its position
+            pending.add(wire.duplicate());
+        }
+        flush();
+    }
+
+    /**
+     * Writes as much pending data as the channel accepts.
+     *
+     * @return true if all data has been written
+     * @throws IOException if writing failed
+     */
+    public boolean flush() throws IOException {
+        while (!pending.isEmpty()) {
+            int count = 0;
+            for (ByteBuffer buf : pending) {
+                gather[count++] = buf;
+                if (count == MAX_GATHER) {
+                    break;
+                }
+            }
+            long written = channel.write(gather, 0, count);
+            for (int i = 0; i < count; i++) {
+                gather[i] = null;
+            }
+            while (!pending.isEmpty() && !pending.peek().hasRemaining()) {
+                pending.poll();
+            }
+            if (0 == written && !pending.isEmpty()) {
+                return false; // socket buffer is full
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if data is waiting to be written.
+     *
+     * @return boolean
+     */
+    public boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    @Override
+    public void close() throws IOException {
+        logger.debug("Closing Message Writer");
+        if (!pending.isEmpty()) {
+            logger.debug("Discarding {} unwritten buffers", pending.size());
+            pending.clear();
+        }
+        if (channel != null) {
+            channel.close();
+        }
+        channel = null;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return channel == null;
+    }
+}
@@ -0,0 +1,40 @@
+package org.freedesktop.dbus.spi;
+
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * {@link ISocketProvider} reading messages with a {@link ChannelMessageReader}.
+ * <p>
+ * Only sockets which are backed by a channel (e.g. unix sockets) are supported,
+ * for other sockets no reader is created and the next provider is used.
+ * File descriptor passing is not supported.
+ * </p>
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+public class ChannelSocketProvider implements ISocketProvider {
+
+    @Override
+    public IMessageReader createReader(Socket _socket) throws IOException {
+        if (null == _socket.getChannel()) {
+            return null;
+        }
+        return new ChannelMessageReader(_socket.getChannel());
+    }
+
+    @Override
+    public IMessageWriter createWriter(Socket _socket) throws IOException {
+        return new OutputStreamMessageWriter(_socket.getOutputStream());
+    }
+
+    @Override
+    public void setFileDescriptorSupport(boolean _support) {
+        // not supported
+    }
+
+    @Override
+    public boolean isFileDescriptorPassingSupported() {
+        return false;
+    }
+}
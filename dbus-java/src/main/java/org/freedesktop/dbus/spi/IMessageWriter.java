@@ -2,6 +2,8 @@ package org.freedesktop.dbus.spi;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.List;
+
 import org.freedesktop.dbus.messages.Message;
 
 /**
@@ -16,6 +18,19 @@ public interface IMessageWriter extends Closeable {
      * @throws IOException If an IO error occurs.
      */
     public void writeMessage(Message m) throws IOException;
+
+    /**
+     * Write several messages out to the bus.
+     * Implementations should write the messages back-to-back and flush only once.
+     *
+     * @param _messages messages to write
+     * @throws IOException If an IO error occurs.
+     */
+    default void writeMessages(List<? extends Message> _messages) throws IOException {
+        for (Message m : _messages) {
+            writeMessage(m);
+        }
+    }
     
     public boolean isClosed();
 }
@@ -14,6 +14,8 @@ package org.freedesktop.dbus.spi;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
 
 import org.freedesktop.Hexdump;
 import org.freedesktop.dbus.messages.Message;
@@ -24,7 +26,11 @@ public class OutputStreamMessageWriter implements IMessageWriter {
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
+    /** Messages of a batch are collected up to this size before they are written. */
+    private static final int BATCH_BUFFER_SIZE = 64 * 1024;
+
     private OutputStream outputStream;
+    private byte[]       batchBuffer;
 
     public OutputStreamMessageWriter(OutputStream _out) {
         this.outputStream = _out;
@@ -35,19 +41,48 @@ public class OutputStreamMessageWriter implements IMessageWriter {
         if (null == m) {
             return;
         }
-        if (null == m.getWireData()) {
+        ByteBuffer wire = m.getWireBuffer();
+        if (null == wire) {
             logger.warn("Message {} wire-data was null!", m);
             return;
         }
 
-        for (byte[] buf : m.getWireData()) {
-            if(logger.isTraceEnabled()) {
-                logger.trace("{}", null == buf ? "" : Hexdump.format(buf));
+        if (logger.isTraceEnabled()) {
+            logger.trace("{}", Hexdump.toHex(wire.array(), wire.arrayOffset() + wire.position(), wire.remaining()));
+        }
+        // the complete message is stored in one contiguous buffer, so only one write is needed
+        outputStream.write(wire.array(), wire.arrayOffset() + wire.position(), wire.remaining());
+        outputStream.flush();
+    }
+
+    @Override
+    public void writeMessages(List<? extends Message> _messages) throws IOException {
+        if (null == batchBuffer) {
+            batchBuffer = new byte[BATCH_BUFFER_SIZE];
+        }
+        int len = 0;
+        for (Message m : _messages) {
+            logger.debug("<= {}", m);
+            ByteBuffer wire = null == m ? null : m.getWireBuffer();
+            if (null == wire) {
+                continue;
+            }
+            if (logger.isTraceEnabled()) {
+                logger.trace("{}", Hexdump.toHex(wire.array(), wire.arrayOffset() + wire.position(), wire.remaining()));
             }
-            if (null == buf) {
-                break;
+            if (len + wire.remaining() > batchBuffer.length) {
+                outputStream.write(batchBuffer, 0, len);
+                len = 0;
             }
-            outputStream.write(buf);
+            if (wire.remaining() > batchBuffer.length) {
+                outputStream.write(wire.array(), wire.arrayOffset() + wire.position(), wire.remaining());
+            } else {
+                System.arraycopy(wire.array(), wire.arrayOffset() + wire.position(), batchBuffer, len, wire.remaining());
+                len += wire.remaining();
+            }
+        }
+        if (len > 0) {
+            outputStream.write(batchBuffer, 0, len);
         }
         outputStream.flush();
     }
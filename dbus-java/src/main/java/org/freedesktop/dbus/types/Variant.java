@@ -28,7 +28,7 @@ import org.slf4j.LoggerFactory;
  * The Variant may be parameterized to restrict the types it may accept.
  */
 public class Variant<T> {
-    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private static final Logger LOGGER = LoggerFactory.getLogger(Variant.class);
     private final T      value;
     private final Type   type;
     private final String sig;
@@ -50,7 +50,7 @@ public class Variant<T> {
             }
             this.sig = ss[0];
         } catch (DBusException dbe) {
-            logger.debug("", dbe);
+            LOGGER.debug("", dbe);
             throw new IllegalArgumentException(String.format("Can't wrap %s in an unqualified Variant (%s).", _value.getClass(), dbe.getMessage()));
         }
         this.value = _value;
@@ -74,7 +74,7 @@ public class Variant<T> {
             }
             this.sig = ss[0];
         } catch (DBusException dbe) {
-            logger.debug("", dbe);
+            LOGGER.debug("", dbe);
             throw new IllegalArgumentException(String.format("Can't wrap %s in an unqualified Variant (%s).", _type, dbe.getMessage()));
         }
         this.value = _value;
@@ -99,12 +99,29 @@ public class Variant<T> {
             }
             this.type = ts.get(0);
         } catch (DBusException dbe) {
-            logger.debug("", dbe);
+            LOGGER.debug("", dbe);
             throw new IllegalArgumentException(String.format("Can''t wrap %s in an unqualified Variant (%s).", _sig, dbe.getMessage()));
         }
         this.value = _value;
     }
 
+    /**
+    * Create a Variant with known type and signature.
+    * Used when demarshalling, type and signature are not validated.
+    * @param _value The wrapped value.
+    * @param _type The java type of the value.
+    * @param _sig The dbus type string of the value.
+    * @throws IllegalArgumentException If you try and wrap Null
+    */
+    public Variant(T _value, Type _type, String _sig) throws IllegalArgumentException {
+        if (null == _value) {
+            throw new IllegalArgumentException("Can't wrap Null in a Variant");
+        }
+        this.value = _value;
+        this.type = _type;
+        this.sig = _sig;
+    }
+
     /** Return the wrapped value.
      * @return value
      */
@@ -0,0 +1,91 @@
+package org.freedesktop.dbus.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.freedesktop.dbus.connections.AdaptiveWorkerPool;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class AdaptiveWorkerPoolTest {
+
+    @Test
+    public void testGrowAndShrink() throws Exception {
+        AdaptiveWorkerPool pool = new AdaptiveWorkerPool("AdaptiveWorkerPoolTest-", 1, 8);
+        try {
+            CountDownLatch done = new CountDownLatch(40);
+            for (int i = 0; i < 40; i++) {
+                pool.execute(() -> {
+                    sleep(50);
+                    done.countDown();
+                });
+            }
+            // a single thread needs 2 seconds
+            Assertions.assertTrue(done.await(1500, TimeUnit.MILLISECONDS), "Pool did not grow");
+            Assertions.assertTrue(pool.getLargestPoolSize() > 1);
+            Assertions.assertTrue(pool.getLargestPoolSize() <= 8);
+            Assertions.assertTrue(pool.getQueueDelay() > 0);
+            Assertions.assertTrue(pool.getUtilisation() > 0);
+
+            long deadline = System.currentTimeMillis() + 10000;
+            while ((pool.getCorePoolSize() > 1 || pool.getPoolSize() > 1) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            Assertions.assertEquals(1, pool.getCorePoolSize(), "Pool did not shrink");
+            Assertions.assertEquals(1, pool.getPoolSize(), "Idle threads not stopped");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testResizeKeepsOrder() throws Exception {
+        AdaptiveWorkerPool pool = new AdaptiveWorkerPool("AdaptiveWorkerPoolTest-", 1, 1);
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            pool.execute(() -> {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException _ex) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch done = new CountDownLatch(100);
+            for (int i = 0; i < 100; i++) {
+                final int value = i;
+                pool.execute(() -> {
+                    executed.add(value);
+                    done.countDown();
+                });
+                if (50 == i) {
+                    pool.setThreadLimits(1, 1);
+                }
+            }
+            release.countDown();
+            Assertions.assertTrue(done.await(10, TimeUnit.SECONDS), "Tasks lost");
+            for (int i = 0; i < 100; i++) {
+                Assertions.assertEquals(i, executed.get(i).intValue());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testInvalidLimits() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new AdaptiveWorkerPool("AdaptiveWorkerPoolTest-", 0, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new AdaptiveWorkerPool("AdaptiveWorkerPoolTest-", 2, 1));
+    }
+
+    private static void sleep(long _millis) {
+        try {
+            Thread.sleep(_millis);
+        } catch (InterruptedException _ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
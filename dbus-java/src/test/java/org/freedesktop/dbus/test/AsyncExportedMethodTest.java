@@ -0,0 +1,147 @@
+package org.freedesktop.dbus.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.freedesktop.dbus.annotations.DBusInterfaceName;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.connections.impl.DBusConnection.DBusBusType;
+import org.freedesktop.dbus.interfaces.DBusInterface;
+import org.freedesktop.dbus.interfaces.Introspectable;
+import org.freedesktop.dbus.test.helper.SampleException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AsyncExportedMethodTest {
+    private static final String BUS_NAME    = "org.freedesktop.dbus.test.AsyncExportedMethodTest";
+    private static final String OBJECT_PATH = "/AsyncExportedMethodTest";
+
+    private DBusConnection      serverconn;
+    private DBusConnection      clientconn;
+    private AsyncServiceObject  exported;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        serverconn = DBusConnection.getConnection(DBusBusType.SESSION, false, DBusConnection.TCP_CONNECT_TIMEOUT);
+        clientconn = DBusConnection.getConnection(DBusBusType.SESSION, false, DBusConnection.TCP_CONNECT_TIMEOUT);
+        serverconn.requestBusName(BUS_NAME);
+        exported = new AsyncServiceObject();
+        serverconn.exportObject(OBJECT_PATH, exported);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        clientconn.disconnect();
+        serverconn.disconnect();
+    }
+
+    @Test
+    public void testReplySentOnCompletion() throws Exception {
+        SyncService remote = clientconn.getRemoteObject(BUS_NAME, OBJECT_PATH, SyncService.class);
+
+        Assertions.assertEquals("hello", remote.echo("hello"));
+        Assertions.assertEquals(clientconn.getUniqueName(), remote.caller());
+        Assertions.assertThrows(SampleException.class, remote::fail);
+
+        Introspectable introspectable = clientconn.getRemoteObject(BUS_NAME, OBJECT_PATH, Introspectable.class);
+        Assertions.assertTrue(introspectable.Introspect().contains("<method name=\"echo\" >\n"
+                + "   <arg type=\"s\" direction=\"in\"/>\n"
+                + "   <arg type=\"s\" direction=\"out\"/>\n"), "Future not introspected as its value");
+    }
+
+    @Test
+    public void testCallsInFlightWithoutWorkers() throws Exception {
+        serverconn.changeThreadCount((byte) 1);
+        AsyncService remote = clientconn.getRemoteObject(BUS_NAME, OBJECT_PATH, AsyncService.class);
+
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            results.add(remote.deferred(i));
+        }
+        // all calls are waiting on the server, none of them occupies the worker thread
+        long deadline = System.currentTimeMillis() + 10000;
+        while (exported.deferred.size() < 50 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(50, exported.deferred.size());
+        Assertions.assertFalse(results.get(0).isDone());
+
+        exported.completeDeferred();
+        for (int i = 0; i < 50; i++) {
+            Assertions.assertEquals(i, results.get(i).get(10, TimeUnit.SECONDS).intValue());
+        }
+    }
+
+    @DBusInterfaceName("org.freedesktop.dbus.test.AsyncExportedMethodTest")
+    public interface AsyncService extends DBusInterface {
+        CompletableFuture<String> echo(String _value);
+
+        CompletableFuture<String> caller();
+
+        CompletableFuture<Void> fail();
+
+        CompletableFuture<Integer> deferred(int _value);
+    }
+
+    @DBusInterfaceName("org.freedesktop.dbus.test.AsyncExportedMethodTest")
+    public interface SyncService extends DBusInterface {
+        String echo(String _value);
+
+        String caller();
+
+        void fail();
+    }
+
+    public static class AsyncServiceObject implements AsyncService {
+        private final Queue<Object[]> deferred = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public CompletableFuture<String> echo(String _value) {
+            return CompletableFuture.supplyAsync(() -> _value);
+        }
+
+        @Override
+        public CompletableFuture<String> caller() {
+            String source = DBusConnection.getCallInfo().getSource();
+            return CompletableFuture.supplyAsync(() -> source);
+        }
+
+        @Override
+        public CompletableFuture<Void> fail() {
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            CompletableFuture.runAsync(() -> result.completeExceptionally(new SampleException("test")));
+            return result;
+        }
+
+        @Override
+        public CompletableFuture<Integer> deferred(int _value) {
+            CompletableFuture<Integer> result = new CompletableFuture<>();
+            deferred.add(new Object[] {result, _value});
+            return result;
+        }
+
+        @SuppressWarnings("unchecked")
+        void completeDeferred() {
+            Object[] call;
+            while (null != (call = deferred.poll())) {
+                ((CompletableFuture<Integer>) call[0]).complete((Integer) call[1]);
+            }
+        }
+
+        @Override
+        public boolean isRemote() {
+            return false;
+        }
+
+        @Override
+        public String getObjectPath() {
+            return OBJECT_PATH;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.freedesktop.dbus.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.freedesktop.dbus.exceptions.MessageTypeException;
+import org.freedesktop.dbus.messages.Message;
+import org.freedesktop.dbus.messages.MethodCall;
+import org.freedesktop.dbus.messages.MethodReturn;
+import org.freedesktop.dbus.spi.ChannelMessageReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ChannelMessageReaderTest {
+
+    @Test
+    public void testFramesMultipleMessagesPerRead() throws Exception {
+        List<Message> sent = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            sent.add(new MethodCall("org.foo", "/org/foo/" + i, "org.foo.Iface", "Bar", (byte) 0, "si", "value" + i, i));
+        }
+        ChunkedChannel channel = new ChunkedChannel(toWire(sent), Integer.MAX_VALUE);
+        ChannelMessageReader reader = new ChannelMessageReader(channel);
+
+        for (int i = 0; i < sent.size(); i++) {
+            Message received = reader.readMessage();
+            Assertions.assertEquals("/org/foo/" + i, received.getPath());
+            Assertions.assertArrayEquals(new Object[] {"value" + i, i}, received.getParameters());
+        }
+        Assertions.assertEquals(1, channel.reads, "All messages should have been framed from one read");
+        Assertions.assertThrows(EOFException.class, reader::readMessage);
+    }
+
+    @Test
+    public void testPartialReadsAndLargeBody() throws Exception {
+        byte[] large = new byte[5000];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) i;
+        }
+        List<Message> sent = new ArrayList<>();
+        sent.add(new MethodCall("org.foo", "/org/foo", "org.foo.Iface", "Small", (byte) 0, "s", "first"));
+        sent.add(new MethodReturn("org.foo", 42, "ay", (Object) large));
+        sent.add(new MethodCall("org.foo", "/org/foo", "org.foo.Iface", "Small", (byte) 0, "s", "last"));
+
+        // buffer smaller than the large message and reads returning a few bytes only
+        ChannelMessageReader reader = new ChannelMessageReader(new ChunkedChannel(toWire(sent), 7), 1024);
+
+        Assertions.assertArrayEquals(new Object[] {"first"}, reader.readMessage().getParameters());
+        Message reply = reader.readMessage();
+        Assertions.assertEquals(42, reply.getReplySerial());
+        Assertions.assertArrayEquals(large, (byte[]) reply.getParameters()[0]);
+        Assertions.assertArrayEquals(new Object[] {"last"}, reader.readMessage().getParameters());
+    }
+
+    @Test
+    public void testBadMessageDoesNotHoldBackFollowingMessages() throws Exception {
+        List<Message> sent = new ArrayList<>();
+        sent.add(new MethodCall("org.foo", "/org/foo/bad", "org.foo.Iface", "Bar", (byte) 0, "s", "bad"));
+        sent.add(new MethodCall("org.foo", "/org/foo/good", "org.foo.Iface", "Bar", (byte) 0, "s", "good"));
+        byte[] wire = toWire(sent);
+        wire[1] = 42; // unknown message type
+        ChunkedChannel channel = new ChunkedChannel(wire, Integer.MAX_VALUE);
+        ChannelMessageReader reader = new ChannelMessageReader(channel);
+
+        Assertions.assertThrows(MessageTypeException.class, reader::readMessage);
+        Message received = reader.readMessage();
+        Assertions.assertEquals("/org/foo/good", received.getPath());
+        Assertions.assertEquals(1, channel.reads, "Buffered message should be framed without reading again");
+    }
+
+    @Test
+    public void testHeaderLengthOverflow() throws Exception {
+        byte[] wire = toWire(Arrays.asList(new MethodCall("org.foo", "/org/foo", "org.foo.Iface", "Bar", (byte) 0, "s", "x")));
+        // header field array length of 2^32 - 1
+        Arrays.fill(wire, 12, 16, (byte) 0xFF);
+        ChannelMessageReader reader = new ChannelMessageReader(new ChunkedChannel(wire, Integer.MAX_VALUE));
+
+        IOException ex = Assertions.assertThrows(IOException.class, reader::readMessage);
+        Assertions.assertTrue(ex.getMessage().contains("exceeds the maximum message length"), ex.getMessage());
+    }
+
+    private static byte[] toWire(List<Message> _messages) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (Message m : _messages) {
+            ByteBuffer wire = m.getWireBuffer();
+            out.write(wire.array(), wire.arrayOffset() + wire.position(), wire.remaining());
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Channel returning at most the given number of bytes per read.
+     */
+    private static class ChunkedChannel implements ReadableByteChannel {
+        private final ByteBuffer data;
+        private final int        chunk;
+        private int              reads;
+
+        ChunkedChannel(byte[] _data, int _chunk) {
+            data = ByteBuffer.wrap(_data);
+            chunk = _chunk;
+        }
+
+        @Override
+        public int read(ByteBuffer _dst) {
+            if (!data.hasRemaining()) {
+                return -1;
+            }
+            reads++;
+            int len = Math.min(Math.min(chunk, _dst.remaining()), data.remaining());
+            ByteBuffer slice = data.slice();
+            slice.limit(len);
+            _dst.put(slice);
+            data.position(data.position() + len);
+            return len;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package org.freedesktop.dbus.test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.freedesktop.dbus.annotations.DBusInterfaceName;
+import org.freedesktop.dbus.annotations.DBusMemberName;
+import org.freedesktop.dbus.annotations.MethodTimeout;
+import org.freedesktop.dbus.connections.CallBatch;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.connections.impl.DBusConnection.DBusBusType;
+import org.freedesktop.dbus.errors.NoReply;
+import org.freedesktop.dbus.interfaces.DBusInterface;
+import org.freedesktop.dbus.test.helper.SampleException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CompletableFutureCallTest {
+    private static final String BUS_NAME    = "org.freedesktop.dbus.test.FutureTest";
+    private static final String OBJECT_PATH = "/FutureTest";
+
+    private DBusConnection      serverconn;
+    private DBusConnection      clientconn;
+    private FutureTestObject    exported;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        serverconn = DBusConnection.getConnection(DBusBusType.SESSION, false, DBusConnection.TCP_CONNECT_TIMEOUT);
+        clientconn = DBusConnection.getConnection(DBusBusType.SESSION, false, DBusConnection.TCP_CONNECT_TIMEOUT);
+        serverconn.requestBusName(BUS_NAME);
+        exported = new FutureTestObject();
+        serverconn.exportObject(OBJECT_PATH, exported);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        exported.release.countDown();
+        clientconn.disconnect();
+        serverconn.disconnect();
+    }
+
+    @Test
+    public void testProxyReturningFuture() throws Exception {
+        FutureTestAsync remote = clientconn.getRemoteObject(BUS_NAME, OBJECT_PATH, FutureTestAsync.class);
+
+        CompletableFuture<String> echo = remote.echo("hello");
+        Assertions.assertEquals("hello", echo.get(10, TimeUnit.SECONDS));
+
+        ExecutionException ex = Assertions.assertThrows(ExecutionException.class, () -> remote.throwme().get(10, TimeUnit.SECONDS));
+        Assertions.assertTrue(ex.getCause() instanceof SampleException, "Unexpected cause " + ex.getCause());
+    }
+
+    @Test
+    public void testCallMethodFuture() throws Exception {
+        FutureTest remote = clientconn.getRemoteObject(BUS_NAME, OBJECT_PATH, FutureTest.class);
+
+        CompletableFuture<String> echo = clientconn.callMethodFuture(remote, "echo", "world");
+        Assertions.assertEquals("WORLD", echo.thenApply(String::toUpperCase).get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        FutureTestAsync remote = clientconn.getRemoteObject(BUS_NAME, OBJECT_PATH, FutureTestAsync.class);
+
+        CompletableFuture<Integer> blocked = remote.waitForRelease(42);
+        Assertions.assertTrue(blocked.cancel(false));
+        exported.release.countDown();
+
+        Assertions.assertTrue(blocked.isCancelled());
+        // the connection still correlates further replies after the cancelled one has been discarded
+        Assertions.assertEquals("again", remote.echo("again").get(10, TimeUnit.SECONDS));
+        Assertions.assertTrue(blocked.isCancelled());
+    }
+
+    @Test
+    public void testReplyTimeout() throws Exception {
+        FutureTestAsync remote = clientconn.getRemoteObject(BUS_NAME, OBJECT_PATH, FutureTestAsync.class);
+
+        long start = System.currentTimeMillis();
+        ExecutionException ex = Assertions.assertThrows(ExecutionException.class,
+                () -> remote.waitWithTimeout(1).get(10, TimeUnit.SECONDS));
+        Assertions.assertTrue(ex.getCause() instanceof NoReply, "Unexpected cause " + ex.getCause());
+        Assertions.assertTrue(System.currentTimeMillis() - start < 5000, "Timeout not applied");
+
+        clientconn.setReplyTimeout(300);
+        FutureTest syncRemote = clientconn.getRemoteObject(BUS_NAME, OBJECT_PATH, FutureTest.class);
+        Assertions.assertThrows(NoReply.class, () -> syncRemote.waitForRelease(2));
+    }
+
+    @Test
+    public void testCallBatch() throws Exception {
+        FutureTest remote = clientconn.getRemoteObject(BUS_NAME, OBJECT_PATH, FutureTest.class);
+
+        CallBatch batch = clientconn.createCallBatch();
+        CompletableFuture<String> first = batch.call(remote, "echo", "a");
+        for (int i = 0; i < 100; i++) {
+            batch.call(remote, "echo", "b" + i);
+        }
+        Assertions.assertEquals(101, batch.size());
+        Assertions.assertFalse(first.isDone());
+
+        List<Object> results = batch.execute();
+        Assertions.assertEquals(101, results.size());
+        Assertions.assertEquals(Arrays.asList("a", "b0", "b1"), results.subList(0, 3));
+        Assertions.assertEquals("b99", results.get(100));
+        Assertions.assertEquals("a", first.get());
+
+        CallBatch failing = clientconn.createCallBatch();
+        failing.call(remote, "echo", "a");
+        failing.call(remote, "throwme");
+        Assertions.assertThrows(SampleException.class, failing::execute);
+        Assertions.assertThrows(IllegalStateException.class, failing::send);
+    }
+
+    @DBusInterfaceName("org.freedesktop.dbus.test.FutureTest")
+    public interface FutureTest extends DBusInterface {
+        String echo(String _value);
+
+        int waitForRelease(int _value);
+
+        void throwme();
+    }
+
+    @DBusInterfaceName("org.freedesktop.dbus.test.FutureTest")
+    public interface FutureTestAsync extends DBusInterface {
+        CompletableFuture<String> echo(String _value);
+
+        CompletableFuture<Integer> waitForRelease(int _value);
+
+        @MethodTimeout(300)
+        @DBusMemberName("waitForRelease")
+        CompletableFuture<Integer> waitWithTimeout(int _value);
+
+        CompletableFuture<Void> throwme();
+    }
+
+    public static class FutureTestObject implements FutureTest {
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public String echo(String _value) {
+            return _value;
+        }
+
+        @Override
+        public int waitForRelease(int _value) {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException _ex) {
+                Thread.currentThread().interrupt();
+            }
+            return _value;
+        }
+
+        @Override
+        public void throwme() {
+            throw new SampleException("test");
+        }
+
+        @Override
+        public boolean isRemote() {
+            return false;
+        }
+
+        @Override
+        public String getObjectPath() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.freedesktop.dbus.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.freedesktop.dbus.handlers.ConflatingPropertiesChangedHandler;
+import org.freedesktop.dbus.interfaces.Properties.PropertiesChanged;
+import org.freedesktop.dbus.types.Variant;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ConflatingPropertiesChangedHandlerTest {
+    private static final String IFACE  = "org.example.Device";
+    private static final String SENDER = ":1.42";
+
+    @Test
+    public void testLatestValueWhileBusy() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<PropertiesChanged> received = Collections.synchronizedList(new ArrayList<>());
+        try (ConflatingPropertiesChangedHandler handler = new ConflatingPropertiesChangedHandler(s -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException _ex) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(s);
+        }, 0)) {
+            handler.handle(changed("/dev/a", "Level", 0));
+            Assertions.assertTrue(started.await(10, TimeUnit.SECONDS), "First change not delivered");
+
+            for (int i = 1; i <= 1000; i++) {
+                handler.handle(changed("/dev/a", "Level", i));
+                handler.handle(changed("/dev/a", "Temperature", -i));
+                handler.handle(changed("/dev/b", "Level", i * 2));
+            }
+            PropertiesChanged removed = new PropertiesChanged("/dev/b", IFACE, new HashMap<>(), Arrays.asList("Level"));
+            removed.setSource(SENDER);
+            handler.handle(removed);
+            release.countDown();
+
+            Assertions.assertTrue(waitFor(() -> received.size() >= 3, 10000), "Changes not delivered");
+            Thread.sleep(100);
+            Assertions.assertEquals(3, received.size());
+            Assertions.assertEquals(3002, handler.getReceivedCount());
+
+            PropertiesChanged a = received.get(1);
+            Assertions.assertEquals("/dev/a", a.getPath());
+            Assertions.assertEquals(IFACE, a.getInterfaceName());
+            Assertions.assertEquals(SENDER, a.getSource());
+            Assertions.assertEquals(1000, a.getPropertiesChanged().get("Level").getValue());
+            Assertions.assertEquals(-1000, a.getPropertiesChanged().get("Temperature").getValue());
+
+            PropertiesChanged b = received.get(2);
+            Assertions.assertEquals("/dev/b", b.getPath());
+            Assertions.assertTrue(b.getPropertiesChanged().isEmpty());
+            Assertions.assertEquals(Arrays.asList("Level"), b.getPropertiesRemoved());
+            Assertions.assertEquals(SENDER, b.getSource());
+        }
+    }
+
+    @Test
+    public void testMaximumRate() throws Exception {
+        List<Long> deliveries = Collections.synchronizedList(new ArrayList<>());
+        try (ConflatingPropertiesChangedHandler handler = new ConflatingPropertiesChangedHandler(
+                s -> deliveries.add(System.nanoTime()), 100)) {
+            long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+            int i = 0;
+            while (System.nanoTime() < end) {
+                handler.handle(changed("/dev/a", "Level", i++));
+            }
+            Thread.sleep(250);
+
+            Assertions.assertTrue(deliveries.size() <= 8, "Too many deliveries: " + deliveries.size());
+            for (int d = 1; d < deliveries.size(); d++) {
+                long gap = deliveries.get(d) - deliveries.get(d - 1);
+                Assertions.assertTrue(gap >= TimeUnit.MILLISECONDS.toNanos(90), "Deliveries too close: " + gap);
+            }
+        }
+    }
+
+    private static PropertiesChanged changed(String _path, String _property, int _value) throws Exception {
+        Map<String, Variant<?>> changed = new HashMap<>();
+        changed.put(_property, new Variant<>(_value));
+        PropertiesChanged signal = new PropertiesChanged(_path, IFACE, changed, new ArrayList<>());
+        signal.setSource(SENDER);
+        return signal;
+    }
+
+    private static boolean waitFor(BooleanSupplier _condition, long _millis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + _millis;
+        while (!_condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        return _condition.getAsBoolean();
+    }
+}
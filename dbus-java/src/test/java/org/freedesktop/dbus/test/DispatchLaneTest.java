@@ -0,0 +1,108 @@
+package org.freedesktop.dbus.test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.freedesktop.DBus;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.connections.impl.DBusConnection.DBusBusType;
+import org.freedesktop.dbus.exceptions.DBusExecutionException;
+import org.freedesktop.dbus.interfaces.CallbackHandler;
+import org.freedesktop.dbus.interfaces.DBusSigHandler;
+import org.freedesktop.dbus.test.CompletableFutureCallTest.FutureTest;
+import org.freedesktop.dbus.test.CompletableFutureCallTest.FutureTestObject;
+import org.freedesktop.dbus.test.helper.signals.SampleSignals;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class DispatchLaneTest {
+    private static final String BUS_NAME    = "org.freedesktop.dbus.test.DispatchLaneTest";
+    private static final String OBJECT_PATH = "/DispatchLaneTest";
+
+    @Test
+    public void testRepliesNotDelayedBySignals() throws Exception {
+        try (DBusConnection serverconn = DBusConnection.getConnection(DBusBusType.SESSION, false, DBusConnection.TCP_CONNECT_TIMEOUT);
+                DBusConnection clientconn = DBusConnection.getConnection(DBusBusType.SESSION, false, DBusConnection.TCP_CONNECT_TIMEOUT)) {
+            serverconn.requestBusName(BUS_NAME);
+            serverconn.exportObject(OBJECT_PATH, new FutureTestObject());
+
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch busy = new CountDownLatch(4);
+            DBusSigHandler<SampleSignals.TestStringSignal> slowHandler = s -> {
+                busy.countDown();
+                try {
+                    release.await(20, TimeUnit.SECONDS);
+                } catch (InterruptedException _ex) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+            clientconn.addSigHandler(SampleSignals.TestStringSignal.class, slowHandler);
+            try {
+                for (int i = 0; i < 20; i++) {
+                    serverconn.sendMessage(new SampleSignals.TestStringSignal(OBJECT_PATH, "busy" + i));
+                }
+                // all signal threads are blocked
+                Assertions.assertTrue(busy.await(10, TimeUnit.SECONDS));
+
+                CompletableFuture<String> reply = new CompletableFuture<>();
+                FutureTest remote = clientconn.getRemoteObject(BUS_NAME, OBJECT_PATH, FutureTest.class);
+                clientconn.callWithCallback(remote, "echo", new CallbackHandler<String>() {
+                    @Override
+                    public void handle(String _r) {
+                        reply.complete(_r);
+                    }
+
+                    @Override
+                    public void handleError(DBusExecutionException _e) {
+                        reply.completeExceptionally(_e);
+                    }
+                }, "ping");
+                Assertions.assertEquals("ping", reply.get(5, TimeUnit.SECONDS));
+            } finally {
+                release.countDown();
+                clientconn.removeSigHandler(SampleSignals.TestStringSignal.class, slowHandler);
+            }
+        }
+    }
+
+    @Test
+    public void testBusSignalPriority() throws Exception {
+        try (DBusConnection serverconn = DBusConnection.getConnection(DBusBusType.SESSION, false, DBusConnection.TCP_CONNECT_TIMEOUT);
+                DBusConnection clientconn = DBusConnection.getConnection(DBusBusType.SESSION, false, DBusConnection.TCP_CONNECT_TIMEOUT)) {
+            clientconn.setBusSignalPriority(true);
+
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch busy = new CountDownLatch(4);
+            DBusSigHandler<SampleSignals.TestStringSignal> slowHandler = s -> {
+                busy.countDown();
+                try {
+                    release.await(20, TimeUnit.SECONDS);
+                } catch (InterruptedException _ex) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+            CountDownLatch ownerChanged = new CountDownLatch(1);
+            DBusSigHandler<DBus.NameOwnerChanged> ownerHandler = s -> {
+                if (BUS_NAME.equals(s.name)) {
+                    ownerChanged.countDown();
+                }
+            };
+            clientconn.addSigHandler(SampleSignals.TestStringSignal.class, slowHandler);
+            clientconn.addSigHandler(DBus.NameOwnerChanged.class, ownerHandler);
+            try {
+                for (int i = 0; i < 20; i++) {
+                    serverconn.sendMessage(new SampleSignals.TestStringSignal(OBJECT_PATH, "busy" + i));
+                }
+                Assertions.assertTrue(busy.await(10, TimeUnit.SECONDS));
+
+                serverconn.requestBusName(BUS_NAME);
+                Assertions.assertTrue(ownerChanged.await(5, TimeUnit.SECONDS), "NameOwnerChanged delayed by other signals");
+            } finally {
+                release.countDown();
+                clientconn.removeSigHandler(SampleSignals.TestStringSignal.class, slowHandler);
+                clientconn.removeSigHandler(DBus.NameOwnerChanged.class, ownerHandler);
+            }
+        }
+    }
+}
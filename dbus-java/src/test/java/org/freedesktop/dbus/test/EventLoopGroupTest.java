@@ -0,0 +1,141 @@
+package org.freedesktop.dbus.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.freedesktop.dbus.connections.EventLoopGroup;
+import org.freedesktop.dbus.connections.OverloadPolicy;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.connections.impl.DBusConnection.DBusBusType;
+import org.freedesktop.dbus.interfaces.DBusSigHandler;
+import org.freedesktop.dbus.test.CompletableFutureCallTest.FutureTest;
+import org.freedesktop.dbus.test.CompletableFutureCallTest.FutureTestAsync;
+import org.freedesktop.dbus.test.CompletableFutureCallTest.FutureTestObject;
+import org.freedesktop.dbus.test.helper.signals.SampleSignals;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class EventLoopGroupTest {
+    private static final String BUS_NAME    = "org.freedesktop.dbus.test.EventLoopTest";
+    private static final String OBJECT_PATH = "/EventLoopTest";
+
+    @Test
+    public void testConnectionsShareEventLoop() throws Exception {
+        EventLoopGroup group = new EventLoopGroup("Test Event Loop", 1);
+        EventLoopGroup.setDefault(group);
+        List<DBusConnection> connections = new ArrayList<>();
+        try {
+            long senderThreads = countThreads("DBus Sender Thread");
+
+            DBusConnection serverconn = DBusConnection.getConnection(DBusBusType.SESSION, false, DBusConnection.TCP_CONNECT_TIMEOUT);
+            connections.add(serverconn);
+            serverconn.requestBusName(BUS_NAME);
+            serverconn.exportObject(OBJECT_PATH, new FutureTestObject());
+
+            for (int i = 0; i < 5; i++) {
+                DBusConnection clientconn = DBusConnection.getConnection(DBusBusType.SESSION, false, DBusConnection.TCP_CONNECT_TIMEOUT);
+                connections.add(clientconn);
+
+                FutureTest remote = clientconn.getRemoteObject(BUS_NAME, OBJECT_PATH, FutureTest.class);
+                Assertions.assertEquals("hello" + i, remote.echo("hello" + i));
+
+                FutureTestAsync async = clientconn.getRemoteObject(BUS_NAME, OBJECT_PATH, FutureTestAsync.class);
+                List<CompletableFuture<String>> results = new ArrayList<>();
+                for (int j = 0; j < 100; j++) {
+                    results.add(async.echo("call" + j));
+                }
+                Assertions.assertEquals("call99", results.get(99).get(10, TimeUnit.SECONDS));
+            }
+
+            // larger than the socket buffers, written and read in several steps
+            char[] chars = new char[2 * 1024 * 1024];
+            Arrays.fill(chars, 'x');
+            String large = new String(chars);
+            FutureTest remote = connections.get(1).getRemoteObject(BUS_NAME, OBJECT_PATH, FutureTest.class);
+            Assertions.assertEquals(large, remote.echo(large));
+
+            Assertions.assertEquals(1, countThreads("Test Event Loop-"));
+            Assertions.assertEquals(senderThreads, countThreads("DBus Sender Thread"));
+        } finally {
+            EventLoopGroup.setDefault(null);
+            for (DBusConnection connection : connections) {
+                connection.disconnect();
+            }
+            group.close();
+        }
+    }
+
+    @Test
+    public void testBlockedConnectionDoesNotStallLoop() throws Exception {
+        DBusConnection serverconn = DBusConnection.getConnection(DBusBusType.SESSION, false, DBusConnection.TCP_CONNECT_TIMEOUT);
+        EventLoopGroup group = new EventLoopGroup("Test Event Loop", 1, 2);
+        EventLoopGroup.setDefault(group);
+        DBusConnection blocked = null;
+        DBusConnection other = null;
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            serverconn.requestBusName(BUS_NAME);
+            serverconn.exportObject(OBJECT_PATH, new FutureTestObject());
+
+            blocked = DBusConnection.getConnection(DBusBusType.SESSION, false, DBusConnection.TCP_CONNECT_TIMEOUT);
+            other = DBusConnection.getConnection(DBusBusType.SESSION, false, DBusConnection.TCP_CONNECT_TIMEOUT);
+
+            blocked.changeThreadCount((byte) 1);
+            blocked.getSignalQueue().setLimit(1, OverloadPolicy.BLOCK);
+            AtomicInteger received = new AtomicInteger();
+            DBusSigHandler<SampleSignals.TestStringSignal> handler = s -> {
+                try {
+                    release.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException _ex) {
+                    Thread.currentThread().interrupt();
+                }
+                received.incrementAndGet();
+            };
+            blocked.addSigHandler(SampleSignals.TestStringSignal.class, handler);
+
+            // one signal is handled, one is queued, the others wait until the queue has space
+            for (int i = 0; i < 10; i++) {
+                serverconn.sendMessage(new SampleSignals.TestStringSignal("/EventLoopTest", "signal" + i));
+            }
+            long deadline = System.currentTimeMillis() + 10000;
+            while (blocked.getSignalQueue().size() < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Thread.sleep(200);
+
+            // served by the same event loop
+            FutureTestAsync remote = other.getRemoteObject(BUS_NAME, OBJECT_PATH, FutureTestAsync.class);
+            Assertions.assertEquals("hello", remote.echo("hello").get(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(0, received.get());
+
+            release.countDown();
+            deadline = System.currentTimeMillis() + 10000;
+            while (received.get() < 10 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assertions.assertEquals(10, received.get());
+            Assertions.assertTrue(countThreads("Test Event Loop Dispatcher-") <= 2, "Dispatcher pool not bounded");
+            blocked.removeSigHandler(SampleSignals.TestStringSignal.class, handler);
+        } finally {
+            release.countDown();
+            EventLoopGroup.setDefault(null);
+            if (null != other) {
+                other.disconnect();
+            }
+            if (null != blocked) {
+                blocked.disconnect();
+            }
+            serverconn.disconnect();
+            group.close();
+        }
+    }
+
+    private static long countThreads(String _prefix) {
+        return Thread.getAllStackTraces().keySet().stream().filter(t -> t.getName().startsWith(_prefix)).count();
+    }
+}
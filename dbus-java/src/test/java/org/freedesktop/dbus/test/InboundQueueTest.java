@@ -0,0 +1,122 @@
+package org.freedesktop.dbus.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+
+import org.freedesktop.dbus.connections.InboundQueue;
+import org.freedesktop.dbus.connections.OverloadPolicy;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class InboundQueueTest {
+
+    @Test
+    public void testReject() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            InboundQueue queue = new InboundQueue("Test");
+            queue.setLimit(2, OverloadPolicy.REJECT);
+            CountDownLatch release = blockWorker(queue, pool);
+            List<String> ran = Collections.synchronizedList(new ArrayList<>());
+            List<String> rejected = Collections.synchronizedList(new ArrayList<>());
+
+            for (String s : new String[] {"a", "b", "c"}) {
+                queue.execute(executor(pool), s, () -> ran.add(s), () -> rejected.add(s));
+            }
+            Assertions.assertEquals(Collections.singletonList("c"), rejected);
+            Assertions.assertEquals(1, queue.getRejectedCount());
+            Assertions.assertEquals(2, queue.size());
+
+            release.countDown();
+            awaitEmpty(pool);
+            Assertions.assertEquals(Arrays.asList("a", "b"), ran);
+            Assertions.assertEquals(0, queue.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDropOldest() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            InboundQueue queue = new InboundQueue("Test");
+            queue.setLimit(2, OverloadPolicy.DROP_OLDEST);
+            CountDownLatch release = blockWorker(queue, pool);
+            List<String> ran = Collections.synchronizedList(new ArrayList<>());
+            List<String> dropped = Collections.synchronizedList(new ArrayList<>());
+
+            for (String s : new String[] {"a", "b", "c", "d"}) {
+                Assertions.assertTrue(queue.execute(executor(pool), s, () -> ran.add(s), () -> dropped.add(s)));
+            }
+            Assertions.assertEquals(Arrays.asList("a", "b"), dropped);
+            Assertions.assertEquals(2, queue.getDroppedCount());
+            Assertions.assertEquals(0, queue.getRejectedCount());
+
+            release.countDown();
+            awaitEmpty(pool);
+            Assertions.assertEquals(Arrays.asList("c", "d"), ran);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBlock() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            InboundQueue queue = new InboundQueue("Test");
+            queue.setLimit(1, OverloadPolicy.BLOCK);
+            CountDownLatch release = blockWorker(queue, pool);
+            CountDownLatch ran = new CountDownLatch(2);
+
+            queue.execute(executor(pool), "a", ran::countDown, null);
+            Future<Boolean> blocked = reader.submit(() -> queue.execute(executor(pool), "b", ran::countDown, null));
+            Assertions.assertThrows(TimeoutException.class, () -> blocked.get(200, TimeUnit.MILLISECONDS));
+
+            release.countDown();
+            Assertions.assertTrue(blocked.get(10, TimeUnit.SECONDS));
+            Assertions.assertTrue(ran.await(10, TimeUnit.SECONDS));
+            Assertions.assertEquals(0, queue.getRejectedCount());
+        } finally {
+            pool.shutdownNow();
+            reader.shutdownNow();
+        }
+    }
+
+    private static BiConsumer<String, Runnable> executor(ExecutorService _pool) {
+        return (k, r) -> _pool.execute(r);
+    }
+
+    /**
+     * Occupies the only worker thread until the returned latch is released.
+     */
+    private static CountDownLatch blockWorker(InboundQueue _queue, ExecutorService _pool) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        _queue.execute(executor(_pool), "blocker", () -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException _ex) {
+                Thread.currentThread().interrupt();
+            }
+        }, null);
+        Assertions.assertTrue(started.await(10, TimeUnit.SECONDS));
+        return release;
+    }
+
+    private static void awaitEmpty(ExecutorService _pool) throws Exception {
+        _pool.submit(() -> { }).get(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,99 @@
+package org.freedesktop.dbus.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.freedesktop.dbus.annotations.DBusInterfaceName;
+import org.freedesktop.dbus.annotations.InlineHandler;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.connections.impl.DBusConnection.DBusBusType;
+import org.freedesktop.dbus.interfaces.DBusInterface;
+import org.freedesktop.dbus.interfaces.InlineSigHandler;
+import org.freedesktop.dbus.test.helper.signals.SampleSignals;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class InlineHandlerTest {
+    private static final String BUS_NAME    = "org.freedesktop.dbus.test.InlineHandlerTest";
+    private static final String OBJECT_PATH = "/InlineHandlerTest";
+
+    @Test
+    public void testInlineMethod() throws Exception {
+        try (DBusConnection serverconn = DBusConnection.getConnection(DBusBusType.SESSION, false, DBusConnection.TCP_CONNECT_TIMEOUT);
+                DBusConnection clientconn = DBusConnection.getConnection(DBusBusType.SESSION, false, DBusConnection.TCP_CONNECT_TIMEOUT)) {
+            serverconn.requestBusName(BUS_NAME);
+            serverconn.exportObject(OBJECT_PATH, new ThreadNameObject());
+
+            ThreadName remote = clientconn.getRemoteObject(BUS_NAME, OBJECT_PATH, ThreadName.class);
+            Assertions.assertFalse(remote.inlineThreadName().startsWith("DBus Worker Thread"));
+            Assertions.assertTrue(remote.threadName().startsWith("DBus Worker Thread"));
+        }
+    }
+
+    @Test
+    public void testSlowHandlerMovedToWorkerThreads() throws Exception {
+        try (DBusConnection sender = DBusConnection.getConnection(DBusBusType.SESSION, false, DBusConnection.TCP_CONNECT_TIMEOUT);
+                DBusConnection receiver = DBusConnection.getConnection(DBusBusType.SESSION, false, DBusConnection.TCP_CONNECT_TIMEOUT)) {
+            receiver.setInlineHandlerTimeLimit(50);
+
+            List<String> threads = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch done = new CountDownLatch(3);
+            InlineSigHandler<SampleSignals.TestStringSignal> handler = s -> {
+                threads.add(Thread.currentThread().getName());
+                if ("slow".equals(s.getContentString())) {
+                    try {
+                        Thread.sleep(300);
+                    } catch (InterruptedException _ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                done.countDown();
+            };
+            receiver.addSigHandler(SampleSignals.TestStringSignal.class, handler);
+
+            sender.sendMessage(new SampleSignals.TestStringSignal(OBJECT_PATH, "fast"));
+            sender.sendMessage(new SampleSignals.TestStringSignal(OBJECT_PATH, "slow"));
+            sender.sendMessage(new SampleSignals.TestStringSignal(OBJECT_PATH, "fast"));
+            Assertions.assertTrue(done.await(10, TimeUnit.SECONDS), "Not all signals received");
+
+            Assertions.assertFalse(threads.get(0).startsWith("DBus Signal Thread"));
+            Assertions.assertFalse(threads.get(1).startsWith("DBus Signal Thread"));
+            // exceeded the time limit, not run inline anymore
+            Assertions.assertTrue(threads.get(2).startsWith("DBus Signal Thread"));
+            receiver.removeSigHandler(SampleSignals.TestStringSignal.class, handler);
+        }
+    }
+
+    @DBusInterfaceName("org.freedesktop.dbus.test.InlineHandlerTest")
+    public interface ThreadName extends DBusInterface {
+        @InlineHandler
+        String inlineThreadName();
+
+        String threadName();
+    }
+
+    public static class ThreadNameObject implements ThreadName {
+        @Override
+        public String inlineThreadName() {
+            return Thread.currentThread().getName();
+        }
+
+        @Override
+        public String threadName() {
+            return Thread.currentThread().getName();
+        }
+
+        @Override
+        public boolean isRemote() {
+            return false;
+        }
+
+        @Override
+        public String getObjectPath() {
+            return OBJECT_PATH;
+        }
+    }
+}
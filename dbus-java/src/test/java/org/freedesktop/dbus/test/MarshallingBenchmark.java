@@ -0,0 +1,249 @@
+package org.freedesktop.dbus.test;
+
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.freedesktop.dbus.Marshalling;
+import org.freedesktop.dbus.messages.Message;
+import org.freedesktop.dbus.messages.MessageFactory;
+import org.freedesktop.dbus.messages.MethodCall;
+import org.freedesktop.dbus.messages.Utf8Codec;
+import org.freedesktop.dbus.test.helper.structs.IntStruct;
+import org.freedesktop.dbus.types.UInt32;
+import org.freedesktop.dbus.types.Variant;
+
+/**
+ * Simple micro benchmark for marshalling and demarshalling of message bodies.
+ * Does not require a running bus.
+ * <p>
+ * Syntax: MarshallingBenchmark [iterations]
+ * </p>
+ *
+ * @since v3.2.4 - 2020-09-01
+ */
+public final class MarshallingBenchmark {
+    private static final int DEFAULT_ITERATIONS = 50000;
+    private static final int WARMUP_ITERATIONS  = 20000;
+    private static final int STRUCT_COUNT       = 1000;
+    private static final int SAMPLE_COUNT       = 1000;
+
+    private MarshallingBenchmark() {
+
+    }
+
+    public static void main(String[] _args) throws Exception {
+        int iterations = _args.length > 0 ? Integer.parseInt(_args[0]) : DEFAULT_ITERATIONS;
+
+        Map<String, Variant<?>> props = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            props.put("Property" + i, i % 2 == 0 ? new Variant<>("value" + i) : new Variant<>(i));
+        }
+
+        List<Object[]> structs = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            structs.add(new Object[] {i, -i, new UInt32(i)});
+        }
+
+        List<String> strings = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            strings.add("org.freedesktop.DBus.Item" + i);
+        }
+
+        run("a{sv}", iterations, props);
+        run("a(iiu)", iterations, structs);
+        run("as", iterations, strings);
+        run("sisu", iterations, "org.freedesktop.DBus", 42, "/org/freedesktop/DBus", new UInt32(1));
+
+        double[] samples = new double[SAMPLE_COUNT];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = i / 3d;
+        }
+        run("ad", iterations, samples);
+        run("(iad)", iterations, (Object) new Object[] {1, samples});
+        runStructs(iterations / 100);
+        runHeaders(iterations);
+        runStrings(iterations, "ASCII", strings);
+        List<String> text = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            text.add("Gr\u00FC\u00DFe aus K\u00F6ln \u2013 Nr. " + i);
+        }
+        runStrings(iterations, "non-ASCII", text);
+    }
+
+    /**
+     * Measures creating a received message from its wire format (mainly parsing the header fields).
+     */
+    private static void runHeaders(int _iterations) throws Exception {
+        MethodCall template = new MethodCall(":1.42", "org.freedesktop.DBus", "/org/freedesktop/DBus",
+                "org.freedesktop.DBus.Properties", "GetAll", (byte) 0, "s", "org.freedesktop.DBus");
+        ByteBuffer wire = template.getWireBuffer();
+        byte[] data = new byte[wire.remaining()];
+        wire.get(data);
+
+        byte[] buf = Arrays.copyOfRange(data, 0, 12);
+        int headerlen = (int) Message.demarshallint(data, 12, data[0], 4);
+        if (0 != headerlen % 8) {
+            headerlen += 8 - (headerlen % 8);
+        }
+        byte[] header = new byte[headerlen + 8];
+        System.arraycopy(data, 12, header, 0, 4);
+        System.arraycopy(data, 16, header, 8, headerlen);
+        byte[] body = Arrays.copyOfRange(data, 16 + headerlen, data.length);
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            MessageFactory.createMessage(buf[1], buf, header, body, null);
+        }
+        long t = System.nanoTime();
+        for (int i = 0; i < _iterations; i++) {
+            MessageFactory.createMessage(buf[1], buf, header, body, null);
+        }
+        long decode = System.nanoTime() - t;
+
+        System.out.println(String.format("%-8s decode: %8.1f ns/msg (header %d bytes)",
+                "header", (double) decode / _iterations, header.length));
+    }
+
+    /**
+     * Compares the JDK UTF-8 conversion with {@link Utf8Codec} (decoding using the string cache).
+     */
+    private static void runStrings(int _iterations, String _name, List<String> _strings) {
+        byte[][] encoded = new byte[_strings.size()][];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = _strings.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] target = new byte[4096];
+
+        long[] results = new long[4];
+        for (int round = 0; round < 2; round++) {
+            int iterations = round == 0 ? WARMUP_ITERATIONS : _iterations;
+            int sink = 0;
+
+            long t = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                for (String str : _strings) {
+                    byte[] b = str.getBytes(StandardCharsets.UTF_8);
+                    System.arraycopy(b, 0, target, 0, b.length);
+                    sink += b.length;
+                }
+            }
+            results[0] = System.nanoTime() - t;
+
+            t = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                for (String str : _strings) {
+                    sink += Utf8Codec.encode(str, target, 0);
+                }
+            }
+            results[1] = System.nanoTime() - t;
+
+            t = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                for (byte[] b : encoded) {
+                    sink += new String(b, 0, b.length, StandardCharsets.UTF_8).length();
+                }
+            }
+            results[2] = System.nanoTime() - t;
+
+            t = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                for (byte[] b : encoded) {
+                    sink += Utf8Codec.decodeCached(b, 0, b.length).length();
+                }
+            }
+            results[3] = System.nanoTime() - t;
+
+            if (sink == 42) {
+                System.out.println("unlikely");
+            }
+        }
+
+        double count = (double) _iterations * _strings.size();
+        System.out.println(String.format("%-9s strings encode: JDK %5.1f ns, Utf8Codec %5.1f ns; decode: JDK %5.1f ns, Utf8Codec cached %5.1f ns",
+                _name, results[0] / count, results[1] / count, results[2] / count, results[3] / count));
+    }
+
+    /**
+     * Measures marshalling of a list of {@link IntStruct} objects including conversion from/to the struct class.
+     */
+    private static void runStructs(int _iterations) throws Exception {
+        Type[] types = new Type[] {MarshallingBenchmark.class.getDeclaredMethod("structList").getGenericReturnType()};
+        MethodCall template = create("a(ii)", structList());
+        ByteBuffer wire = template.getWireBuffer();
+        byte[] data = new byte[wire.remaining()];
+        wire.get(data);
+        int bodylen = (int) Message.demarshallint(data, 4, data[0], 4);
+        byte[] body = new byte[bodylen];
+        System.arraycopy(data, data.length - bodylen, body, 0, bodylen);
+
+        for (int i = 0; i < WARMUP_ITERATIONS / 100; i++) {
+            create("a(ii)", structList());
+            Marshalling.deSerializeParameters(template.extract("a(ii)", body, 0), types, null);
+        }
+
+        long encode = 0;
+        for (int i = 0; i < _iterations; i++) {
+            List<IntStruct> structs = structList();
+            long t = System.nanoTime();
+            create("a(ii)", structs);
+            encode += System.nanoTime() - t;
+        }
+
+        long t = System.nanoTime();
+        for (int i = 0; i < _iterations; i++) {
+            Marshalling.deSerializeParameters(template.extract("a(ii)", body, 0), types, null);
+        }
+        long decode = System.nanoTime() - t;
+
+        System.out.println(String.format("%-8s encode: %8.1f us/msg, decode: %8.1f us/msg (%d structs)",
+                "a(ii)", encode / 1000d / _iterations, decode / 1000d / _iterations, STRUCT_COUNT));
+    }
+
+    private static List<IntStruct> structList() {
+        List<IntStruct> structs = new ArrayList<>();
+        for (int i = 0; i < STRUCT_COUNT; i++) {
+            structs.add(new IntStruct(i, -i));
+        }
+        return structs;
+    }
+
+    private static void run(String _sig, int _iterations, Object... _values) throws Exception {
+        MethodCall template = create(_sig, _values);
+        ByteBuffer wire = template.getWireBuffer();
+        byte[] data = new byte[wire.remaining()];
+        wire.get(data);
+        int bodylen = (int) Message.demarshallint(data, 4, data[0], 4);
+        byte[] body = new byte[bodylen];
+        System.arraycopy(data, data.length - bodylen, body, 0, bodylen);
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            create(_sig, _values);
+            template.extract(_sig, body, 0);
+        }
+
+        long t = System.nanoTime();
+        for (int i = 0; i < _iterations; i++) {
+            create(_sig, _values);
+        }
+        long encode = System.nanoTime() - t;
+
+        t = System.nanoTime();
+        for (int i = 0; i < _iterations; i++) {
+            template.extract(_sig, body, 0);
+        }
+        long decode = System.nanoTime() - t;
+
+        System.out.println(String.format("%-8s encode: %8.1f ns/msg, decode: %8.1f ns/msg (body %d bytes)",
+                _sig, (double) encode / _iterations, (double) decode / _iterations, bodylen));
+    }
+
+    private static MethodCall create(String _sig, Object... _values) throws Exception {
+        return new MethodCall("org.freedesktop.DBus", "/org/freedesktop/DBus", "org.freedesktop.DBus", "Bench",
+                (byte) 0, _sig, _values);
+    }
+}
@@ -0,0 +1,118 @@
+package org.freedesktop.dbus.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.freedesktop.dbus.exceptions.MarshallingException;
+import org.freedesktop.dbus.messages.Message;
+import org.freedesktop.dbus.messages.MessageBodyReader;
+import org.freedesktop.dbus.messages.MessageFactory;
+import org.freedesktop.dbus.messages.MethodCall;
+import org.freedesktop.dbus.types.UInt32;
+import org.freedesktop.dbus.types.Variant;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MessageBodyReaderTest {
+
+    @Test
+    public void testReadAllTypes() throws Exception {
+        Map<String, Variant<?>> props = new LinkedHashMap<>();
+        props.put("first", new Variant<>("value"));
+        props.put("second", new Variant<>(42));
+
+        Message msg = receive(new MethodCall("org.foo", "/org/foo", "org.foo", "Bar", (byte) 0,
+                "ya(is)a{sv}vxdbu", (byte) 7, Arrays.asList(new Object[] {1, "one"}, new Object[] {2, "two"}),
+                props, new Variant<>("var"), 123456789012L, 1.5d, true, new UInt32(17)));
+
+        MessageBodyReader reader = msg.getBodyReader();
+        Assertions.assertEquals(7, reader.nextByte());
+
+        Assertions.assertEquals("a(is)", reader.peekSignature());
+        reader.enterArray();
+        int count = 0;
+        while (reader.hasNext()) {
+            reader.enterStruct();
+            Assertions.assertEquals(++count, reader.nextInt32());
+            Assertions.assertEquals(count == 1 ? "one" : "two", reader.nextString());
+            reader.exit();
+        }
+        reader.exit();
+        Assertions.assertEquals(2, count);
+
+        reader.enterArray();
+        reader.enterStruct();
+        Assertions.assertEquals("first", reader.nextString());
+        Assertions.assertEquals("s", reader.enterVariant());
+        Assertions.assertEquals("value", reader.nextString());
+        reader.exit();
+        reader.exit();
+        // skip the remaining dict entry
+        reader.exit();
+
+        reader.skip();
+        Assertions.assertEquals(123456789012L, reader.nextInt64());
+        Assertions.assertEquals(1.5d, reader.nextDouble());
+        Assertions.assertTrue(reader.nextBoolean());
+        Assertions.assertEquals(17L, reader.nextUInt32());
+        Assertions.assertFalse(reader.hasNext());
+    }
+
+    @Test
+    public void testWrongTypeFails() throws Exception {
+        Message msg = receive(new MethodCall("org.foo", "/org/foo", "org.foo", "Bar", (byte) 0, "s", "foo"));
+        MessageBodyReader reader = msg.getBodyReader();
+        Assertions.assertThrows(MarshallingException.class, reader::nextInt32);
+        Assertions.assertEquals("foo", reader.nextString());
+        Assertions.assertThrows(MarshallingException.class, reader::nextString);
+    }
+
+    @Test
+    public void testSkipMatchesParameters() throws Exception {
+        String base = "src/test/resources/MarshallingTest/";
+        Message msg = MessageFactory.createMessage(Message.MessageType.SIGNAL, read(base + "connman_sample_buf.bin"),
+                read(base + "connman_sample_header.bin"), read(base + "connman_sample_body.bin"), null);
+
+        Object[] params = msg.getParameters();
+        MessageBodyReader reader = msg.getBodyReader();
+        reader.skip();
+        Assertions.assertEquals("ao", reader.peekSignature());
+        reader.enterArray();
+        for (Object path : (List<?>) params[1]) {
+            Assertions.assertEquals(path.toString(), reader.nextObjectPath());
+        }
+        Assertions.assertFalse(reader.hasNext());
+        reader.exit();
+        Assertions.assertFalse(reader.hasNext());
+    }
+
+    /**
+     * Converts the given message to a message as it would have been received by the transport.
+     */
+    private static Message receive(Message _msg) throws Exception {
+        ByteBuffer wire = _msg.getWireBuffer();
+        byte[] data = new byte[wire.remaining()];
+        wire.get(data);
+
+        byte[] buf = Arrays.copyOfRange(data, 0, 12);
+        int headerlen = (int) Message.demarshallint(data, 12, data[0], 4);
+        if (0 != headerlen % 8) {
+            headerlen += 8 - (headerlen % 8);
+        }
+        byte[] header = new byte[headerlen + 8];
+        System.arraycopy(data, 12, header, 0, 4);
+        System.arraycopy(data, 16, header, 8, headerlen);
+        byte[] body = Arrays.copyOfRange(data, 16 + headerlen, data.length);
+        return MessageFactory.createMessage(buf[1], buf, header, body, null);
+    }
+
+    private static byte[] read(String _file) throws IOException {
+        return Files.readAllBytes(new File(_file).toPath());
+    }
+}
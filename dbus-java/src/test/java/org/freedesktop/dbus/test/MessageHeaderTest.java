@@ -0,0 +1,78 @@
+package org.freedesktop.dbus.test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.freedesktop.dbus.errors.Error;
+import org.freedesktop.dbus.messages.Message;
+import org.freedesktop.dbus.messages.MessageFactory;
+import org.freedesktop.dbus.messages.MethodCall;
+import org.freedesktop.dbus.messages.MethodReturn;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MessageHeaderTest {
+
+    @Test
+    public void testMethodCallHeaders() throws Exception {
+        Message msg = receive(new MethodCall(":1.1", "org.foo", "/org/foo", "org.foo.Iface", "Bar", (byte) 0, "si", "x", 1));
+
+        Assertions.assertEquals(":1.1", msg.getSource());
+        Assertions.assertEquals("org.foo", msg.getDestination());
+        Assertions.assertEquals("/org/foo", msg.getPath());
+        Assertions.assertEquals("org.foo.Iface", msg.getInterface());
+        Assertions.assertEquals("Bar", msg.getName());
+        Assertions.assertEquals("si", msg.getSig());
+        Assertions.assertEquals(0, msg.getReplySerial());
+        Assertions.assertNull(msg.getHeader(Message.HeaderField.ERROR_NAME));
+        Assertions.assertNull(msg.getHeader((byte) 42));
+        Assertions.assertArrayEquals(new Object[] {"x", 1}, msg.getParameters());
+    }
+
+    @Test
+    public void testReplyHeaders() throws Exception {
+        Message reply = receive(new MethodReturn("org.foo", 4711, "s", "result"));
+        Assertions.assertEquals(4711, reply.getReplySerial());
+        Assertions.assertEquals("org.foo", reply.getDestination());
+        Assertions.assertArrayEquals(new Object[] {"result"}, reply.getParameters());
+
+        Message error = receive(new Error("org.foo", "org.foo.Error.Failed", 42, "s", "failed"));
+        Assertions.assertEquals(42, error.getReplySerial());
+        Assertions.assertEquals("org.foo.Error.Failed", error.getName());
+    }
+
+    @Test
+    public void testSetSource() throws Exception {
+        Message msg = receive(new MethodCall("org.foo", "/org/foo", "org.foo.Iface", "Bar", (byte) 0, "s", "x"));
+        Assertions.assertNull(msg.getSource());
+
+        msg.setSource(":1.42");
+        Message forwarded = receive(msg);
+
+        Assertions.assertEquals(":1.42", forwarded.getSource());
+        Assertions.assertEquals("/org/foo", forwarded.getPath());
+        Assertions.assertEquals("Bar", forwarded.getName());
+        Assertions.assertEquals(msg.getSerial(), forwarded.getSerial());
+        Assertions.assertArrayEquals(new Object[] {"x"}, forwarded.getParameters());
+    }
+
+    /**
+     * Converts the given message to a message as it would have been received by the transport.
+     */
+    private static Message receive(Message _msg) throws Exception {
+        ByteBuffer wire = _msg.getWireBuffer();
+        byte[] data = new byte[wire.remaining()];
+        wire.get(data);
+
+        byte[] buf = Arrays.copyOfRange(data, 0, 12);
+        int headerlen = (int) Message.demarshallint(data, 12, data[0], 4);
+        if (0 != headerlen % 8) {
+            headerlen += 8 - (headerlen % 8);
+        }
+        byte[] header = new byte[headerlen + 8];
+        System.arraycopy(data, 12, header, 0, 4);
+        System.arraycopy(data, 16, header, 8, headerlen);
+        byte[] body = Arrays.copyOfRange(data, 16 + headerlen, data.length);
+        return MessageFactory.createMessage(buf[1], buf, header, body, null);
+    }
+}
@@ -0,0 +1,101 @@
+package org.freedesktop.dbus.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.freedesktop.dbus.connections.DispatchOrdering;
+import org.freedesktop.dbus.connections.StripedSerialExecutor;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.connections.impl.DBusConnection.DBusBusType;
+import org.freedesktop.dbus.interfaces.DBusSigHandler;
+import org.freedesktop.dbus.test.helper.signals.SampleSignals;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class OrderedDispatchTest {
+
+    @Test
+    public void testOrderPerKey() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            StripedSerialExecutor executor = new StripedSerialExecutor(pool, 16);
+            List<List<Integer>> results = new ArrayList<>();
+            for (int k = 0; k < 8; k++) {
+                results.add(Collections.synchronizedList(new ArrayList<>()));
+            }
+            CountDownLatch done = new CountDownLatch(8 * 1000);
+            for (int i = 0; i < 1000; i++) {
+                for (int k = 0; k < 8; k++) {
+                    final int value = i;
+                    final List<Integer> result = results.get(k);
+                    executor.execute("key" + k, () -> {
+                        result.add(value);
+                        done.countDown();
+                    });
+                }
+            }
+            Assertions.assertTrue(done.await(10, TimeUnit.SECONDS));
+            for (List<Integer> result : results) {
+                for (int i = 0; i < 1000; i++) {
+                    Assertions.assertEquals(i, result.get(i).intValue());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testKeysRunInParallel() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            StripedSerialExecutor executor = new StripedSerialExecutor(pool, 16);
+            CountDownLatch released = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(1);
+            executor.execute("a", () -> {
+                try {
+                    if (released.await(10, TimeUnit.SECONDS)) {
+                        done.countDown();
+                    }
+                } catch (InterruptedException _ex) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            // blocked key does not delay other keys
+            executor.execute("b", released::countDown);
+            Assertions.assertTrue(done.await(10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSignalsOfSenderInOrder() throws Exception {
+        try (DBusConnection sender = DBusConnection.getConnection(DBusBusType.SESSION, false, DBusConnection.TCP_CONNECT_TIMEOUT);
+                DBusConnection receiver = DBusConnection.getConnection(DBusBusType.SESSION, false, DBusConnection.TCP_CONNECT_TIMEOUT)) {
+            receiver.setDispatchOrdering(DispatchOrdering.SENDER);
+
+            List<String> received = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch done = new CountDownLatch(500);
+            DBusSigHandler<SampleSignals.TestStringSignal> handler = s -> {
+                received.add(s.getContentString());
+                done.countDown();
+            };
+            receiver.addSigHandler(SampleSignals.TestStringSignal.class, handler);
+
+            for (int i = 0; i < 500; i++) {
+                sender.sendMessage(new SampleSignals.TestStringSignal("/OrderedDispatch", String.valueOf(i)));
+            }
+            Assertions.assertTrue(done.await(10, TimeUnit.SECONDS), "Not all signals received");
+            for (int i = 0; i < 500; i++) {
+                Assertions.assertEquals(String.valueOf(i), received.get(i));
+            }
+            receiver.removeSigHandler(SampleSignals.TestStringSignal.class, handler);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package org.freedesktop.dbus.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.freedesktop.dbus.connections.OutboundMessageRing;
+import org.freedesktop.dbus.messages.Message;
+import org.freedesktop.dbus.messages.MethodCall;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class OutboundMessageRingTest {
+
+    @Test
+    public void testBounded() throws Exception {
+        OutboundMessageRing ring = new OutboundMessageRing(3);
+        Assertions.assertEquals(4, ring.capacity());
+
+        Message[] messages = new Message[5];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = newCall();
+        }
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertTrue(ring.offer(messages[i]));
+        }
+        Assertions.assertFalse(ring.offer(messages[4]), "Ring should be full");
+
+        Assertions.assertSame(messages[0], ring.poll());
+        Assertions.assertTrue(ring.offer(messages[4]));
+
+        List<Message> drained = new ArrayList<>();
+        Assertions.assertEquals(4, ring.drainTo(drained, 10));
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertSame(messages[i + 1], drained.get(i));
+        }
+        Assertions.assertTrue(ring.isEmpty());
+        Assertions.assertNull(ring.poll());
+    }
+
+    @Test
+    public void testConcurrentProducers() throws Exception {
+        OutboundMessageRing ring = new OutboundMessageRing(64);
+        int producers = 4;
+        int perProducer = 20000;
+        Message[][] messages = new Message[producers][perProducer];
+        for (int p = 0; p < producers; p++) {
+            for (int i = 0; i < perProducer; i++) {
+                messages[p][i] = newCall();
+            }
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            Message[] own = messages[p];
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException _ex) {
+                    return;
+                }
+                for (Message m : own) {
+                    while (!ring.offer(m)) {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        start.countDown();
+
+        // messages of each producer must be consumed in the order they were added
+        int[] next = new int[producers];
+        int received = 0;
+        List<Message> batch = new ArrayList<>();
+        while (received < producers * perProducer) {
+            batch.clear();
+            received += ring.drainTo(batch, 100);
+            for (Message m : batch) {
+                int producer = findProducer(messages, next, m);
+                Assertions.assertTrue(producer >= 0, "Message out of order or duplicated");
+                next[producer]++;
+            }
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        Assertions.assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    public void testCloseWhileOffering() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            OutboundMessageRing ring = new OutboundMessageRing(8);
+            Set<Message> accepted = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+            List<Thread> threads = new ArrayList<>();
+            for (int p = 0; p < 4; p++) {
+                threads.add(new Thread(() -> {
+                    try {
+                        while (!ring.isClosed()) {
+                            Message m = newCall();
+                            if (ring.offer(m)) {
+                                accepted.add(m);
+                            }
+                        }
+                    } catch (Exception _ex) {
+                        throw new IllegalStateException(_ex);
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+
+            // every message accepted by the ring is written exactly once, either by the consumer or after closing
+            List<Message> written = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                ring.drainTo(written, 4);
+            }
+            ring.close();
+            ring.drainTo(written, Integer.MAX_VALUE);
+            for (Thread t : threads) {
+                t.join();
+            }
+
+            Assertions.assertFalse(ring.offer(newCall()), "Closed ring must refuse messages");
+            Set<Message> unique = Collections.newSetFromMap(new IdentityHashMap<>());
+            unique.addAll(written);
+            Assertions.assertEquals(written.size(), unique.size(), "Message written twice");
+            Assertions.assertEquals(accepted.size(), written.size(), "Accepted message not written");
+            Assertions.assertTrue(unique.containsAll(accepted));
+        }
+    }
+
+    private static int findProducer(Message[][] _messages, int[] _next, Message _m) {
+        for (int p = 0; p < _messages.length; p++) {
+            if (_next[p] < _messages[p].length && _messages[p][_next[p]] == _m) {
+                return p;
+            }
+        }
+        return -1;
+    }
+
+    private static MethodCall newCall() throws Exception {
+        return new MethodCall("org.foo", "/org/foo", "org.foo", "Bar", (byte) 0, null);
+    }
+}
@@ -0,0 +1,72 @@
+package org.freedesktop.dbus.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.freedesktop.dbus.connections.PendingCallTable;
+import org.freedesktop.dbus.messages.Message;
+import org.freedesktop.dbus.messages.MethodCall;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PendingCallTableTest {
+
+    @Test
+    public void testPutRemove() throws Exception {
+        PendingCallTable table = new PendingCallTable();
+        MethodCall call = newCall();
+
+        // serials which end up in the same stripe and slot to test the probing
+        long[] serials = new long[] {1, 1 + (16 << 4), 1 + (32 << 4), 17, 1 + (64 << 4)};
+        for (long serial : serials) {
+            table.put(serial, call);
+        }
+        Assertions.assertEquals(serials.length, table.size());
+
+        Assertions.assertSame(call, table.remove(1));
+        Assertions.assertNull(table.remove(1));
+        for (int i = 1; i < serials.length; i++) {
+            Assertions.assertSame(call, table.get(serials[i]), "serial " + serials[i]);
+        }
+        Assertions.assertEquals(serials.length - 1, table.removeAll().size());
+        Assertions.assertTrue(table.isEmpty());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> table.put(0, call));
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        PendingCallTable table = new PendingCallTable();
+        AtomicLong counter = new AtomicLong();
+        AtomicInteger missing = new AtomicInteger();
+        MethodCall call = newCall();
+        int threads = 8;
+        int callsPerThread = 20000;
+        CountDownLatch done = new CountDownLatch(threads);
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(new Thread(() -> {
+                for (int i = 0; i < callsPerThread; i++) {
+                    long serial = Message.nextSerial(counter);
+                    table.put(serial, call);
+                    if (table.remove(serial) != call) {
+                        missing.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            }));
+        }
+        workers.forEach(Thread::start);
+        done.await();
+
+        Assertions.assertEquals(0, missing.get());
+        Assertions.assertTrue(table.isEmpty());
+    }
+
+    private static MethodCall newCall() throws Exception {
+        return new MethodCall("org.foo", "/org/foo", "org.foo", "Bar", (byte) 0, null);
+    }
+}
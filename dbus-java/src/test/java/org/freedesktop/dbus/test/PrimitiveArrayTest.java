@@ -0,0 +1,90 @@
+package org.freedesktop.dbus.test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import org.freedesktop.dbus.ArrayFrob;
+import org.freedesktop.dbus.PrimitiveList;
+import org.freedesktop.dbus.exceptions.MarshallingException;
+import org.freedesktop.dbus.messages.Message;
+import org.freedesktop.dbus.messages.MethodCall;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PrimitiveArrayTest {
+
+    @Test
+    public void testTopLevelArraysArePrimitive() throws Exception {
+        long[] longs = new long[] {Long.MIN_VALUE, -1, 0, 1, Long.MAX_VALUE};
+        short[] shorts = new short[] {Short.MIN_VALUE, -1, 0, 1, Short.MAX_VALUE};
+        double[] doubles = new double[] {-1.5, 0, Double.MAX_VALUE, Double.NaN};
+
+        Object[] values = roundTrip("axanad", longs, shorts, doubles);
+
+        Assertions.assertArrayEquals(longs, (long[]) values[0]);
+        Assertions.assertArrayEquals(shorts, (short[]) values[1]);
+        Assertions.assertArrayEquals(doubles, (double[]) values[2]);
+    }
+
+    @Test
+    public void testContainedArraysAreViews() throws Exception {
+        int[] ints = new int[] {Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE};
+
+        Object[] values = roundTrip("(iai)", (Object) new Object[] {1, ints});
+        Object member = ((Object[]) values[0])[1];
+
+        Assertions.assertTrue(member instanceof PrimitiveList);
+        Assertions.assertEquals(Arrays.asList(Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE), member);
+        Assertions.assertArrayEquals(ints, (int[]) ((PrimitiveList<?>) member).getArray());
+
+        // converting back to the primitive array must not copy
+        Assertions.assertSame(((PrimitiveList<?>) member).getArray(), ArrayFrob.convert(member, int[].class));
+    }
+
+    @Test
+    public void testViewWritesThroughAndMarshalls() throws Exception {
+        int[] ints = new int[] {1, 2, 3};
+        List<Integer> list = PrimitiveList.of(ints);
+        list.set(1, 42);
+
+        Assertions.assertEquals(42, ints[1]);
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> list.add(4));
+
+        Object[] values = roundTrip("ai", list);
+        Assertions.assertArrayEquals(new int[] {1, 42, 3}, (int[]) values[0]);
+    }
+
+    @Test
+    public void testOversizedArrayLengthIsRejected() throws Exception {
+        MethodCall msg = message("ai", new int[] {1, 2});
+        byte[] body = body(msg);
+
+        // 0x80000000 would turn negative when narrowed to int
+        msg.marshallint(0x80000000L, body, 0, 4);
+        Assertions.assertThrows(MarshallingException.class, () -> msg.extract("ai", body, 0));
+
+        // within the global limit, but longer than the message
+        msg.marshallint(64, body, 0, 4);
+        Assertions.assertThrows(MarshallingException.class, () -> msg.extract("ai", body, 0));
+    }
+
+    private static Object[] roundTrip(String _sig, Object... _values) throws Exception {
+        MethodCall msg = message(_sig, _values);
+        return msg.extract(_sig, body(msg), 0);
+    }
+
+    private static MethodCall message(String _sig, Object... _values) throws Exception {
+        return new MethodCall("org.foo", "/org/foo", "org.foo", "Bar", (byte) 0, _sig, _values);
+    }
+
+    private static byte[] body(Message _msg) {
+        ByteBuffer wire = _msg.getWireBuffer();
+        byte[] data = new byte[wire.remaining()];
+        wire.get(data);
+        int bodylen = (int) Message.demarshallint(data, 4, data[0], 4);
+        byte[] body = new byte[bodylen];
+        System.arraycopy(data, data.length - bodylen, body, 0, bodylen);
+        return body;
+    }
+}
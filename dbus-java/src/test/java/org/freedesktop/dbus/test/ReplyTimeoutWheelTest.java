@@ -0,0 +1,44 @@
+package org.freedesktop.dbus.test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.freedesktop.dbus.connections.ReplyTimeoutWheel;
+import org.freedesktop.dbus.messages.MethodCall;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ReplyTimeoutWheelTest {
+
+    @Test
+    public void testExpireAndCancel() throws Exception {
+        List<MethodCall> expired = new CopyOnWriteArrayList<>();
+        // small wheel, so the long timeout needs more than one round
+        try (ReplyTimeoutWheel wheel = new ReplyTimeoutWheel("test-wheel", 10, 8, expired::add)) {
+            MethodCall shortCall = newCall();
+            MethodCall longCall = newCall();
+            MethodCall cancelledCall = newCall();
+
+            ReplyTimeoutWheel.Timeout shortTimeout = wheel.schedule(shortCall, 50);
+            wheel.schedule(longCall, 300);
+            ReplyTimeoutWheel.Timeout cancelled = wheel.schedule(cancelledCall, 50);
+            Assertions.assertTrue(cancelled.cancel());
+
+            TimeUnit.MILLISECONDS.sleep(200);
+            Assertions.assertEquals(Collections.singletonList(shortCall), expired);
+            Assertions.assertTrue(shortTimeout.isExpired());
+            Assertions.assertFalse(shortTimeout.cancel());
+
+            TimeUnit.MILLISECONDS.sleep(400);
+            Assertions.assertEquals(2, expired.size());
+            Assertions.assertSame(longCall, expired.get(1));
+            Assertions.assertFalse(cancelled.isExpired());
+        }
+    }
+
+    private static MethodCall newCall() throws Exception {
+        return new MethodCall("org.foo", "/org/foo", "org.foo", "Bar", (byte) 0, null);
+    }
+}
@@ -0,0 +1,50 @@
+package org.freedesktop.dbus.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.connections.impl.DBusConnection.DBusBusType;
+import org.freedesktop.dbus.interfaces.DBusSigHandler;
+import org.freedesktop.dbus.test.helper.signals.SampleSignals;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SharedSignalDecodingTest {
+
+    @Test
+    public void testHandlersShareDecodedSignal() throws Exception {
+        try (DBusConnection sender = DBusConnection.getConnection(DBusBusType.SESSION, false, DBusConnection.TCP_CONNECT_TIMEOUT);
+                DBusConnection receiver = DBusConnection.getConnection(DBusBusType.SESSION, false, DBusConnection.TCP_CONNECT_TIMEOUT)) {
+
+            List<SampleSignals.TestStringSignal> received = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch done = new CountDownLatch(6);
+            List<DBusSigHandler<SampleSignals.TestStringSignal>> handlers = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                DBusSigHandler<SampleSignals.TestStringSignal> handler = s -> {
+                    received.add(s);
+                    done.countDown();
+                };
+                handlers.add(handler);
+                receiver.addSigHandler(SampleSignals.TestStringSignal.class, handler);
+            }
+
+            sender.sendMessage(new SampleSignals.TestStringSignal("/SharedSignal", "first"));
+            sender.sendMessage(new SampleSignals.TestStringSignal("/SharedSignal", "second"));
+            Assertions.assertTrue(done.await(10, TimeUnit.SECONDS), "Not all signals received");
+
+            for (SampleSignals.TestStringSignal s : received) {
+                for (SampleSignals.TestStringSignal other : received) {
+                    // one instance per received signal
+                    Assertions.assertEquals(s.getContentString().equals(other.getContentString()), s == other);
+                }
+            }
+            for (DBusSigHandler<SampleSignals.TestStringSignal> handler : handlers) {
+                receiver.removeSigHandler(SampleSignals.TestStringSignal.class, handler);
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package org.freedesktop.dbus.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.freedesktop.dbus.DBusMatchRule;
+import org.freedesktop.dbus.connections.DispatchOrdering;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.connections.impl.DBusConnection.DBusBusType;
+import org.freedesktop.dbus.interfaces.DBusSigHandler;
+import org.freedesktop.dbus.interfaces.SignalFlow;
+import org.freedesktop.dbus.test.helper.signals.SampleSignals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SignalPublisherTest {
+    private static final String PATH = "/SignalPublisher";
+
+    private DBusConnection      sender;
+    private DBusConnection      receiver;
+
+    @BeforeEach
+    public void before() throws Exception {
+        sender = DBusConnection.getConnection(DBusBusType.SESSION, false, DBusConnection.TCP_CONNECT_TIMEOUT);
+        receiver = DBusConnection.getConnection(DBusBusType.SESSION, false, DBusConnection.TCP_CONNECT_TIMEOUT);
+        receiver.setDispatchOrdering(DispatchOrdering.SENDER);
+    }
+
+    @AfterEach
+    public void after() {
+        receiver.disconnect();
+        sender.disconnect();
+    }
+
+    @Test
+    public void testDemand() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        receiver.signals(SampleSignals.TestStringSignal.class).subscribe(subscriber);
+        subscriber.subscription.request(2);
+
+        send("a", "b", "c", "d");
+        Assertions.assertTrue(subscriber.await(2), "Requested signals not received");
+        Thread.sleep(200);
+        Assertions.assertEquals(Arrays.asList("a", "b"), subscriber.received);
+
+        subscriber.subscription.request(10);
+        Assertions.assertTrue(subscriber.await(4), "Buffered signals not received");
+        Assertions.assertEquals(Arrays.asList("a", "b", "c", "d"), subscriber.received);
+        subscriber.subscription.cancel();
+    }
+
+    @Test
+    public void testOverflow() throws Exception {
+        DBusMatchRule rule = new DBusMatchRule(SampleSignals.TestStringSignal.class);
+        RecordingSubscriber dropping = new RecordingSubscriber();
+        RecordingSubscriber latest = new RecordingSubscriber();
+        RecordingSubscriber failing = new RecordingSubscriber();
+        receiver.signals(SampleSignals.TestStringSignal.class, rule, 2, SignalFlow.Overflow.DROP, Runnable::run).subscribe(dropping);
+        receiver.signals(SampleSignals.TestStringSignal.class, rule, 2, SignalFlow.Overflow.LATEST, Runnable::run).subscribe(latest);
+        receiver.signals(SampleSignals.TestStringSignal.class, rule, 2, SignalFlow.Overflow.ERROR, Runnable::run).subscribe(failing);
+
+        CountDownLatch all = new CountDownLatch(4);
+        DBusSigHandler<SampleSignals.TestStringSignal> counter = s -> all.countDown();
+        receiver.addSigHandler(SampleSignals.TestStringSignal.class, counter);
+        send("a", "b", "c", "d");
+        Assertions.assertTrue(all.await(10, TimeUnit.SECONDS), "Signals not received");
+        Assertions.assertTrue(failing.completed.await(10, TimeUnit.SECONDS), "Overflow not reported");
+        Assertions.assertTrue(failing.error.get() instanceof IllegalStateException);
+        Thread.sleep(200);
+
+        dropping.subscription.request(10);
+        latest.subscription.request(10);
+        Assertions.assertEquals(Arrays.asList("a", "b"), dropping.received);
+        Assertions.assertEquals(Arrays.asList("c", "d"), latest.received);
+        Assertions.assertTrue(failing.received.isEmpty());
+        dropping.subscription.cancel();
+        latest.subscription.cancel();
+        receiver.removeSigHandler(SampleSignals.TestStringSignal.class, counter);
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        receiver.signals(SampleSignals.TestStringSignal.class).subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        send("a");
+        Assertions.assertTrue(subscriber.await(1), "Signal not received");
+        subscriber.subscription.cancel();
+
+        CountDownLatch other = new CountDownLatch(1);
+        DBusSigHandler<SampleSignals.TestStringSignal> handler = s -> other.countDown();
+        receiver.addSigHandler(SampleSignals.TestStringSignal.class, handler);
+        send("b");
+        Assertions.assertTrue(other.await(10, TimeUnit.SECONDS), "Signal not received");
+        Thread.sleep(200);
+        Assertions.assertEquals(Arrays.asList("a"), subscriber.received);
+        receiver.removeSigHandler(SampleSignals.TestStringSignal.class, handler);
+    }
+
+    @Test
+    public void testInvalidRequest() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        receiver.signals(SampleSignals.TestStringSignal.class).subscribe(subscriber);
+        subscriber.subscription.request(0);
+        Assertions.assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS), "Error not reported");
+        Assertions.assertTrue(subscriber.error.get() instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void testCompletedOnDisconnect() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        receiver.signals(SampleSignals.TestStringSignal.class).subscribe(subscriber);
+        subscriber.subscription.request(1);
+        send("a", "b");
+        Assertions.assertTrue(subscriber.await(1), "Signal not received");
+        Thread.sleep(200);
+
+        receiver.disconnect();
+        Assertions.assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS), "Subscriber not completed");
+        Assertions.assertNull(subscriber.error.get());
+        Assertions.assertEquals(Arrays.asList("a"), subscriber.received);
+
+        // subscribing to a disconnected connection fails
+        RecordingSubscriber late = new RecordingSubscriber();
+        receiver.signals(SampleSignals.TestStringSignal.class).subscribe(late);
+        Assertions.assertTrue(late.completed.await(10, TimeUnit.SECONDS), "Late subscriber not terminated");
+    }
+
+    @Test
+    public void testExecutorRejection() throws Exception {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        DBusMatchRule rule = new DBusMatchRule(SampleSignals.TestStringSignal.class);
+        receiver.signals(SampleSignals.TestStringSignal.class, rule, 16, SignalFlow.Overflow.LATEST, r -> {
+            throw new RejectedExecutionException("Executor shut down");
+        }).subscribe(subscriber);
+        subscriber.subscription.request(1);
+
+        Assertions.assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS), "Rejection not reported");
+        Assertions.assertTrue(subscriber.error.get() instanceof RejectedExecutionException);
+    }
+
+    private void send(String... _values) throws Exception {
+        for (String value : _values) {
+            sender.sendMessage(new SampleSignals.TestStringSignal(PATH, value));
+        }
+    }
+
+    private static class RecordingSubscriber implements SignalFlow.Subscriber<SampleSignals.TestStringSignal> {
+        private final List<String>               received  = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicReference<Throwable> error     = new AtomicReference<>();
+        private final CountDownLatch             completed = new CountDownLatch(1);
+        private volatile SignalFlow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(SignalFlow.Subscription _subscription) {
+            subscription = _subscription;
+        }
+
+        @Override
+        public void onNext(SampleSignals.TestStringSignal _item) {
+            received.add(_item.getContentString());
+        }
+
+        @Override
+        public void onError(Throwable _throwable) {
+            error.set(_throwable);
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+
+        boolean await(int _count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 10000;
+            while (received.size() < _count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            return received.size() >= _count;
+        }
+    }
+}
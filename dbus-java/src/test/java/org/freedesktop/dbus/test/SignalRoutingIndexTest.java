@@ -0,0 +1,59 @@
+package org.freedesktop.dbus.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.freedesktop.dbus.SignalTuple;
+import org.freedesktop.dbus.connections.SignalRoutingIndex;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SignalRoutingIndexTest {
+    private static final String IFACE  = "org.example.Iface";
+    private static final String MEMBER = "Changed";
+
+    @Test
+    public void testTypedHandlers() {
+        Map<SignalTuple, Collection<?>> handlers = new HashMap<>();
+        handlers.put(new SignalTuple(IFACE, MEMBER, null, null), Arrays.asList("any"));
+        handlers.put(new SignalTuple(IFACE, MEMBER, "/a", null), Arrays.asList("path"));
+        handlers.put(new SignalTuple(IFACE, MEMBER, null, ":1.1"), Arrays.asList("sender"));
+        handlers.put(new SignalTuple(IFACE, MEMBER, "/a", ":1.1"), Arrays.asList("both", "both2"));
+        handlers.put(new SignalTuple(IFACE, "Other", null, null), Arrays.asList("other"));
+        handlers.put(new SignalTuple(null, null, null, null), Arrays.asList("wildcard"));
+        handlers.put(new SignalTuple(IFACE, MEMBER, "/b", null), Collections.emptyList());
+        SignalRoutingIndex index = new SignalRoutingIndex(handlers, false);
+
+        Assertions.assertEquals(Arrays.asList("any", "both", "both2", "path", "sender"), match(index, IFACE, MEMBER, "/a", ":1.1"));
+        Assertions.assertEquals(Arrays.asList("any", "path"), match(index, IFACE, MEMBER, "/a", ":1.2"));
+        Assertions.assertEquals(Arrays.asList("any"), match(index, IFACE, MEMBER, "/b", ":1.2"));
+        Assertions.assertEquals(Arrays.asList(), match(index, "org.example.Unknown", MEMBER, "/a", ":1.1"));
+    }
+
+    @Test
+    public void testGenericHandlers() {
+        Map<SignalTuple, Collection<?>> handlers = new HashMap<>();
+        handlers.put(new SignalTuple(null, null, null, null), Arrays.asList("all"));
+        handlers.put(new SignalTuple(IFACE, null, null, null), Arrays.asList("iface"));
+        handlers.put(new SignalTuple(null, MEMBER, null, null), Arrays.asList("member"));
+        handlers.put(new SignalTuple(null, null, "/a", ":1.1"), Arrays.asList("pathAndSender"));
+        handlers.put(new SignalTuple(IFACE, "Other", null, null), Arrays.asList("other"));
+        SignalRoutingIndex index = new SignalRoutingIndex(handlers, true);
+
+        Assertions.assertEquals(Arrays.asList("all", "iface", "member", "pathAndSender"), match(index, IFACE, MEMBER, "/a", ":1.1"));
+        Assertions.assertEquals(Arrays.asList("all", "member"), match(index, "org.example.Unknown", MEMBER, "/b", ":1.1"));
+        Assertions.assertTrue(SignalRoutingIndex.EMPTY.isEmpty());
+    }
+
+    private static List<Object> match(SignalRoutingIndex _index, String _iface, String _member, String _path, String _source) {
+        List<Object> result = new ArrayList<>();
+        _index.forEachMatch(_iface, _member, _path, _source, result, (r, h) -> r.addAll(Arrays.asList(h)));
+        Collections.sort(result, (a, b) -> a.toString().compareTo(b.toString()));
+        return result;
+    }
+}
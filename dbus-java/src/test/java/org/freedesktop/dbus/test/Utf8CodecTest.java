@@ -0,0 +1,45 @@
+package org.freedesktop.dbus.test;
+
+import java.nio.charset.StandardCharsets;
+
+import org.freedesktop.dbus.messages.Utf8Codec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class Utf8CodecTest {
+
+    @Test
+    public void testEncodeMatchesJdk() {
+        String[] samples = new String[] {
+                "", "org.freedesktop.DBus", "Grüße – €", "😀 emoji", "unpaired \uD800 surrogate"
+        };
+        byte[] target = new byte[256];
+        for (String sample : samples) {
+            byte[] expected = sample.getBytes(StandardCharsets.UTF_8);
+            Assertions.assertEquals(expected.length, Utf8Codec.encodedLength(sample), sample);
+
+            int end = Utf8Codec.encode(sample, target, 3);
+            Assertions.assertEquals(3 + expected.length, end, sample);
+            for (int i = 0; i < expected.length; i++) {
+                Assertions.assertEquals(expected[i], target[3 + i], sample);
+            }
+            Assertions.assertEquals(new String(expected, StandardCharsets.UTF_8), Utf8Codec.decode(target, 3, expected.length));
+        }
+    }
+
+    @Test
+    public void testDecodeCached() {
+        byte[] data = "xorg.freedesktop.DBus.Propertiesx".getBytes(StandardCharsets.UTF_8);
+        String first = Utf8Codec.decodeCached(data, 1, data.length - 2);
+        Assertions.assertEquals("org.freedesktop.DBus.Properties", first);
+        Assertions.assertSame(first, Utf8Codec.decodeCached(data.clone(), 1, data.length - 2));
+
+        // same hash input (length, middle and last bytes) but different content must not return the cached value
+        byte[] other = "xorg.freedesktop.DBus.PropertiesX".getBytes(StandardCharsets.UTF_8);
+        other[2] = 'X';
+        Assertions.assertEquals("oXg.freedesktop.DBus.Properties", Utf8Codec.decodeCached(other, 1, other.length - 2));
+
+        byte[] umlauts = "Köln".getBytes(StandardCharsets.UTF_8);
+        Assertions.assertEquals("Köln", Utf8Codec.decodeCached(umlauts, 0, umlauts.length));
+    }
+}
@@ -0,0 +1,109 @@
+package org.freedesktop.dbus.test;
+
+import org.freedesktop.dbus.annotations.DBusInterfaceName;
+import org.freedesktop.dbus.connections.AbstractConnection;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.connections.impl.DBusConnection.DBusBusType;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.DBusInterface;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class VirtualThreadWorkerTest {
+    private static final String BUS_NAME    = "org.freedesktop.dbus.test.VirtualThreadTest";
+    private static final String OBJECT_PATH = "/VirtualThreadTest";
+
+    private DBusConnection      serverconn;
+    private DBusConnection      clientconn;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        System.setProperty(AbstractConnection.VIRTUAL_THREADS_PROPERTY, "true");
+        try {
+            serverconn = DBusConnection.getConnection(DBusBusType.SESSION, false, DBusConnection.TCP_CONNECT_TIMEOUT);
+            clientconn = DBusConnection.getConnection(DBusBusType.SESSION, false, DBusConnection.TCP_CONNECT_TIMEOUT);
+        } finally {
+            System.clearProperty(AbstractConnection.VIRTUAL_THREADS_PROPERTY);
+        }
+        serverconn.requestBusName(BUS_NAME);
+        serverconn.exportObject(OBJECT_PATH, new NestedCallObject(serverconn));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        clientconn.disconnect();
+        serverconn.disconnect();
+    }
+
+    @Test
+    public void testHandlerThread() throws Exception {
+        NestedCall remote = clientconn.getRemoteObject(BUS_NAME, OBJECT_PATH, NestedCall.class);
+        // falls back to the worker pool if virtual threads are not supported
+        Assertions.assertEquals(isVirtualThreadSupported(), remote.threadName().startsWith("VirtualThread"));
+    }
+
+    @Test
+    public void testNestedSyncCalls() throws Exception {
+        Assumptions.assumeTrue(isVirtualThreadSupported(), "Virtual threads not supported by this JVM");
+        serverconn.changeThreadCount((byte) 1);
+
+        // each level blocks a handler while waiting for the next one, which would starve a single worker thread
+        NestedCall remote = clientconn.getRemoteObject(BUS_NAME, OBJECT_PATH, NestedCall.class);
+        Assertions.assertEquals(10, remote.nested(10));
+    }
+
+    private static boolean isVirtualThreadSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException _ex) {
+            return false;
+        }
+    }
+
+    @DBusInterfaceName("org.freedesktop.dbus.test.VirtualThreadTest")
+    public interface NestedCall extends DBusInterface {
+        String threadName();
+
+        int nested(int _depth);
+    }
+
+    public static class NestedCallObject implements NestedCall {
+        private final DBusConnection connection;
+
+        NestedCallObject(DBusConnection _connection) {
+            connection = _connection;
+        }
+
+        @Override
+        public String threadName() {
+            return Thread.currentThread().toString();
+        }
+
+        @Override
+        public int nested(int _depth) {
+            if (_depth <= 0) {
+                return 0;
+            }
+            try {
+                NestedCall self = connection.getRemoteObject(BUS_NAME, OBJECT_PATH, NestedCall.class);
+                return self.nested(_depth - 1) + 1;
+            } catch (DBusException _ex) {
+                throw new IllegalStateException(_ex);
+            }
+        }
+
+        @Override
+        public boolean isRemote() {
+            return false;
+        }
+
+        @Override
+        public String getObjectPath() {
+            return null;
+        }
+    }
+}